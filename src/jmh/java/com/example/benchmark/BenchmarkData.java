@@ -0,0 +1,95 @@
+package com.example.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+import com.example.model.Coordinates;
+import com.example.model.CsrGraph;
+import com.example.model.Graph;
+import com.example.model.Node;
+import com.example.model.Way;
+import com.example.util.OSMDataLoader;
+import com.example.util.TestDataGenerator;
+
+/**
+ * Loads the road networks the benchmarks run on.
+ *
+ * A dataset is either {@code generated}, a random network from
+ * {@link TestDataGenerator#generateTestGraph(int)} with the requested number of nodes, or the
+ * name of one of the test datasets ({@code mit}, {@code cambridge}, {@code midwest}), whose
+ * {@code <name>.nodes.json} and {@code <name>.ways.json} files are read from the data
+ * directory, or downloaded there on first use.
+ */
+final class BenchmarkData {
+    static final String GENERATED = "generated";
+
+    /** The seed for query points, so every run and every dataset size sees the same sequence. */
+    private static final long SEED = 42;
+
+    static {
+        // Per-request info logging would otherwise dominate the measurements
+        Logger.getLogger("").setLevel(Level.WARNING);
+    }
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Returns the nodes and ways of a dataset.
+     *
+     * @param dataset The dataset name
+     * @param nodeCount The number of nodes of a generated dataset; ignored otherwise
+     */
+    static Dataset load(String dataset, int nodeCount) throws IOException {
+        if (GENERATED.equals(dataset)) {
+            Graph graph = TestDataGenerator.generateTestGraph(nodeCount);
+            // The generator only hands out the graph, so its ways are read back from the way table
+            CsrGraph csr = graph.compact();
+            List<Way> ways = IntStream.range(0, csr.getWayTableSize()).mapToObj(csr::getWayAt).toList();
+            return new Dataset(graph.getNodes(), ways);
+        }
+        String name = dataset.toLowerCase(Locale.ROOT);
+        OSMDataLoader loader = new OSMDataLoader();
+        return new Dataset(loader.loadData(name + ".nodes.json", Node::fromMap),
+                           loader.loadData(name + ".ways.json", Way::fromMap));
+    }
+
+    /**
+     * Picks random pairs of road nodes as route queries.
+     *
+     * @return An array of {start, end} pairs
+     */
+    static Node[][] nodePairs(Graph graph, int count) {
+        List<Node> nodes = graph.getNodes();
+        Random random = new Random(SEED);
+        Node[][] pairs = new Node[count][];
+        for (int i = 0; i < count; i++) {
+            pairs[i] = new Node[] {nodes.get(random.nextInt(nodes.size())), nodes.get(random.nextInt(nodes.size()))};
+        }
+        return pairs;
+    }
+
+    /**
+     * Picks random points near road nodes, about as far off the road as a click on a map.
+     */
+    static Coordinates[] points(Graph graph, int count) {
+        List<Node> nodes = graph.getNodes();
+        Random random = new Random(SEED);
+        List<Coordinates> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Node node = nodes.get(random.nextInt(nodes.size()));
+            points.add(new Coordinates(node.lat() + (random.nextDouble() - 0.5) * 0.001,
+                                       node.lon() + (random.nextDouble() - 0.5) * 0.001));
+        }
+        return points.toArray(new Coordinates[0]);
+    }
+
+    record Dataset(List<Node> nodes, List<Way> ways) {
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.model.Graph;
+import com.example.model.Node;
+import com.example.model.Way;
+import com.example.util.DataFileManager;
+import com.example.util.OSMDataLoader;
+
+/**
+ * Measures startup work: parsing the JSON node file and building the graph from loaded nodes
+ * and ways. Each call is a whole load, so the average time per call is reported along with
+ * its percentiles.
+ *
+ * A generated dataset is written to a temporary nodes file in the data directory first, so
+ * that it is parsed the same way as the real ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LoadingBenchmark {
+    @Param({BenchmarkData.GENERATED})
+    public String dataset;
+
+    @Param({"10000", "100000"})
+    public int nodes;
+
+    private List<Node> loadedNodes;
+    private List<Way> loadedWays;
+    private String nodesFile;
+    private Path generatedFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkData.Dataset data = BenchmarkData.load(dataset, nodes);
+        loadedNodes = data.nodes();
+        loadedWays = data.ways();
+        if (BenchmarkData.GENERATED.equals(dataset)) {
+            nodesFile = "benchmark-" + nodes + ".nodes.json";
+            generatedFile = Paths.get(DataFileManager.DATA_DIR, nodesFile);
+            Files.createDirectories(generatedFile.getParent());
+            new OSMDataLoader().saveData(loadedNodes.stream().map(LoadingBenchmark::toMap).toList(),
+                                         generatedFile.toString());
+        } else {
+            nodesFile = dataset + ".nodes.json";
+        }
+    }
+
+    private static Map<String, Object> toMap(Node node) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", node.id());
+        map.put("lat", node.lat());
+        map.put("lon", node.lon());
+        map.put("tags", node.tags());
+        return map;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (generatedFile != null) {
+            Files.deleteIfExists(generatedFile);
+        }
+    }
+
+    @Benchmark
+    public List<Node> loadNodes() throws IOException {
+        return new OSMDataLoader().loadData(nodesFile, Node::fromMap);
+    }
+
+    @Benchmark
+    public Graph buildGraph() {
+        return new Graph(loadedNodes, loadedWays);
+    }
+}
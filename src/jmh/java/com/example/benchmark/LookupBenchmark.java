@@ -0,0 +1,76 @@
+package com.example.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.model.Coordinates;
+import com.example.model.Graph;
+import com.example.model.Location;
+import com.example.model.Node;
+import com.example.service.InMemoryLocationService;
+import com.example.service.MapService;
+
+/**
+ * Measures the lookups behind every request: snapping a point to the nearest road node, and
+ * the radius and keyword search for locations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark {
+    private static final int QUERY_COUNT = 1024;
+    private static final String[] KEYWORDS = {"cafe", "pizza", "starbucks", "pharmacy", ""};
+
+    @Param({BenchmarkData.GENERATED})
+    public String dataset;
+
+    @Param({"10000", "100000"})
+    public int nodes;
+
+    @Param({"1.0"})
+    public double radiusKm;
+
+    private Graph graph;
+    private MapService mapService;
+    private Coordinates[] points;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkData.Dataset data = BenchmarkData.load(dataset, nodes);
+        graph = new Graph(data.nodes(), data.ways());
+        mapService = new MapService(new InMemoryLocationService(graph), graph);
+        points = BenchmarkData.points(graph, QUERY_COUNT);
+    }
+
+    @Benchmark
+    public Node nearestRelevantNode() {
+        Coordinates point = points[next];
+        next = (next + 1) % QUERY_COUNT;
+        return graph.findNearestRelevantNode(point);
+    }
+
+    @Benchmark
+    public List<Location> searchWithinRadius() {
+        Coordinates point = points[next];
+        String keyword = KEYWORDS[next % KEYWORDS.length];
+        next = (next + 1) % QUERY_COUNT;
+        return mapService.searchLocationsWithinRadiusAndKeyword(keyword, "", "", point, radiusKm);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.model.DijkstraPathFinder;
+import com.example.model.FastestPathFinder;
+import com.example.model.Graph;
+import com.example.model.Node;
+
+/**
+ * Measures point-to-point route searches between random pairs of road nodes.
+ *
+ * Each call routes the next pair of a fixed sequence, so the result averages over short and
+ * long routes alike. Sample time mode reports latency percentiles next to throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoutingBenchmark {
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({BenchmarkData.GENERATED})
+    public String dataset;
+
+    @Param({"10000", "100000"})
+    public int nodes;
+
+    private DijkstraPathFinder shortest;
+    private FastestPathFinder fastest;
+    private Node[][] queries;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkData.Dataset data = BenchmarkData.load(dataset, nodes);
+        Graph graph = new Graph(data.nodes(), data.ways());
+        shortest = new DijkstraPathFinder(graph);
+        fastest = new FastestPathFinder(graph);
+        queries = BenchmarkData.nodePairs(graph, QUERY_COUNT);
+    }
+
+    private Node[] nextQuery() {
+        Node[] query = queries[next];
+        next = (next + 1) % QUERY_COUNT;
+        return query;
+    }
+
+    @Benchmark
+    public List<Node> shortestPath() {
+        Node[] query = nextQuery();
+        return shortest.findShortestPath(query[0], query[1]);
+    }
+
+    @Benchmark
+    public List<Node> fastestPath() {
+        Node[] query = nextQuery();
+        return fastest.findFastestPath(query[0], query[1]);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.model;
+
+import java.util.*;
+
+/**
+ * Finds optimal paths with A* search over the compiled road network.
+ *
+ * The heuristic is the distance to the target on an equirectangular projection taken at the
+ * graph's highest latitude, which needs no trigonometry and never exceeds the great-circle
+ * distance, converted into a lower bound for the chosen metric (for travel time, the
+ * distance is divided by the network's highest speed limit). Because edge lengths are
+ * great-circle distances, the heuristic never overestimates and is consistent, so the first
+ * time the target is settled its distance is optimal, while far fewer nodes are settled
+ * than with plain Dijkstra.
+ */
+public class AStarPathFinder {
+    private final Graph graph;
+    private final RouteMetric metric;
+
+    public AStarPathFinder(Graph graph, RouteMetric metric) {
+        this.graph = graph;
+        this.metric = metric;
+    }
+
+    /**
+     * Finds the optimal path between two nodes under this finder's metric.
+     *
+     * @param start The starting node
+     * @param end The destination node
+     * @return The path and the number of nodes settled to find it
+     */
+    public PathResult findPath(Node start, Node end) {
+        return findPath(List.of(new PathEndpoint(start, 0)), List.of(new PathEndpoint(end, 0)));
+    }
+
+    /**
+     * Finds the cheapest path from any of the start nodes to any of the end nodes, counting
+     * each endpoint's cost. The heuristic is the smallest bound to an end plus its cost,
+     * which stays consistent, so the search still stops as soon as no queued node can lead
+     * to a cheaper path.
+     *
+     * @param starts The nodes the path may start at, with the cost of starting there
+     * @param ends The nodes the path may end at, with the cost of ending there
+     * @return The path and the number of nodes settled to find it
+     */
+    public PathResult findPath(List<PathEndpoint> starts, List<PathEndpoint> ends) {
+        CsrGraph csr = graph.compact();
+        PathEndpoint.Indexed sources = PathEndpoint.index(csr, starts);
+        PathEndpoint.Indexed targets = PathEndpoint.index(csr, ends);
+        if (sources.count() == 0 || targets.count() == 0) {
+            return new PathResult(null, 0);
+        }
+        int same = sources.freeMeeting(targets);
+        if (same >= 0) {
+            return new PathResult(List.of(csr.getNode(same)), 1);
+        }
+
+        try (SearchWorkspace search = SearchWorkspace.acquire(csr.getNodeCount())) {
+            for (int i = 0; i < sources.count(); i++) {
+                int source = sources.nodes()[i];
+                double cost = sources.costs()[i];
+                search.relax(source, cost, -1, cost + heuristic(csr, source, targets));
+            }
+            double best = Double.POSITIVE_INFINITY;
+            int bestTarget = -1;
+
+            while (!search.isEmpty() && search.peekKey() < best) {
+                int current = search.poll();
+                double distance = search.distance(current);
+                double arrival = distance + targets.costAt(current);
+                if (arrival < best) {
+                    best = arrival;
+                    bestTarget = current;
+                }
+                if (distance >= best) {
+                    continue; // No path on from here can beat the best one
+                }
+
+                for (int e = csr.firstEdge(current); e < csr.lastEdge(current); e++) {
+                    int neighbor = csr.getTarget(e);
+                    double newDist = distance + metric.weight(csr, e);
+                    // The heuristic is only worth computing for an improvement
+                    if (newDist < search.distance(neighbor)) {
+                        search.relax(neighbor, newDist, current, newDist + heuristic(csr, neighbor, targets));
+                    }
+                }
+            }
+
+            if (bestTarget < 0) {
+                return new PathResult(null, search.settledCount());
+            }
+            return new PathResult(search.path(csr, bestTarget), search.settledCount());
+        }
+    }
+
+    private double heuristic(CsrGraph csr, int node, PathEndpoint.Indexed targets) {
+        double bound = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < targets.count(); i++) {
+            int target = targets.nodes()[i];
+            double meters = Coordinates.equirectangularKm(csr.getLatitude(node), csr.getLongitude(node),
+                                                          csr.getLatitude(target), csr.getLongitude(target),
+                                                          csr.getMinCosLatitude()) * 1000;
+            bound = Math.min(bound, metric.lowerBound(csr, meters) + targets.costs()[i]);
+        }
+        return bound;
+    }
+}
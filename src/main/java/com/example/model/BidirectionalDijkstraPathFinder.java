@@ -0,0 +1,129 @@
+package com.example.model;
+
+import java.util.*;
+
+/**
+ * Finds optimal paths by running Dijkstra simultaneously forward from the start
+ * and backward (over reversed edges) from the destination.
+ *
+ * Each search only has to cover roughly half the trip, so together they explore two
+ * small discs instead of one disc whose radius is the full trip length. The search keeps
+ * the best start-to-destination distance seen where the two searches touch, and stops
+ * once the smallest keys of both queues add up to at least that distance; at that point
+ * no undiscovered path can be shorter.
+ *
+ * Each direction runs in its own pooled {@link SearchWorkspace}.
+ */
+public class BidirectionalDijkstraPathFinder {
+    private final Graph graph;
+    private final RouteMetric metric;
+
+    public BidirectionalDijkstraPathFinder(Graph graph, RouteMetric metric) {
+        this.graph = graph;
+        this.metric = metric;
+    }
+
+    /**
+     * Finds the optimal path between two nodes under this finder's metric.
+     *
+     * @param start The starting node
+     * @param end The destination node
+     * @return The path and the number of nodes settled by both searches together
+     */
+    public PathResult findPath(Node start, Node end) {
+        return findPath(List.of(new PathEndpoint(start, 0)), List.of(new PathEndpoint(end, 0)));
+    }
+
+    /**
+     * Finds the cheapest path from any of the start nodes to any of the end nodes, counting
+     * each endpoint's cost: the forward search starts from every start node at its cost and
+     * the backward search from every end node at its cost.
+     *
+     * @param starts The nodes the path may start at, with the cost of starting there
+     * @param ends The nodes the path may end at, with the cost of ending there
+     * @return The path and the number of nodes settled by both searches together
+     */
+    public PathResult findPath(List<PathEndpoint> starts, List<PathEndpoint> ends) {
+        CsrGraph csr = graph.compact();
+        PathEndpoint.Indexed sources = PathEndpoint.index(csr, starts);
+        PathEndpoint.Indexed targets = PathEndpoint.index(csr, ends);
+        if (sources.count() == 0 || targets.count() == 0) {
+            return new PathResult(null, 0);
+        }
+        int same = sources.freeMeeting(targets);
+        if (same >= 0) {
+            return new PathResult(List.of(csr.getNode(same)), 1);
+        }
+
+        try (SearchWorkspace forward = SearchWorkspace.acquire(csr.getNodeCount());
+             SearchWorkspace backward = SearchWorkspace.acquire(csr.getNodeCount())) {
+            for (int i = 0; i < sources.count(); i++) {
+                forward.relax(sources.nodes()[i], sources.costs()[i], -1, sources.costs()[i]);
+            }
+            for (int i = 0; i < targets.count(); i++) {
+                backward.relax(targets.nodes()[i], targets.costs()[i], -1, targets.costs()[i]);
+            }
+            double best = Double.POSITIVE_INFINITY;
+            int meetingNode = -1;
+            // A node that is both a start and an end is a path of its own
+            for (int i = 0; i < sources.count(); i++) {
+                int node = sources.nodes()[i];
+                double candidate = forward.distance(node) + backward.distance(node);
+                if (candidate < best) {
+                    best = candidate;
+                    meetingNode = node;
+                }
+            }
+
+            while (!forward.isEmpty() && !backward.isEmpty()) {
+                if (forward.peekKey() + backward.peekKey() >= best) {
+                    break;
+                }
+                boolean expandForward = forward.peekKey() <= backward.peekKey();
+                SearchWorkspace current = expandForward ? forward : backward;
+                SearchWorkspace other = expandForward ? backward : forward;
+                int node = current.poll();
+                double distance = current.distance(node);
+
+                if (expandForward) {
+                    for (int e = csr.firstEdge(node); e < csr.lastEdge(node); e++) {
+                        int neighbor = csr.getTarget(e);
+                        double newDist = distance + metric.weight(csr, e);
+                        current.relax(neighbor, newDist, node, newDist);
+                        double candidate = current.distance(neighbor) + other.distance(neighbor);
+                        if (candidate < best) {
+                            best = candidate;
+                            meetingNode = neighbor;
+                        }
+                    }
+                } else {
+                    for (int i = csr.firstInEdge(node); i < csr.lastInEdge(node); i++) {
+                        int neighbor = csr.getInSource(i);
+                        double newDist = distance + metric.weight(csr, csr.getInEdge(i));
+                        current.relax(neighbor, newDist, node, newDist);
+                        double candidate = current.distance(neighbor) + other.distance(neighbor);
+                        if (candidate < best) {
+                            best = candidate;
+                            meetingNode = neighbor;
+                        }
+                    }
+                }
+            }
+
+            int settled = forward.settledCount() + backward.settledCount();
+            if (meetingNode < 0) {
+                return new PathResult(null, settled);
+            }
+            return new PathResult(reconstructPath(csr, forward, backward, meetingNode), settled);
+        }
+    }
+
+    private List<Node> reconstructPath(CsrGraph csr, SearchWorkspace forward, SearchWorkspace backward, int meetingNode) {
+        List<Node> path = forward.path(csr, meetingNode);
+        // In the backward search, the parent is one step closer to the destination.
+        for (int node = backward.parent(meetingNode); node != -1; node = backward.parent(node)) {
+            path.add(csr.getNode(node));
+        }
+        return path;
+    }
+}
@@ -0,0 +1,396 @@
+package com.example.model;
+
+import java.util.Arrays;
+
+/**
+ * A search view of a {@link CsrGraph} in which every chain of degree-2 nodes is collapsed
+ * into a single weighted edge.
+ *
+ * OSM ways are drawn with many intermediate shape points, and each of them is a node that a
+ * search has to settle although the route can only go straight through it. Here a node is
+ * an interior chain node when it connects to exactly two other nodes and the road does not
+ * change across it: either it is two-way on both sides or it is one-way in and out in the
+ * same direction, and the speed limit is the same on both sides. All other nodes are
+ * junctions. A chain edge runs from a junction through interior nodes to the next junction
+ * and carries the summed length and travel time of the edges it replaces; the interior
+ * nodes it passes are kept, in order, in a side geometry array so that paths can be
+ * expanded back to every original node.
+ *
+ * Nodes keep their {@link CsrGraph} indices, so per-node search state sized for the graph
+ * can be used unchanged; interior nodes simply have no chain edges of their own. A two-way
+ * chain is stored as two chain edges, one per direction, linked by {@link #getReverse(int)}.
+ * Pure cycles of interior nodes with no junction on them get one of their nodes promoted to
+ * a junction.
+ *
+ * Instances are immutable and built by {@link CsrGraph#getChainGraph()}.
+ */
+public final class ChainCompressedGraph {
+    private final CsrGraph graph;
+    /** Chain edge range start for each node; has one extra trailing entry holding the edge count. */
+    private final int[] offsets;
+    private final int[] sources;
+    private final int[] targets;
+    private final double[] lengthsMeters;
+    private final double[] travelTimesSeconds;
+    /** The chain edge running the other way over the same nodes, or -1. */
+    private final int[] reverse;
+    /** Geometry range start for each chain edge, indexing {@link #geometry}. */
+    private final int[] geometryOffsets;
+    /** The interior nodes of each chain edge, in driving order. */
+    private final int[] geometry;
+    /** The length from the chain edge's source to each of its interior nodes. */
+    private final double[] geometryLengths;
+    /** The travel time from the chain edge's source to each of its interior nodes. */
+    private final double[] geometryTimes;
+    /** For interior nodes, the geometry position of the node in a chain edge holding it; -1 for junctions. */
+    private final int[] slotOf;
+    /** For interior nodes, the chain edge that {@link #slotOf} refers to; -1 for junctions. */
+    private final int[] chainOf;
+
+    ChainCompressedGraph(CsrGraph graph) {
+        this.graph = graph;
+        int n = graph.getNodeCount();
+        boolean[] interior = new boolean[n];
+        for (int v = 0; v < n; v++) {
+            interior[v] = isInterior(graph, v);
+        }
+        breakCycles(graph, interior);
+
+        Chains chains = new Chains(Math.max(16, graph.getEdgeCount() / 4), Math.max(16, graph.getEdgeCount() / 2));
+        int[] firstChain = new int[n];
+        int[] secondChain = new int[n];
+        Arrays.fill(firstChain, -1);
+        Arrays.fill(secondChain, -1);
+        for (int v = 0; v < n; v++) {
+            if (!interior[v]) {
+                walkFrom(v, interior, chains, firstChain, secondChain);
+            }
+        }
+
+        int m = chains.count;
+        this.sources = Arrays.copyOf(chains.sources, m);
+        this.targets = new int[m];
+        this.lengthsMeters = new double[m];
+        this.travelTimesSeconds = new double[m];
+        this.geometryOffsets = new int[m + 1];
+        this.reverse = new int[m];
+        this.geometry = Arrays.copyOf(chains.geometry, chains.geometrySize);
+        this.geometryLengths = Arrays.copyOf(chains.geometryLengths, chains.geometrySize);
+        this.geometryTimes = Arrays.copyOf(chains.geometryTimes, chains.geometrySize);
+        System.arraycopy(chains.targets, 0, targets, 0, m);
+        System.arraycopy(chains.lengths, 0, lengthsMeters, 0, m);
+        System.arraycopy(chains.times, 0, travelTimesSeconds, 0, m);
+        System.arraycopy(chains.geometryStarts, 0, geometryOffsets, 0, m);
+        geometryOffsets[m] = chains.geometrySize;
+
+        // Chains are walked junction by junction, so they are already grouped by source
+        this.offsets = new int[n + 1];
+        for (int c = 0; c < m; c++) {
+            offsets[sources[c] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        this.slotOf = new int[n];
+        this.chainOf = firstChain;
+        Arrays.fill(slotOf, -1);
+        for (int c = 0; c < m; c++) {
+            reverse[c] = -1;
+            for (int slot = geometryOffsets[c]; slot < geometryOffsets[c + 1]; slot++) {
+                int v = geometry[slot];
+                if (firstChain[v] == c) {
+                    slotOf[v] = slot;
+                }
+            }
+            if (geometryOffsets[c] < geometryOffsets[c + 1]) {
+                int first = geometry[geometryOffsets[c]];
+                int other = firstChain[first] == c ? secondChain[first] : firstChain[first];
+                reverse[c] = other;
+            }
+        }
+    }
+
+    /**
+     * Checks whether a node only passes traffic straight through, so that it can be folded
+     * into a chain.
+     */
+    private static boolean isInterior(CsrGraph graph, int v) {
+        int outDegree = graph.lastEdge(v) - graph.firstEdge(v);
+        int inDegree = graph.lastInEdge(v) - graph.firstInEdge(v);
+        if (outDegree == 1 && inDegree == 1) {
+            int out = graph.firstEdge(v);
+            int in = graph.getInEdge(graph.firstInEdge(v));
+            int from = graph.getInSource(graph.firstInEdge(v));
+            int to = graph.getTarget(out);
+            return from != to && from != v && to != v && graph.getSpeedMph(in) == graph.getSpeedMph(out);
+        }
+        if (outDegree == 2 && inDegree == 2) {
+            int a = graph.getTarget(graph.firstEdge(v));
+            int b = graph.getTarget(graph.firstEdge(v) + 1);
+            if (a == b || a == v || b == v) {
+                return false;
+            }
+            int aIn = graph.findEdge(a, v);
+            int bIn = graph.findEdge(b, v);
+            if (aIn < 0 || bIn < 0) {
+                return false;
+            }
+            int aOut = graph.firstEdge(v);
+            int bOut = aOut + 1;
+            return graph.getSpeedMph(aIn) == graph.getSpeedMph(bOut)
+                && graph.getSpeedMph(bIn) == graph.getSpeedMph(aOut);
+        }
+        return false;
+    }
+
+    /**
+     * Promotes one node of every cycle made only of interior nodes to a junction, so that
+     * every interior node lies on a chain that starts at a junction.
+     */
+    private static void breakCycles(CsrGraph graph, boolean[] interior) {
+        boolean[] visited = new boolean[interior.length];
+        for (int start = 0; start < interior.length; start++) {
+            if (!interior[start] || visited[start]) {
+                continue;
+            }
+            int previous = -1;
+            int current = start;
+            while (interior[current] && !visited[current]) {
+                visited[current] = true;
+                int next = graph.firstEdge(current);
+                if (graph.getTarget(next) == previous) {
+                    next++;
+                }
+                previous = current;
+                current = graph.getTarget(next);
+            }
+            if (current == start) {
+                interior[start] = false;
+            }
+        }
+    }
+
+    /** Records one chain edge for every outgoing edge of a junction. */
+    private void walkFrom(int junction, boolean[] interior, Chains chains, int[] firstChain, int[] secondChain) {
+        for (int e = graph.firstEdge(junction); e < graph.lastEdge(junction); e++) {
+            int chain = chains.count;
+            int geometryStart = chains.geometrySize;
+            int previous = junction;
+            int current = graph.getTarget(e);
+            double length = graph.getLengthMeters(e);
+            double time = graph.getTravelTimeSeconds(e);
+            while (interior[current]) {
+                chains.addGeometry(current, length, time);
+                if (firstChain[current] < 0) {
+                    firstChain[current] = chain;
+                } else {
+                    secondChain[current] = chain;
+                }
+                int next = graph.firstEdge(current);
+                if (graph.getTarget(next) == previous) {
+                    next++;
+                }
+                length += graph.getLengthMeters(next);
+                time += graph.getTravelTimeSeconds(next);
+                previous = current;
+                current = graph.getTarget(next);
+            }
+            chains.addChain(junction, current, length, time, geometryStart);
+        }
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the number of junctions, the nodes a search over this view settles.
+     *
+     * @return The junction count
+     */
+    public int getJunctionCount() {
+        int count = 0;
+        for (int slot : slotOf) {
+            if (slot < 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of chain edges.
+     *
+     * @return The chain edge count
+     */
+    public int getEdgeCount() {
+        return sources.length;
+    }
+
+    public boolean isJunction(int node) {
+        return slotOf[node] < 0;
+    }
+
+    /**
+     * Returns the start of the chain edge range of a node; interior nodes have an empty range.
+     *
+     * @param node The node index
+     * @return The index of the node's first outgoing chain edge
+     */
+    public int firstEdge(int node) {
+        return offsets[node];
+    }
+
+    /**
+     * Returns the end (exclusive) of the chain edge range of a node.
+     *
+     * @param node The node index
+     * @return One past the index of the node's last outgoing chain edge
+     */
+    public int lastEdge(int node) {
+        return offsets[node + 1];
+    }
+
+    public int getSource(int edge) {
+        return sources[edge];
+    }
+
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Returns the chain edge running the other way over the same interior nodes.
+     *
+     * @param edge The chain edge index
+     * @return The reverse chain edge, or -1 if the chain is one-way or has no interior nodes
+     */
+    public int getReverse(int edge) {
+        return reverse[edge];
+    }
+
+    /**
+     * Returns the weight of a chain edge under a metric, the sum of the weights of the edges
+     * it replaces.
+     *
+     * @param edge The chain edge index
+     * @param metric The metric
+     * @return The length in meters or travel time in seconds
+     */
+    public double weight(int edge, RouteMetric metric) {
+        return metric == RouteMetric.DISTANCE ? lengthsMeters[edge] : travelTimesSeconds[edge];
+    }
+
+    /**
+     * Returns the number of interior nodes a chain edge passes.
+     *
+     * @param edge The chain edge index
+     * @return The interior node count
+     */
+    public int getInteriorCount(int edge) {
+        return geometryOffsets[edge + 1] - geometryOffsets[edge];
+    }
+
+    /**
+     * Returns an interior node of a chain edge.
+     *
+     * @param edge The chain edge index
+     * @param position The position along the chain, from 0 for the node after the source
+     * @return The node index
+     */
+    public int getInterior(int edge, int position) {
+        return geometry[geometryOffsets[edge] + position];
+    }
+
+    /**
+     * Returns the weight of the part of a chain edge from its source up to one of its
+     * interior nodes.
+     *
+     * @param edge The chain edge index
+     * @param position The position of the interior node, see {@link #getInterior(int, int)}
+     * @param metric The metric
+     * @return The length in meters or travel time in seconds
+     */
+    public double weightTo(int edge, int position, RouteMetric metric) {
+        int slot = geometryOffsets[edge] + position;
+        return metric == RouteMetric.DISTANCE ? geometryLengths[slot] : geometryTimes[slot];
+    }
+
+    /**
+     * Returns a chain edge passing through an interior node.
+     *
+     * @param node The node index
+     * @return The chain edge, or -1 if the node is a junction
+     */
+    public int getChain(int node) {
+        return chainOf[node];
+    }
+
+    /**
+     * Returns the position of an interior node along a chain edge passing through it.
+     *
+     * @param node The interior node index
+     * @param edge The chain edge, either {@link #getChain(int)} or its reverse
+     * @return The position, see {@link #getInterior(int, int)}
+     */
+    public int positionOf(int node, int edge) {
+        int position = slotOf[node] - geometryOffsets[chainOf[node]];
+        return edge == chainOf[node] ? position : getInteriorCount(edge) - 1 - position;
+    }
+
+    /** Growable arrays of the chain edges and geometry found while walking. */
+    private static final class Chains {
+        int count;
+        int[] sources;
+        int[] targets;
+        double[] lengths;
+        double[] times;
+        int[] geometryStarts;
+        int geometrySize;
+        int[] geometry;
+        double[] geometryLengths;
+        double[] geometryTimes;
+
+        Chains(int expectedChains, int expectedGeometry) {
+            sources = new int[expectedChains];
+            targets = new int[expectedChains];
+            lengths = new double[expectedChains];
+            times = new double[expectedChains];
+            geometryStarts = new int[expectedChains];
+            geometry = new int[expectedGeometry];
+            geometryLengths = new double[expectedGeometry];
+            geometryTimes = new double[expectedGeometry];
+        }
+
+        void addChain(int source, int target, double length, double time, int geometryStart) {
+            if (count == sources.length) {
+                int capacity = count * 2;
+                sources = Arrays.copyOf(sources, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                times = Arrays.copyOf(times, capacity);
+                geometryStarts = Arrays.copyOf(geometryStarts, capacity);
+            }
+            sources[count] = source;
+            targets[count] = target;
+            lengths[count] = length;
+            times[count] = time;
+            geometryStarts[count] = geometryStart;
+            count++;
+        }
+
+        void addGeometry(int node, double length, double time) {
+            if (geometrySize == geometry.length) {
+                int capacity = geometrySize * 2;
+                geometry = Arrays.copyOf(geometry, capacity);
+                geometryLengths = Arrays.copyOf(geometryLengths, capacity);
+                geometryTimes = Arrays.copyOf(geometryTimes, capacity);
+            }
+            geometry[geometrySize] = node;
+            geometryLengths[geometrySize] = length;
+            geometryTimes[geometrySize] = time;
+            geometrySize++;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * The search graph produced by contracting a road network, see
+ * {@link ContractionHierarchyBuilder}.
+ *
+ * Every node has a rank (the order in which it was contracted). Each edge, original or
+ * shortcut, is stored once at its lower-ranked endpoint: in the upward lists if it leads to
+ * a higher-ranked node, and in the downward lists (by source) if it comes from one. A query
+ * only ever climbs the hierarchy, forward from the start over upward edges and backward
+ * from the destination over downward edges, so it settles a tiny part of the network.
+ *
+ * Shortcuts record the node they bypass, so a path can be unpacked back into original edges.
+ * Besides its weight under the metric, every edge also carries its length in meters.
+ *
+ * A hierarchy can be saved to disk and loaded again; it records the fingerprint of the graph
+ * it was built from so that a stale file is never used with a different graph.
+ */
+public final class ContractionHierarchy {
+    private static final Logger logger = Logger.getLogger(ContractionHierarchy.class.getName());
+    private static final int FILE_MAGIC = 0x534d4348; // "SMCH"
+    private static final int FILE_VERSION = 1;
+
+    private final RouteMetric metric;
+    private final long graphFingerprint;
+    private final int[] rank;
+    private final EdgeList upward;
+    private final EdgeList downward;
+
+    private ContractionHierarchy(RouteMetric metric, long graphFingerprint, int[] rank,
+                                 EdgeList upward, EdgeList downward) {
+        this.metric = metric;
+        this.graphFingerprint = graphFingerprint;
+        this.rank = rank;
+        this.upward = upward;
+        this.downward = downward;
+    }
+
+    static ContractionHierarchy fromAdjacency(CsrGraph graph, RouteMetric metric, int[] rank,
+                                              ContractionHierarchyBuilder.Adjacency[] upward,
+                                              ContractionHierarchyBuilder.Adjacency[] downward) {
+        return new ContractionHierarchy(metric, graph.getFingerprint(), rank,
+                EdgeList.of(upward), EdgeList.of(downward));
+    }
+
+    /**
+     * Returns the hierarchy for the given graph and metric from the cache directory, building
+     * and saving it first if no up-to-date file exists there.
+     *
+     * @param graph The compiled road network
+     * @param metric The metric to build the hierarchy for
+     * @param cacheDirectory The directory hierarchies are saved in
+     * @return The hierarchy
+     */
+    public static ContractionHierarchy loadOrBuild(CsrGraph graph, RouteMetric metric, Path cacheDirectory) {
+        Path file = cacheDirectory.resolve(String.format("ch-%s-%016x.bin",
+                metric.name().toLowerCase(Locale.ROOT), graph.getFingerprint()));
+        if (Files.isRegularFile(file)) {
+            try {
+                ContractionHierarchy hierarchy = readFrom(file);
+                if (hierarchy.matches(graph, metric)) {
+                    logger.info("Loaded contraction hierarchy from " + file);
+                    return hierarchy;
+                }
+                logger.warning("Contraction hierarchy in " + file + " does not match the graph, rebuilding");
+            } catch (IOException e) {
+                logger.warning("Could not read contraction hierarchy from " + file + ": " + e.getMessage());
+            }
+        }
+
+        ContractionHierarchy hierarchy = ContractionHierarchyBuilder.build(graph, metric);
+        try {
+            Files.createDirectories(cacheDirectory);
+            hierarchy.writeTo(file);
+            logger.info("Saved contraction hierarchy to " + file);
+        } catch (IOException e) {
+            logger.warning("Could not save contraction hierarchy to " + file + ": " + e.getMessage());
+        }
+        return hierarchy;
+    }
+
+    /**
+     * Checks whether this hierarchy was built for the given graph and metric.
+     *
+     * @param graph The compiled road network
+     * @param metric The metric
+     * @return true if the hierarchy can be used to route on the graph under the metric
+     */
+    public boolean matches(CsrGraph graph, RouteMetric metric) {
+        return this.metric == metric
+                && graphFingerprint == graph.getFingerprint()
+                && rank.length == graph.getNodeCount();
+    }
+
+    public RouteMetric getMetric() {
+        return metric;
+    }
+
+    public int getNodeCount() {
+        return rank.length;
+    }
+
+    public int getRank(int node) {
+        return rank[node];
+    }
+
+    /**
+     * Returns the number of shortcut edges in the hierarchy.
+     *
+     * @return The number of shortcuts
+     */
+    public int getShortcutCount() {
+        return upward.countShortcuts() + downward.countShortcuts();
+    }
+
+    /** Returns the edge lists leading up from each node to higher-ranked nodes. */
+    EdgeList upward() {
+        return upward;
+    }
+
+    /** Returns the edge lists leading down into each node from higher-ranked nodes. */
+    EdgeList downward() {
+        return downward;
+    }
+
+    /**
+     * Saves the hierarchy to a file.
+     *
+     * @param file The file to write
+     * @throws IOException If the file cannot be written
+     */
+    public void writeTo(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeUTF(metric.name());
+            out.writeLong(graphFingerprint);
+            out.writeInt(rank.length);
+            for (int r : rank) {
+                out.writeInt(r);
+            }
+            upward.writeTo(out);
+            downward.writeTo(out);
+        }
+    }
+
+    /**
+     * Loads a hierarchy saved with {@link #writeTo(Path)}.
+     *
+     * @param file The file to read
+     * @return The hierarchy
+     * @throws IOException If the file cannot be read or is not a saved hierarchy
+     */
+    public static ContractionHierarchy readFrom(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Not a contraction hierarchy file: " + file);
+            }
+            int version = in.readInt();
+            if (version != FILE_VERSION) {
+                throw new IOException("Unsupported contraction hierarchy version " + version);
+            }
+            RouteMetric metric;
+            try {
+                metric = RouteMetric.valueOf(in.readUTF());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown route metric in " + file, e);
+            }
+            long fingerprint = in.readLong();
+            int nodeCount = in.readInt();
+            int[] rank = new int[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                rank[i] = in.readInt();
+            }
+            EdgeList upward = EdgeList.readFrom(in, nodeCount);
+            EdgeList downward = EdgeList.readFrom(in, nodeCount);
+            return new ContractionHierarchy(metric, fingerprint, rank, upward, downward);
+        }
+    }
+
+    /**
+     * Edges grouped by the node they are stored at, in compressed-sparse-row form.
+     * {@code others} holds the far endpoint: the target for upward edges, the source for
+     * downward ones.
+     */
+    static final class EdgeList {
+        final int[] offsets;
+        final int[] others;
+        final double[] weights;
+        final double[] lengths;
+        final int[] middles;
+
+        private EdgeList(int[] offsets, int[] others, double[] weights, double[] lengths, int[] middles) {
+            this.offsets = offsets;
+            this.others = others;
+            this.weights = weights;
+            this.lengths = lengths;
+            this.middles = middles;
+        }
+
+        static EdgeList of(ContractionHierarchyBuilder.Adjacency[] adjacency) {
+            int[] offsets = new int[adjacency.length + 1];
+            for (int node = 0; node < adjacency.length; node++) {
+                offsets[node + 1] = offsets[node] + adjacency[node].size;
+            }
+            int edgeCount = offsets[adjacency.length];
+            int[] others = new int[edgeCount];
+            double[] weights = new double[edgeCount];
+            double[] lengths = new double[edgeCount];
+            int[] middles = new int[edgeCount];
+            for (int node = 0; node < adjacency.length; node++) {
+                ContractionHierarchyBuilder.Adjacency list = adjacency[node];
+                int offset = offsets[node];
+                System.arraycopy(list.nodes, 0, others, offset, list.size);
+                System.arraycopy(list.weights, 0, weights, offset, list.size);
+                System.arraycopy(list.lengths, 0, lengths, offset, list.size);
+                System.arraycopy(list.middles, 0, middles, offset, list.size);
+            }
+            return new EdgeList(offsets, others, weights, lengths, middles);
+        }
+
+        /**
+         * Returns the position of the edge between the given node and the given far
+         * endpoint, or -1 if there is none.
+         */
+        int find(int node, int other) {
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                if (others[i] == other) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int countShortcuts() {
+            int count = 0;
+            for (int middle : middles) {
+                if (middle >= 0) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(others.length);
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            for (int i = 0; i < others.length; i++) {
+                out.writeInt(others[i]);
+                out.writeDouble(weights[i]);
+                out.writeDouble(lengths[i]);
+                out.writeInt(middles[i]);
+            }
+        }
+
+        static EdgeList readFrom(DataInputStream in, int nodeCount) throws IOException {
+            int edgeCount = in.readInt();
+            int[] offsets = new int[nodeCount + 1];
+            for (int i = 0; i <= nodeCount; i++) {
+                offsets[i] = in.readInt();
+            }
+            if (offsets[nodeCount] != edgeCount) {
+                throw new IOException("Corrupt contraction hierarchy edge list");
+            }
+            int[] others = new int[edgeCount];
+            double[] weights = new double[edgeCount];
+            double[] lengths = new double[edgeCount];
+            int[] middles = new int[edgeCount];
+            for (int i = 0; i < edgeCount; i++) {
+                others[i] = in.readInt();
+                weights[i] = in.readDouble();
+                lengths[i] = in.readDouble();
+                middles[i] = in.readInt();
+            }
+            return new EdgeList(offsets, others, weights, lengths, middles);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.example.model;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.logging.Logger;
+
+/**
+ * Preprocesses a compiled road network into a {@link ContractionHierarchy}.
+ *
+ * Nodes are contracted one at a time, least important first. Contracting a node removes it
+ * from the remaining graph; for every pair of neighbors u and x whose shortest path ran
+ * through the node, a shortcut u -> x is inserted that remembers the contracted node, so
+ * that it can be unpacked again later. A bounded "witness" search checks whether some other
+ * path is already as short, in which case the shortcut is not needed.
+ *
+ * Importance is mainly the edge difference (shortcuts added minus edges removed); the
+ * number of neighbors already contracted and the node's level are added so that the
+ * contraction spreads evenly over the map, which keeps queries short.
+ * Priorities are updated lazily: a node taken from the queue is re-evaluated and put back
+ * if it is no longer the least important.
+ */
+public final class ContractionHierarchyBuilder {
+    private static final Logger logger = Logger.getLogger(ContractionHierarchyBuilder.class.getName());
+
+    /**
+     * Witness searches give up after settling this many nodes. Giving up early only means
+     * an unnecessary shortcut is added, never that a needed one is missed.
+     */
+    private static final int WITNESS_SETTLE_LIMIT = 200;
+    /** A cheaper limit for the searches that only estimate a node's priority. */
+    private static final int SIMULATION_SETTLE_LIMIT = 50;
+
+    /** The weight of the edge difference relative to the other priority terms. */
+    private static final int EDGE_DIFFERENCE_WEIGHT = 10;
+
+    private final CsrGraph graph;
+    private final RouteMetric metric;
+    private final int nodeCount;
+    private final Adjacency[] outgoing;
+    private final Adjacency[] incoming;
+    private final boolean[] contracted;
+    private final int[] contractedNeighbors;
+    /** One more than the highest level of any contracted neighbor. */
+    private final int[] levels;
+    private final int[] priorities;
+
+    // Witness search state, reset through the touched list rather than refilled.
+    private final double[] witnessDistances;
+    private final int[] touched;
+    /** Marks the out-neighbors of the node being contracted. */
+    private final boolean[] witnessTargets;
+    private int touchedCount;
+    /** The original edges covered by the shortcuts found by the last processShortcuts call. */
+    private int shortcutHops;
+    private final PriorityQueue<WitnessEntry> witnessQueue = new PriorityQueue<>();
+
+    private ContractionHierarchyBuilder(CsrGraph graph, RouteMetric metric) {
+        this.graph = graph;
+        this.metric = metric;
+        this.nodeCount = graph.getNodeCount();
+        this.outgoing = new Adjacency[nodeCount];
+        this.incoming = new Adjacency[nodeCount];
+        this.contracted = new boolean[nodeCount];
+        this.contractedNeighbors = new int[nodeCount];
+        this.levels = new int[nodeCount];
+        this.priorities = new int[nodeCount];
+        this.witnessDistances = new double[nodeCount];
+        Arrays.fill(witnessDistances, Double.POSITIVE_INFINITY);
+        this.touched = new int[nodeCount];
+        this.witnessTargets = new boolean[nodeCount];
+
+        for (int node = 0; node < nodeCount; node++) {
+            outgoing[node] = new Adjacency();
+            incoming[node] = new Adjacency();
+        }
+        for (int from = 0; from < nodeCount; from++) {
+            for (int e = graph.firstEdge(from); e < graph.lastEdge(from); e++) {
+                int to = graph.getTarget(e);
+                if (to == from) {
+                    continue; // a loop is never part of a shortest path
+                }
+                double weight = metric.weight(graph, e);
+                double length = graph.getLengthMeters(e);
+                outgoing[from].offer(to, weight, length, -1, 1);
+                incoming[to].offer(from, weight, length, -1, 1);
+            }
+        }
+    }
+
+    /**
+     * Builds a contraction hierarchy for the given network and metric.
+     *
+     * @param graph The compiled road network
+     * @param metric The metric queries on the hierarchy will minimize
+     * @return The hierarchy
+     */
+    public static ContractionHierarchy build(CsrGraph graph, RouteMetric metric) {
+        long startTime = System.currentTimeMillis();
+        ContractionHierarchy hierarchy = new ContractionHierarchyBuilder(graph, metric).contractAll();
+        logger.info(String.format("Built %s contraction hierarchy for %d nodes with %d shortcuts in %d ms",
+                metric, graph.getNodeCount(), hierarchy.getShortcutCount(),
+                System.currentTimeMillis() - startTime));
+        return hierarchy;
+    }
+
+    private ContractionHierarchy contractAll() {
+        PriorityQueue<QueueEntry> queue = new PriorityQueue<>(Math.max(1, nodeCount));
+        for (int node = 0; node < nodeCount; node++) {
+            priorities[node] = priority(node);
+            queue.offer(new QueueEntry(node, priorities[node]));
+        }
+
+        int[] rank = new int[nodeCount];
+        // The edges each node keeps once contracted: those to its not-yet-contracted neighbors.
+        Adjacency[] upward = new Adjacency[nodeCount];
+        Adjacency[] downward = new Adjacency[nodeCount];
+        int nextRank = 0;
+
+        while (!queue.isEmpty()) {
+            QueueEntry entry = queue.poll();
+            int node = entry.node();
+            if (contracted[node] || entry.priority() != priorities[node]) {
+                continue; // contracted already, or superseded by a newer entry
+            }
+            int current = priority(node);
+            if (!queue.isEmpty() && current > queue.peek().priority()) {
+                priorities[node] = current;
+                queue.offer(new QueueEntry(node, current));
+                continue;
+            }
+
+            rank[node] = nextRank++;
+            upward[node] = outgoing[node];
+            downward[node] = incoming[node];
+            contract(node);
+            updateNeighbors(node, queue);
+        }
+
+        return ContractionHierarchy.fromAdjacency(graph, metric, rank, upward, downward);
+    }
+
+    /**
+     * Returns the importance of a node: the shortcuts its contraction would add minus the
+     * edges it would remove (counted both as edges and as the original edges they stand
+     * for), plus its already-contracted neighbors and its level in the hierarchy so far.
+     */
+    private int priority(int node) {
+        int shortcuts = processShortcuts(node, false);
+        int edgeDifference = shortcuts - outgoing[node].size - incoming[node].size;
+        int hopDifference = shortcutHops - hopSum(outgoing[node]) - hopSum(incoming[node]);
+        return EDGE_DIFFERENCE_WEIGHT * edgeDifference + hopDifference + contractedNeighbors[node] + levels[node];
+    }
+
+    private static int hopSum(Adjacency adjacency) {
+        int sum = 0;
+        for (int i = 0; i < adjacency.size; i++) {
+            sum += adjacency.hops[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Re-evaluates the neighbors of a node that was just contracted, since their edges
+     * (and so their priorities) have changed.
+     */
+    private void updateNeighbors(int node, PriorityQueue<QueueEntry> queue) {
+        for (Adjacency neighbors : new Adjacency[] {incoming[node], outgoing[node]}) {
+            for (int i = 0; i < neighbors.size; i++) {
+                int neighbor = neighbors.nodes[i];
+                levels[neighbor] = Math.max(levels[neighbor], levels[node] + 1);
+                int priority = priority(neighbor);
+                if (priority != priorities[neighbor]) {
+                    priorities[neighbor] = priority;
+                    queue.offer(new QueueEntry(neighbor, priority));
+                }
+            }
+        }
+    }
+
+    private void contract(int node) {
+        processShortcuts(node, true);
+        contracted[node] = true;
+
+        Adjacency in = incoming[node];
+        for (int i = 0; i < in.size; i++) {
+            outgoing[in.nodes[i]].remove(node);
+            contractedNeighbors[in.nodes[i]]++;
+        }
+        Adjacency out = outgoing[node];
+        for (int i = 0; i < out.size; i++) {
+            incoming[out.nodes[i]].remove(node);
+            contractedNeighbors[out.nodes[i]]++;
+        }
+    }
+
+    /**
+     * Finds the shortcuts needed to contract a node, adding them if requested.
+     *
+     * @return The number of shortcuts needed
+     */
+    private int processShortcuts(int node, boolean add) {
+        Adjacency in = incoming[node];
+        Adjacency out = outgoing[node];
+        if (in.size == 0 || out.size == 0) {
+            shortcutHops = 0;
+            return 0;
+        }
+
+        double maxOut = 0;
+        for (int j = 0; j < out.size; j++) {
+            maxOut = Math.max(maxOut, out.weights[j]);
+            witnessTargets[out.nodes[j]] = true;
+        }
+
+        int shortcuts = 0;
+        shortcutHops = 0;
+        for (int i = 0; i < in.size; i++) {
+            int source = in.nodes[i];
+            double toNode = in.weights[i];
+            int targetCount = witnessTargets[source] ? out.size - 1 : out.size;
+            witnessSearch(source, node, toNode + maxOut, targetCount,
+                          add ? WITNESS_SETTLE_LIMIT : SIMULATION_SETTLE_LIMIT);
+            for (int j = 0; j < out.size; j++) {
+                int target = out.nodes[j];
+                if (target == source) {
+                    continue;
+                }
+                double viaNode = toNode + out.weights[j];
+                if (witnessDistances[target] <= viaNode) {
+                    continue; // a path avoiding the node is at least as good
+                }
+                shortcuts++;
+                shortcutHops += in.hops[i] + out.hops[j];
+                if (add) {
+                    double length = in.lengths[i] + out.lengths[j];
+                    int hopCount = in.hops[i] + out.hops[j];
+                    outgoing[source].offer(target, viaNode, length, node, hopCount);
+                    incoming[target].offer(source, viaNode, length, node, hopCount);
+                }
+            }
+            resetWitnessSearch();
+        }
+        for (int j = 0; j < out.size; j++) {
+            witnessTargets[out.nodes[j]] = false;
+        }
+        return shortcuts;
+    }
+
+    /**
+     * Runs a Dijkstra search from the source over the remaining graph, skipping the node
+     * being contracted, until every target is settled or the weight limit or the settle
+     * limit is reached.
+     */
+    private void witnessSearch(int source, int skipped, double maxWeight, int targetCount, int settleLimit) {
+        PriorityQueue<WitnessEntry> queue = witnessQueue;
+        queue.clear();
+        setWitnessDistance(source, 0);
+        queue.offer(new WitnessEntry(source, 0));
+        int settled = 0;
+
+        while (!queue.isEmpty() && settled < settleLimit) {
+            WitnessEntry entry = queue.poll();
+            int current = entry.node();
+            if (entry.weight() > witnessDistances[current]) {
+                continue; // stale queue entry
+            }
+            if (entry.weight() > maxWeight) {
+                break;
+            }
+            settled++;
+            if (witnessTargets[current] && current != source && --targetCount == 0) {
+                break;
+            }
+
+            Adjacency out = outgoing[current];
+            for (int i = 0; i < out.size; i++) {
+                int neighbor = out.nodes[i];
+                if (neighbor == skipped) {
+                    continue;
+                }
+                double newDist = entry.weight() + out.weights[i];
+                if (newDist <= maxWeight && newDist < witnessDistances[neighbor]) {
+                    setWitnessDistance(neighbor, newDist);
+                    queue.offer(new WitnessEntry(neighbor, newDist));
+                }
+            }
+        }
+    }
+
+    private void setWitnessDistance(int node, double distance) {
+        if (witnessDistances[node] == Double.POSITIVE_INFINITY) {
+            touched[touchedCount++] = node;
+        }
+        witnessDistances[node] = distance;
+    }
+
+    private void resetWitnessSearch() {
+        for (int i = 0; i < touchedCount; i++) {
+            witnessDistances[touched[i]] = Double.POSITIVE_INFINITY;
+        }
+        touchedCount = 0;
+    }
+
+    private record QueueEntry(int node, int priority) implements Comparable<QueueEntry> {
+        @Override
+        public int compareTo(QueueEntry other) {
+            int byPriority = Integer.compare(priority, other.priority);
+            return byPriority != 0 ? byPriority : Integer.compare(node, other.node);
+        }
+    }
+
+    private record WitnessEntry(int node, double weight) implements Comparable<WitnessEntry> {
+        @Override
+        public int compareTo(WitnessEntry other) {
+            return Double.compare(weight, other.weight);
+        }
+    }
+
+    /**
+     * The edges between one node and its neighbors during contraction, as parallel arrays.
+     * At most one edge is kept per neighbor: the one with the lowest weight.
+     */
+    static final class Adjacency {
+        int[] nodes = new int[4];
+        double[] weights = new double[4];
+        double[] lengths = new double[4];
+        /** The contracted node a shortcut bypasses, or -1 for an original edge. */
+        int[] middles = new int[4];
+        /** The number of original edges an edge stands for. */
+        int[] hops = new int[4];
+        int size;
+
+        void offer(int node, double weight, double length, int middle, int hopCount) {
+            for (int i = 0; i < size; i++) {
+                if (nodes[i] == node) {
+                    if (weight < weights[i]) {
+                        weights[i] = weight;
+                        lengths[i] = length;
+                        middles[i] = middle;
+                        hops[i] = hopCount;
+                    }
+                    return;
+                }
+            }
+            if (size == nodes.length) {
+                int capacity = size * 2;
+                nodes = Arrays.copyOf(nodes, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                middles = Arrays.copyOf(middles, capacity);
+                hops = Arrays.copyOf(hops, capacity);
+            }
+            nodes[size] = node;
+            weights[size] = weight;
+            lengths[size] = length;
+            middles[size] = middle;
+            hops[size] = hopCount;
+            size++;
+        }
+
+        void remove(int node) {
+            for (int i = 0; i < size; i++) {
+                if (nodes[i] == node) {
+                    size--;
+                    nodes[i] = nodes[size];
+                    weights[i] = weights[size];
+                    lengths[i] = lengths[size];
+                    middles[i] = middles[size];
+                    hops[i] = hops[size];
+                    return;
+                }
+            }
+        }
+    }
+}
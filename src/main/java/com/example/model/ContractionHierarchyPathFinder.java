@@ -0,0 +1,274 @@
+package com.example.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Answers route queries on a {@link ContractionHierarchy}.
+ *
+ * A forward search from the start climbs the upward edges and a backward search from the
+ * destination climbs the downward edges; the best path goes up to a single highest-ranked
+ * node and down again, and is found where the two searches meet. Each search stops once
+ * its queue holds nothing shorter than the best meeting found so far, and skips nodes
+ * that it can tell were reached by a detour ("stall-on-demand").
+ *
+ * The shortcuts on the resulting path are unpacked into original edges, so the returned
+ * node list is the same kind of path the other path finders produce.
+ *
+ * Search arrays are sized for the whole network, so they are kept in a pool and reset
+ * through a list of touched nodes instead of being allocated for every query.
+ */
+public class ContractionHierarchyPathFinder {
+    private final CsrGraph graph;
+    private final ContractionHierarchy hierarchy;
+    private final ConcurrentLinkedQueue<SearchState> pool = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a path finder for the given graph.
+     *
+     * @param graph The compiled road network
+     * @param hierarchy A hierarchy built for that network
+     * @throws IllegalArgumentException If the hierarchy was built for a different graph
+     */
+    public ContractionHierarchyPathFinder(CsrGraph graph, ContractionHierarchy hierarchy) {
+        if (!hierarchy.matches(graph, hierarchy.getMetric())) {
+            throw new IllegalArgumentException("Contraction hierarchy was built for a different graph");
+        }
+        this.graph = graph;
+        this.hierarchy = hierarchy;
+    }
+
+    public ContractionHierarchy getHierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * Finds the optimal path between two nodes under the hierarchy's metric.
+     *
+     * @param start The starting node
+     * @param end The destination node
+     * @return The path and the number of nodes settled by both searches
+     */
+    public PathResult findPath(Node start, Node end) {
+        return findPath(List.of(new PathEndpoint(start, 0)), List.of(new PathEndpoint(end, 0)));
+    }
+
+    /**
+     * Finds the cheapest path from any of the start nodes to any of the end nodes, counting
+     * each endpoint's cost: the forward search starts from every start node at its cost and
+     * the backward search from every end node at its cost.
+     *
+     * @param starts The nodes the path may start at, with the cost of starting there
+     * @param ends The nodes the path may end at, with the cost of ending there
+     * @return The path and the number of nodes settled by both searches
+     */
+    public PathResult findPath(List<PathEndpoint> starts, List<PathEndpoint> ends) {
+        PathEndpoint.Indexed sources = PathEndpoint.index(graph, starts);
+        PathEndpoint.Indexed targets = PathEndpoint.index(graph, ends);
+        if (sources.count() == 0 || targets.count() == 0) {
+            return new PathResult(null, 0);
+        }
+        int same = sources.freeMeeting(targets);
+        if (same >= 0) {
+            return new PathResult(List.of(graph.getNode(same)), 1);
+        }
+
+        SearchState state = pool.poll();
+        if (state == null) {
+            state = new SearchState(hierarchy.getNodeCount());
+        }
+        try {
+            return search(state, sources, targets);
+        } finally {
+            state.reset();
+            pool.offer(state);
+        }
+    }
+
+    private PathResult search(SearchState state, PathEndpoint.Indexed sources, PathEndpoint.Indexed targets) {
+        ContractionHierarchy.EdgeList upward = hierarchy.upward();
+        ContractionHierarchy.EdgeList downward = hierarchy.downward();
+        Direction forward = state.forward;
+        Direction backward = state.backward;
+        for (int i = 0; i < sources.count(); i++) {
+            forward.start(sources.nodes()[i], sources.costs()[i]);
+        }
+        for (int i = 0; i < targets.count(); i++) {
+            backward.start(targets.nodes()[i], targets.costs()[i]);
+        }
+
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        int settledCount = 0;
+        boolean forwardTurn = true;
+
+        while (true) {
+            boolean forwardDone = forward.queue.isEmpty() || forward.queue.peek().distance() >= best;
+            boolean backwardDone = backward.queue.isEmpty() || backward.queue.peek().distance() >= best;
+            if (forwardDone && backwardDone) {
+                break;
+            }
+            Direction current = (forwardTurn && !forwardDone) || backwardDone ? forward : backward;
+            Direction other = current == forward ? backward : forward;
+            forwardTurn = !forwardTurn;
+
+            QueueEntry entry = current.queue.poll();
+            int node = entry.node();
+            if (entry.distance() > current.distances[node]) {
+                continue; // stale queue entry
+            }
+            settledCount++;
+
+            double total = current.distances[node] + other.distances[node];
+            if (total < best) {
+                best = total;
+                meeting = node;
+            }
+
+            ContractionHierarchy.EdgeList edges = current == forward ? upward : downward;
+            if (isStalled(current, current == forward ? downward : upward, node)) {
+                continue;
+            }
+            for (int i = edges.offsets[node]; i < edges.offsets[node + 1]; i++) {
+                current.relax(node, edges.others[i], current.distances[node] + edges.weights[i], edges.middles[i]);
+            }
+        }
+
+        if (meeting < 0) {
+            return new PathResult(null, settledCount);
+        }
+        return new PathResult(unpackPath(forward, backward, meeting), settledCount);
+    }
+
+    /**
+     * Stall-on-demand: if a higher-ranked node already reached by this search leads down
+     * to the given node more cheaply, the node's tentative distance is not its real distance
+     * and expanding it cannot lead to a better meeting, so its edges are skipped.
+     *
+     * @param opposite The edges the search does not follow, which lead into the node from
+     *                 higher-ranked nodes in this search's direction
+     */
+    private static boolean isStalled(Direction direction, ContractionHierarchy.EdgeList opposite, int node) {
+        double distance = direction.distances[node];
+        for (int i = opposite.offsets[node]; i < opposite.offsets[node + 1]; i++) {
+            if (direction.distances[opposite.others[i]] + opposite.weights[i] < distance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Node> unpackPath(Direction forward, Direction backward, int meeting) {
+        // Collect the hierarchy edges from start to meeting node, then on to the destination.
+        List<int[]> edges = new ArrayList<>();
+        for (int node = meeting; forward.parents[node] >= 0; node = forward.parents[node]) {
+            edges.add(new int[] {forward.parents[node], node, forward.parentMiddles[node]});
+        }
+        Collections.reverse(edges);
+        for (int node = meeting; backward.parents[node] >= 0; node = backward.parents[node]) {
+            edges.add(new int[] {node, backward.parents[node], backward.parentMiddles[node]});
+        }
+
+        List<Node> path = new ArrayList<>();
+        path.add(graph.getNode(edges.isEmpty() ? meeting : edges.get(0)[0]));
+        Deque<int[]> stack = new ArrayDeque<>();
+        for (int[] edge : edges) {
+            stack.push(edge);
+            while (!stack.isEmpty()) {
+                int[] top = stack.pop();
+                int from = top[0];
+                int to = top[1];
+                int middle = top[2];
+                if (middle < 0) {
+                    path.add(graph.getNode(to));
+                    continue;
+                }
+                // Both halves are stored at the bypassed node, which ranks below either end.
+                int second = hierarchy.upward().find(middle, to);
+                int first = hierarchy.downward().find(middle, from);
+                stack.push(new int[] {middle, to, hierarchy.upward().middles[second]});
+                stack.push(new int[] {from, middle, hierarchy.downward().middles[first]});
+            }
+        }
+        return path;
+    }
+
+    /**
+     * The per-query arrays for both search directions, reused across queries.
+     */
+    private static final class SearchState {
+        final Direction forward;
+        final Direction backward;
+
+        SearchState(int nodeCount) {
+            this.forward = new Direction(nodeCount);
+            this.backward = new Direction(nodeCount);
+        }
+
+        void reset() {
+            forward.reset();
+            backward.reset();
+        }
+    }
+
+    /**
+     * One direction of the search. For the forward search {@code parents} points back
+     * towards the start; for the backward search it points on towards the destination.
+     */
+    private static final class Direction {
+        final double[] distances;
+        final int[] parents;
+        final int[] parentMiddles;
+        final int[] touched;
+        int touchedCount;
+        final PriorityQueue<QueueEntry> queue = new PriorityQueue<>();
+
+        Direction(int nodeCount) {
+            distances = new double[nodeCount];
+            Arrays.fill(distances, Double.POSITIVE_INFINITY);
+            parents = new int[nodeCount];
+            Arrays.fill(parents, -1);
+            parentMiddles = new int[nodeCount];
+            touched = new int[nodeCount];
+        }
+
+        void start(int node, double cost) {
+            relax(-1, node, cost, -1);
+        }
+
+        void relax(int from, int node, double distance, int middle) {
+            if (distance >= distances[node]) {
+                return;
+            }
+            if (distances[node] == Double.POSITIVE_INFINITY) {
+                touched[touchedCount++] = node;
+            }
+            distances[node] = distance;
+            parents[node] = from;
+            parentMiddles[node] = middle;
+            queue.offer(new QueueEntry(node, distance));
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                distances[touched[i]] = Double.POSITIVE_INFINITY;
+                parents[touched[i]] = -1;
+            }
+            touchedCount = 0;
+            queue.clear();
+        }
+    }
+
+    private record QueueEntry(int node, double distance) implements Comparable<QueueEntry> {
+        @Override
+        public int compareTo(QueueEntry other) {
+            return Double.compare(distance, other.distance);
+        }
+    }
+}
@@ -10,6 +10,11 @@ public record Coordinates(double latitude, double longitude) {
     public static final double SOUTH = 180.0;
     public static final double WEST = 270.0;
 
+    /** Kilometers per degree of latitude, on the same 6371 km sphere as the haversine formula. */
+    public static final double KM_PER_DEGREE = 6371.0 * Math.PI / 180.0;
+    /** Fixed-point coordinates count units of 1e-7 degrees, the precision OSM stores them with. */
+    private static final double FIXED_POINT_SCALE = 1e7;
+
     /**
      * Constructs a new Coordinates object.
      *
@@ -64,15 +69,74 @@ public record Coordinates(double latitude, double longitude) {
      * @see <a href="https://en.wikipedia.org/wiki/Haversine_formula">Haversine formula</a>
      */
     public double distanceTo(Coordinates other) {
+        return haversineKm(this.latitude, this.longitude, other.latitude, other.longitude);
+    }
+
+    /**
+     * Calculates the great-circle distance between two points given as raw degrees.
+     * This is the same Haversine formula as {@link #distanceTo(Coordinates)}, but it avoids
+     * allocating Coordinates objects, which matters in graph-building and search loops.
+     *
+     * @param lat1 Latitude of the first point in degrees
+     * @param lon1 Longitude of the first point in degrees
+     * @param lat2 Latitude of the second point in degrees
+     * @param lon2 Longitude of the second point in degrees
+     * @return The distance in kilometers
+     */
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
         double R = 6371; // Earth's radius in kilometers
-        double dLat = Math.toRadians(other.latitude - this.latitude);
-        double dLon = Math.toRadians(other.longitude - this.longitude);
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
         double a = Math.sin(dLat/2) * Math.sin(dLat/2) +
-                   Math.cos(Math.toRadians(this.latitude)) * Math.cos(Math.toRadians(other.latitude)) *
+                   Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
                    Math.sin(dLon/2) * Math.sin(dLon/2);
         double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1-a));
         return R * c;
-    }  
+    }
+
+    /**
+     * Calculates the distance between two points on an equirectangular projection, in which
+     * a degree of longitude is a degree of latitude shortened by the given cosine.
+     *
+     * This is a square root and a few multiplications instead of the trigonometry of
+     * {@link #haversineKm(double, double, double, double)}. With the cosine of the mean
+     * latitude it is accurate for nearby points, see {@link LocalDistance}. With the cosine of
+     * the latitude farthest from the equator that a great circle between the points reaches,
+     * it never exceeds the great-circle distance, which is what search heuristics need.
+     *
+     * @param lat1 Latitude of the first point in degrees
+     * @param lon1 Longitude of the first point in degrees
+     * @param lat2 Latitude of the second point in degrees
+     * @param lon2 Longitude of the second point in degrees
+     * @param cosLatitude The cosine of the latitude the projection is taken at
+     * @return The distance in kilometers
+     */
+    public static double equirectangularKm(double lat1, double lon1, double lat2, double lon2, double cosLatitude) {
+        double dLat = lat2 - lat1;
+        double dLon = (lon2 - lon1) * cosLatitude;
+        return Math.sqrt(dLat * dLat + dLon * dLon) * KM_PER_DEGREE;
+    }
+
+    /**
+     * Converts degrees to a fixed-point coordinate, rounding to the nearest 1e-7 degree.
+     *
+     * @param degrees A latitude or longitude in degrees
+     * @return The coordinate in units of 1e-7 degrees
+     */
+    public static int toFixedPoint(double degrees) {
+        return (int) Math.round(degrees * FIXED_POINT_SCALE);
+    }
+
+    /**
+     * Converts a fixed-point coordinate back to degrees. Degrees with at most seven decimals
+     * survive the round trip exactly.
+     *
+     * @param fixedPoint The coordinate in units of 1e-7 degrees
+     * @return The coordinate in degrees
+     */
+    public static double fromFixedPoint(int fixedPoint) {
+        return fixedPoint / FIXED_POINT_SCALE;
+    }
 
     /**
      * Calculates a new coordinate point given a starting point, distance, and bearing.
@@ -0,0 +1,721 @@
+package com.example.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.logging.Logger;
+
+import com.example.util.LongIntHashMap;
+import com.example.util.RoadUtil;
+
+/**
+ * An immutable compressed-sparse-row (CSR) representation of the road network.
+ *
+ * Nodes are identified by dense int indices in {@code [0, getNodeCount())}. The outgoing
+ * edges of node {@code u} occupy the index range {@code [firstEdge(u), lastEdge(u))} of the
+ * parallel edge arrays, which hold the target node, the index of the {@link Way} the edge
+ * belongs to, the edge length and the speed limit. Search algorithms should iterate these
+ * arrays directly instead of going through the {@code Map}-based views on {@link Graph}.
+ * Node coordinates are held as fixed-point ints counting 1e-7 degrees, the precision of OSM
+ * itself, which takes half the memory of doubles. Searches and edge lengths use these
+ * rounded coordinates, while {@link #getNode(int)} returns the Node objects the graph was
+ * built from, unchanged; the two differ only for nodes given with finer coordinates.
+ *
+ * Instances are created by {@link Builder} and never change afterwards, so they can be
+ * shared freely between threads.
+ */
+public final class CsrGraph {
+    private static final Logger logger = Logger.getLogger(CsrGraph.class.getName());
+    static final double MPH_TO_METERS_PER_SECOND = 0.44704;
+    /** Graphs with at least this many edges compute their edge lengths in parallel. */
+    private static final int PARALLEL_EDGE_THRESHOLD = 1 << 16;
+
+    private final Node[] nodes;
+    private final LongIntHashMap indexById;
+    /** Node coordinates in units of 1e-7 degrees, see {@link Coordinates#toFixedPoint(double)}. */
+    private final int[] latitudes;
+    private final int[] longitudes;
+    /** See {@link #getMinCosLatitude()}. */
+    private final double minCosLatitude;
+    /** Edge range start for each node; has one extra trailing entry holding the edge count. */
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] wayIndices;
+    /** Incoming edge range start for each node, indexing {@link #reverseEdges}. */
+    private final int[] reverseOffsets;
+    /** Forward edge indices grouped by target node, so searches can walk edges backwards. */
+    private final int[] reverseEdges;
+    /** The source node of each forward edge, in the same order as {@link #reverseEdges}. */
+    private final int[] reverseSources;
+    private final double[] lengthsMeters;
+    private final short[] speedsMph;
+    /** Edge length divided by speed limit, so time-based searches need no division per edge. */
+    private final double[] travelTimesSeconds;
+    /**
+     * The way attribute table. A graph loaded from a {@link GraphSnapshot} fills it on demand
+     * through {@link #wayLoader}; racing threads at worst create equal Way objects twice.
+     */
+    private final Way[] ways;
+    private final IntFunction<Way> wayLoader;
+    private final int connectionCount;
+    private final int maxSpeedMph;
+    private final long fingerprint;
+    private volatile SpatialIndex spatialIndex;
+    private volatile ChainCompressedGraph chainGraph;
+
+    CsrGraph(Node[] nodes, LongIntHashMap indexById, int[] offsets, int[] targets,
+             int[] wayIndices, Way[] ways, int[] waySpeeds) {
+        this.nodes = nodes;
+        this.indexById = indexById;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.wayIndices = wayIndices;
+        this.ways = ways;
+        this.wayLoader = null;
+
+        int nodeCount = nodes.length;
+        this.latitudes = new int[nodeCount];
+        this.longitudes = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            latitudes[i] = Coordinates.toFixedPoint(nodes[i].lat());
+            longitudes[i] = Coordinates.toFixedPoint(nodes[i].lon());
+        }
+        this.minCosLatitude = minCosLatitude(latitudes);
+
+        int edgeCount = targets.length;
+        this.lengthsMeters = new double[edgeCount];
+        this.speedsMph = new short[edgeCount];
+        IntStream nodeRange = IntStream.range(0, nodeCount);
+        (edgeCount >= PARALLEL_EDGE_THRESHOLD ? nodeRange.parallel() : nodeRange).forEach(u -> {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                lengthsMeters[e] = Coordinates.haversineKm(getLatitude(u), getLongitude(u),
+                                                           getLatitude(v), getLongitude(v)) * 1000;
+                speedsMph[e] = (short) waySpeeds[wayIndices[e]];
+            }
+        });
+        this.travelTimesSeconds = travelTimes(lengthsMeters, speedsMph);
+        // Group the forward edges by target; one-way streets are only stored forward,
+        // so this is the only way to find a node's predecessors.
+        this.reverseOffsets = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            reverseOffsets[targets[e] + 1]++;
+        }
+        for (int v = 0; v < nodeCount; v++) {
+            reverseOffsets[v + 1] += reverseOffsets[v];
+        }
+        this.reverseEdges = new int[edgeCount];
+        this.reverseSources = new int[edgeCount];
+        int[] cursor = Arrays.copyOf(reverseOffsets, nodeCount);
+        for (int u = 0; u < nodeCount; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int slot = cursor[targets[e]]++;
+                reverseEdges[slot] = e;
+                reverseSources[slot] = u;
+            }
+        }
+
+        this.connectionCount = countConnections();
+        int maxSpeed = 0;
+        for (short speed : speedsMph) {
+            maxSpeed = Math.max(maxSpeed, speed);
+        }
+        this.maxSpeedMph = maxSpeed > 0 ? maxSpeed : RoadUtil.getDefaultSpeedLimit(null);
+        this.fingerprint = computeFingerprint();
+    }
+
+    /**
+     * Restores a graph from arrays saved by {@link GraphSnapshot}, which already hold every
+     * derived value, so nothing has to be recomputed.
+     */
+    CsrGraph(Node[] nodes, LongIntHashMap indexById, int[] latitudes, int[] longitudes,
+             int[] offsets, int[] targets, int[] wayIndices, int wayCount, IntFunction<Way> wayLoader,
+             double[] lengthsMeters,
+             short[] speedsMph, int[] reverseOffsets, int[] reverseEdges, int[] reverseSources,
+             int connectionCount, int maxSpeedMph, long fingerprint) {
+        this.nodes = nodes;
+        this.indexById = indexById;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.minCosLatitude = minCosLatitude(latitudes);
+        this.offsets = offsets;
+        this.targets = targets;
+        this.wayIndices = wayIndices;
+        this.ways = new Way[wayCount];
+        this.wayLoader = wayLoader;
+        this.lengthsMeters = lengthsMeters;
+        this.speedsMph = speedsMph;
+        this.travelTimesSeconds = travelTimes(lengthsMeters, speedsMph);
+        this.reverseOffsets = reverseOffsets;
+        this.reverseEdges = reverseEdges;
+        this.reverseSources = reverseSources;
+        this.connectionCount = connectionCount;
+        this.maxSpeedMph = maxSpeedMph;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Returns the cosine of the highest absolute latitude, widened by a degree to cover the
+     * poleward bulge of great circles between the nodes.
+     */
+    private static double minCosLatitude(int[] latitudes) {
+        int highest = 0;
+        for (int latitude : latitudes) {
+            highest = Math.max(highest, Math.abs(latitude));
+        }
+        return Math.cos(Math.toRadians(Math.min(90, Coordinates.fromFixedPoint(highest) + 1)));
+    }
+
+    private static double[] travelTimes(double[] lengthsMeters, short[] speedsMph) {
+        double[] times = new double[lengthsMeters.length];
+        for (int e = 0; e < times.length; e++) {
+            times[e] = lengthsMeters[e] / (speedsMph[e] * MPH_TO_METERS_PER_SECOND);
+        }
+        return times;
+    }
+
+    /**
+     * Hashes the node ids, coordinates, edges and speeds, so that data derived from this
+     * graph (and saved to disk) can be checked against the graph it is used with.
+     */
+    private long computeFingerprint() {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, nodes.length);
+        hash = mix(hash, targets.length);
+        for (int i = 0; i < nodes.length; i++) {
+            hash = mix(hash, nodes[i].id());
+            hash = mix(hash, ((long) latitudes[i] << 32) | (longitudes[i] & 0xffffffffL));
+            hash = mix(hash, offsets[i]);
+        }
+        for (int e = 0; e < targets.length; e++) {
+            hash = mix(hash, ((long) targets[e] << 16) | speedsMph[e]);
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
+    /**
+     * Counts undirected connections, so that a two-way street between A and B counts once.
+     */
+    private int countConnections() {
+        int count = 0;
+        for (int u = 0; u < nodes.length; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                if (u <= v || findEdge(v, u) < 0) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of nodes in the graph.
+     *
+     * @return The node count
+     */
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    /**
+     * Returns the number of directed edges in the graph.
+     * A two-way street contributes one edge per direction.
+     *
+     * @return The directed edge count
+     */
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Returns the number of unique undirected connections in the graph.
+     *
+     * @return The connection count
+     */
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * Returns the dense index of the node with the given OSM id.
+     *
+     * @param nodeId The OSM id of the node
+     * @return The node index, or -1 if the node is not in the graph
+     */
+    public int indexOf(long nodeId) {
+        return indexById.get(nodeId);
+    }
+
+    /**
+     * Returns the node at the given index.
+     *
+     * @param index The node index
+     * @return The Node object the graph was built from, with its original coordinates; see
+     *         {@link #getLatitude(int)} for the rounded ones the graph routes with
+     */
+    public Node getNode(int index) {
+        return nodes[index];
+    }
+
+    /** Returns a node's latitude rounded to 1e-7 degrees, as the graph routes with it. */
+    public double getLatitude(int index) {
+        return Coordinates.fromFixedPoint(latitudes[index]);
+    }
+
+    /** Returns a node's longitude rounded to 1e-7 degrees, as the graph routes with it. */
+    public double getLongitude(int index) {
+        return Coordinates.fromFixedPoint(longitudes[index]);
+    }
+
+    int getFixedLatitude(int index) {
+        return latitudes[index];
+    }
+
+    int getFixedLongitude(int index) {
+        return longitudes[index];
+    }
+
+    /**
+     * Returns a cosine no larger than that of any latitude a great circle between two nodes
+     * passes, for lower bounds with
+     * {@link Coordinates#equirectangularKm(double, double, double, double, double)}.
+     *
+     * @return The cosine
+     */
+    public double getMinCosLatitude() {
+        return minCosLatitude;
+    }
+
+    /**
+     * Returns the index of the first outgoing edge of a node.
+     *
+     * @param node The node index
+     * @return The first edge index
+     */
+    public int firstEdge(int node) {
+        return offsets[node];
+    }
+
+    /**
+     * Returns the index one past the last outgoing edge of a node.
+     *
+     * @param node The node index
+     * @return The exclusive end of the node's edge range
+     */
+    public int lastEdge(int node) {
+        return offsets[node + 1];
+    }
+
+    public int getOutDegree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    /**
+     * Returns the start of a node's incoming edge range. Positions in the range
+     * [firstInEdge(v), lastInEdge(v)) are passed to {@link #getInEdge(int)} and
+     * {@link #getInSource(int)}.
+     *
+     * @param node The node index
+     * @return The first position of the node's incoming edges
+     */
+    public int firstInEdge(int node) {
+        return reverseOffsets[node];
+    }
+
+    /**
+     * Returns the exclusive end of a node's incoming edge range.
+     *
+     * @param node The node index
+     * @return One past the last position of the node's incoming edges
+     */
+    public int lastInEdge(int node) {
+        return reverseOffsets[node + 1];
+    }
+
+    /**
+     * Returns the forward edge stored at a position of the reverse adjacency.
+     *
+     * @param position A position in some node's incoming edge range
+     * @return The forward edge index, usable with the other edge accessors
+     */
+    public int getInEdge(int position) {
+        return reverseEdges[position];
+    }
+
+    /**
+     * Returns the source node of the edge stored at a position of the reverse adjacency.
+     *
+     * @param position A position in some node's incoming edge range
+     * @return The source node index
+     */
+    public int getInSource(int position) {
+        return reverseSources[position];
+    }
+
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+
+    public int getWayIndex(int edge) {
+        return wayIndices[edge];
+    }
+
+    public Way getWay(int edge) {
+        return getWayAt(wayIndices[edge]);
+    }
+
+    /**
+     * Returns the great-circle length of an edge.
+     *
+     * @param edge The edge index
+     * @return The length in meters
+     */
+    public double getLengthMeters(int edge) {
+        return lengthsMeters[edge];
+    }
+
+    /**
+     * Returns the speed limit of the way an edge belongs to.
+     *
+     * @param edge The edge index
+     * @return The speed limit in miles per hour
+     */
+    public int getSpeedMph(int edge) {
+        return speedsMph[edge];
+    }
+
+    /**
+     * Returns the time it takes to drive an edge at its speed limit.
+     *
+     * @param edge The edge index
+     * @return The travel time in seconds
+     */
+    public double getTravelTimeSeconds(int edge) {
+        return travelTimesSeconds[edge];
+    }
+
+    /**
+     * Returns the highest speed limit of any edge in the graph. Dividing a distance by this
+     * speed gives a lower bound on the travel time over that distance.
+     *
+     * @return The maximum speed limit in miles per hour
+     */
+    public int getMaxSpeedMph() {
+        return maxSpeedMph;
+    }
+
+    /**
+     * Returns a hash of the graph's topology, coordinates and speeds. Two graphs built
+     * from the same data have the same fingerprint.
+     *
+     * @return The fingerprint
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns the spatial index over this graph's routable nodes, building it on first use.
+     *
+     * @return The spatial index
+     */
+    public SpatialIndex getSpatialIndex() {
+        SpatialIndex index = spatialIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = spatialIndex;
+                if (index == null) {
+                    index = new SpatialIndex(this);
+                    spatialIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the view of this graph with its degree-2 chains collapsed, building it on
+     * first use.
+     *
+     * @return The chain-compressed view
+     */
+    public ChainCompressedGraph getChainGraph() {
+        ChainCompressedGraph chains = chainGraph;
+        if (chains == null) {
+            synchronized (this) {
+                chains = chainGraph;
+                if (chains == null) {
+                    chains = new ChainCompressedGraph(this);
+                    chainGraph = chains;
+                }
+            }
+        }
+        return chains;
+    }
+
+    /**
+     * Returns an entry of the way attribute table, see {@link #getWayIndex(int)}.
+     *
+     * @param wayIndex The way index
+     * @return The way
+     */
+    public Way getWayAt(int wayIndex) {
+        Way way = ways[wayIndex];
+        if (way == null) {
+            way = wayLoader.apply(wayIndex);
+            ways[wayIndex] = way;
+        }
+        return way;
+    }
+
+    /**
+     * Returns the number of distinct ways referenced by edges.
+     *
+     * @return The size of the way attribute table
+     */
+    public int getWayTableSize() {
+        return ways.length;
+    }
+
+    /**
+     * Finds the edge from one node to another.
+     *
+     * @param from The source node index
+     * @param to The target node index
+     * @return The edge index, or -1 if the nodes are not directly connected
+     */
+    public int findEdge(int from, int to) {
+        for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+            if (targets[e] == to) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Accumulates nodes and edges and produces an immutable {@link CsrGraph}.
+     *
+     * Edges may be added in any order and may repeat; {@link #build()} groups them by
+     * source node and resolves duplicates between the same pair of nodes by keeping the way
+     * with the highest speed limit (the later way wins a tie). A builder cannot be reused
+     * after {@code build()} has been called.
+     */
+    public static final class Builder {
+        private Node[] nodes;
+        private int nodeCount;
+        private LongIntHashMap indexById;
+        private int[] edgeFrom;
+        private int[] edgeTo;
+        private int[] edgeWay;
+        private int edgeCount;
+        private List<Way> ways;
+
+        public Builder() {
+            this(16, 16);
+        }
+
+        public Builder(int expectedNodes, int expectedEdges) {
+            this.nodes = new Node[Math.max(expectedNodes, 4)];
+            this.indexById = new LongIntHashMap(expectedNodes);
+            this.edgeFrom = new int[Math.max(expectedEdges, 4)];
+            this.edgeTo = new int[edgeFrom.length];
+            this.edgeWay = new int[edgeFrom.length];
+            this.ways = new ArrayList<>();
+        }
+
+        /**
+         * Creates a builder holding all nodes and edges of an existing graph,
+         * so that the graph can be extended and rebuilt.
+         *
+         * @param graph The graph to copy
+         * @return A new builder
+         */
+        public static Builder from(CsrGraph graph) {
+            Builder builder = new Builder(graph.getNodeCount(), graph.getEdgeCount());
+            for (Node node : graph.nodes) {
+                builder.addNode(node);
+            }
+            for (int w = 0; w < graph.getWayTableSize(); w++) {
+                builder.ways.add(graph.getWayAt(w));
+            }
+            for (int u = 0; u < graph.getNodeCount(); u++) {
+                for (int e = graph.firstEdge(u); e < graph.lastEdge(u); e++) {
+                    builder.addEdge(u, graph.targets[e], graph.wayIndices[e]);
+                }
+            }
+            return builder;
+        }
+
+        /**
+         * Adds a node if no node with the same id has been added yet.
+         *
+         * @param node The node to add
+         * @return The index of the node (existing or new)
+         */
+        public int addNode(Node node) {
+            checkNotBuilt();
+            int existing = indexById.get(node.id());
+            if (existing >= 0) {
+                return existing;
+            }
+            if (nodeCount == nodes.length) {
+                nodes = Arrays.copyOf(nodes, nodeCount * 2);
+            }
+            nodes[nodeCount] = node;
+            indexById.put(node.id(), nodeCount);
+            return nodeCount++;
+        }
+
+        /**
+         * Returns the index of the node with the given id, adding a placeholder node
+         * at (0, 0) if it is not yet known.
+         *
+         * @param id The OSM id of the node
+         * @return The index of the node
+         */
+        public int addNodeIfAbsent(long id) {
+            checkNotBuilt();
+            int existing = indexById.get(id);
+            return existing >= 0 ? existing : addNode(new Node(id, 0, 0));
+        }
+
+        public int indexOf(long id) {
+            checkNotBuilt();
+            return indexById.get(id);
+        }
+
+        public int getNodeCount() {
+            return nodeCount;
+        }
+
+        /**
+         * Registers a way in the way attribute table.
+         *
+         * @param way The way
+         * @return The way index to use with {@link #addEdge(int, int, int)}
+         */
+        public int addWay(Way way) {
+            checkNotBuilt();
+            ways.add(way);
+            return ways.size() - 1;
+        }
+
+        /**
+         * Adds a directed edge.
+         *
+         * @param from The source node index
+         * @param to The target node index
+         * @param wayIndex The index returned by {@link #addWay(Way)}
+         */
+        public void addEdge(int from, int to, int wayIndex) {
+            checkNotBuilt();
+            if (edgeCount == edgeFrom.length) {
+                int capacity = edgeCount * 2;
+                edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+                edgeTo = Arrays.copyOf(edgeTo, capacity);
+                edgeWay = Arrays.copyOf(edgeWay, capacity);
+            }
+            edgeFrom[edgeCount] = from;
+            edgeTo[edgeCount] = to;
+            edgeWay[edgeCount] = wayIndex;
+            edgeCount++;
+        }
+
+        /**
+         * Builds the immutable graph.
+         *
+         * @return The CSR graph
+         */
+        public CsrGraph build() {
+            checkNotBuilt();
+            int n = nodeCount;
+            Way[] wayTable = ways.toArray(new Way[0]);
+            int[] waySpeeds = new int[wayTable.length];
+            for (int w = 0; w < wayTable.length; w++) {
+                waySpeeds[w] = speedLimitOf(wayTable[w]);
+            }
+
+            // Counting sort by source node; stable, so insertion order is kept within a node.
+            int[] offsets = new int[n + 1];
+            for (int i = 0; i < edgeCount; i++) {
+                offsets[edgeFrom[i] + 1]++;
+            }
+            for (int u = 0; u < n; u++) {
+                offsets[u + 1] += offsets[u];
+            }
+            int[] cursor = Arrays.copyOf(offsets, n);
+            int[] targets = new int[edgeCount];
+            int[] wayIndices = new int[edgeCount];
+            for (int i = 0; i < edgeCount; i++) {
+                int slot = cursor[edgeFrom[i]]++;
+                targets[slot] = edgeTo[i];
+                wayIndices[slot] = edgeWay[i];
+            }
+
+            // Collapse parallel edges, compacting the arrays in place.
+            int write = 0;
+            for (int u = 0; u < n; u++) {
+                int start = offsets[u];
+                int end = offsets[u + 1];
+                offsets[u] = write;
+                int nodeStart = write;
+                for (int i = start; i < end; i++) {
+                    int duplicate = -1;
+                    for (int j = nodeStart; j < write; j++) {
+                        if (targets[j] == targets[i]) {
+                            duplicate = j;
+                            break;
+                        }
+                    }
+                    if (duplicate < 0) {
+                        targets[write] = targets[i];
+                        wayIndices[write] = wayIndices[i];
+                        write++;
+                    } else if (waySpeeds[wayIndices[duplicate]] <= waySpeeds[wayIndices[i]]) {
+                        wayIndices[duplicate] = wayIndices[i];
+                    }
+                }
+            }
+            offsets[n] = write;
+
+            CsrGraph graph = new CsrGraph(Arrays.copyOf(nodes, n), indexById, offsets,
+                                          Arrays.copyOf(targets, write), Arrays.copyOf(wayIndices, write),
+                                          wayTable, waySpeeds);
+            nodes = null;
+            indexById = null;
+            edgeFrom = edgeTo = edgeWay = null;
+            ways = null;
+            return graph;
+        }
+
+        /**
+         * Returns the speed limit of a way, falling back to the highway type default when
+         * the maxspeed_mph tag is malformed, so one bad tag cannot fail the whole build.
+         */
+        static int speedLimitOf(Way way) {
+            try {
+                int speed = way.getSpeedLimitMph();
+                if (speed > 0) {
+                    return speed;
+                }
+            } catch (IllegalArgumentException e) {
+                logger.warning("Invalid speed limit for way " + way.id() + ": " + e.getMessage());
+            }
+            return RoadUtil.getDefaultSpeedLimit(way.getHighwayType());
+        }
+
+        private void checkNotBuilt() {
+            if (nodes == null) {
+                throw new IllegalStateException("Builder has already been used to build a graph");
+            }
+        }
+    }
+}
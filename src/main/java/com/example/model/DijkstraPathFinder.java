@@ -2,53 +2,245 @@ package com.example.model;
 
 import java.util.*;
 
+/**
+ * Finds optimal paths with Dijkstra's algorithm over the compiled road network.
+ *
+ * The search runs over the graph's {@link ChainCompressedGraph}, so it only settles
+ * junctions and relaxes one edge per chain of shape points; the path it returns is expanded
+ * back to every original node. A start or end inside a chain is joined to the junctions at
+ * the chain's ends with the partial chain weights.
+ *
+ * Edge weights are read from the graph's precomputed edge lengths or travel times, so the
+ * search neither allocates coordinates nor parses way tags while it relaxes edges, and its
+ * distances and queue live in a pooled {@link SearchWorkspace}, so a query allocates nothing
+ * per node it visits: only small arrays sized by the number of starts, and the path it returns.
+ */
 public class DijkstraPathFinder {
+    /** Marks a path that stays on the chain holding both the start and the end. */
+    private static final int DIRECT = -2;
+    /** Marks a path that is a single node, both a start and an end. */
+    private static final int SAME = -3;
+
     private final Graph graph;
+    private final RouteMetric metric;
 
     public DijkstraPathFinder(Graph graph) {
+        this(graph, RouteMetric.DISTANCE);
+    }
+
+    public DijkstraPathFinder(Graph graph, RouteMetric metric) {
         this.graph = graph;
+        this.metric = metric;
     }
 
     public List<Node> findShortestPath(Node start, Node end) {
-        Map<Node, Double> distances = new HashMap<>();
-        Map<Node, Node> previousNodes = new HashMap<>();
-        PriorityQueue<Node> queue = new PriorityQueue<>(Comparator.comparingDouble(distances::get));
+        return findPath(start, end).path();
+    }
 
-        graph.getNodes().forEach(node -> distances.put(node, Double.MAX_VALUE));
-        distances.put(start, 0.0);
-        queue.offer(start);
+    /**
+     * Finds the path between two nodes and reports how many nodes were settled.
+     *
+     * Only junctions count as settled, as they are the only nodes the search queues.
+     *
+     * @param start The starting node
+     * @param end The destination node
+     * @return The path (null if none exists) and the settled node count
+     */
+    public PathResult findPath(Node start, Node end) {
+        return findPath(List.of(new PathEndpoint(start, 0)), List.of(new PathEndpoint(end, 0)));
+    }
+
+    /**
+     * Finds the cheapest path from any of the start nodes to any of the end nodes, counting
+     * each endpoint's cost, with one search that starts from all of them at once.
+     *
+     * @param starts The nodes the path may start at, with the cost of starting there
+     * @param ends The nodes the path may end at, with the cost of ending there
+     * @return The path (null if none exists) and the settled node count
+     */
+    public PathResult findPath(List<PathEndpoint> starts, List<PathEndpoint> ends) {
+        CsrGraph csr = graph.compact();
+        PathEndpoint.Indexed sources = PathEndpoint.index(csr, starts);
+        PathEndpoint.Indexed targets = PathEndpoint.index(csr, ends);
+        if (sources.count() == 0 || targets.count() == 0) {
+            return new PathResult(null, 0);
+        }
+        int same = sources.freeMeeting(targets);
+        if (same >= 0) {
+            return new PathResult(List.of(csr.getNode(same)), 1);
+        }
 
-        while (!queue.isEmpty()) {
-            Node current = queue.poll();
+        ChainCompressedGraph chains = csr.getChainGraph();
+        // Where the search enters the junction graph: a start, and the chain edge it leaves
+        // along (-1 for a start at a junction). The parent of a node queued by a seed is -1 - seed.
+        int[] seedSources = new int[2 * sources.count()];
+        int[] seedChains = new int[2 * sources.count()];
+        int seedCount = 0;
 
-            if (current.equals(end)) {
-                return reconstructPath(previousNodes, end);
+        try (SearchWorkspace search = SearchWorkspace.acquire(csr.getNodeCount())) {
+            double best = Double.POSITIVE_INFINITY;
+            int bestTarget = -1;
+            // The chain edge the end is reached along, -1 if the end is a junction, DIRECT or SAME
+            int bestChain = -1;
+            int bestSeed = -1;
+
+            for (int i = 0; i < sources.count(); i++) {
+                int source = sources.nodes()[i];
+                double cost = sources.costs()[i];
+                double stay = cost + targets.costAt(source);
+                if (stay < best) {
+                    best = stay;
+                    bestTarget = source;
+                    bestChain = SAME;
+                }
+                int sourceChain = chains.getChain(source);
+                if (sourceChain < 0) {
+                    seedSources[seedCount] = source;
+                    seedChains[seedCount] = -1;
+                    search.relax(source, cost, -1 - seedCount, cost);
+                    seedCount++;
+                    continue;
+                }
+                for (int chain = sourceChain; chain >= 0; chain = chain == sourceChain ? chains.getReverse(chain) : -1) {
+                    seedSources[seedCount] = source;
+                    seedChains[seedCount] = chain;
+                    double remaining = cost + chainRest(chains, chain, source);
+                    search.relax(chains.getTarget(chain), remaining, -1 - seedCount, remaining);
+                    // Ends further along the same chain are reached without passing a junction
+                    for (int j = 0; j < targets.count(); j++) {
+                        int target = targets.nodes()[j];
+                        if (isOnChain(chains, target, chain)
+                                && chains.positionOf(target, chain) > chains.positionOf(source, chain)) {
+                            double direct = remaining - chainRest(chains, chain, target) + targets.costs()[j];
+                            if (direct < best) {
+                                best = direct;
+                                bestTarget = target;
+                                bestChain = DIRECT;
+                                bestSeed = seedCount;
+                            }
+                        }
+                    }
+                    seedCount++;
+                }
             }
 
-            for (Node neighbor : graph.getNeighbors(current)) {
-                double newDist = distances.get(current) + calculateDistance(current, neighbor);
+            while (!search.isEmpty() && search.peekKey() < best) {
+                int current = search.poll();
+                double distance = search.distance(current);
+                for (int j = 0; j < targets.count(); j++) {
+                    int target = targets.nodes()[j];
+                    if (target == current) {
+                        double candidate = distance + targets.costs()[j];
+                        if (candidate < best) {
+                            best = candidate;
+                            bestTarget = target;
+                            bestChain = -1;
+                        }
+                        continue;
+                    }
+                    int targetChain = chains.getChain(target);
+                    for (int chain = targetChain; chain >= 0; chain = chain == targetChain ? chains.getReverse(chain) : -1) {
+                        if (chains.getSource(chain) == current) {
+                            double candidate = distance + weightTo(chains, chain, target) + targets.costs()[j];
+                            if (candidate < best) {
+                                best = candidate;
+                                bestTarget = target;
+                                bestChain = chain;
+                            }
+                        }
+                    }
+                }
+                if (distance >= best) {
+                    continue; // No path on from here can beat the best one
+                }
 
-                if (newDist < distances.get(neighbor)) {
-                    queue.remove(neighbor);
-                    distances.put(neighbor, newDist);
-                    previousNodes.put(neighbor, current);
-                    queue.offer(neighbor);
+                for (int e = chains.firstEdge(current); e < chains.lastEdge(current); e++) {
+                    double newDist = distance + chains.weight(e, metric);
+                    search.relax(chains.getTarget(e), newDist, e, newDist);
                 }
             }
+
+            if (best == Double.POSITIVE_INFINITY) {
+                return new PathResult(null, search.settledCount());
+            }
+            List<Node> path = bestChain == SAME
+                    ? List.of(csr.getNode(bestTarget))
+                    : expand(search, chains, seedSources, seedChains, bestTarget, bestChain, bestSeed);
+            return new PathResult(path, search.settledCount());
         }
+    }
 
-        return null;
+    /** Checks whether a node lies inside a chain edge. */
+    private static boolean isOnChain(ChainCompressedGraph chains, int node, int chain) {
+        int nodeChain = chains.getChain(node);
+        return nodeChain >= 0 && (nodeChain == chain || chains.getReverse(nodeChain) == chain);
     }
 
-    private double calculateDistance(Node node1, Node node2) {
-        return node1.toCoordinates().distanceTo(node2.toCoordinates());
+    /** Returns the weight from a chain edge's source to a node on it, which may be its source. */
+    private double weightTo(ChainCompressedGraph chains, int chain, int node) {
+        return chains.weightTo(chain, chains.positionOf(node, chain), metric);
     }
 
-    private List<Node> reconstructPath(Map<Node, Node> previousNodes, Node end) {
-        List<Node> path = new ArrayList<>();
-        for (Node node = end; node != null; node = previousNodes.get(node)) {
-            path.add(0, node);
+    /**
+     * Rebuilds the path of original nodes. The search's parents are chain edges, down to the
+     * junction a seed queued, whose parent names that seed.
+     */
+    private List<Node> expand(SearchWorkspace search, ChainCompressedGraph chains, int[] seedSources,
+                              int[] seedChains, int target, int bestChain, int bestSeed) {
+        CsrGraph csr = chains.getGraph();
+        List<Integer> reversed = new ArrayList<>();
+        reversed.add(target);
+        if (bestChain == DIRECT) {
+            int chain = seedChains[bestSeed];
+            int source = seedSources[bestSeed];
+            appendBackwards(reversed, chains, chain, chains.positionOf(target, chain) - 1,
+                            chains.positionOf(source, chain));
+            reversed.add(source);
+            return toNodes(csr, reversed);
+        }
+
+        int junction = target;
+        if (bestChain >= 0) {
+            appendBackwards(reversed, chains, bestChain, chains.positionOf(target, bestChain) - 1, -1);
+            junction = chains.getSource(bestChain);
+            reversed.add(junction);
+        }
+        int e = search.parent(junction);
+        while (e >= 0) {
+            appendBackwards(reversed, chains, e, chains.getInteriorCount(e) - 1, -1);
+            junction = chains.getSource(e);
+            reversed.add(junction);
+            e = search.parent(junction);
+        }
+        int seed = -1 - e;
+        int chain = seedChains[seed];
+        if (chain >= 0) {
+            // The first junction was reached along the part of a chain after the start
+            int source = seedSources[seed];
+            appendBackwards(reversed, chains, chain, chains.getInteriorCount(chain) - 1,
+                            chains.positionOf(source, chain));
+            reversed.add(source);
+        }
+        return toNodes(csr, reversed);
+    }
+
+    /** Returns the weight of a chain edge from a node on it to its target. */
+    private double chainRest(ChainCompressedGraph chains, int chain, int node) {
+        return chains.weight(chain, metric) - weightTo(chains, chain, node);
+    }
+
+    /** Appends the interior nodes of a chain edge from one position down to (excluding) another. */
+    private static void appendBackwards(List<Integer> nodes, ChainCompressedGraph chains, int chain, int from, int until) {
+        for (int position = from; position > until; position--) {
+            nodes.add(chains.getInterior(chain, position));
+        }
+    }
+
+    private static List<Node> toNodes(CsrGraph csr, List<Integer> reversed) {
+        List<Node> path = new ArrayList<>(reversed.size());
+        for (int i = reversed.size() - 1; i >= 0; i--) {
+            path.add(csr.getNode(reversed.get(i)));
         }
         return path;
-    }   
-}
\ No newline at end of file
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.model;
+
+/**
+ * A point projected onto the nearest road segment.
+ *
+ * The segment is identified by one of its directed edges, {@code source -> target}; the
+ * projected point lies {@code fraction} of the way along it (0 at the source, 1 at the
+ * target). For a two-way street the opposite edge covers the same segment.
+ *
+ * @param edge The edge index in the compiled graph
+ * @param source The index of the edge's source node
+ * @param target The index of the edge's target node
+ * @param fraction How far along the edge the projected point lies, from 0 to 1
+ * @param latitude The latitude of the projected point
+ * @param longitude The longitude of the projected point
+ * @param distanceKm The distance from the query point to the projected point
+ */
+public record EdgeSnap(int edge, int source, int target, double fraction,
+                       double latitude, double longitude, double distanceKm) {
+
+    /**
+     * Returns the projected point as coordinates.
+     *
+     * @return The snapped coordinates
+     */
+    public Coordinates toCoordinates() {
+        return new Coordinates(latitude, longitude);
+    }
+}
@@ -1,24 +1,33 @@
 package com.example.model;
 
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.logging.Logger;
 import com.example.util.MemoryUtil;
 
 /**
  * Represents a graph of the road network, storing nodes and ways from OpenStreetMap data.
  * This class provides methods for building and querying the graph structure.
+ *
+ * Internally the network is kept as an immutable {@link CsrGraph}. Mutations after the graph
+ * has been compiled are supported, but cause the compiled form to be rebuilt on the next query.
+ * The graph returns the Node objects it was given; edge lengths and searches use their
+ * coordinates rounded to 1e-7 degrees, so a node with finer coordinates reports slightly
+ * different ones than the graph measures from.
  */
 public class Graph {
     private static final Logger logger = Logger.getLogger(Graph.class.getName());
 
-    /** Maps node IDs to Node objects for quick lookup. */
-    private final Map<Long, Node> nodesById;
     /**
-     * Stores the graph structure. For each node, it maps to another map
-     * where the keys are neighboring nodes and the values are the Ways connecting them.
+     * Holds nodes and edges while the graph is being mutated. It is null once the graph
+     * has been compiled into {@link #compact}, and is recreated from the compiled form
+     * if the graph is mutated again.
      */
-    private Map<Node, Map<Node, Way>> adjacencyList;
+    private CsrGraph.Builder builder;
+    /**
+     * The compiled road network. Nodes are stored under dense int indices, and edges in
+     * flat primitive arrays, instead of as a {@code Map<Node, Map<Node, Way>>}.
+     */
+    private volatile CsrGraph compact;
 
     private static final Set<String> ALLOWED_HIGHWAY_TYPES = Set.of(
         "motorway", "trunk", "primary", "secondary", "tertiary", "unclassified",
@@ -34,28 +43,36 @@ public class Graph {
     }
 
     /**
-     * Constructs a graph from the given lists of nodes and ways.
+     * Constructs a graph from the given lists of nodes and ways. The graph is compiled on all
+     * cores by a {@link ParallelGraphBuilder}, with the same result as adding the nodes and
+     * then the ways one by one.
      * 
      * @param nodes List of nodes to add to the graph
      * @param ways List of ways to add to the graph
      */
     public Graph(List<Node> nodes, List<Way> ways) {
-        this.nodesById = new HashMap<>();
-        this.adjacencyList = new HashMap<>();
-            
-        nodes.forEach(this::addNode);
-        ways.forEach(this::addWay);
+        this.compact = new ParallelGraphBuilder().build(nodes, ways);
+        // Build the snapping index with the graph, so the first route request doesn't pay for it
+        compact.getSpatialIndex();
         logger.info("Memory usage after building graph: " + MemoryUtil.getMemoryUsage());
     }
 
+    /**
+     * Constructs a graph around an already compiled road network.
+     *
+     * @param compact The compiled road network
+     */
+    public Graph(CsrGraph compact) {
+        this.compact = Objects.requireNonNull(compact, "CsrGraph must not be null");
+    }
+
     /**
      * Adds a node to the graph if it doesn't already exist.
      * 
      * @param node The node to add
      */
-    public void addNode(Node node) {
-        nodesById.putIfAbsent(node.id(), node);
-        adjacencyList.putIfAbsent(node, new HashMap<>());
+    public synchronized void addNode(Node node) {
+        mutableBuilder().addNode(node);
     }
 
     /**
@@ -65,50 +82,69 @@ public class Graph {
      * 
      * @param way The way to add
      */
-    public void addWay(Way way) {
-        String highwayType = way.getTags().get("highway");
-        if (highwayType == null || !ALLOWED_HIGHWAY_TYPES.contains(highwayType)) {
+    public synchronized void addWay(Way way) {
+        if (!isRoutable(way)) {
             return;
         }
 
+        CsrGraph.Builder target = mutableBuilder();
+        int wayIndex = target.addWay(way);
         List<Long> nodeIds = way.getNodeIds();
         for (int i = 0; i < nodeIds.size() - 1; i++) {
-            Long startId = nodeIds.get(i);
-            Long endId = nodeIds.get(i + 1);
-            Node startNode = addNodeIfAbsent(startId);
-            Node endNode = addNodeIfAbsent(endId);
-            addEdge(startNode, endNode, way);
+            // Unknown node ids get a placeholder Node with default coordinates (0, 0).
+            int startNode = target.addNodeIfAbsent(nodeIds.get(i));
+            int endNode = target.addNodeIfAbsent(nodeIds.get(i + 1));
+            // If multiple ways connect the same nodes, the one with the highest speed limit is kept.
+            target.addEdge(startNode, endNode, wayIndex);
             
             if (!way.isOneWay()) {
-                addEdge(endNode, startNode, way);
+                target.addEdge(endNode, startNode, wayIndex);
             }
         }
     }
 
     /**
-     * Adds a node to the graph if it doesn't exist, or returns the existing node.
-     * Note: This method creates a new Node with default coordinates (0, 0) if not found.
-     * 
-     * @param id The ID of the node
-     * @return The existing or newly created Node
+     * Checks whether a way is a road type that should become part of the routing graph.
+     *
+     * @param way The way to check
+     * @return true if the way's highway type is allowed
      */
-    private Node addNodeIfAbsent(Long id) {
-        return nodesById.computeIfAbsent(id, k -> new Node(id, 0, 0));
+    static boolean isRoutable(Way way) {
+        String highwayType = way.getTags().get("highway");
+        return highwayType != null && ALLOWED_HIGHWAY_TYPES.contains(highwayType);
+    }
+
+    private CsrGraph.Builder mutableBuilder() {
+        if (builder == null) {
+            builder = CsrGraph.Builder.from(compact);
+            compact = null;
+        }
+        return builder;
     }
 
-    
     /**
-     * Adds an edge between two nodes in the graph.
-     * If multiple ways connect the same nodes, the one with the highest speed limit is kept.
-     * 
-     * @param start The starting node of the edge
-     * @param end The ending node of the edge
-     * @param way The way representing this edge
+     * Returns the compiled CSR form of this graph, building it first if the graph
+     * was modified since it was last compiled.
+     *
+     * Search algorithms should use this view; the Node- and Way-based accessors
+     * on this class are kept for compatibility and are slower.
+     *
+     * @return The compiled road network
      */
-    private void addEdge(Node start, Node end, Way way) {
-        adjacencyList.computeIfAbsent(start, k -> new HashMap<>())
-            .merge(end, way, (existingWay, newWay) -> 
-                existingWay.getSpeedLimitMph() > newWay.getSpeedLimitMph() ? existingWay : newWay);
+    public CsrGraph compact() {
+        CsrGraph current = compact;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (compact == null) {
+                compact = builder.build();
+                builder = null;
+                // Build the snapping index with the graph, so the first route request doesn't pay for it
+                compact.getSpatialIndex();
+            }
+            return compact;
+        }
     }
 
      /**
@@ -117,7 +153,12 @@ public class Graph {
      * @return List of all Node objects in the graph
      */
     public List<Node> getNodes() {
-        return new ArrayList<>(nodesById.values());
+        CsrGraph csr = compact();
+        List<Node> nodes = new ArrayList<>(csr.getNodeCount());
+        for (int i = 0; i < csr.getNodeCount(); i++) {
+            nodes.add(csr.getNode(i));
+        }
+        return nodes;
     }
 
     /**
@@ -127,7 +168,9 @@ public class Graph {
      * @return The Node object with the given ID, or null if not found
      */
     public Node getNode(long id) {
-        return nodesById.get(id);
+        CsrGraph csr = compact();
+        int index = csr.indexOf(id);
+        return index >= 0 ? csr.getNode(index) : null;
     }
 
     /**
@@ -135,13 +178,19 @@ public class Graph {
      * 
      * This method returns a Set of all nodes that are directly connected to the given node.
      * If the node has no neighbors or doesn't exist in the graph, an empty Set is returned.
+     * The returned Set is a read-only view over the compiled edge arrays.
      * 
      * @param node The node whose neighbors are to be retrieved.
      * @return A Set of Node objects representing the neighbors of the given node.
      *         Returns an empty Set if the node has no neighbors or doesn't exist in the graph.
      */
     public Set<Node> getNeighbors(Node node) {
-        return adjacencyList.getOrDefault(node, Collections.emptyMap()).keySet();
+        CsrGraph csr = compact();
+        int index = csr.indexOf(node.id());
+        if (index < 0) {
+            return Collections.emptySet();
+        }
+        return new NeighborSet(csr, index);
     }
 
     /**
@@ -157,11 +206,63 @@ public class Graph {
      *         or null if no such connection exists.
      */
     public Way getWay(Node start, Node end) {
-        return adjacencyList.getOrDefault(start, Collections.emptyMap()).get(end);
+        CsrGraph csr = compact();
+        int from = csr.indexOf(start.id());
+        int to = csr.indexOf(end.id());
+        if (from < 0 || to < 0) {
+            return null;
+        }
+        int edge = csr.findEdge(from, to);
+        return edge >= 0 ? csr.getWay(edge) : null;
     }
 
+    /**
+     * A read-only Set view of the targets of one node's outgoing edges.
+     */
+    private static final class NeighborSet extends AbstractSet<Node> {
+        private final CsrGraph csr;
+        private final int node;
+
+        NeighborSet(CsrGraph csr, int node) {
+            this.csr = csr;
+            this.node = node;
+        }
+
+        @Override
+        public Iterator<Node> iterator() {
+            return new Iterator<>() {
+                private int edge = csr.firstEdge(node);
+
+                @Override
+                public boolean hasNext() {
+                    return edge < csr.lastEdge(node);
+                }
+
+                @Override
+                public Node next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return csr.getNode(csr.getTarget(edge++));
+                }
+            };
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Node other)) {
+                return false;
+            }
+            int index = csr.indexOf(other.id());
+            return index >= 0 && csr.getNode(index).equals(other) && csr.findEdge(node, index) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return csr.getOutDegree(node);
+        }
+    }
 
-    
     /**
      * Finds the nearest relevant node in the graph to the given coordinates.
      * A node is considered relevant if it has at least one neighbor, meaning
@@ -172,25 +273,50 @@ public class Graph {
      *         relevant nodes are found in the graph.
      */
     public Node findNearestRelevantNode(Coordinates coordinates) {
-        Node nearest = null;
-        double minDistance = Double.MAX_VALUE;
-        for (Map.Entry<Node, Map<Node, Way>> entry : adjacencyList.entrySet()) {
-            Node node = entry.getKey();
-            Map<Node, Way> neighbors = entry.getValue();
-            // A node is considered relevant if it has neighbors
-            if (!neighbors.isEmpty()) {
-                double distance = node.toCoordinates().distanceTo(coordinates);
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    nearest = node;
-                    // Early termination if we find an exact match
-                    if (distance == 0) {
-                        break;
-                    }
-                }
-            }
+        return findNearestRelevantNode(coordinates, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Finds the nearest relevant node within a maximum distance of the given coordinates,
+     * using the graph's spatial index.
+     *
+     * @param coordinates The coordinates to which the nearest node should be found.
+     * @param maxDistanceKm The maximum distance to the node, in kilometers.
+     * @return The nearest relevant node, or null if there is none within the distance.
+     */
+    public Node findNearestRelevantNode(Coordinates coordinates, double maxDistanceKm) {
+        CsrGraph csr = compact();
+        int nearest = csr.getSpatialIndex().nearestNode(coordinates.getLatitude(), coordinates.getLongitude(), maxDistanceKm);
+        return nearest >= 0 ? csr.getNode(nearest) : null;
+    }
+
+    /**
+     * Finds up to k relevant nodes within a maximum distance of the given coordinates.
+     *
+     * @param coordinates The coordinates to search around.
+     * @param k The maximum number of nodes to return.
+     * @param maxDistanceKm The maximum distance to a node, in kilometers.
+     * @return The nodes, closest first.
+     */
+    public List<Node> findNearestRelevantNodes(Coordinates coordinates, int k, double maxDistanceKm) {
+        CsrGraph csr = compact();
+        int[] nearest = csr.getSpatialIndex().nearestNodes(coordinates.getLatitude(), coordinates.getLongitude(), k, maxDistanceKm);
+        List<Node> nodes = new ArrayList<>(nearest.length);
+        for (int node : nearest) {
+            nodes.add(csr.getNode(node));
         }
-        return nearest;
+        return nodes;
+    }
+
+    /**
+     * Projects the given coordinates onto the nearest road segment.
+     *
+     * @param coordinates The coordinates to snap.
+     * @param maxDistanceKm The maximum distance to the segment, in kilometers.
+     * @return The snapped position, or null if no segment is within the distance.
+     */
+    public EdgeSnap snapToEdge(Coordinates coordinates, double maxDistanceKm) {
+        return compact().getSpatialIndex().nearestEdge(coordinates.getLatitude(), coordinates.getLongitude(), maxDistanceKm);
     }
 
     /**
@@ -212,7 +338,7 @@ public class Graph {
      * @return The number of nodes in the graph.
      */
     public int getNodeCount() {
-        return nodesById.size();
+        return compact().getNodeCount();
     }
 
     /**
@@ -225,15 +351,7 @@ public class Graph {
      * @return The total number of unique connections in the graph.
      */
     public int getWayCount() {
-        Set<Connection> countedConnections = new HashSet<>();
-
-        for (Map.Entry<Node, Map<Node, Way>> entry : adjacencyList.entrySet()) {
-            Node fromNode = entry.getKey();
-            for (Node toNode : entry.getValue().keySet()) {
-                countedConnections.add(new Connection(fromNode.id(), toNode.id()));
-            }
-        }
-        return countedConnections.size();
+        return compact().getConnectionCount();
     }
 
     /**
@@ -242,38 +360,12 @@ public class Graph {
      * @return Set of all node IDs in the graph
      */
     public Set<Long> getNodeIds() {
-        return nodesById.keySet();
-    }
-
-    /**
-     * Represents a unique, undirected connection between two nodes in the graph.
-     * 
-     * This record ensures that connections are treated as undirected edges,
-     * regardless of the order in which the node IDs are provided. It maintains
-     * a consistent representation by always storing the smaller node ID first.
-     * 
-     * Key features:
-     * 1. Undirected: Connection(A, B) is equivalent to Connection(B, A).
-     * 2. Unique representation: Ensures each connection is represented uniquely,
-     *    which is crucial for correct counting and set operations.
-     * 3. Immutable: Once created, a Connection cannot be modified.
-     * 
-     * @param node1 The ID of the first node (always the smaller of the two IDs)
-     * @param node2 The ID of the second node (always the larger of the two IDs)
-     */
-    private record Connection(long node1, long node2) {
-        /**
-         * Compact constructor for Connection.
-         * Ensures that node1 is always the smaller ID and node2 is the larger ID.
-         * This guarantees a consistent, direction-independent representation of the connection.
-         */
-        Connection {
-            if (node1 > node2) {
-                long temp = node1;
-                node1 = node2;
-                node2 = temp;
-            }
+        CsrGraph csr = compact();
+        Set<Long> ids = new HashSet<>(csr.getNodeCount() * 2);
+        for (int i = 0; i < csr.getNodeCount(); i++) {
+            ids.add(csr.getNode(i).id());
         }
+        return ids;
     }
 
     /**
@@ -282,13 +374,16 @@ public class Graph {
      * the neighbors of each node in the graph.
      */
     public void printGraphStructure() {
+        CsrGraph csr = compact();
         logger.info(() -> "Graph Structure:");
-        logger.info(() -> "Total nodes: " + nodesById.size());
-        logger.info(() -> "Total connections: " + getWayCount());
-        adjacencyList.forEach((node, neighbors) -> {
+        logger.info(() -> "Total nodes: " + csr.getNodeCount());
+        logger.info(() -> "Total connections: " + csr.getConnectionCount());
+        for (int i = 0; i < csr.getNodeCount(); i++) {
+            Node node = csr.getNode(i);
+            Set<Node> neighbors = new NeighborSet(csr, i);
             logger.info(() -> "Node: " + node);
-            logger.info(() -> "  Neighbors: " + neighbors.keySet());
-        });
+            logger.info(() -> "  Neighbors: " + neighbors);
+        }
     }
 
     /**
@@ -299,19 +394,21 @@ public class Graph {
      * @param nodeId The ID of the node whose adjacency list should be printed.
      */
     public void printNodeAdjacencyList(long nodeId) {
-        Node node = nodesById.get(nodeId);
-        if (node == null) {
+        CsrGraph csr = compact();
+        int index = csr.indexOf(nodeId);
+        if (index < 0) {
             logger.info(() -> "Node with ID " + nodeId + " not found in the graph.");
             return;
         } else {
-            Map<Node, Way> neighbors = adjacencyList.get(node);
-            if (neighbors == null || neighbors.isEmpty()) {
+            if (csr.getOutDegree(index) == 0) {
                 logger.info(() -> "Node with ID " + nodeId + " has no neighbors.");
             } else {
                 logger.info(() -> "Node with ID " + nodeId + " has the following neighbors:");
-                neighbors.forEach((neighbor, way) -> {
+                for (int e = csr.firstEdge(index); e < csr.lastEdge(index); e++) {
+                    Node neighbor = csr.getNode(csr.getTarget(e));
+                    Way way = csr.getWay(e);
                     logger.info(() -> "  Neighbor: " + neighbor + " via way: " + way);
-                });
+                }
             }
         }
         
@@ -0,0 +1,616 @@
+package com.example.model;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.logging.Logger;
+
+import com.example.util.LongIntHashMap;
+
+/**
+ * A versioned binary file format for a compiled road network, so a server can start without
+ * parsing the OSM JSON extracts.
+ *
+ * The file holds every array of a {@link CsrGraph}, including the derived ones (edge lengths,
+ * speeds, the reverse adjacency and the fingerprint), as little-endian primitive sections
+ * aligned to 8 bytes; coordinates are fixed-point ints, as the graph holds them. Tag keys and
+ * values are stored once in a string dictionary and referenced by number; node tags form a
+ * table of (key, value) pairs grouped by node in CSR form, and way tags are stored the same
+ * way. The points of interest of a {@link MapData}, which are not part of the graph, follow in
+ * a section of their own.
+ *
+ * The header also records a stamp of the JSON files the snapshot was built from, see
+ * {@link #sourceStamp(List)}, so a loader can tell that the snapshot is out of date and
+ * rebuild it instead of serving a network that no longer matches its sources.
+ *
+ * {@link #load(Path)} memory-maps the file and copies each section into a heap array with one
+ * bulk transfer, so the loaded graph takes as much heap as one built from JSON, not less. What
+ * it saves is the parsing and the graph compilation: no JSON is read and no edge is derived
+ * again, and the graph behaves exactly like the one it was written from, fingerprint included.
+ * It still builds a {@link Node}, with an interned {@link TagSet}, for every node and point of
+ * interest, so that part of the load grows with the node count. Only way objects, which
+ * routing needs just for the segments on a returned path, are built from the way sections the
+ * first time they are asked for.
+ */
+public final class GraphSnapshot {
+    private static final Logger logger = Logger.getLogger(GraphSnapshot.class.getName());
+    private static final int FILE_MAGIC = 0x534d4753; // "SMGS"
+    private static final int FILE_VERSION = 4;
+    /** The source stamp of a snapshot written without knowing its sources. */
+    public static final long UNKNOWN_SOURCES = 0;
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private GraphSnapshot() {
+    }
+
+    /**
+     * Writes a graph to a snapshot file. The file is written next to the target and moved into
+     * place, so a reader never sees a half-written snapshot.
+     *
+     * @param graph The compiled road network
+     * @param file The file to write
+     * @throws IOException If the file cannot be written
+     */
+    public static void write(CsrGraph graph, Path file) throws IOException {
+        write(graph, List.of(), UNKNOWN_SOURCES, file);
+    }
+
+    /**
+     * Writes a road network and its points of interest to a snapshot file.
+     *
+     * @param data The split map data
+     * @param file The file to write
+     * @throws IOException If the file cannot be written
+     */
+    public static void write(MapData data, Path file) throws IOException {
+        write(data, UNKNOWN_SOURCES, file);
+    }
+
+    /**
+     * Writes a road network and its points of interest to a snapshot file, recording the
+     * stamp of the files they were built from.
+     *
+     * @param data The split map data
+     * @param sourceStamp The stamp of the source files, see {@link #sourceStamp(List)}
+     * @param file The file to write
+     * @throws IOException If the file cannot be written
+     */
+    public static void write(MapData data, long sourceStamp, Path file) throws IOException {
+        write(data.graph().compact(), data.pointsOfInterest(), sourceStamp, file);
+    }
+
+    private static void write(CsrGraph graph, List<Node> pointsOfInterest, long sourceStamp, Path file)
+            throws IOException {
+        int nodeCount = graph.getNodeCount();
+        int edgeCount = graph.getEdgeCount();
+        int wayCount = graph.getWayTableSize();
+
+        StringTable strings = new StringTable();
+        int[] nodeTagOffsets = new int[nodeCount + 1];
+        for (int i = 0; i < nodeCount; i++) {
+            nodeTagOffsets[i + 1] = nodeTagOffsets[i] + graph.getNode(i).tags().size();
+        }
+        int[] nodeTags = new int[nodeTagOffsets[nodeCount] * 2];
+        for (int i = 0, t = 0; i < nodeCount; i++) {
+            for (Map.Entry<String, String> tag : graph.getNode(i).tags().entrySet()) {
+                nodeTags[t++] = strings.idOf(tag.getKey());
+                nodeTags[t++] = strings.idOf(tag.getValue());
+            }
+        }
+        int[] wayTagOffsets = new int[wayCount + 1];
+        int[] wayNodeOffsets = new int[wayCount + 1];
+        for (int w = 0; w < wayCount; w++) {
+            Way way = graph.getWayAt(w);
+            wayTagOffsets[w + 1] = wayTagOffsets[w] + way.getTags().size();
+            wayNodeOffsets[w + 1] = wayNodeOffsets[w] + way.getNodeIds().size();
+        }
+        int[] wayTags = new int[wayTagOffsets[wayCount] * 2];
+        for (int w = 0, t = 0; w < wayCount; w++) {
+            for (Map.Entry<String, ?> tag : graph.getWayAt(w).getTags().entrySet()) {
+                wayTags[t++] = strings.idOf(tag.getKey());
+                wayTags[t++] = strings.idOf(String.valueOf(tag.getValue()));
+            }
+        }
+        int poiCount = pointsOfInterest.size();
+        int[] poiTagOffsets = new int[poiCount + 1];
+        for (int p = 0; p < poiCount; p++) {
+            poiTagOffsets[p + 1] = poiTagOffsets[p] + pointsOfInterest.get(p).tags().size();
+        }
+        int[] poiTags = new int[poiTagOffsets[poiCount] * 2];
+        for (int p = 0, t = 0; p < poiCount; p++) {
+            for (Map.Entry<String, String> tag : pointsOfInterest.get(p).tags().entrySet()) {
+                poiTags[t++] = strings.idOf(tag.getKey());
+                poiTags[t++] = strings.idOf(tag.getValue());
+            }
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Output out = new Output(channel);
+            out.putInt(FILE_MAGIC);
+            out.putInt(FILE_VERSION);
+            out.putLong(sourceStamp);
+            out.putLong(graph.getFingerprint());
+            out.putInt(nodeCount);
+            out.putInt(edgeCount);
+            out.putInt(wayCount);
+            out.putInt(strings.size());
+            out.putInt(graph.getConnectionCount());
+            out.putInt(graph.getMaxSpeedMph());
+            out.putInt(poiCount);
+
+            for (String string : strings.values) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                out.putInt(bytes.length);
+                out.putBytes(bytes);
+            }
+            out.align();
+
+            // Nodes
+            for (int i = 0; i < nodeCount; i++) {
+                out.putLong(graph.getNode(i).id());
+            }
+            int[] latitudes = new int[nodeCount];
+            int[] longitudes = new int[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                latitudes[i] = graph.getFixedLatitude(i);
+                longitudes[i] = graph.getFixedLongitude(i);
+            }
+            out.putInts(latitudes);
+            out.putInts(longitudes);
+            out.putInts(nodeTagOffsets);
+            out.putInts(nodeTags);
+
+            // Edges
+            int[] offsets = new int[nodeCount + 1];
+            int[] reverseOffsets = new int[nodeCount + 1];
+            for (int i = 0; i <= nodeCount; i++) {
+                offsets[i] = i < nodeCount ? graph.firstEdge(i) : edgeCount;
+                reverseOffsets[i] = i < nodeCount ? graph.firstInEdge(i) : edgeCount;
+            }
+            out.putInts(offsets);
+            int[] edgeInts = new int[edgeCount];
+            for (int e = 0; e < edgeCount; e++) {
+                edgeInts[e] = graph.getTarget(e);
+            }
+            out.putInts(edgeInts);
+            for (int e = 0; e < edgeCount; e++) {
+                edgeInts[e] = graph.getWayIndex(e);
+            }
+            out.putInts(edgeInts);
+            for (int e = 0; e < edgeCount; e++) {
+                out.putDouble(graph.getLengthMeters(e));
+            }
+            for (int e = 0; e < edgeCount; e++) {
+                out.putShort((short) graph.getSpeedMph(e));
+            }
+            out.align();
+            out.putInts(reverseOffsets);
+            for (int p = 0; p < edgeCount; p++) {
+                edgeInts[p] = graph.getInEdge(p);
+            }
+            out.putInts(edgeInts);
+            for (int p = 0; p < edgeCount; p++) {
+                edgeInts[p] = graph.getInSource(p);
+            }
+            out.putInts(edgeInts);
+
+            // Ways
+            for (int w = 0; w < wayCount; w++) {
+                Way way = graph.getWayAt(w);
+                out.putLong(way.id());
+                out.putLong(way.startNode().id());
+                out.putLong(way.endNode().id());
+            }
+            out.putInts(wayNodeOffsets);
+            for (int w = 0; w < wayCount; w++) {
+                for (long nodeId : graph.getWayAt(w).getNodeIds()) {
+                    out.putLong(nodeId);
+                }
+            }
+            out.putInts(wayTagOffsets);
+            out.putInts(wayTags);
+
+            // Points of interest
+            for (Node poi : pointsOfInterest) {
+                out.putLong(poi.id());
+            }
+            int[] poiLatitudes = new int[poiCount];
+            int[] poiLongitudes = new int[poiCount];
+            for (int p = 0; p < poiCount; p++) {
+                poiLatitudes[p] = Coordinates.toFixedPoint(pointsOfInterest.get(p).lat());
+                poiLongitudes[p] = Coordinates.toFixedPoint(pointsOfInterest.get(p).lon());
+            }
+            out.putInts(poiLatitudes);
+            out.putInts(poiLongitudes);
+            out.putInts(poiTagOffsets);
+            out.putInts(poiTags);
+            out.flush();
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        logger.info("Wrote graph snapshot with " + nodeCount + " nodes, " + edgeCount + " edges and "
+                + poiCount + " points of interest to " + file);
+    }
+
+    /**
+     * Loads a graph from a snapshot file written by {@link #write(CsrGraph, Path)}, or the road
+     * network alone from one written by {@link #write(MapData, Path)}.
+     *
+     * @param file The file to read
+     * @return The compiled road network
+     * @throws IOException If the file cannot be read or is not a valid snapshot
+     */
+    public static CsrGraph load(Path file) throws IOException {
+        return loadMapData(file).graph().compact();
+    }
+
+    /**
+     * Loads a road network and its points of interest from a snapshot file written by
+     * {@link #write(MapData, Path)}. A snapshot written from a graph alone has none.
+     *
+     * @param file The file to read
+     * @return The map data
+     * @throws IOException If the file cannot be read or is not a valid snapshot
+     */
+    public static MapData loadMapData(Path file) throws IOException {
+        long start = System.nanoTime();
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Graph snapshot is too large to map: " + file);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer in = mapped.order(ORDER);
+        try {
+            MapData data = read(in, file);
+            CsrGraph graph = data.graph().compact();
+            logger.info(String.format("Loaded graph snapshot with %d nodes, %d edges and %d points of interest from %s in %d ms",
+                    graph.getNodeCount(), graph.getEdgeCount(), data.pointsOfInterest().size(), file,
+                    (System.nanoTime() - start) / 1_000_000));
+            return data;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt graph snapshot: " + file, e);
+        }
+    }
+
+    /**
+     * Reads the stamp of the source files a snapshot was built from, without loading it.
+     *
+     * @param file The snapshot file
+     * @return The stamp, or {@link #UNKNOWN_SOURCES} if it was written without one
+     * @throws IOException If the file cannot be read or is not a snapshot of this version
+     */
+    public static long readSourceStamp(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(16).order(ORDER);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+        }
+        header.flip();
+        if (header.remaining() < 16 || header.getInt() != FILE_MAGIC) {
+            throw new IOException("Not a graph snapshot: " + file);
+        }
+        int version = header.getInt();
+        if (version != FILE_VERSION) {
+            throw new IOException("Unsupported graph snapshot version " + version);
+        }
+        return header.getLong();
+    }
+
+    /**
+     * Computes a stamp of the files a snapshot is built from out of their sizes and
+     * modification times, which changes whenever one of them is replaced or edited.
+     *
+     * @param sources The source files, such as the nodes and ways JSON, in a fixed order
+     * @return The stamp, never {@link #UNKNOWN_SOURCES}
+     * @throws IOException If the size of a source cannot be determined
+     */
+    public static long sourceStamp(List<URL> sources) throws IOException {
+        long hash = 0xcbf29ce484222325L;
+        for (URL source : sources) {
+            URLConnection connection = source.openConnection();
+            long size = connection.getContentLengthLong();
+            if (size < 0) {
+                throw new IOException("Cannot determine the size of " + source);
+            }
+            hash = (hash ^ size) * 0x100000001b3L;
+            hash = (hash ^ connection.getLastModified()) * 0x100000001b3L;
+            // Reading the size may have opened the source, which is not read here
+            connection.getInputStream().close();
+        }
+        return hash == UNKNOWN_SOURCES ? 1 : hash;
+    }
+
+    private static MapData read(ByteBuffer in, Path file) throws IOException {
+        if (in.remaining() < 8 || in.getInt() != FILE_MAGIC) {
+            throw new IOException("Not a graph snapshot: " + file);
+        }
+        int version = in.getInt();
+        if (version != FILE_VERSION) {
+            throw new IOException("Unsupported graph snapshot version " + version);
+        }
+        in.getLong(); // The source stamp, see readSourceStamp
+        long fingerprint = in.getLong();
+        int nodeCount = in.getInt();
+        int edgeCount = in.getInt();
+        int wayCount = in.getInt();
+        int stringCount = in.getInt();
+        int connectionCount = in.getInt();
+        int maxSpeedMph = in.getInt();
+        int poiCount = in.getInt();
+
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            byte[] bytes = new byte[in.getInt()];
+            in.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        align(in);
+
+        // Nodes
+        long[] nodeIds = getLongs(in, nodeCount);
+        int[] latitudes = getInts(in, nodeCount);
+        int[] longitudes = getInts(in, nodeCount);
+        int[] nodeTagOffsets = getInts(in, nodeCount + 1);
+        int[] nodeTags = getInts(in, nodeTagOffsets[nodeCount] * 2);
+        Node[] nodes = new Node[nodeCount];
+        LongIntHashMap indexById = new LongIntHashMap(nodeCount);
+        // Strings come from the shared table; the interner, dropped after the load, shares tag sets
+        TagSet.Interner tagSets = new TagSet.Interner();
+        for (int i = 0; i < nodeCount; i++) {
+            TagSet tags = tagSets.intern(tagMap(strings, nodeTags, nodeTagOffsets[i], nodeTagOffsets[i + 1]));
+            nodes[i] = new Node(nodeIds[i], Coordinates.fromFixedPoint(latitudes[i]),
+                                Coordinates.fromFixedPoint(longitudes[i]), tags);
+            indexById.put(nodeIds[i], i);
+        }
+
+        // Edges
+        int[] offsets = getInts(in, nodeCount + 1);
+        int[] targets = getInts(in, edgeCount);
+        int[] wayIndices = getInts(in, edgeCount);
+        double[] lengthsMeters = getDoubles(in, edgeCount);
+        short[] speedsMph = new short[edgeCount];
+        in.asShortBuffer().get(speedsMph);
+        in.position(in.position() + edgeCount * Short.BYTES);
+        align(in);
+        int[] reverseOffsets = getInts(in, nodeCount + 1);
+        int[] reverseEdges = getInts(in, edgeCount);
+        int[] reverseSources = getInts(in, edgeCount);
+
+        // Ways
+        long[] wayHeaders = getLongs(in, wayCount * 3);
+        int[] wayNodeOffsets = getInts(in, wayCount + 1);
+        long[] wayNodeIds = getLongs(in, wayNodeOffsets[wayCount]);
+        int[] wayTagOffsets = getInts(in, wayCount + 1);
+        int[] wayTags = getInts(in, wayTagOffsets[wayCount] * 2);
+
+        // Points of interest
+        long[] poiIds = getLongs(in, poiCount);
+        int[] poiLatitudes = getInts(in, poiCount);
+        int[] poiLongitudes = getInts(in, poiCount);
+        int[] poiTagOffsets = getInts(in, poiCount + 1);
+        int[] poiTags = getInts(in, poiTagOffsets[poiCount] * 2);
+        List<Node> pointsOfInterest = new ArrayList<>(poiCount);
+        for (int p = 0; p < poiCount; p++) {
+            pointsOfInterest.add(new Node(poiIds[p], Coordinates.fromFixedPoint(poiLatitudes[p]),
+                    Coordinates.fromFixedPoint(poiLongitudes[p]),
+                    tagSets.intern(tagMap(strings, poiTags, poiTagOffsets[p], poiTagOffsets[p + 1]))));
+        }
+        if (in.hasRemaining()) {
+            throw new IOException("Unexpected data after the end of graph snapshot " + file);
+        }
+
+        // Ways are built on first use, so check up front what building them relies on
+        for (int t : wayTags) {
+            if (t < 0 || t >= strings.length) {
+                throw new IOException("Corrupt graph snapshot " + file + ": bad string reference");
+            }
+        }
+        for (int w = 0; w < wayCount; w++) {
+            if (wayNodeOffsets[w] > wayNodeOffsets[w + 1] || wayTagOffsets[w] > wayTagOffsets[w + 1]) {
+                throw new IOException("Corrupt graph snapshot " + file + ": bad way offsets");
+            }
+        }
+        // Ways loaded later share the table's strings but not an interner, which would stay alive
+        IntFunction<Way> wayLoader = w -> {
+            Map<String, Object> data = new HashMap<>();
+            data.put("id", wayHeaders[3 * w]);
+            data.put("nodes", new LongListView(wayNodeIds, wayNodeOffsets[w], wayNodeOffsets[w + 1]));
+            data.put("tags", tagMap(strings, wayTags, wayTagOffsets[w], wayTagOffsets[w + 1]));
+            return new Way(wayHeaders[3 * w], nodeOrPlaceholder(nodes, indexById, wayHeaders[3 * w + 1]),
+                    nodeOrPlaceholder(nodes, indexById, wayHeaders[3 * w + 2]), data);
+        };
+
+        CsrGraph graph = new CsrGraph(nodes, indexById, latitudes, longitudes, offsets, targets, wayIndices,
+                wayCount, wayLoader,
+                lengthsMeters, speedsMph, reverseOffsets, reverseEdges, reverseSources,
+                connectionCount, maxSpeedMph, fingerprint);
+        return new MapData(new Graph(graph), pointsOfInterest);
+    }
+
+    /** Way endpoints missing from the graph get a placeholder, as in {@link Way#fromMap(Map)}. */
+    private static Node nodeOrPlaceholder(Node[] nodes, LongIntHashMap indexById, long id) {
+        int index = indexById.get(id);
+        return index >= 0 ? nodes[index] : new Node(id, 0, 0);
+    }
+
+    private static Map<String, String> tagMap(String[] strings, int[] pairs, int from, int to) {
+        if (from == to) {
+            return Map.of();
+        }
+        Map<String, String> tags = new LinkedHashMap<>((to - from) * 2);
+        for (int t = from; t < to; t++) {
+            tags.put(strings[pairs[2 * t]], strings[pairs[2 * t + 1]]);
+        }
+        return tags;
+    }
+
+    private static int[] getInts(ByteBuffer in, int count) {
+        int[] values = new int[count];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + count * Integer.BYTES);
+        align(in);
+        return values;
+    }
+
+    private static long[] getLongs(ByteBuffer in, int count) {
+        long[] values = new long[count];
+        in.asLongBuffer().get(values);
+        in.position(in.position() + count * Long.BYTES);
+        return values;
+    }
+
+    private static double[] getDoubles(ByteBuffer in, int count) {
+        double[] values = new double[count];
+        in.asDoubleBuffer().get(values);
+        in.position(in.position() + count * Double.BYTES);
+        return values;
+    }
+
+    private static void align(ByteBuffer in) {
+        in.position((in.position() + 7) & ~7);
+    }
+
+    /**
+     * Assigns consecutive numbers to distinct strings.
+     */
+    private static final class StringTable {
+        final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> ids = new HashMap<>();
+
+        int idOf(String value) {
+            return ids.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+
+    /**
+     * Buffers little-endian primitives and writes them to a channel.
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ORDER);
+        private long position;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES).putInt(value);
+            position += Integer.BYTES;
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(Long.BYTES).putLong(value);
+            position += Long.BYTES;
+        }
+
+        void putDouble(double value) throws IOException {
+            ensure(Double.BYTES).putDouble(value);
+            position += Double.BYTES;
+        }
+
+        void putShort(short value) throws IOException {
+            ensure(Short.BYTES).putShort(value);
+            position += Short.BYTES;
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            for (byte b : bytes) {
+                ensure(1).put(b);
+            }
+            position += bytes.length;
+        }
+
+        /** Writes an int array and pads it to the next 8-byte boundary. */
+        void putInts(int[] values) throws IOException {
+            for (int value : values) {
+                putInt(value);
+            }
+            align();
+        }
+
+        void align() throws IOException {
+            while ((position & 7) != 0) {
+                ensure(1).put((byte) 0);
+                position++;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private ByteBuffer ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+            return buffer;
+        }
+    }
+
+    /**
+     * A read-only list view over a range of a long array, so way node lists need no boxing
+     * until they are read.
+     */
+    private static final class LongListView extends AbstractList<Long> {
+        private final long[] values;
+        private final int from;
+        private final int to;
+
+        LongListView(long[] values, int from, int to) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Long get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return values[from + index];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
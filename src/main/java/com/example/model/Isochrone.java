@@ -0,0 +1,115 @@
+package com.example.model;
+
+import java.util.Map;
+
+/**
+ * The part of the road network that can be reached from an origin within a travel time
+ * limit, see {@link TravelTimeSearch#isochrone(Node, double)}.
+ *
+ * The reachable nodes are held as node indices with their travel times and route lengths,
+ * soonest first, and the area they cover can be outlined as GeoJSON.
+ */
+public final class Isochrone {
+    private final CsrGraph graph;
+    private final Node origin;
+    private final double limitSeconds;
+    private final int[] nodes;
+    private final double[] travelSeconds;
+    private final double[] lengthsMeters;
+    private final int nodeCount;
+
+    Isochrone(CsrGraph graph, Node origin, double limitSeconds, int[] nodes, double[] travelSeconds,
+              double[] lengthsMeters, int nodeCount) {
+        this.graph = graph;
+        this.origin = origin;
+        this.limitSeconds = limitSeconds;
+        this.nodes = nodes;
+        this.travelSeconds = travelSeconds;
+        this.lengthsMeters = lengthsMeters;
+        this.nodeCount = nodeCount;
+    }
+
+    public Node getOrigin() {
+        return origin;
+    }
+
+    public double getLimitSeconds() {
+        return limitSeconds;
+    }
+
+    /**
+     * Returns the number of reachable nodes, the origin included.
+     *
+     * @return The number of nodes within the limit
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns a reachable node.
+     *
+     * @param i The node's position, from 0 for the origin up to {@link #getNodeCount()},
+     *          in order of travel time
+     * @return The node
+     */
+    public Node getNode(int i) {
+        return graph.getNode(nodeIndex(i));
+    }
+
+    /**
+     * Returns the travel time to a reachable node.
+     *
+     * @param i The node's position, as for {@link #getNode(int)}
+     * @return The travel time in seconds
+     */
+    public double getTravelTimeSeconds(int i) {
+        checkPosition(i);
+        return travelSeconds[i];
+    }
+
+    /**
+     * Returns the length of the fastest route to a reachable node.
+     *
+     * @param i The node's position, as for {@link #getNode(int)}
+     * @return The length in meters
+     */
+    public double getDistanceMeters(int i) {
+        checkPosition(i);
+        return lengthsMeters[i];
+    }
+
+    /**
+     * Outlines the reachable area: the roads driven within the limit, including the part of
+     * the first segment beyond each last reachable node that the remaining time covers, are
+     * drawn onto a grid of cells the given size, and the outline of the covered cells is
+     * returned in the style of the boundary GeoJSON, with {@code [longitude, latitude]}
+     * positions and rings closed by repeating the first position.
+     *
+     * @param cellMeters The grid resolution, which is also how far the area extends to either
+     *                   side of a road
+     * @return A GeoJSON MultiPolygon, with one polygon per separate area and holes where
+     *         areas enclose unreachable ones
+     */
+    public Map<String, Object> toGeoJson(double cellMeters) {
+        if (cellMeters <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        return IsochroneOutline.trace(this, cellMeters);
+    }
+
+    CsrGraph graph() {
+        return graph;
+    }
+
+    int nodeIndex(int i) {
+        checkPosition(i);
+        return nodes[i];
+    }
+
+    private void checkPosition(int i) {
+        if (i < 0 || i >= nodeCount) {
+            throw new IndexOutOfBoundsException("No reachable node " + i + " of " + nodeCount);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.example.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outlines the area an {@link Isochrone} covers.
+ *
+ * The reachable roads are drawn onto a grid of square cells, the covered cells are grown by
+ * one cell in every direction so that neighbouring roads merge into one area, and the
+ * boundary between covered and uncovered cells is traced into rings. Every boundary side is
+ * directed so that covered cells are on its left, which makes outer rings run
+ * counterclockwise and holes clockwise, as GeoJSON recommends. Where two covered cells only
+ * touch at a corner, the trace turns left and so keeps them in separate rings.
+ */
+final class IsochroneOutline {
+    /** Meters per degree of latitude, on the same 6371 km sphere as the haversine formula. */
+    private static final double METERS_PER_DEGREE = 6371000.0 * Math.PI / 180.0;
+    /** Keeps a tiny cell size over a large area from allocating an enormous grid. */
+    private static final long MAX_CELLS = 4_000_000;
+    private static final int MARGIN_CELLS = 2;
+
+    private final int rows;
+    private final int cols;
+    private final double minLat;
+    private final double minLon;
+    private final double cellLat;
+    private final double cellLon;
+    private boolean[] covered;
+
+    private IsochroneOutline(int rows, int cols, double minLat, double minLon, double cellLat, double cellLon) {
+        this.rows = rows;
+        this.cols = cols;
+        this.minLat = minLat;
+        this.minLon = minLon;
+        this.cellLat = cellLat;
+        this.cellLon = cellLon;
+        this.covered = new boolean[rows * cols];
+    }
+
+    static Map<String, Object> trace(Isochrone isochrone, double cellMeters) {
+        CsrGraph graph = isochrone.graph();
+        Node origin = isochrone.getOrigin();
+        double minLat = origin.lat();
+        double maxLat = origin.lat();
+        double minLon = origin.lon();
+        double maxLon = origin.lon();
+        // Edges leaving the area are drawn partway, so the far ends of all edges bound the grid
+        for (int i = 0; i < isochrone.getNodeCount(); i++) {
+            int node = isochrone.nodeIndex(i);
+            for (int e = graph.firstEdge(node); e < graph.lastEdge(node); e++) {
+                int target = graph.getTarget(e);
+                minLat = Math.min(minLat, graph.getLatitude(target));
+                maxLat = Math.max(maxLat, graph.getLatitude(target));
+                minLon = Math.min(minLon, graph.getLongitude(target));
+                maxLon = Math.max(maxLon, graph.getLongitude(target));
+            }
+        }
+
+        double cellLat = cellMeters / METERS_PER_DEGREE;
+        double cosLat = Math.max(Math.cos(Math.toRadians(origin.lat())), 0.01);
+        double cellLon = cellLat / cosLat;
+        int rows = (int) Math.ceil((maxLat - minLat) / cellLat) + 1 + 2 * MARGIN_CELLS;
+        int cols = (int) Math.ceil((maxLon - minLon) / cellLon) + 1 + 2 * MARGIN_CELLS;
+        if ((long) rows * cols > MAX_CELLS) {
+            throw new IllegalArgumentException("Cell size of " + cellMeters + " m is too small for an area of "
+                    + rows + " x " + cols + " cells");
+        }
+
+        IsochroneOutline outline = new IsochroneOutline(rows, cols, minLat - MARGIN_CELLS * cellLat,
+                                                        minLon - MARGIN_CELLS * cellLon, cellLat, cellLon);
+        outline.drawRoads(isochrone);
+        outline.grow();
+        return outline.toGeoJson();
+    }
+
+    /**
+     * Covers the cells along every road driven within the limit.
+     */
+    private void drawRoads(Isochrone isochrone) {
+        CsrGraph graph = isochrone.graph();
+        for (int i = 0; i < isochrone.getNodeCount(); i++) {
+            int node = isochrone.nodeIndex(i);
+            double lat = graph.getLatitude(node);
+            double lon = graph.getLongitude(node);
+            cover(lat, lon);
+            double remaining = isochrone.getLimitSeconds() - isochrone.getTravelTimeSeconds(i);
+            for (int e = graph.firstEdge(node); e < graph.lastEdge(node); e++) {
+                double seconds = graph.getTravelTimeSeconds(e);
+                double fraction = seconds > 0 ? Math.min(1, remaining / seconds) : 1;
+                int target = graph.getTarget(e);
+                drawSegment(lat, lon,
+                            lat + (graph.getLatitude(target) - lat) * fraction,
+                            lon + (graph.getLongitude(target) - lon) * fraction);
+            }
+        }
+    }
+
+    private void drawSegment(double fromLat, double fromLon, double toLat, double toLon) {
+        double cells = Math.max(Math.abs(toLat - fromLat) / cellLat, Math.abs(toLon - fromLon) / cellLon);
+        // Two samples per cell, so no cell the segment crosses is skipped along its length
+        int steps = (int) Math.ceil(cells * 2);
+        for (int s = 1; s <= steps; s++) {
+            double t = (double) s / steps;
+            cover(fromLat + (toLat - fromLat) * t, fromLon + (toLon - fromLon) * t);
+        }
+    }
+
+    private void cover(double lat, double lon) {
+        int row = (int) ((lat - minLat) / cellLat);
+        int col = (int) ((lon - minLon) / cellLon);
+        if (row >= 0 && row < rows && col >= 0 && col < cols) {
+            covered[row * cols + col] = true;
+        }
+    }
+
+    /**
+     * Covers every cell next to a covered cell, diagonals included.
+     */
+    private void grow() {
+        boolean[] grown = new boolean[covered.length];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (!covered[row * cols + col]) {
+                    continue;
+                }
+                for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+                    for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++) {
+                        grown[r * cols + c] = true;
+                    }
+                }
+            }
+        }
+        covered = grown;
+    }
+
+    private boolean isCovered(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < cols && covered[row * cols + col];
+    }
+
+    private Map<String, Object> toGeoJson() {
+        List<int[]> rings = traceRings();
+        List<int[]> outers = new ArrayList<>();
+        List<int[]> holes = new ArrayList<>();
+        for (int[] ring : rings) {
+            (area(ring) > 0 ? outers : holes).add(ring);
+        }
+
+        List<List<int[]>> polygons = new ArrayList<>();
+        for (int[] outer : outers) {
+            List<int[]> polygon = new ArrayList<>();
+            polygon.add(outer);
+            polygons.add(polygon);
+        }
+        for (int[] hole : holes) {
+            // The covered cell on the left of the hole's first side lies in the enclosing area
+            double[] inside = leftCellCenter(hole);
+            int enclosing = -1;
+            for (int p = 0; p < outers.size(); p++) {
+                if (contains(outers.get(p), inside[0], inside[1])
+                        && (enclosing < 0 || area(outers.get(p)) < area(outers.get(enclosing)))) {
+                    enclosing = p;
+                }
+            }
+            if (enclosing >= 0) {
+                polygons.get(enclosing).add(hole);
+            }
+        }
+
+        List<List<List<double[]>>> coordinates = new ArrayList<>();
+        for (List<int[]> polygon : polygons) {
+            List<List<double[]>> positions = new ArrayList<>();
+            for (int[] ring : polygon) {
+                positions.add(positions(ring));
+            }
+            coordinates.add(positions);
+        }
+        Map<String, Object> geoJson = new LinkedHashMap<>();
+        geoJson.put("type", "MultiPolygon");
+        geoJson.put("coordinates", coordinates);
+        return geoJson;
+    }
+
+    /**
+     * Links the sides between covered and uncovered cells into closed rings of grid corners.
+     * A corner is numbered {@code row * (cols + 1) + col}.
+     */
+    private List<int[]> traceRings() {
+        int width = cols + 1;
+        // Each corner starts at most two sides, the second only where covered cells touch diagonally
+        int[] first = new int[(rows + 1) * width];
+        int[] second = new int[first.length];
+        Arrays.fill(first, -1);
+        Arrays.fill(second, -1);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (!covered[row * cols + col]) {
+                    continue;
+                }
+                int lowerLeft = row * width + col;
+                int lowerRight = lowerLeft + 1;
+                int upperLeft = lowerLeft + width;
+                int upperRight = upperLeft + 1;
+                if (!isCovered(row - 1, col)) {
+                    addSide(first, second, lowerLeft, lowerRight);
+                }
+                if (!isCovered(row, col + 1)) {
+                    addSide(first, second, lowerRight, upperRight);
+                }
+                if (!isCovered(row + 1, col)) {
+                    addSide(first, second, upperRight, upperLeft);
+                }
+                if (!isCovered(row, col - 1)) {
+                    addSide(first, second, upperLeft, lowerLeft);
+                }
+            }
+        }
+
+        List<int[]> rings = new ArrayList<>();
+        for (int start = 0; start < first.length; start++) {
+            while (first[start] >= 0) {
+                int[] ring = new int[16];
+                int size = 0;
+                int previous = -1;
+                int corner = start;
+                do {
+                    int next = first[corner];
+                    if (second[corner] >= 0 && previous >= 0 && turnsLeft(previous, corner, second[corner], width)) {
+                        next = second[corner];
+                        second[corner] = -1;
+                    } else {
+                        first[corner] = second[corner];
+                        second[corner] = -1;
+                    }
+                    if (size == ring.length) {
+                        ring = Arrays.copyOf(ring, size * 2);
+                    }
+                    ring[size++] = corner;
+                    previous = corner;
+                    corner = next;
+                } while (corner != start);
+                rings.add(withoutStraightCorners(Arrays.copyOf(ring, size), width));
+            }
+        }
+        return rings;
+    }
+
+    private static void addSide(int[] first, int[] second, int from, int to) {
+        if (first[from] < 0) {
+            first[from] = to;
+        } else {
+            second[from] = to;
+        }
+    }
+
+    private static boolean turnsLeft(int from, int corner, int to, int width) {
+        int dxIn = corner % width - from % width;
+        int dyIn = corner / width - from / width;
+        int dxOut = to % width - corner % width;
+        int dyOut = to / width - corner / width;
+        return dxIn * dyOut - dyIn * dxOut > 0;
+    }
+
+    /**
+     * Drops the corners where a ring runs straight on, and converts the rest to
+     * {@code [col, row]} pairs stored flat.
+     */
+    private static int[] withoutStraightCorners(int[] corners, int width) {
+        int[] points = new int[corners.length * 2];
+        int size = 0;
+        for (int i = 0; i < corners.length; i++) {
+            int previous = corners[(i + corners.length - 1) % corners.length];
+            int corner = corners[i];
+            int next = corners[(i + 1) % corners.length];
+            boolean straight = next - corner == corner - previous;
+            if (!straight) {
+                points[size++] = corner % width;
+                points[size++] = corner / width;
+            }
+        }
+        return Arrays.copyOf(points, size);
+    }
+
+    /** Twice the signed area of a ring, positive when it runs counterclockwise. */
+    private static long area(int[] ring) {
+        long sum = 0;
+        int n = ring.length / 2;
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n;
+            sum += (long) ring[2 * i] * ring[2 * j + 1] - (long) ring[2 * j] * ring[2 * i + 1];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the center of the cell on the left of a ring's first side, in grid units.
+     */
+    private static double[] leftCellCenter(int[] ring) {
+        int dx = Integer.signum(ring[2] - ring[0]);
+        int dy = Integer.signum(ring[3] - ring[1]);
+        return new double[] {ring[0] + 0.5 * (dx - dy), ring[1] + 0.5 * (dx + dy)};
+    }
+
+    private static boolean contains(int[] ring, double x, double y) {
+        boolean inside = false;
+        int n = ring.length / 2;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            double xi = ring[2 * i];
+            double yi = ring[2 * i + 1];
+            double xj = ring[2 * j];
+            double yj = ring[2 * j + 1];
+            if ((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private List<double[]> positions(int[] ring) {
+        List<double[]> positions = new ArrayList<>(ring.length / 2 + 1);
+        for (int i = 0; i < ring.length; i += 2) {
+            positions.add(new double[] {minLon + ring[i] * cellLon, minLat + ring[i + 1] * cellLat});
+        }
+        positions.add(positions.get(0));
+        return positions;
+    }
+}
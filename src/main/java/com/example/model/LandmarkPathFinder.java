@@ -0,0 +1,133 @@
+package com.example.model;
+
+import java.util.List;
+
+/**
+ * Finds optimal paths with A* search guided by a {@link LandmarkTable}.
+ *
+ * The search is the one {@link AStarPathFinder} runs, but the heuristic is the larger of the
+ * straight-line bound and the landmark bounds, which follow the road network instead of
+ * ignoring it and so settle far fewer nodes, especially for travel time, where the
+ * straight-line bound assumes the whole route is driven at the highest speed limit. Each
+ * query uses only the few landmarks that bound it best. Nodes that the landmarks show
+ * cannot reach the destination are never queued.
+ */
+public class LandmarkPathFinder {
+    /** The number of landmarks each query uses. */
+    static final int ACTIVE_LANDMARKS = 4;
+
+    private final CsrGraph graph;
+    private final LandmarkTable landmarks;
+    private final RouteMetric metric;
+
+    /**
+     * Creates a path finder for the given graph.
+     *
+     * @param graph The compiled road network
+     * @param landmarks A landmark table built for that network
+     * @throws IllegalArgumentException If the table was built for a different graph
+     */
+    public LandmarkPathFinder(CsrGraph graph, LandmarkTable landmarks) {
+        if (!landmarks.matches(graph, landmarks.getMetric())) {
+            throw new IllegalArgumentException("Landmark table was built for a different graph");
+        }
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.metric = landmarks.getMetric();
+    }
+
+    public LandmarkTable getLandmarks() {
+        return landmarks;
+    }
+
+    /**
+     * Finds the optimal path between two nodes under the table's metric.
+     *
+     * @param start The starting node
+     * @param end The destination node
+     * @return The path and the number of nodes settled to find it
+     */
+    public PathResult findPath(Node start, Node end) {
+        return findPath(List.of(new PathEndpoint(start, 0)), List.of(new PathEndpoint(end, 0)));
+    }
+
+    /**
+     * Finds the cheapest path from any of the start nodes to any of the end nodes, counting
+     * each endpoint's cost. The heuristic is the smallest bound to an end plus its cost, and
+     * the landmarks are chosen for the first start and end.
+     *
+     * @param starts The nodes the path may start at, with the cost of starting there
+     * @param ends The nodes the path may end at, with the cost of ending there
+     * @return The path and the number of nodes settled to find it
+     */
+    public PathResult findPath(List<PathEndpoint> starts, List<PathEndpoint> ends) {
+        PathEndpoint.Indexed sources = PathEndpoint.index(graph, starts);
+        PathEndpoint.Indexed targets = PathEndpoint.index(graph, ends);
+        if (sources.count() == 0 || targets.count() == 0) {
+            return new PathResult(null, 0);
+        }
+        int same = sources.freeMeeting(targets);
+        if (same >= 0) {
+            return new PathResult(List.of(graph.getNode(same)), 1);
+        }
+
+        int[] active = new int[ACTIVE_LANDMARKS];
+        int activeCount = landmarks.selectActive(sources.nodes()[0], targets.nodes()[0], active);
+
+        try (SearchWorkspace search = SearchWorkspace.acquire(graph.getNodeCount())) {
+            for (int i = 0; i < sources.count(); i++) {
+                int source = sources.nodes()[i];
+                double cost = sources.costs()[i];
+                double bound = heuristic(source, targets, active, activeCount);
+                if (bound != Double.POSITIVE_INFINITY) {
+                    search.relax(source, cost, -1, cost + bound);
+                }
+            }
+            double best = Double.POSITIVE_INFINITY;
+            int bestTarget = -1;
+
+            while (!search.isEmpty() && search.peekKey() < best) {
+                int current = search.poll();
+                double distance = search.distance(current);
+                double arrival = distance + targets.costAt(current);
+                if (arrival < best) {
+                    best = arrival;
+                    bestTarget = current;
+                }
+                if (distance >= best) {
+                    continue; // No path on from here can beat the best one
+                }
+
+                for (int e = graph.firstEdge(current); e < graph.lastEdge(current); e++) {
+                    int neighbor = graph.getTarget(e);
+                    double newDist = distance + metric.weight(graph, e);
+                    if (newDist < search.distance(neighbor)) {
+                        double bound = heuristic(neighbor, targets, active, activeCount);
+                        if (bound != Double.POSITIVE_INFINITY) {
+                            search.relax(neighbor, newDist, current, newDist + bound);
+                        }
+                    }
+                }
+            }
+
+            if (bestTarget < 0) {
+                return new PathResult(null, search.settledCount());
+            }
+            return new PathResult(search.path(graph, bestTarget), search.settledCount());
+        }
+    }
+
+    private double heuristic(int node, PathEndpoint.Indexed targets, int[] active, int activeCount) {
+        double bound = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < targets.count(); i++) {
+            int target = targets.nodes()[i];
+            double meters = Coordinates.equirectangularKm(graph.getLatitude(node), graph.getLongitude(node),
+                                                          graph.getLatitude(target), graph.getLongitude(target),
+                                                          graph.getMinCosLatitude()) * 1000;
+            double toTarget = Math.max(metric.lowerBound(graph, meters),
+                                       landmarks.lowerBound(node, target, active, activeCount));
+            bound = Math.min(bound, toTarget + targets.costs()[i]);
+        }
+        return bound;
+    }
+}
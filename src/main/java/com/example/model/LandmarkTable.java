@@ -0,0 +1,356 @@
+package com.example.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * Distances between every node and a few landmark nodes, which give A* search a lower bound
+ * on the remaining distance that is much tighter than the straight line (the ALT technique:
+ * A*, landmarks and the triangle inequality).
+ *
+ * For a landmark L, a node v and a destination t, the triangle inequality gives
+ * {@code d(v,t) >= d(L,t) - d(L,v)} and {@code d(v,t) >= d(v,L) - d(t,L)}, so the table keeps
+ * the distance from each landmark to every node and from every node to each landmark. Each
+ * bound is consistent, and so is the largest of them, so A* still settles the destination
+ * at its optimal distance the first time.
+ *
+ * Landmarks are chosen by farthest selection: each new landmark is the node farthest from
+ * the ones already chosen, which spreads them around the edge of the network, where they
+ * give the best bounds. Unlike a contraction hierarchy the table takes only one full
+ * search per landmark and direction to build, so it is cheap to rebuild when weights change.
+ *
+ * Like a hierarchy, a table can be saved to disk and loaded again, and records the
+ * fingerprint of the graph it was built for.
+ */
+public final class LandmarkTable {
+    private static final Logger logger = Logger.getLogger(LandmarkTable.class.getName());
+    private static final int FILE_MAGIC = 0x534d414c; // "SMAL"
+    private static final int FILE_VERSION = 1;
+
+    private final RouteMetric metric;
+    private final long graphFingerprint;
+    private final int[] landmarks;
+    /** fromLandmark[i][v] is the distance from landmark i to node v. */
+    private final double[][] fromLandmark;
+    /** toLandmark[i][v] is the distance from node v to landmark i. */
+    private final double[][] toLandmark;
+
+    private LandmarkTable(RouteMetric metric, long graphFingerprint, int[] landmarks,
+                          double[][] fromLandmark, double[][] toLandmark) {
+        this.metric = metric;
+        this.graphFingerprint = graphFingerprint;
+        this.landmarks = landmarks;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+    }
+
+    /**
+     * Selects landmarks for a graph and computes their distance tables.
+     *
+     * @param graph The compiled road network
+     * @param metric The metric to measure distances in
+     * @param count The number of landmarks; fewer are chosen if the network is smaller
+     * @return The table
+     * @throws IllegalArgumentException If the count is not positive
+     */
+    public static LandmarkTable build(CsrGraph graph, RouteMetric metric, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Landmark count must be positive");
+        }
+        int nodeCount = graph.getNodeCount();
+        count = Math.min(count, nodeCount);
+        int[] landmarks = new int[count];
+        double[][] from = new double[count][];
+        double[][] to = new double[count][];
+        if (nodeCount == 0) {
+            return new LandmarkTable(metric, graph.getFingerprint(), landmarks, from, to);
+        }
+
+        // The node farthest from an arbitrary start lies on the edge of the network
+        double[] closest = distances(graph, metric, 0, false);
+        int chosen = 0;
+        while (chosen < count) {
+            int landmark = farthest(closest, landmarks, chosen);
+            if (landmark < 0) {
+                break;
+            }
+            landmarks[chosen] = landmark;
+            from[chosen] = distances(graph, metric, landmark, false);
+            to[chosen] = distances(graph, metric, landmark, true);
+            closest = chosen == 0 ? from[0].clone() : closest;
+            for (int node = 0; node < nodeCount; node++) {
+                closest[node] = Math.min(closest[node], from[chosen][node]);
+            }
+            chosen++;
+        }
+        logger.info("Selected " + chosen + " landmarks for " + metric.name().toLowerCase(Locale.ROOT) + " routing");
+        return new LandmarkTable(metric, graph.getFingerprint(), Arrays.copyOf(landmarks, chosen),
+                Arrays.copyOf(from, chosen), Arrays.copyOf(to, chosen));
+    }
+
+    /**
+     * Returns the reachable node with the largest finite distance that is not a landmark yet,
+     * or -1 if there is none.
+     */
+    private static int farthest(double[] distances, int[] landmarks, int chosen) {
+        int best = -1;
+        for (int node = 0; node < distances.length; node++) {
+            if (distances[node] != Double.POSITIVE_INFINITY && (best < 0 || distances[node] > distances[best])
+                    && !contains(landmarks, chosen, node)) {
+                best = node;
+            }
+        }
+        return best;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs a search from one node over the whole network.
+     *
+     * @param backward true to follow edges in reverse, giving the distances to the node
+     * @return The distance of every node, infinity for nodes not connected to the origin
+     */
+    private static double[] distances(CsrGraph graph, RouteMetric metric, int origin, boolean backward) {
+        double[] result = new double[graph.getNodeCount()];
+        try (SearchWorkspace search = SearchWorkspace.acquire(graph.getNodeCount())) {
+            search.relax(origin, 0, -1, 0);
+            while (!search.isEmpty()) {
+                int current = search.poll();
+                double distance = search.distance(current);
+                if (backward) {
+                    for (int p = graph.firstInEdge(current); p < graph.lastInEdge(current); p++) {
+                        double newDist = distance + metric.weight(graph, graph.getInEdge(p));
+                        search.relax(graph.getInSource(p), newDist, current, newDist);
+                    }
+                } else {
+                    for (int e = graph.firstEdge(current); e < graph.lastEdge(current); e++) {
+                        double newDist = distance + metric.weight(graph, e);
+                        search.relax(graph.getTarget(e), newDist, current, newDist);
+                    }
+                }
+            }
+            for (int node = 0; node < result.length; node++) {
+                result[node] = search.distance(node);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the table for the given graph and metric from the cache directory, building
+     * and saving it first if no up-to-date file exists there.
+     *
+     * @param graph The compiled road network
+     * @param metric The metric to build the table for
+     * @param count The number of landmarks
+     * @param cacheDirectory The directory tables are saved in
+     * @return The table
+     */
+    public static LandmarkTable loadOrBuild(CsrGraph graph, RouteMetric metric, int count, Path cacheDirectory) {
+        Path file = cacheDirectory.resolve(String.format("alt-%s-%d-%016x.bin",
+                metric.name().toLowerCase(Locale.ROOT), count, graph.getFingerprint()));
+        if (Files.isRegularFile(file)) {
+            try {
+                LandmarkTable table = readFrom(file);
+                if (table.matches(graph, metric)) {
+                    logger.info("Loaded landmark table from " + file);
+                    return table;
+                }
+                logger.warning("Landmark table in " + file + " does not match the graph, rebuilding");
+            } catch (IOException e) {
+                logger.warning("Could not read landmark table from " + file + ": " + e.getMessage());
+            }
+        }
+
+        LandmarkTable table = build(graph, metric, count);
+        try {
+            Files.createDirectories(cacheDirectory);
+            table.writeTo(file);
+            logger.info("Saved landmark table to " + file);
+        } catch (IOException e) {
+            logger.warning("Could not save landmark table to " + file + ": " + e.getMessage());
+        }
+        return table;
+    }
+
+    /**
+     * Checks whether this table was built for the given graph and metric.
+     *
+     * @param graph The compiled road network
+     * @param metric The metric
+     * @return true if the table's bounds hold on the graph under the metric
+     */
+    public boolean matches(CsrGraph graph, RouteMetric metric) {
+        return this.metric == metric
+                && graphFingerprint == graph.getFingerprint()
+                && Arrays.stream(fromLandmark).allMatch(distances -> distances.length == graph.getNodeCount());
+    }
+
+    public RouteMetric getMetric() {
+        return metric;
+    }
+
+    public int getLandmarkCount() {
+        return landmarks.length;
+    }
+
+    /**
+     * Returns a landmark's node index.
+     *
+     * @param i The landmark's position, from 0 up to {@link #getLandmarkCount()}
+     * @return The node index
+     */
+    public int getLandmark(int i) {
+        return landmarks[i];
+    }
+
+    /**
+     * Picks the landmarks that give the best bounds for one query, since a few well-placed
+     * landmarks bound a route about as tightly as all of them, at a fraction of the cost per
+     * settled node.
+     *
+     * @param source The start node's index
+     * @param target The destination node's index
+     * @param active Receives the chosen landmark positions, best first; its length is the
+     *               most that are chosen
+     * @return The number of landmarks chosen
+     */
+    int selectActive(int source, int target, int[] active) {
+        int count = Math.min(active.length, landmarks.length);
+        double[] bounds = new double[landmarks.length];
+        Integer[] order = new Integer[landmarks.length];
+        for (int i = 0; i < landmarks.length; i++) {
+            bounds[i] = bound(i, source, target);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(bounds[b], bounds[a]));
+        for (int i = 0; i < count; i++) {
+            active[i] = order[i];
+        }
+        return count;
+    }
+
+    /**
+     * Returns a lower bound on the distance from a node to the destination, using the given
+     * landmarks.
+     *
+     * @param node The node's index
+     * @param target The destination's index
+     * @param active Landmark positions, as chosen by {@link #selectActive(int, int, int[])}
+     * @param count The number of positions to use
+     * @return The bound, 0 if the landmarks say nothing, or infinity if the node cannot
+     *         reach the destination
+     */
+    double lowerBound(int node, int target, int[] active, int count) {
+        double best = 0;
+        for (int i = 0; i < count; i++) {
+            best = Math.max(best, bound(active[i], node, target));
+        }
+        return best;
+    }
+
+    /**
+     * Returns the bound one landmark gives. A node the landmark cannot reach, or a destination
+     * that cannot reach the landmark, yields no bound; a node reached by a landmark that does
+     * not reach the destination, or one that cannot reach a landmark the destination reaches,
+     * cannot reach the destination at all.
+     */
+    private double bound(int landmark, int node, int target) {
+        double best = 0;
+        double[] from = fromLandmark[landmark];
+        if (from[node] != Double.POSITIVE_INFINITY) {
+            best = from[target] == Double.POSITIVE_INFINITY ? Double.POSITIVE_INFINITY : from[target] - from[node];
+        }
+        double[] to = toLandmark[landmark];
+        if (to[target] != Double.POSITIVE_INFINITY) {
+            best = Math.max(best, to[node] == Double.POSITIVE_INFINITY ? Double.POSITIVE_INFINITY : to[node] - to[target]);
+        }
+        return best;
+    }
+
+    /**
+     * Saves the table to a file.
+     *
+     * @param file The file to write
+     * @throws IOException If the file cannot be written
+     */
+    public void writeTo(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeUTF(metric.name());
+            out.writeLong(graphFingerprint);
+            out.writeInt(landmarks.length);
+            out.writeInt(landmarks.length == 0 ? 0 : fromLandmark[0].length);
+            for (int i = 0; i < landmarks.length; i++) {
+                out.writeInt(landmarks[i]);
+                for (double distance : fromLandmark[i]) {
+                    out.writeDouble(distance);
+                }
+                for (double distance : toLandmark[i]) {
+                    out.writeDouble(distance);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads a table saved with {@link #writeTo(Path)}.
+     *
+     * @param file The file to read
+     * @return The table
+     * @throws IOException If the file cannot be read or is not a saved table
+     */
+    public static LandmarkTable readFrom(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Not a landmark table file: " + file);
+            }
+            int version = in.readInt();
+            if (version != FILE_VERSION) {
+                throw new IOException("Unsupported landmark table version " + version);
+            }
+            RouteMetric metric;
+            try {
+                metric = RouteMetric.valueOf(in.readUTF());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown route metric in " + file, e);
+            }
+            long fingerprint = in.readLong();
+            int count = in.readInt();
+            int nodeCount = in.readInt();
+            int[] landmarks = new int[count];
+            double[][] from = new double[count][nodeCount];
+            double[][] to = new double[count][nodeCount];
+            for (int i = 0; i < count; i++) {
+                landmarks[i] = in.readInt();
+                if (landmarks[i] < 0 || landmarks[i] >= nodeCount) {
+                    throw new IOException("Corrupt landmark table");
+                }
+                for (int node = 0; node < nodeCount; node++) {
+                    from[i][node] = in.readDouble();
+                }
+                for (int node = 0; node < nodeCount; node++) {
+                    to[i][node] = in.readDouble();
+                }
+            }
+            return new LandmarkTable(metric, fingerprint, landmarks, from, to);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.model;
+
+/**
+ * Measures distances from one point to many points around it, as spatial queries do for
+ * every candidate they look at.
+ *
+ * Nearby distances are computed on an equirectangular projection at the mean latitude of
+ * the two points. The cosine of that latitude is extrapolated from the sine and cosine of
+ * the query point's latitude, which are computed once, so a distance costs a square root
+ * and a few multiplications instead of the haversine formula's six trigonometric calls.
+ * Up to {@link #MAX_LOCAL_KM} the result agrees with
+ * {@link Coordinates#haversineKm(double, double, double, double)} to within a relative
+ * {@link #TOLERANCE}; farther points, where the flat projection would drift, are measured
+ * with the haversine formula. Radius checks use the haversine formula only for the few
+ * points whose distance is too close to the radius for the approximation to decide.
+ */
+public final class LocalDistance {
+    /** Distances up to this are computed on the projection. */
+    static final double MAX_LOCAL_KM = 20;
+    /** The largest relative difference from the haversine distance up to {@link #MAX_LOCAL_KM}. */
+    static final double TOLERANCE = 1e-5;
+
+    private final double latitude;
+    private final double longitude;
+    private final double cosLatitude;
+    private final double sinLatitude;
+
+    /**
+     * Creates a distance function from a point.
+     *
+     * @param latitude The latitude of the point in degrees
+     * @param longitude The longitude of the point in degrees
+     */
+    public LocalDistance(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.cosLatitude = Math.cos(Math.toRadians(latitude));
+        this.sinLatitude = Math.sin(Math.toRadians(latitude));
+    }
+
+    /**
+     * Returns the distance to a point.
+     *
+     * @param lat The latitude of the point in degrees
+     * @param lon The longitude of the point in degrees
+     * @return The distance in kilometers
+     */
+    public double km(double lat, double lon) {
+        double dLat = lat - latitude;
+        double dLon = lon - longitude;
+        if (Math.abs(dLat) <= 1 && Math.abs(dLon) <= 1) {
+            // cos(latitude + h) to second order, h being half the latitude difference in radians
+            double h = Math.toRadians(dLat) * 0.5;
+            double cosMean = cosLatitude * (1 - 0.5 * h * h) - sinLatitude * h;
+            double distance = Coordinates.equirectangularKm(latitude, longitude, lat, lon, cosMean);
+            if (distance <= MAX_LOCAL_KM) {
+                return distance;
+            }
+        }
+        return Coordinates.haversineKm(latitude, longitude, lat, lon);
+    }
+
+    /**
+     * Checks whether a point is within a radius, with the same outcome as comparing its
+     * haversine distance.
+     *
+     * @param lat The latitude of the point in degrees
+     * @param lon The longitude of the point in degrees
+     * @param radiusKm The radius in kilometers
+     * @return true if the point's distance is at most the radius
+     */
+    public boolean isWithin(double lat, double lon, double radiusKm) {
+        double distance = km(lat, lon);
+        if (distance < radiusKm * (1 - TOLERANCE)) {
+            return true;
+        }
+        if (distance > radiusKm * (1 + TOLERANCE)) {
+            return false;
+        }
+        return Coordinates.haversineKm(latitude, longitude, lat, lon) <= radiusKm;
+    }
+}
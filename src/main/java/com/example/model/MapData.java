@@ -0,0 +1,117 @@
+package com.example.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.util.LongIntHashMap;
+
+/**
+ * OSM input split into the two things the server uses it for: a routable road network, and
+ * the points of interest that locations are made from.
+ *
+ * Most nodes of an OSM extract are either road vertices, which only routing needs and which
+ * carry no useful tags, or shops and amenities, which only search needs. Keeping them apart
+ * means the graph holds just the nodes its roads reference, without tag maps, and the
+ * location service holds just the points of interest, not every road vertex.
+ *
+ * @param graph The road network, with untagged nodes
+ * @param pointsOfInterest The tagged shop and amenity nodes, whether or not they lie on a road
+ */
+public record MapData(Graph graph, List<Node> pointsOfInterest) {
+
+    public MapData {
+        pointsOfInterest = List.copyOf(pointsOfInterest);
+    }
+
+    /**
+     * Checks whether a node is a point of interest, that is a shop or an amenity.
+     *
+     * @param node The node
+     * @return true if the node has a "shop" or "amenity" tag
+     */
+    public static boolean isPointOfInterest(Node node) {
+        return node.tags().containsKey("amenity") || node.tags().containsKey("shop");
+    }
+
+    /**
+     * Splits OSM nodes and ways as they are read.
+     *
+     * Ways that are not roads are dropped as they arrive, and points of interest are kept
+     * with their tags. Loaders should add all ways first: the nodes that follow are then kept,
+     * without their tags, only if a road references them, so unreferenced road vertices are
+     * never held. Nodes added before any way are kept, untagged, until {@link #build()} leaves
+     * out the ones no road references, and ways may not be added once nodes have followed
+     * them. The tags that are kept go through a
+     * {@link TagSet.Interner} owned by the builder, which is dropped once the data is built.
+     * A builder builds once and is used by one thread.
+     */
+    public static final class Builder {
+        private final List<Node> nodes = new ArrayList<>();
+        private final List<Node> pointsOfInterest = new ArrayList<>();
+        private final List<Way> ways = new ArrayList<>();
+        /** The ids of the nodes that roads pass through, mapped to 1. */
+        private final LongIntHashMap roadNodeIds = new LongIntHashMap();
+        /** Shares tag strings and tag sets until the data is built; null afterwards. */
+        private TagSet.Interner tags = new TagSet.Interner();
+        /** Whether any way has been added, routable or not. */
+        private boolean waysAdded;
+        /** Whether a node has been added after the ways, which are then all known. */
+        private boolean waysKnown;
+
+        public void addNode(Node node) {
+            checkNotBuilt();
+            if (isPointOfInterest(node)) {
+                pointsOfInterest.add(new Node(node.id(), node.lat(), node.lon(), tags.intern(node.tags())));
+            }
+            waysKnown = waysAdded;
+            if (!waysKnown || roadNodeIds.containsKey(node.id())) {
+                nodes.add(node.tags().isEmpty() ? node : new Node(node.id(), node.lat(), node.lon()));
+            }
+        }
+
+        /**
+         * @throws IllegalStateException if nodes have already been added after ways
+         */
+        public void addWay(Way way) {
+            checkNotBuilt();
+            if (waysKnown) {
+                throw new IllegalStateException("Ways must be added before the nodes that follow them");
+            }
+            waysAdded = true;
+            if (!Graph.isRoutable(way)) {
+                return;
+            }
+            Map<String, Object> data = new HashMap<>(way.data());
+            data.put("tags", tags.intern(way.getTags()));
+            ways.add(new Way(way.id(), way.startNode(), way.endNode(), data));
+            for (long nodeId : way.getNodeIds()) {
+                roadNodeIds.put(nodeId, 1);
+            }
+        }
+
+        /**
+         * Builds the road network from the routable ways and the nodes they reference.
+         *
+         * @return The split data
+         */
+        public MapData build() {
+            checkNotBuilt();
+            tags = null;
+            List<Node> roadNodes = new ArrayList<>();
+            for (Node node : nodes) {
+                if (roadNodeIds.containsKey(node.id())) {
+                    roadNodes.add(node);
+                }
+            }
+            return new MapData(new Graph(roadNodes, ways), pointsOfInterest);
+        }
+
+        private void checkNotBuilt() {
+            if (tags == null) {
+                throw new IllegalStateException("Map data has already been built");
+            }
+        }
+    }
+}
@@ -7,10 +7,19 @@ import java.util.Optional;
  * Represents a node in OpenStreetMap (OSM) data.
  *
  * A node is a specific point on the earth's surface defined by its latitude and longitude.
- * It can optionally have tags that describe the node's attributes or features.
+ * It can optionally have tags that describe the node's attributes or features, which are
+ * held as an immutable {@link TagSet}, shared with alike nodes when loaded through a
+ * {@link TagSet.Interner}.
+ *
+ * A node's coordinates are kept as given. The road network routes with them rounded to
+ * 1e-7 degrees, OSM's precision, and a graph snapshot stores only the rounded values.
  */
 public record Node(long id, double lat, double lon, Map<String, String> tags) {
 
+    public Node {
+        tags = TagSet.of(tags);
+    }
+
     /**
      * Constructs a new Node with the given ID, latitude, and longitude.
      *
@@ -0,0 +1,264 @@
+package com.example.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import com.example.util.LongIntHashMap;
+
+/**
+ * Builds a {@link CsrGraph} from lists of nodes and ways on all threads of a
+ * {@link ForkJoinPool}.
+ *
+ * The ways are split into chunks of consecutive ways. Each chunk filters its routable ways and
+ * resolves their node ids in parallel, then writes its edges into its own slice of the edge
+ * arrays, at an offset given by a prefix sum over the chunk edge counts. The edges are ordered
+ * by source node with a parallel sort, and parallel edges are collapsed per node.
+ *
+ * The result is the same graph, down to the node and edge order and the fingerprint, that adding
+ * the nodes and then the ways one by one to a {@link Graph} produces: ways without an allowed
+ * highway type are left out, node ids no node was given for get a placeholder node in order of
+ * first use, and when several ways connect the same two nodes, the one with the highest speed
+ * limit is kept (the later one on a tie). Only the node table and the placeholder nodes are
+ * built on a single thread.
+ */
+public final class ParallelGraphBuilder {
+    /** The number of consecutive ways processed by one task. */
+    private static final int WAYS_PER_CHUNK = 2048;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a builder that runs on the common pool.
+     */
+    public ParallelGraphBuilder() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a builder that runs on the given pool.
+     *
+     * @param pool The pool to build graphs on
+     */
+    public ParallelGraphBuilder(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool, "Pool must not be null");
+    }
+
+    /**
+     * Builds the road network from the given nodes and ways.
+     *
+     * @param nodes The nodes; if several share an id, the first one is kept
+     * @param ways The ways; ways that are not roads are skipped
+     * @return The compiled road network
+     */
+    public CsrGraph build(List<Node> nodes, List<Way> ways) {
+        Node[] nodeArray = nodes.toArray(new Node[0]);
+        Way[] wayArray = ways.toArray(new Way[0]);
+        // Parallel streams and sorts started from inside the pool run on the pool's threads
+        return pool.submit((Callable<CsrGraph>) () -> buildInPool(nodeArray, wayArray)).join();
+    }
+
+    /**
+     * The routable ways of one chunk, with their node ids resolved to node indices.
+     */
+    private static final class Chunk {
+        final int firstWay;
+        final int endWay;
+        /** Positions of the routable ways in the way list. */
+        int[] routableWays;
+        int routableCount;
+        /** Start of each routable way's nodes in {@link #nodeIds}, plus a trailing end offset. */
+        int[] nodeOffsets;
+        long[] nodeIds;
+        /** The node index for each entry of {@link #nodeIds}, or -1 while it has none yet. */
+        int[] nodeIndices;
+        boolean hasUnknownNodes;
+        int edgeCount;
+        /** The way index of the chunk's first routable way. */
+        int firstWayIndex;
+        /** The position of the chunk's first edge in the edge arrays. */
+        int firstEdge;
+
+        Chunk(int firstWay, int endWay) {
+            this.firstWay = firstWay;
+            this.endWay = endWay;
+        }
+    }
+
+    private static CsrGraph buildInPool(Node[] nodeArray, Way[] wayArray) {
+        // Node table, keeping the first node for each id
+        LongIntHashMap indexById = new LongIntHashMap(nodeArray.length);
+        Node[] nodes = new Node[Math.max(nodeArray.length, 4)];
+        int nodeCount = 0;
+        for (Node node : nodeArray) {
+            if (indexById.get(node.id()) < 0) {
+                indexById.put(node.id(), nodeCount);
+                nodes[nodeCount++] = node;
+            }
+        }
+
+        Chunk[] chunks = new Chunk[(wayArray.length + WAYS_PER_CHUNK - 1) / WAYS_PER_CHUNK];
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = new Chunk(c * WAYS_PER_CHUNK, Math.min((c + 1) * WAYS_PER_CHUNK, wayArray.length));
+        }
+        // The node table is only read while the chunks are scanned
+        Arrays.stream(chunks).parallel().forEach(chunk -> scan(chunk, wayArray, indexById));
+
+        // Placeholders for unknown node ids, created in the order the ways use them
+        int wayCount = 0;
+        int edgeCount = 0;
+        for (Chunk chunk : chunks) {
+            chunk.firstWayIndex = wayCount;
+            chunk.firstEdge = edgeCount;
+            wayCount += chunk.routableCount;
+            edgeCount = Math.addExact(edgeCount, chunk.edgeCount);
+            if (!chunk.hasUnknownNodes) {
+                continue;
+            }
+            for (int i = 0; i < chunk.nodeIds.length; i++) {
+                if (chunk.nodeIndices[i] >= 0) {
+                    continue;
+                }
+                long id = chunk.nodeIds[i];
+                int index = indexById.get(id);
+                if (index < 0) {
+                    if (nodeCount == nodes.length) {
+                        nodes = Arrays.copyOf(nodes, nodeCount * 2);
+                    }
+                    index = nodeCount;
+                    nodes[nodeCount++] = new Node(id, 0, 0);
+                    indexById.put(id, index);
+                }
+                chunk.nodeIndices[i] = index;
+            }
+        }
+
+        Way[] wayTable = new Way[wayCount];
+        int[] waySpeeds = new int[wayCount];
+        int[] edgeTo = new int[edgeCount];
+        int[] edgeWay = new int[edgeCount];
+        // Source node in the high half, position in insertion order in the low half, so sorting
+        // the keys orders edges by source node and keeps insertion order within a node
+        long[] keys = new long[edgeCount];
+        Arrays.stream(chunks).parallel().forEach(chunk -> {
+            int edge = chunk.firstEdge;
+            for (int r = 0; r < chunk.routableCount; r++) {
+                Way way = wayArray[chunk.routableWays[r]];
+                int wayIndex = chunk.firstWayIndex + r;
+                wayTable[wayIndex] = way;
+                waySpeeds[wayIndex] = CsrGraph.Builder.speedLimitOf(way);
+                boolean oneWay = way.isOneWay();
+                for (int i = chunk.nodeOffsets[r]; i < chunk.nodeOffsets[r + 1] - 1; i++) {
+                    int from = chunk.nodeIndices[i];
+                    int to = chunk.nodeIndices[i + 1];
+                    keys[edge] = (long) from << 32 | edge;
+                    edgeTo[edge] = to;
+                    edgeWay[edge] = wayIndex;
+                    edge++;
+                    if (!oneWay) {
+                        keys[edge] = (long) to << 32 | edge;
+                        edgeTo[edge] = from;
+                        edgeWay[edge] = wayIndex;
+                        edge++;
+                    }
+                }
+            }
+        });
+        Arrays.parallelSort(keys);
+
+        int n = nodeCount;
+        int[] offsets = new int[n + 1];
+        int[] sortedTargets = new int[edgeCount];
+        int[] sortedWays = new int[edgeCount];
+        IntStream.range(0, edgeCount).parallel().forEach(i -> {
+            int edge = (int) keys[i];
+            sortedTargets[i] = edgeTo[edge];
+            sortedWays[i] = edgeWay[edge];
+            // The first edge of a source node sets the offsets of it and any edgeless nodes before it
+            int from = (int) (keys[i] >>> 32);
+            int previous = i == 0 ? -1 : (int) (keys[i - 1] >>> 32);
+            for (int u = previous + 1; u <= from; u++) {
+                offsets[u] = i;
+            }
+        });
+        int lastSource = edgeCount == 0 ? -1 : (int) (keys[edgeCount - 1] >>> 32);
+        Arrays.fill(offsets, lastSource + 1, n + 1, edgeCount);
+
+        // Collapse parallel edges within each node's range, then close the gaps
+        int[] kept = new int[n + 1];
+        IntStream.range(0, n).parallel().forEach(u -> {
+            int start = offsets[u];
+            int write = start;
+            for (int i = start; i < offsets[u + 1]; i++) {
+                int duplicate = -1;
+                for (int j = start; j < write; j++) {
+                    if (sortedTargets[j] == sortedTargets[i]) {
+                        duplicate = j;
+                        break;
+                    }
+                }
+                if (duplicate < 0) {
+                    sortedTargets[write] = sortedTargets[i];
+                    sortedWays[write] = sortedWays[i];
+                    write++;
+                } else if (waySpeeds[sortedWays[duplicate]] <= waySpeeds[sortedWays[i]]) {
+                    sortedWays[duplicate] = sortedWays[i];
+                }
+            }
+            kept[u + 1] = write - start;
+        });
+        Arrays.parallelPrefix(kept, Integer::sum);
+        int[] targets = new int[kept[n]];
+        int[] wayIndices = new int[kept[n]];
+        IntStream.range(0, n).parallel().forEach(u -> {
+            int count = kept[u + 1] - kept[u];
+            System.arraycopy(sortedTargets, offsets[u], targets, kept[u], count);
+            System.arraycopy(sortedWays, offsets[u], wayIndices, kept[u], count);
+        });
+
+        return new CsrGraph(Arrays.copyOf(nodes, n), indexById, kept, targets, wayIndices, wayTable, waySpeeds);
+    }
+
+    /**
+     * Collects a chunk's routable ways and resolves their node ids against the node table.
+     */
+    private static void scan(Chunk chunk, Way[] wayArray, LongIntHashMap indexById) {
+        int size = chunk.endWay - chunk.firstWay;
+        chunk.routableWays = new int[size];
+        chunk.nodeOffsets = new int[size + 1];
+        long[] ids = new long[size * 4];
+        int idCount = 0;
+        for (int w = chunk.firstWay; w < chunk.endWay; w++) {
+            Way way = wayArray[w];
+            if (!Graph.isRoutable(way)) {
+                continue;
+            }
+            List<Long> wayNodeIds = way.getNodeIds();
+            int r = chunk.routableCount++;
+            chunk.routableWays[r] = w;
+            chunk.nodeOffsets[r] = idCount;
+            // A way with a single node adds no edges, and so no placeholder node either
+            if (wayNodeIds.size() < 2) {
+                continue;
+            }
+            if (idCount + wayNodeIds.size() > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(ids.length * 2, idCount + wayNodeIds.size()));
+            }
+            for (long id : wayNodeIds) {
+                ids[idCount++] = id;
+            }
+            chunk.edgeCount += (wayNodeIds.size() - 1) * (way.isOneWay() ? 1 : 2);
+        }
+        chunk.nodeOffsets[chunk.routableCount] = idCount;
+        chunk.nodeIds = Arrays.copyOf(ids, idCount);
+        chunk.nodeIndices = new int[idCount];
+        for (int i = 0; i < idCount; i++) {
+            int index = indexById.get(chunk.nodeIds[i]);
+            chunk.nodeIndices[i] = index;
+            chunk.hasUnknownNodes |= index < 0;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.model;
+
+import java.util.List;
+
+/**
+ * A node a path may start or end at, with the cost of starting or ending there.
+ *
+ * A point snapped partway along a road segment is joined to the graph through both ends of
+ * the segment, each with the share of the segment's weight between it and the point, so a
+ * single search can start from both ends at once and stop at whichever end of the
+ * destination's segment gives the cheapest total.
+ *
+ * @param node The node
+ * @param cost The cost, under the search's metric, of starting or ending at the node
+ */
+public record PathEndpoint(Node node, double cost) {
+
+    /**
+     * @throws IllegalArgumentException if the cost is negative or not a number
+     */
+    public PathEndpoint {
+        if (!(cost >= 0)) {
+            throw new IllegalArgumentException("Endpoint cost must be non-negative");
+        }
+    }
+
+    /**
+     * Looks up the endpoints' nodes in the compiled graph, leaving out nodes that are not in it.
+     */
+    static Indexed index(CsrGraph graph, List<PathEndpoint> endpoints) {
+        int[] nodes = new int[endpoints.size()];
+        double[] costs = new double[endpoints.size()];
+        int count = 0;
+        for (PathEndpoint endpoint : endpoints) {
+            int node = graph.indexOf(endpoint.node().id());
+            if (node >= 0) {
+                nodes[count] = node;
+                costs[count] = endpoint.cost();
+                count++;
+            }
+        }
+        return new Indexed(count, nodes, costs);
+    }
+
+    /**
+     * Endpoints as graph node indices; the first {@code count} entries of each array are used.
+     */
+    record Indexed(int count, int[] nodes, double[] costs) {
+
+        /** Returns the cost of ending at a node, or infinity if it is not one of these endpoints. */
+        double costAt(int node) {
+            double cost = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                if (nodes[i] == node) {
+                    cost = Math.min(cost, costs[i]);
+                }
+            }
+            return cost;
+        }
+
+        /**
+         * Returns a node that is both one of these endpoints and one of the others with no
+         * cost on either side, so that the empty path through it is optimal, or -1 if there
+         * is none.
+         */
+        int freeMeeting(Indexed others) {
+            for (int i = 0; i < count; i++) {
+                if (costs[i] == 0 && others.costAt(nodes[i]) == 0) {
+                    return nodes[i];
+                }
+            }
+            return -1;
+        }
+    }
+}
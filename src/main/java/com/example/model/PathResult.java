@@ -0,0 +1,17 @@
+package com.example.model;
+
+import java.util.List;
+
+/**
+ * The outcome of a single path search.
+ *
+ * @param path The nodes of the path from start to end, or null if no path exists
+ * @param settledNodes The number of nodes the search settled, a measure of how much
+ *                     of the graph it had to explore
+ */
+public record PathResult(List<Node> path, int settledNodes) {
+
+    public boolean isFound() {
+        return path != null;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.model;
+
+/**
+ * A location together with how long it takes to drive there.
+ *
+ * @param location The location
+ * @param travelTimeSeconds The travel time of the fastest route to the location's nearest road node
+ * @param distanceMeters The length of that route
+ */
+public record ReachableLocation(Location location, double travelTimeSeconds, double distanceMeters) {
+}
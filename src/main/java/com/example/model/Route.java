@@ -18,6 +18,13 @@ public class Route {
     private final List<Node> nodes;
     private double totalDistance;
     private Graph graph;
+    private final int settledNodeCount;
+    /** The way of each segment, when given explicitly; otherwise looked up in the graph. */
+    private final List<Way> segmentWays;
+    /** The length of each segment in meters, taken from the graph's edge arrays where possible. */
+    private final double[] segmentMeters;
+    /** The speed limit of each segment in miles per hour, or 0 if the segment has no way. */
+    private final int[] segmentSpeedsMph;
 
     /**
      * Constructs a new Route object.
@@ -26,11 +33,79 @@ public class Route {
      * @param graph The graph representing the road network.
      */
     public Route(List<Node> nodes, Graph graph) {
+        this(nodes, graph, -1);
+    }
+
+    /**
+     * Constructs a new Route object, recording how much work the search did to find it.
+     *
+     * @param nodes The list of nodes that make up the route.
+     * @param graph The graph representing the road network.
+     * @param settledNodeCount The number of nodes the search settled, or -1 if unknown.
+     */
+    public Route(List<Node> nodes, Graph graph, int settledNodeCount) {
+        this(nodes, null, graph, settledNodeCount);
+    }
+
+    /**
+     * Constructs a new Route object whose segments' ways are given explicitly. This is
+     * needed when the route starts or ends at a point snapped onto a road segment, since
+     * that point is not a node of the graph.
+     *
+     * @param nodes The list of nodes that make up the route.
+     * @param segmentWays The way each segment runs along; one fewer than the nodes.
+     * @param graph The graph representing the road network.
+     * @param settledNodeCount The number of nodes the search settled, or -1 if unknown.
+     * @throws IllegalArgumentException if the number of ways doesn't match the segments.
+     */
+    public Route(List<Node> nodes, List<Way> segmentWays, Graph graph, int settledNodeCount) {
+        if (segmentWays != null && segmentWays.size() != Math.max(0, nodes.size() - 1)) {
+            throw new IllegalArgumentException("Expected one way per route segment");
+        }
         this.nodes = nodes;
+        this.segmentWays = segmentWays;
         this.graph = graph;
+        this.settledNodeCount = settledNodeCount;
+        int segments = Math.max(0, nodes.size() - 1);
+        this.segmentMeters = new double[segments];
+        this.segmentSpeedsMph = new int[segments];
+        measureSegments();
         this.totalDistance = calculateTotalDistance();
     }
 
+    /**
+     * Reads each segment's length and speed limit from its graph edge. Segments that are not
+     * edges of the graph, such as the partial segments to and from a snapped point, are measured
+     * from their coordinates and given way instead, using the graph's rounded coordinates for
+     * graph nodes so that they agree with the edge lengths.
+     */
+    private void measureSegments() {
+        CsrGraph csr = graph != null ? graph.compact() : null;
+        for (int i = 0; i < segmentMeters.length; i++) {
+            Node start = nodes.get(i);
+            Node end = nodes.get(i + 1);
+            int edge = csr != null ? findEdge(csr, start, end) : -1;
+            Way way = segmentWays != null ? segmentWays.get(i) : null;
+            if (edge >= 0 && (way == null || way == csr.getWay(edge))) {
+                segmentMeters[i] = csr.getLengthMeters(edge);
+                segmentSpeedsMph[i] = csr.getSpeedMph(edge);
+            } else {
+                int from = csr != null ? csr.indexOf(start.id()) : -1;
+                int to = csr != null ? csr.indexOf(end.id()) : -1;
+                segmentMeters[i] = Coordinates.haversineKm(
+                        from >= 0 ? csr.getLatitude(from) : start.lat(), from >= 0 ? csr.getLongitude(from) : start.lon(),
+                        to >= 0 ? csr.getLatitude(to) : end.lat(), to >= 0 ? csr.getLongitude(to) : end.lon()) * 1000;
+                segmentSpeedsMph[i] = way != null ? CsrGraph.Builder.speedLimitOf(way) : 0;
+            }
+        }
+    }
+
+    private static int findEdge(CsrGraph csr, Node start, Node end) {
+        int from = csr.indexOf(start.id());
+        int to = csr.indexOf(end.id());
+        return from >= 0 && to >= 0 ? csr.findEdge(from, to) : -1;
+    }
+
     /**
      * Retrieves the list of nodes that make up this route.
      *
@@ -40,6 +115,16 @@ public class Route {
         return nodes;
     }
 
+    /**
+     * Returns the number of nodes the route search settled before it found this route.
+     * Comparing this across algorithms shows how much of the graph each one explores.
+     *
+     * @return The settled node count, or -1 if the search did not report it.
+     */
+    public int getSettledNodeCount() {
+        return settledNodeCount;
+    }
+
     /**
      * Converts the route's nodes to a list of coordinates.
      *
@@ -52,11 +137,6 @@ public class Route {
     }
 
     public double getTotalDistance() {
-        double totalDistance = 0;
-        List<Node> nodes = getNodes();
-        for (int i = 0; i < nodes.size() - 1; i++) {
-            totalDistance += nodes.get(i).toCoordinates().distanceTo(nodes.get(i + 1).toCoordinates());
-        }
         return totalDistance;
     }
 
@@ -69,14 +149,10 @@ public class Route {
     public double getEstimatedTime(boolean fastest) {
         double totalDistanceKm = 0;
         double totalTimeHours = 0;
-        List<Node> nodes = getNodes();
 
-        for (int i = 0; i < nodes.size() - 1; i++) {
-            Node start = nodes.get(i);
-            Node end = nodes.get(i + 1);
-            Way way = graph.getWay(start, end);
-            double distanceKm = start.toCoordinates().distanceTo(end.toCoordinates());
-            int speedLimitMph = way.getSpeedLimitMph();
+        for (int i = 0; i < segmentMeters.length; i++) {
+            double distanceKm = segmentMeters[i] / 1000;
+            int speedLimitMph = segmentSpeedsMph[i];
             double segmentTimeHours = distanceKm / speedLimitMph;
             totalTimeHours += segmentTimeHours;
             totalDistanceKm += distanceKm;
@@ -92,11 +168,11 @@ public class Route {
     }
 
     private double calculateTotalDistance() {
-        double distance = 0.0;
-        for (int i = 0; i < nodes.size() - 1; i++) {
-            distance += nodes.get(i).toCoordinates().distanceTo(nodes.get(i + 1).toCoordinates());
+        double distanceMeters = 0.0;
+        for (double meters : segmentMeters) {
+            distanceMeters += meters;
         }
-        return distance;
+        return distanceMeters / 1000;
     }
 
     public List<Map<String, Object>> getRouteSegments() {
@@ -105,9 +181,8 @@ public class Route {
         for (int i = 0; i < nodes.size() - 1; i++) {
             Node start = nodes.get(i);
             Node end = nodes.get(i + 1);
-            Way way = graph.getWay(start, end);
-            double distance = start.toCoordinates().distanceTo(end.toCoordinates());
-            int speedLimitMph = way.getSpeedLimitMph();
+            double distance = segmentMeters[i] / 1000;
+            int speedLimitMph = segmentSpeedsMph[i];
             
             Map<String, Object> segment = new HashMap<>();
             segment.put("startLat", start.lat());
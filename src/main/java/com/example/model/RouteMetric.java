@@ -0,0 +1,35 @@
+package com.example.model;
+
+/**
+ * The edge weight a route search minimizes.
+ */
+public enum RouteMetric {
+    /** Minimizes the total length of the route. Weights are in meters. */
+    DISTANCE,
+    /** Minimizes the total travel time at the posted speed limits. Weights are in seconds. */
+    TIME;
+
+    /**
+     * Returns the weight of an edge under this metric.
+     *
+     * @param graph The compiled road network
+     * @param edge The edge index
+     * @return The edge length in meters, or its travel time in seconds
+     */
+    public double weight(CsrGraph graph, int edge) {
+        return this == DISTANCE ? graph.getLengthMeters(edge) : graph.getTravelTimeSeconds(edge);
+    }
+
+    /**
+     * Converts a straight-line distance into a lower bound on the weight of any path
+     * covering that distance. For {@link #TIME} this assumes the whole path is driven at
+     * the highest speed limit found anywhere in the network.
+     *
+     * @param graph The compiled road network
+     * @param meters The straight-line distance in meters
+     * @return A weight that no path covering the distance can beat
+     */
+    public double lowerBound(CsrGraph graph, double meters) {
+        return this == DISTANCE ? meters : meters / (graph.getMaxSpeedMph() * CsrGraph.MPH_TO_METERS_PER_SECOND);
+    }
+}
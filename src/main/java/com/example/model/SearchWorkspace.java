@@ -0,0 +1,284 @@
+package com.example.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The state of one shortest-path search over a {@link CsrGraph}: tentative distances, parent
+ * pointers and an indexed 4-ary min-heap of the nodes still to settle, with decrease-key.
+ *
+ * All arrays are indexed by node and sized for the whole network, and they are never cleared.
+ * Instead every node carries the generation of the search that last touched it, and
+ * {@link #reset()} starts a new generation, so entries left by earlier searches read as
+ * untouched. A search that reaches k nodes therefore costs O(k log k) whatever the size of the
+ * network, and allocates nothing per node it reaches.
+ *
+ * Because the heap supports decrease-key, each node is queued at most once and there are no
+ * stale entries to skip.
+ *
+ * Besides the distance it minimizes, a search can carry a second total along each path, such
+ * as the length in meters of a path that minimizes travel time.
+ *
+ * A workspace is used by one search at a time. Searches take one with {@link #acquire(int)}
+ * and give it back by closing it; closed workspaces wait in a bounded pool shared by all
+ * threads, so concurrent requests, virtual threads included, reuse the same few workspaces
+ * instead of each thread holding on to network-sized arrays of its own.
+ */
+final class SearchWorkspace implements AutoCloseable {
+    /** The number of idle workspaces kept for reuse; more are created under load, then dropped. */
+    static final int POOL_SIZE = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    private static final int ARITY = 4;
+    /** Heap position of a node that was reached but is not queued. */
+    private static final int NOT_QUEUED = -1;
+    /** Heap position of a node whose distance is final. */
+    private static final int SETTLED = -2;
+
+    private static final BlockingQueue<SearchWorkspace> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private final double[] distances;
+    private final int[] parents;
+    private final double[] lengths;
+    /** Where each node is in the heap, or {@link #NOT_QUEUED} or {@link #SETTLED}. */
+    private final int[] positions;
+    private final int[] stamps;
+    private int generation = 1;
+
+    private final int[] heapNodes;
+    private final double[] heapKeys;
+    private int heapSize;
+    private int settledCount;
+
+    SearchWorkspace(int capacity) {
+        this.distances = new double[capacity];
+        this.parents = new int[capacity];
+        this.lengths = new double[capacity];
+        this.positions = new int[capacity];
+        this.stamps = new int[capacity];
+        this.heapNodes = new int[capacity];
+        this.heapKeys = new double[capacity];
+    }
+
+    /**
+     * Takes a reset workspace large enough for a network with the given number of nodes from
+     * the pool, or creates one if the pool has none. The caller must close it once the search,
+     * path included, is done; a search that needs two workspaces at once, such as a
+     * bidirectional one, acquires two.
+     *
+     * @param nodeCount The number of nodes in the network to search
+     * @return A reset workspace
+     */
+    static SearchWorkspace acquire(int nodeCount) {
+        SearchWorkspace workspace = pool.poll();
+        // A workspace sized for an earlier, smaller graph is dropped
+        if (workspace == null || workspace.capacity() < nodeCount) {
+            return new SearchWorkspace(nodeCount);
+        }
+        workspace.reset();
+        return workspace;
+    }
+
+    /**
+     * Returns the workspace to the pool, or leaves it to the garbage collector if the pool is full.
+     */
+    @Override
+    public void close() {
+        pool.offer(this);
+    }
+
+    int capacity() {
+        return distances.length;
+    }
+
+    /**
+     * Forgets the previous search in O(1).
+     */
+    void reset() {
+        heapSize = 0;
+        settledCount = 0;
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Returns the tentative distance of a node, or infinity if the search has not reached it.
+     */
+    double distance(int node) {
+        return stamps[node] == generation ? distances[node] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the node a node was reached from, or -1 for the origin and unreached nodes.
+     */
+    int parent(int node) {
+        return stamps[node] == generation ? parents[node] : -1;
+    }
+
+    /**
+     * Returns the second total carried along the node's best path, see
+     * {@link #relax(int, double, int, double, double)}.
+     */
+    double length(int node) {
+        return stamps[node] == generation ? lengths[node] : Double.POSITIVE_INFINITY;
+    }
+
+    boolean isSettled(int node) {
+        return stamps[node] == generation && positions[node] == SETTLED;
+    }
+
+    int settledCount() {
+        return settledCount;
+    }
+
+    boolean isEmpty() {
+        return heapSize == 0;
+    }
+
+    /**
+     * Returns the smallest key in the queue, or infinity if the queue is empty.
+     */
+    double peekKey() {
+        return heapSize == 0 ? Double.POSITIVE_INFINITY : heapKeys[0];
+    }
+
+    /**
+     * Records a path to a node if it is shorter than the best one known, and queues the node
+     * under the given key (its distance, or for A* its distance plus the heuristic). Settled
+     * nodes are left alone.
+     *
+     * @param node The node reached
+     * @param distance The length of the new path to it
+     * @param parent The node it is reached from, or -1 for the origin
+     * @param key The priority to queue it under
+     * @return true if the path was an improvement
+     */
+    boolean relax(int node, double distance, int parent, double key) {
+        if (stamps[node] != generation) {
+            stamps[node] = generation;
+            distances[node] = Double.POSITIVE_INFINITY;
+            positions[node] = NOT_QUEUED;
+        } else if (positions[node] == SETTLED || distance >= distances[node]) {
+            return false;
+        }
+        distances[node] = distance;
+        parents[node] = parent;
+        int position = positions[node];
+        if (position == NOT_QUEUED) {
+            position = heapSize++;
+            heapNodes[position] = node;
+            heapKeys[position] = key;
+            siftUp(position);
+        } else if (key < heapKeys[position]) {
+            heapKeys[position] = key;
+            siftUp(position);
+        } else {
+            heapKeys[position] = key;
+            siftDown(position);
+        }
+        return true;
+    }
+
+    /**
+     * Like {@link #relax(int, double, int, double)}, and also records a second total for the
+     * path when it is an improvement.
+     *
+     * @param length The second total of the new path, read back with {@link #length(int)}
+     * @return true if the path was an improvement
+     */
+    boolean relax(int node, double distance, int parent, double key, double length) {
+        if (!relax(node, distance, parent, key)) {
+            return false;
+        }
+        lengths[node] = length;
+        return true;
+    }
+
+    /**
+     * Removes the node with the smallest key from the queue and marks it settled.
+     *
+     * @return The settled node
+     */
+    int poll() {
+        int node = heapNodes[0];
+        positions[node] = SETTLED;
+        settledCount++;
+        heapSize--;
+        if (heapSize > 0) {
+            heapNodes[0] = heapNodes[heapSize];
+            heapKeys[0] = heapKeys[heapSize];
+            positions[heapNodes[0]] = 0;
+            siftDown(0);
+        }
+        return node;
+    }
+
+    /**
+     * Follows the parent pointers back from a node to the origin.
+     *
+     * @return The nodes from the origin to the given node
+     */
+    List<Node> path(CsrGraph graph, int end) {
+        List<Node> path = new ArrayList<>();
+        for (int node = end; node != -1; node = parent(node)) {
+            path.add(graph.getNode(node));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private void siftUp(int position) {
+        int node = heapNodes[position];
+        double key = heapKeys[position];
+        while (position > 0) {
+            int parent = (position - 1) / ARITY;
+            if (heapKeys[parent] <= key) {
+                break;
+            }
+            move(parent, position);
+            position = parent;
+        }
+        place(node, key, position);
+    }
+
+    private void siftDown(int position) {
+        int node = heapNodes[position];
+        double key = heapKeys[position];
+        while (true) {
+            int first = position * ARITY + 1;
+            if (first >= heapSize) {
+                break;
+            }
+            int smallest = first;
+            int last = Math.min(first + ARITY, heapSize);
+            for (int child = first + 1; child < last; child++) {
+                if (heapKeys[child] < heapKeys[smallest]) {
+                    smallest = child;
+                }
+            }
+            if (heapKeys[smallest] >= key) {
+                break;
+            }
+            move(smallest, position);
+            position = smallest;
+        }
+        place(node, key, position);
+    }
+
+    private void move(int from, int to) {
+        heapNodes[to] = heapNodes[from];
+        heapKeys[to] = heapKeys[from];
+        positions[heapNodes[to]] = to;
+    }
+
+    private void place(int node, double key, int position) {
+        heapNodes[position] = node;
+        heapKeys[position] = key;
+        positions[node] = position;
+    }
+}
@@ -0,0 +1,365 @@
+package com.example.model;
+
+import java.util.Arrays;
+
+/**
+ * A uniform-grid spatial index over the routable nodes and road segments of a compiled
+ * road network.
+ *
+ * The bounding box of the nodes is divided into roughly square cells holding about two
+ * nodes each, stored in compressed-sparse-row form (one offset array, one node array).
+ * A nearest-neighbor query scans the query's cell and then rings of cells around it,
+ * stopping as soon as the next ring is farther away than the k-th best node found so far
+ * (or than the distance cutoff), so it touches a handful of cells rather than every node.
+ *
+ * The same cells also list the road segments passing through them (each segment is listed
+ * in every cell its bounding box overlaps), so that points can be snapped onto the nearest
+ * segment with the same ring search.
+ *
+ * Candidates are compared with cheap local distances, a {@link LocalDistance} for nodes and
+ * a plane scaled at the query's latitude for segments; only a chosen snap is measured with
+ * the haversine formula.
+ *
+ * Only nodes with at least one outgoing edge are indexed, since a route can't start from
+ * any other node. Instances are immutable and safe to share between threads.
+ */
+public final class SpatialIndex {
+    private static final double KM_PER_DEGREE = Coordinates.KM_PER_DEGREE;
+    private static final double NODES_PER_CELL = 2.0;
+    private static final int MAX_CELLS_PER_AXIS = 4096;
+
+    private final CsrGraph graph;
+    private final double minLat;
+    private final double minLon;
+    private final double cellLatDegrees;
+    private final double cellLonDegrees;
+    private final int rows;
+    private final int cols;
+    private final double maxAbsLat;
+    private final int[] cellOffsets;
+    private final int[] cellNodes;
+    private final int[] segmentOffsets;
+    /** The edge for each listed segment; the reverse of a two-way edge is not listed. */
+    private final int[] segmentEdges;
+    private final int[] segmentSources;
+
+    SpatialIndex(CsrGraph graph) {
+        this.graph = graph;
+        int nodeCount = graph.getNodeCount();
+
+        double south = Double.POSITIVE_INFINITY;
+        double north = Double.NEGATIVE_INFINITY;
+        double west = Double.POSITIVE_INFINITY;
+        double east = Double.NEGATIVE_INFINITY;
+        int indexed = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            if (graph.getOutDegree(node) > 0) {
+                south = Math.min(south, graph.getLatitude(node));
+                north = Math.max(north, graph.getLatitude(node));
+                west = Math.min(west, graph.getLongitude(node));
+                east = Math.max(east, graph.getLongitude(node));
+                indexed++;
+            }
+        }
+        if (indexed == 0) {
+            south = north = west = east = 0;
+        }
+
+        // Size cells so that they are about square on the ground and hold a couple of nodes.
+        double cosLat = Math.cos(Math.toRadians(Math.max(Math.abs(south), Math.abs(north))));
+        double heightKm = Math.max((north - south) * KM_PER_DEGREE, 1e-6);
+        double widthKm = Math.max((east - west) * KM_PER_DEGREE * cosLat, 1e-6);
+        double cellKm = Math.sqrt(heightKm * widthKm * NODES_PER_CELL / Math.max(1, indexed));
+        this.rows = clamp((int) Math.ceil(heightKm / cellKm), 1, MAX_CELLS_PER_AXIS);
+        this.cols = clamp((int) Math.ceil(widthKm / cellKm), 1, MAX_CELLS_PER_AXIS);
+        this.minLat = south;
+        this.minLon = west;
+        this.cellLatDegrees = Math.max(north - south, 1e-9) / rows;
+        this.cellLonDegrees = Math.max(east - west, 1e-9) / cols;
+        this.maxAbsLat = Math.max(Math.abs(south), Math.abs(north));
+
+        // Counting sort of the indexed nodes by cell.
+        int[] cellOf = new int[nodeCount];
+        this.cellOffsets = new int[rows * cols + 1];
+        for (int node = 0; node < nodeCount; node++) {
+            if (graph.getOutDegree(node) > 0) {
+                cellOf[node] = cellIndex(row(graph.getLatitude(node)), col(graph.getLongitude(node)));
+                cellOffsets[cellOf[node] + 1]++;
+            }
+        }
+        for (int cell = 0; cell < rows * cols; cell++) {
+            cellOffsets[cell + 1] += cellOffsets[cell];
+        }
+        this.cellNodes = new int[indexed];
+        int[] fill = Arrays.copyOf(cellOffsets, rows * cols);
+        for (int node = 0; node < nodeCount; node++) {
+            if (graph.getOutDegree(node) > 0) {
+                cellNodes[fill[cellOf[node]]++] = node;
+            }
+        }
+
+        // Segments are listed in two passes too: count the cells each one overlaps, then fill.
+        this.segmentOffsets = new int[rows * cols + 1];
+        forEachSegmentCell((edge, source, cell) -> segmentOffsets[cell + 1]++);
+        for (int cell = 0; cell < rows * cols; cell++) {
+            segmentOffsets[cell + 1] += segmentOffsets[cell];
+        }
+        this.segmentEdges = new int[segmentOffsets[rows * cols]];
+        this.segmentSources = new int[segmentEdges.length];
+        int[] segmentFill = Arrays.copyOf(segmentOffsets, rows * cols);
+        forEachSegmentCell((edge, source, cell) -> {
+            int position = segmentFill[cell]++;
+            segmentEdges[position] = edge;
+            segmentSources[position] = source;
+        });
+    }
+
+    private interface SegmentCellConsumer {
+        void accept(int edge, int source, int cell);
+    }
+
+    private void forEachSegmentCell(SegmentCellConsumer consumer) {
+        for (int source = 0; source < graph.getNodeCount(); source++) {
+            for (int edge = graph.firstEdge(source); edge < graph.lastEdge(source); edge++) {
+                int target = graph.getTarget(edge);
+                if (target == source || (target < source && graph.findEdge(target, source) >= 0)) {
+                    continue; // a loop, or a two-way segment already listed from the other end
+                }
+                int firstRow = row(Math.min(graph.getLatitude(source), graph.getLatitude(target)));
+                int lastRow = row(Math.max(graph.getLatitude(source), graph.getLatitude(target)));
+                int firstCol = col(Math.min(graph.getLongitude(source), graph.getLongitude(target)));
+                int lastCol = col(Math.max(graph.getLongitude(source), graph.getLongitude(target)));
+                for (int row = firstRow; row <= lastRow; row++) {
+                    for (int col = firstCol; col <= lastCol; col++) {
+                        consumer.accept(edge, source, cellIndex(row, col));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of nodes in the index.
+     *
+     * @return The number of routable nodes
+     */
+    public int size() {
+        return cellNodes.length;
+    }
+
+    /**
+     * Finds the routable node nearest to a point.
+     *
+     * @param latitude The latitude of the point
+     * @param longitude The longitude of the point
+     * @param maxDistanceKm Nodes farther away than this are ignored
+     * @return The node index, or -1 if no node is within the cutoff
+     */
+    public int nearestNode(double latitude, double longitude, double maxDistanceKm) {
+        int[] nearest = nearestNodes(latitude, longitude, 1, maxDistanceKm);
+        return nearest.length > 0 ? nearest[0] : -1;
+    }
+
+    /**
+     * Finds up to k routable nodes nearest to a point, closest first. Ties are broken by
+     * node index, so results are deterministic.
+     *
+     * @param latitude The latitude of the point
+     * @param longitude The longitude of the point
+     * @param k The maximum number of nodes to return
+     * @param maxDistanceKm Nodes farther away than this are ignored
+     * @return The node indices, closest first
+     */
+    public int[] nearestNodes(double latitude, double longitude, int k, double maxDistanceKm) {
+        if (k <= 0 || cellNodes.length == 0) {
+            return new int[0];
+        }
+        int[] best = new int[k];
+        double[] bestDistances = new double[k];
+        int found = 0;
+
+        int centerRow = row(latitude);
+        int centerCol = col(longitude);
+        int maxRing = maxRing(centerRow, centerCol);
+        double minCellKm = minCellKm(latitude);
+        int[] cells = new int[8 * maxRing + 1];
+        LocalDistance from = new LocalDistance(latitude, longitude);
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Every node in this ring is at least (ring - 1) whole cells away from the query.
+            double ringDistance = Math.max(0, ring - 1) * minCellKm;
+            if (ringDistance > maxDistanceKm || (found == k && ringDistance > bestDistances[k - 1])) {
+                break;
+            }
+            int cellCount = ringCells(centerRow, centerCol, ring, cells);
+            for (int c = 0; c < cellCount; c++) {
+                for (int i = cellOffsets[cells[c]]; i < cellOffsets[cells[c] + 1]; i++) {
+                    int node = cellNodes[i];
+                    double distance = from.km(graph.getLatitude(node), graph.getLongitude(node));
+                    if (distance <= maxDistanceKm) {
+                        found = insert(best, bestDistances, found, node, distance);
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(best, found);
+    }
+
+    /**
+     * Projects a point onto the nearest road segment.
+     *
+     * @param latitude The latitude of the point
+     * @param longitude The longitude of the point
+     * @param maxDistanceKm Segments farther away than this are ignored
+     * @return The projection, or null if no segment is within the cutoff
+     */
+    public EdgeSnap nearestEdge(double latitude, double longitude, double maxDistanceKm) {
+        if (segmentEdges.length == 0) {
+            return null;
+        }
+        int centerRow = row(latitude);
+        int centerCol = col(longitude);
+        int maxRing = maxRing(centerRow, centerCol);
+        double minCellKm = minCellKm(latitude);
+        int[] cells = new int[8 * maxRing + 1];
+        // Segments are compared in a plane scaled so that degrees of longitude and latitude
+        // are the same length at the query's latitude; over a few cells this is very accurate.
+        double lonScale = Math.cos(Math.toRadians(latitude));
+
+        int bestEdge = -1;
+        int bestSource = -1;
+        double bestFraction = 0;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            double ringDistance = Math.max(0, ring - 1) * minCellKm;
+            if (ringDistance > maxDistanceKm || ringDistance > bestDistance) {
+                break;
+            }
+            int cellCount = ringCells(centerRow, centerCol, ring, cells);
+            for (int c = 0; c < cellCount; c++) {
+                for (int i = segmentOffsets[cells[c]]; i < segmentOffsets[cells[c] + 1]; i++) {
+                    int edge = segmentEdges[i];
+                    int source = segmentSources[i];
+                    double fraction = project(edge, source, latitude, longitude, lonScale);
+                    double distance = planarKm(edge, source, fraction, latitude, longitude, lonScale);
+                    if (distance <= maxDistanceKm && (distance < bestDistance
+                            || (distance == bestDistance && edge < bestEdge))) {
+                        bestEdge = edge;
+                        bestSource = source;
+                        bestFraction = fraction;
+                        bestDistance = distance;
+                    }
+                }
+            }
+        }
+        if (bestEdge < 0) {
+            return null;
+        }
+        // Only the chosen projection gets its exact great-circle distance
+        int target = graph.getTarget(bestEdge);
+        double snappedLat = graph.getLatitude(bestSource) + bestFraction * (graph.getLatitude(target) - graph.getLatitude(bestSource));
+        double snappedLon = graph.getLongitude(bestSource) + bestFraction * (graph.getLongitude(target) - graph.getLongitude(bestSource));
+        double distance = Coordinates.haversineKm(latitude, longitude, snappedLat, snappedLon);
+        return new EdgeSnap(bestEdge, bestSource, target, bestFraction, snappedLat, snappedLon, distance);
+    }
+
+    /**
+     * Returns the fraction of the way along a segment at which it comes closest to a point.
+     */
+    private double project(int edge, int source, double latitude, double longitude, double lonScale) {
+        int target = graph.getTarget(edge);
+        double ax = (graph.getLongitude(source) - longitude) * lonScale;
+        double ay = graph.getLatitude(source) - latitude;
+        double dx = (graph.getLongitude(target) - longitude) * lonScale - ax;
+        double dy = graph.getLatitude(target) - latitude - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        // The query point is the origin, so the closest point is where -a projects onto d.
+        return lengthSquared > 0 ? Math.max(0, Math.min(1, -(ax * dx + ay * dy) / lengthSquared)) : 0;
+    }
+
+    /**
+     * Returns the distance from a point to a point along a segment, measured in the plane
+     * the segment was projected in.
+     */
+    private double planarKm(int edge, int source, double fraction, double latitude, double longitude, double lonScale) {
+        int target = graph.getTarget(edge);
+        double lat = graph.getLatitude(source) + fraction * (graph.getLatitude(target) - graph.getLatitude(source));
+        double lon = graph.getLongitude(source) + fraction * (graph.getLongitude(target) - graph.getLongitude(source));
+        return Coordinates.equirectangularKm(latitude, longitude, lat, lon, lonScale);
+    }
+
+    private int maxRing(int centerRow, int centerCol) {
+        return Math.max(Math.max(centerRow, rows - 1 - centerRow), Math.max(centerCol, cols - 1 - centerCol));
+    }
+
+    /**
+     * Returns a lower bound on the width and height of a cell, in kilometers, as seen from
+     * the given latitude.
+     */
+    private double minCellKm(double latitude) {
+        double cosLat = Math.cos(Math.toRadians(Math.min(90, Math.max(maxAbsLat, Math.abs(latitude)))));
+        return Math.min(cellLatDegrees, cellLonDegrees * cosLat) * KM_PER_DEGREE;
+    }
+
+    /**
+     * Collects the cells on the square ring at the given Chebyshev distance from the center
+     * cell, skipping those outside the grid.
+     *
+     * @return The number of cells written to {@code cells}
+     */
+    private int ringCells(int centerRow, int centerCol, int ring, int[] cells) {
+        int count = 0;
+        for (int row = centerRow - ring; row <= centerRow + ring; row++) {
+            if (row < 0 || row >= rows) {
+                continue;
+            }
+            boolean edgeRow = row == centerRow - ring || row == centerRow + ring;
+            int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+            for (int col = centerCol - ring; col <= centerCol + ring; col += step) {
+                if (col >= 0 && col < cols) {
+                    cells[count++] = cellIndex(row, col);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Inserts a candidate into the sorted k-best arrays, returning the new number of entries.
+     */
+    private static int insert(int[] best, double[] bestDistances, int found, int node, double distance) {
+        int k = best.length;
+        if (found == k && !closer(distance, node, bestDistances[k - 1], best[k - 1])) {
+            return found;
+        }
+        int position = Math.min(found, k - 1);
+        while (position > 0 && closer(distance, node, bestDistances[position - 1], best[position - 1])) {
+            best[position] = best[position - 1];
+            bestDistances[position] = bestDistances[position - 1];
+            position--;
+        }
+        best[position] = node;
+        bestDistances[position] = distance;
+        return Math.min(found + 1, k);
+    }
+
+    private static boolean closer(double distance, int node, double otherDistance, int otherNode) {
+        return distance < otherDistance || (distance == otherDistance && node < otherNode);
+    }
+
+    private int row(double latitude) {
+        return clamp((int) Math.floor((latitude - minLat) / cellLatDegrees), 0, rows - 1);
+    }
+
+    private int col(double longitude) {
+        return clamp((int) Math.floor((longitude - minLon) / cellLonDegrees), 0, cols - 1);
+    }
+
+    private int cellIndex(int row, int col) {
+        return row * cols + col;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
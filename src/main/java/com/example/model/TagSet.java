@@ -0,0 +1,247 @@
+package com.example.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable set of OSM tags, stored compactly and shared between elements.
+ *
+ * A tag set keeps its tags as one array of alternating keys and values, sorted by key,
+ * instead of a hash map. The segments of a way share their way's tag set, and untagged
+ * elements share {@link #EMPTY}.
+ *
+ * Tag keys such as "highway", and values such as "residential", repeat across millions of
+ * nodes and ways. Loaders pass tags through an {@link Interner}, which holds each distinct
+ * key and low-cardinality value once and deduplicates identical tag sets. An interner lives
+ * for one load and is dropped with its tables once the data is built, so nothing grows for
+ * the life of the process.
+ *
+ * A tag set is a read-only {@code Map<String, String>}, so callers such as
+ * {@link Location#getOsmTag(String)} use it like any other map. Lookups scan the array, which
+ * is faster than hashing for the handful of tags an element has.
+ */
+public final class TagSet extends AbstractMap<String, String> {
+    /** The tag set of untagged elements. */
+    public static final TagSet EMPTY = new TagSet(new String[0]);
+
+    /** Keys at even positions, each followed by its value; sorted by key. */
+    private final String[] pairs;
+    private final int hash;
+    private Set<Map.Entry<String, String>> entrySet;
+
+    private TagSet(String[] pairs) {
+        this.pairs = pairs;
+        int h = 0;
+        for (int i = 0; i < pairs.length; i += 2) {
+            h += pairs[i].hashCode() ^ pairs[i + 1].hashCode();
+        }
+        this.hash = h;
+    }
+
+    /**
+     * Returns a tag set holding the given tags, without interning them.
+     *
+     * Values that are not strings, such as numbers read from JSON, are stored as their string
+     * form; null keys and values are dropped.
+     *
+     * @param tags The tags, or null for none
+     * @return The tag set, the argument itself if it already is one
+     */
+    public static TagSet of(Map<?, ?> tags) {
+        if (tags instanceof TagSet tagSet) {
+            return tagSet;
+        }
+        String[] pairs = pairsOf(tags, null);
+        return pairs == null ? EMPTY : new TagSet(pairs);
+    }
+
+    /**
+     * Copies tags into a pair array sorted by key, passing each string through the interner
+     * if one is given.
+     *
+     * @return The pairs, or null if there are no tags
+     */
+    private static String[] pairsOf(Map<?, ?> tags, Interner interner) {
+        if (tags == null || tags.isEmpty()) {
+            return null;
+        }
+        String[] pairs = new String[tags.size() * 2];
+        int size = 0;
+        for (Map.Entry<?, ?> tag : tags.entrySet()) {
+            if (tag.getKey() != null && tag.getValue() != null) {
+                String key = tag.getKey().toString();
+                String value = tag.getValue().toString();
+                if (interner != null) {
+                    key = interner.string(key);
+                    value = Interner.isFreeText(key) ? value : interner.string(value);
+                }
+                pairs[size++] = key;
+                pairs[size++] = value;
+            }
+        }
+        if (size == 0) {
+            return null;
+        }
+        return sortByKey(size == pairs.length ? pairs : Arrays.copyOf(pairs, size));
+    }
+
+    /**
+     * Deduplicates tag strings and tag sets while one data set is loaded.
+     *
+     * Keys and values with few distinct strings, such as "highway" and "residential", are held
+     * once; values of free-text keys such as names, addresses, refs and opening hours are
+     * nearly all different, so they are stored as they come instead of filling the dictionary.
+     * Tag sets equal to one interned before are replaced by that instance.
+     *
+     * An interner is owned by the loader or builder that uses it and is dropped when the load
+     * is done; the tag sets it returned stay valid. It is used by one thread.
+     */
+    public static final class Interner {
+        private static final Set<String> FREE_TEXT_KEYS = Set.of(
+                "name", "alt_name", "old_name", "official_name", "short_name", "loc_name", "ref",
+                "opening_hours", "phone", "website", "url", "email", "description", "note", "fixme",
+                "wikipedia", "wikidata", "brand:wikidata", "operator", "source", "image");
+
+        private final Map<String, String> strings = new HashMap<>();
+        private final Map<TagSet, TagSet> sets = new HashMap<>();
+
+        /**
+         * Returns the interned tag set holding the given tags.
+         *
+         * @param tags The tags, or null for none
+         * @return The tag set
+         */
+        public TagSet intern(Map<?, ?> tags) {
+            if (tags instanceof TagSet tagSet && sets.get(tagSet) == tagSet) {
+                return tagSet;
+            }
+            String[] pairs = pairsOf(tags, this);
+            if (pairs == null) {
+                return EMPTY;
+            }
+            TagSet created = new TagSet(pairs);
+            TagSet existing = sets.putIfAbsent(created, created);
+            return existing != null ? existing : created;
+        }
+
+        /** Returns the number of distinct strings held. */
+        int stringCount() {
+            return strings.size();
+        }
+
+        private String string(String value) {
+            String existing = strings.putIfAbsent(value, value);
+            return existing != null ? existing : value;
+        }
+
+        /**
+         * Checks whether a key's values are free text, which is not worth interning: names in
+         * any language, address parts and contact details, and the keys listed above.
+         */
+        static boolean isFreeText(String key) {
+            return FREE_TEXT_KEYS.contains(key) || key.startsWith("name:") || key.startsWith("addr:")
+                    || key.startsWith("contact:") || key.endsWith("_name");
+        }
+    }
+
+    /** Sorts the pairs by key with an insertion sort, as tag sets are small. */
+    private static String[] sortByKey(String[] pairs) {
+        for (int i = 2; i < pairs.length; i += 2) {
+            String key = pairs[i];
+            String value = pairs[i + 1];
+            int j = i - 2;
+            while (j >= 0 && pairs[j].compareTo(key) > 0) {
+                pairs[j + 2] = pairs[j];
+                pairs[j + 3] = pairs[j + 1];
+                j -= 2;
+            }
+            pairs[j + 2] = key;
+            pairs[j + 3] = value;
+        }
+        return pairs;
+    }
+
+    @Override
+    public String get(Object key) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (pairs[i].equals(key)) {
+                return pairs[i + 1];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return pairs.length / 2;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return pairs.length == 0;
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        Set<Map.Entry<String, String>> entries = entrySet;
+        if (entries == null) {
+            entries = new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<String, String>> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < pairs.length;
+                        }
+
+                        @Override
+                        public Map.Entry<String, String> next() {
+                            if (next >= pairs.length) {
+                                throw new NoSuchElementException();
+                            }
+                            Map.Entry<String, String> entry = new SimpleImmutableEntry<>(pairs[next], pairs[next + 1]);
+                            next += 2;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return pairs.length / 2;
+                }
+            };
+            entrySet = entries;
+        }
+        return entries;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof TagSet other) {
+            return hash == other.hash && Arrays.equals(pairs, other.pairs);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
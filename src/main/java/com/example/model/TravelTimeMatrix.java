@@ -0,0 +1,106 @@
+package com.example.model;
+
+import java.util.Arrays;
+
+/**
+ * Drive times and distances from each of a list of origins to each of a list of destinations,
+ * along the fastest route between them.
+ *
+ * Cells are held in flat row-major arrays of primitives, one row per origin. An unreachable
+ * destination, or an origin or destination that is not on the road network, has an infinite
+ * time and distance.
+ */
+public final class TravelTimeMatrix {
+    private final int originCount;
+    private final int destinationCount;
+    private final double[] seconds;
+    private final double[] meters;
+
+    TravelTimeMatrix(int originCount, int destinationCount) {
+        this.originCount = originCount;
+        this.destinationCount = destinationCount;
+        this.seconds = new double[originCount * destinationCount];
+        this.meters = new double[originCount * destinationCount];
+        Arrays.fill(seconds, Double.POSITIVE_INFINITY);
+        Arrays.fill(meters, Double.POSITIVE_INFINITY);
+    }
+
+    public int getOriginCount() {
+        return originCount;
+    }
+
+    public int getDestinationCount() {
+        return destinationCount;
+    }
+
+    /**
+     * Returns the drive time of the fastest route from an origin to a destination.
+     *
+     * @param origin The origin's position in the origin list
+     * @param destination The destination's position in the destination list
+     * @return The travel time in seconds, or infinity if the destination cannot be reached
+     */
+    public double getTravelTimeSeconds(int origin, int destination) {
+        return seconds[cell(origin, destination)];
+    }
+
+    /**
+     * Returns the length of the fastest route from an origin to a destination.
+     *
+     * @param origin The origin's position in the origin list
+     * @param destination The destination's position in the destination list
+     * @return The length in meters, or infinity if the destination cannot be reached
+     */
+    public double getDistanceMeters(int origin, int destination) {
+        return meters[cell(origin, destination)];
+    }
+
+    public boolean isReachable(int origin, int destination) {
+        return seconds[cell(origin, destination)] < Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the travel times as one array per origin.
+     *
+     * @return A copy of the travel times in seconds
+     */
+    public double[][] getTravelTimesSeconds() {
+        return rows(seconds);
+    }
+
+    /**
+     * Returns the route lengths as one array per origin.
+     *
+     * @return A copy of the lengths in meters
+     */
+    public double[][] getDistancesMeters() {
+        return rows(meters);
+    }
+
+    /**
+     * Records a route if it is faster than the one known for its cell.
+     */
+    void offer(int origin, int destination, double travelSeconds, double lengthMeters) {
+        int cell = cell(origin, destination);
+        if (travelSeconds < seconds[cell]) {
+            seconds[cell] = travelSeconds;
+            meters[cell] = lengthMeters;
+        }
+    }
+
+    private int cell(int origin, int destination) {
+        if (origin < 0 || origin >= originCount || destination < 0 || destination >= destinationCount) {
+            throw new IndexOutOfBoundsException("No cell " + origin + ", " + destination + " in a "
+                    + originCount + " x " + destinationCount + " matrix");
+        }
+        return origin * destinationCount + destination;
+    }
+
+    private double[][] rows(double[] cells) {
+        double[][] rows = new double[originCount][];
+        for (int origin = 0; origin < originCount; origin++) {
+            rows[origin] = Arrays.copyOfRange(cells, origin * destinationCount, (origin + 1) * destinationCount);
+        }
+        return rows;
+    }
+}
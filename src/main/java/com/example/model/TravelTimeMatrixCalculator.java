@@ -0,0 +1,250 @@
+package com.example.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.example.util.LongIntHashMap;
+
+/**
+ * Calculates {@link TravelTimeMatrix travel time matrices} without routing every pair of
+ * points separately.
+ *
+ * From a single origin, one Dijkstra search over travel times runs until it has settled every
+ * destination. With several origins and a contraction hierarchy for travel time, the
+ * bucket-based many-to-many algorithm is used instead: a backward search climbs the hierarchy
+ * from each destination and leaves its distance in a bucket at every node it settles, then a
+ * forward search climbs from each origin and combines its distances with the buckets it
+ * finds. Both searches only ever go up the hierarchy, so each settles a few hundred nodes
+ * however far apart the points are. Without a hierarchy, every origin gets its own
+ * one-to-many search.
+ *
+ * Route lengths are carried along with the travel times, so both matrices come from the
+ * same searches.
+ */
+public final class TravelTimeMatrixCalculator {
+    private final CsrGraph graph;
+    private final ContractionHierarchy hierarchy;
+
+    /**
+     * Creates a calculator that runs Dijkstra searches on the graph.
+     *
+     * @param graph The compiled road network
+     */
+    public TravelTimeMatrixCalculator(CsrGraph graph) {
+        this.graph = graph;
+        this.hierarchy = null;
+    }
+
+    /**
+     * Creates a calculator that uses a contraction hierarchy for matrices with several origins.
+     *
+     * @param graph The compiled road network
+     * @param hierarchy A hierarchy built for that network under {@link RouteMetric#TIME}
+     * @throws IllegalArgumentException If the hierarchy was built for a different graph or metric
+     */
+    public TravelTimeMatrixCalculator(CsrGraph graph, ContractionHierarchy hierarchy) {
+        if (!hierarchy.matches(graph, RouteMetric.TIME)) {
+            throw new IllegalArgumentException("Contraction hierarchy must be built for travel time on the same graph");
+        }
+        this.graph = graph;
+        this.hierarchy = hierarchy;
+    }
+
+    /**
+     * Calculates the drive time and distance from every origin to every destination.
+     *
+     * @param origins The origin nodes; null entries and nodes not in the graph reach nothing
+     * @param destinations The destination nodes; null entries and nodes not in the graph are unreachable
+     * @return The matrix, with a row per origin and a column per destination
+     */
+    public TravelTimeMatrix calculate(List<Node> origins, List<Node> destinations) {
+        int[] sources = indicesOf(origins);
+        int[] targets = indicesOf(destinations);
+        TravelTimeMatrix matrix = new TravelTimeMatrix(sources.length, targets.length);
+        if (hierarchy != null && sources.length > 1) {
+            fillFromHierarchy(sources, targets, matrix);
+        } else {
+            for (int row = 0; row < sources.length; row++) {
+                fillRow(row, sources[row], targets, matrix);
+            }
+        }
+        return matrix;
+    }
+
+    private int[] indicesOf(List<Node> nodes) {
+        int[] indices = new int[nodes.size()];
+        for (int i = 0; i < indices.length; i++) {
+            Node node = nodes.get(i);
+            indices[i] = node != null ? graph.indexOf(node.id()) : -1;
+        }
+        return indices;
+    }
+
+    /**
+     * Fills one row with a single Dijkstra search that stops once every destination is settled.
+     */
+    private void fillRow(int row, int source, int[] targets, TravelTimeMatrix matrix) {
+        if (source < 0) {
+            return;
+        }
+        int[] pending = Arrays.stream(targets).filter(target -> target >= 0).sorted().distinct().toArray();
+        try (SearchWorkspace search = SearchWorkspace.acquire(graph.getNodeCount())) {
+            search.relax(source, 0, -1, 0, 0);
+            int remaining = pending.length;
+            while (remaining > 0 && !search.isEmpty()) {
+                int current = search.poll();
+                if (Arrays.binarySearch(pending, current) >= 0) {
+                    remaining--;
+                }
+                double seconds = search.distance(current);
+                double meters = search.length(current);
+                for (int e = graph.firstEdge(current); e < graph.lastEdge(current); e++) {
+                    double newSeconds = seconds + graph.getTravelTimeSeconds(e);
+                    search.relax(graph.getTarget(e), newSeconds, current, newSeconds, meters + graph.getLengthMeters(e));
+                }
+            }
+            for (int column = 0; column < targets.length; column++) {
+                int target = targets[column];
+                if (target >= 0 && search.isSettled(target)) {
+                    matrix.offer(row, column, search.distance(target), search.length(target));
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills the whole matrix with the bucket-based many-to-many search on the hierarchy.
+     */
+    private void fillFromHierarchy(int[] sources, int[] targets, TravelTimeMatrix matrix) {
+        Buckets buckets = new Buckets();
+        try (SearchWorkspace search = SearchWorkspace.acquire(graph.getNodeCount())) {
+            for (int column = 0; column < targets.length; column++) {
+                if (targets[column] < 0) {
+                    continue;
+                }
+                int destination = column;
+                search.reset();
+                climb(search, targets[column], hierarchy.downward(), hierarchy.upward(),
+                      (node, seconds, meters) -> buckets.add(node, destination, seconds, meters));
+            }
+            buckets.index();
+
+            for (int row = 0; row < sources.length; row++) {
+                if (sources[row] < 0) {
+                    continue;
+                }
+                int origin = row;
+                search.reset();
+                climb(search, sources[row], hierarchy.upward(), hierarchy.downward(), (node, seconds, meters) -> {
+                    for (int i = buckets.first(node); i >= 0 && i < buckets.size && buckets.nodeAt(i) == node; i++) {
+                        int entry = buckets.entryAt(i);
+                        matrix.offer(origin, buckets.columns[entry],
+                                     seconds + buckets.seconds[entry], meters + buckets.meters[entry]);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Receives each node an upward search settles without stalling.
+     */
+    private interface SettledNode {
+        void accept(int node, double seconds, double meters);
+    }
+
+    /**
+     * Runs a search up the hierarchy from a node until its queue is empty.
+     *
+     * @param edges The edges the search follows
+     * @param opposite The edges leading into each node from higher-ranked nodes in the
+     *                 search's direction, used to stall nodes reached by a detour
+     */
+    private static void climb(SearchWorkspace search, int start, ContractionHierarchy.EdgeList edges,
+                              ContractionHierarchy.EdgeList opposite, SettledNode visitor) {
+        search.relax(start, 0, -1, 0, 0);
+        while (!search.isEmpty()) {
+            int node = search.poll();
+            double seconds = search.distance(node);
+            if (isStalled(search, opposite, node, seconds)) {
+                continue;
+            }
+            double meters = search.length(node);
+            visitor.accept(node, seconds, meters);
+            for (int i = edges.offsets[node]; i < edges.offsets[node + 1]; i++) {
+                double newSeconds = seconds + edges.weights[i];
+                search.relax(edges.others[i], newSeconds, node, newSeconds, meters + edges.lengths[i]);
+            }
+        }
+    }
+
+    /**
+     * Stall-on-demand, as in {@link ContractionHierarchyPathFinder}: a node that a
+     * higher-ranked node already reached leads down to more cheaply is not on any fastest
+     * route through this search, so it neither fills nor reads buckets.
+     */
+    private static boolean isStalled(SearchWorkspace search, ContractionHierarchy.EdgeList opposite,
+                                     int node, double seconds) {
+        for (int i = opposite.offsets[node]; i < opposite.offsets[node + 1]; i++) {
+            if (search.distance(opposite.others[i]) + opposite.weights[i] < seconds) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The distances the backward searches left at each node, sorted by node once they are
+     * all in.
+     */
+    private static final class Buckets {
+        int size;
+        int[] nodes = new int[64];
+        int[] columns = new int[64];
+        double[] seconds = new double[64];
+        double[] meters = new double[64];
+        /** Node in the high half, entry in the low half, sorted. */
+        private long[] order;
+        /** The first position in {@link #order} for each node with a bucket. */
+        private LongIntHashMap firstByNode;
+
+        void add(int node, int column, double travelSeconds, double lengthMeters) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                columns = Arrays.copyOf(columns, size * 2);
+                seconds = Arrays.copyOf(seconds, size * 2);
+                meters = Arrays.copyOf(meters, size * 2);
+            }
+            nodes[size] = node;
+            columns[size] = column;
+            seconds[size] = travelSeconds;
+            meters[size] = lengthMeters;
+            size++;
+        }
+
+        void index() {
+            order = new long[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = (long) nodes[i] << 32 | i;
+            }
+            Arrays.sort(order);
+            firstByNode = new LongIntHashMap(size);
+            for (int i = size - 1; i >= 0; i--) {
+                firstByNode.put(nodeAt(i), i);
+            }
+        }
+
+        /** Returns the first position of the node's bucket, or -1 if it has none. */
+        int first(int node) {
+            return firstByNode.get(node);
+        }
+
+        int nodeAt(int position) {
+            return (int) (order[position] >>> 32);
+        }
+
+        int entryAt(int position) {
+            return (int) order[position];
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.model;
+
+import java.util.Arrays;
+
+/**
+ * Explores the road network outwards from one node in order of travel time, the metric
+ * {@link FastestPathFinder} minimizes.
+ *
+ * This is a Dijkstra search without a destination: it hands every node it settles to a
+ * visitor, which decides when to stop. Questions like "which of these places can I drive to
+ * soonest" or "what can I reach within ten minutes" are then answered by one search, instead
+ * of a route to every candidate. The search runs in a pooled {@link SearchWorkspace}, so
+ * repeated searches allocate nothing per node beyond what they return.
+ */
+public final class TravelTimeSearch {
+    private final CsrGraph graph;
+
+    /**
+     * Receives the nodes a search settles, soonest first.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * Called once for every node the search settles.
+         *
+         * @param node The node's index in the graph
+         * @param travelSeconds The travel time of the fastest route from the origin to the node
+         * @param lengthMeters The length of that route
+         * @return true to continue the search, false to stop it
+         */
+        boolean visit(int node, double travelSeconds, double lengthMeters);
+    }
+
+    public TravelTimeSearch(CsrGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Settles nodes in order of travel time from the origin and passes each to the visitor,
+     * until the visitor stops the search or every node reachable from the origin is settled.
+     *
+     * @param origin The node to start from
+     * @param visitor The visitor
+     * @return The number of nodes settled, 0 if the origin is not in the graph
+     */
+    public int explore(Node origin, Visitor visitor) {
+        int source = graph.indexOf(origin.id());
+        if (source < 0) {
+            return 0;
+        }
+
+        try (SearchWorkspace search = SearchWorkspace.acquire(graph.getNodeCount())) {
+            search.relax(source, 0, -1, 0, 0);
+            while (!search.isEmpty()) {
+                int current = search.poll();
+                double seconds = search.distance(current);
+                double meters = search.length(current);
+                if (!visitor.visit(current, seconds, meters)) {
+                    break;
+                }
+                for (int e = graph.firstEdge(current); e < graph.lastEdge(current); e++) {
+                    double newSeconds = seconds + graph.getTravelTimeSeconds(e);
+                    search.relax(graph.getTarget(e), newSeconds, current, newSeconds, meters + graph.getLengthMeters(e));
+                }
+            }
+            return search.settledCount();
+        }
+    }
+
+    /**
+     * Finds every node that can be reached from the origin within a travel time limit.
+     *
+     * @param origin The node to start from
+     * @param limitSeconds The travel time limit in seconds
+     * @return The reachable nodes, none if the origin is not in the graph
+     * @throws IllegalArgumentException If the limit is negative
+     */
+    public Isochrone isochrone(Node origin, double limitSeconds) {
+        if (limitSeconds < 0) {
+            throw new IllegalArgumentException("Travel time limit must be non-negative");
+        }
+        WithinLimit reached = new WithinLimit(limitSeconds);
+        explore(origin, reached);
+        return new Isochrone(graph, origin, limitSeconds, reached.nodes, reached.seconds, reached.meters, reached.count);
+    }
+
+    /**
+     * Collects the settled nodes until the travel time limit is passed.
+     */
+    private static final class WithinLimit implements Visitor {
+        private final double limitSeconds;
+        int[] nodes = new int[64];
+        double[] seconds = new double[64];
+        double[] meters = new double[64];
+        int count;
+
+        WithinLimit(double limitSeconds) {
+            this.limitSeconds = limitSeconds;
+        }
+
+        @Override
+        public boolean visit(int node, double travelSeconds, double lengthMeters) {
+            if (travelSeconds > limitSeconds) {
+                return false;
+            }
+            if (count == nodes.length) {
+                nodes = Arrays.copyOf(nodes, count * 2);
+                seconds = Arrays.copyOf(seconds, count * 2);
+                meters = Arrays.copyOf(meters, count * 2);
+            }
+            nodes[count] = node;
+            seconds[count] = travelSeconds;
+            meters[count] = lengthMeters;
+            count++;
+            return true;
+        }
+    }
+}
@@ -16,6 +16,8 @@ import java.util.logging.Logger;
  * or is included within a Relation. A way can have between 2 and 2,000 nodes.
  *
  * This class represents a segment of such a way, defined by its start and end nodes.
+ * Its data is immutable, and its tags are held as a {@link TagSet} that the many segments
+ * of one way share; loaders also share it between ways tagged alike.
  */
 
 
@@ -24,7 +26,25 @@ public record Way(Long id, Node startNode, Node endNode, Map<String, Object> dat
     private static final Logger logger = Logger.getLogger(Way.class.getName());
 
     public Way {
-        data = data == null ? Map.of() : new HashMap<>(data);
+        data = data == null ? Map.of() : compactData(data);
+    }
+
+    /**
+     * Copies way data into an immutable map with the tags replaced by their tag set. Data
+     * with null entries, which immutable maps reject, is kept in a mutable copy.
+     */
+    private static Map<String, Object> compactData(Map<String, Object> data) {
+        Object tags = data.get("tags");
+        if (tags instanceof Map<?, ?> tagMap && !(tags instanceof TagSet)) {
+            data = new HashMap<>(data);
+            data.put("tags", TagSet.of(tagMap));
+        }
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                return new HashMap<>(data);
+            }
+        }
+        return Map.copyOf(data);
     }
 
     /**
@@ -0,0 +1,38 @@
+package com.example.service;
+
+import java.util.List;
+
+import com.example.model.AStarPathFinder;
+import com.example.model.Graph;
+import com.example.model.PathEndpoint;
+import com.example.model.PathResult;
+import com.example.model.Route;
+import com.example.model.RouteMetric;
+
+/**
+ * Calculates routes with A* search, for either the shortest or the fastest metric.
+ */
+public class AStarRouteStrategy implements RouteStrategy {
+    private final RouteMetric metric;
+    private volatile GraphBinding<AStarPathFinder> binding;
+
+    public AStarRouteStrategy(Graph graph, RouteMetric metric) {
+        this.metric = metric;
+        setGraph(graph);
+    }
+
+    @Override
+    public Route calculateRoute(List<PathEndpoint> starts, List<PathEndpoint> ends) {
+        GraphBinding<AStarPathFinder> current = binding;
+        PathResult result = current.pathFinder().findPath(starts, ends);
+        if (!result.isFound() || result.path().isEmpty()) {
+            return null;
+        }
+        return new Route(result.path(), current.graph(), result.settledNodes());
+    }
+
+    @Override
+    public void setGraph(Graph graph) {
+        this.binding = new GraphBinding<>(graph, new AStarPathFinder(graph, metric));
+    }
+}
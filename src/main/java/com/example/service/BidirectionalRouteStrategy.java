@@ -0,0 +1,38 @@
+package com.example.service;
+
+import java.util.List;
+
+import com.example.model.BidirectionalDijkstraPathFinder;
+import com.example.model.Graph;
+import com.example.model.PathEndpoint;
+import com.example.model.PathResult;
+import com.example.model.Route;
+import com.example.model.RouteMetric;
+
+/**
+ * Calculates routes with bidirectional Dijkstra, for either the shortest or the fastest metric.
+ */
+public class BidirectionalRouteStrategy implements RouteStrategy {
+    private final RouteMetric metric;
+    private volatile GraphBinding<BidirectionalDijkstraPathFinder> binding;
+
+    public BidirectionalRouteStrategy(Graph graph, RouteMetric metric) {
+        this.metric = metric;
+        setGraph(graph);
+    }
+
+    @Override
+    public Route calculateRoute(List<PathEndpoint> starts, List<PathEndpoint> ends) {
+        GraphBinding<BidirectionalDijkstraPathFinder> current = binding;
+        PathResult result = current.pathFinder().findPath(starts, ends);
+        if (!result.isFound() || result.path().isEmpty()) {
+            return null;
+        }
+        return new Route(result.path(), current.graph(), result.settledNodes());
+    }
+
+    @Override
+    public void setGraph(Graph graph) {
+        this.binding = new GraphBinding<>(graph, new BidirectionalDijkstraPathFinder(graph, metric));
+    }
+}
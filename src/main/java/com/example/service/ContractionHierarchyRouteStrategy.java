@@ -0,0 +1,59 @@
+package com.example.service;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import com.example.model.ContractionHierarchy;
+import com.example.model.ContractionHierarchyPathFinder;
+import com.example.model.CsrGraph;
+import com.example.model.Graph;
+import com.example.model.PathEndpoint;
+import com.example.model.PathResult;
+import com.example.model.Route;
+import com.example.model.RouteMetric;
+
+/**
+ * Calculates routes on a contraction hierarchy, for either the shortest or the fastest metric.
+ *
+ * The hierarchy is loaded from the cache directory when an up-to-date copy exists there,
+ * and is otherwise built and saved, so only the first start on new data pays for the
+ * preprocessing.
+ */
+public class ContractionHierarchyRouteStrategy implements RouteStrategy {
+    private final RouteMetric metric;
+    private final Path cacheDirectory;
+    private volatile GraphBinding<ContractionHierarchyPathFinder> binding;
+
+    public ContractionHierarchyRouteStrategy(Graph graph, RouteMetric metric, Path cacheDirectory) {
+        this.metric = metric;
+        this.cacheDirectory = cacheDirectory;
+        setGraph(graph);
+    }
+
+    @Override
+    public Route calculateRoute(List<PathEndpoint> starts, List<PathEndpoint> ends) {
+        GraphBinding<ContractionHierarchyPathFinder> current = binding;
+        PathResult result = current.pathFinder().findPath(starts, ends);
+        if (!result.isFound() || result.path().isEmpty()) {
+            return null;
+        }
+        return new Route(result.path(), current.graph(), result.settledNodes());
+    }
+
+    /**
+     * Returns the hierarchy routes are currently calculated on.
+     *
+     * @return The hierarchy for the current graph
+     */
+    public ContractionHierarchy getHierarchy() {
+        return binding.pathFinder().getHierarchy();
+    }
+
+    @Override
+    public void setGraph(Graph graph) {
+        CsrGraph csr = graph.compact();
+        // The hierarchy is built before the new graph is published, so routes never wait for it
+        this.binding = new GraphBinding<>(graph, new ContractionHierarchyPathFinder(csr,
+                ContractionHierarchy.loadOrBuild(csr, metric, cacheDirectory)));
+    }
+}
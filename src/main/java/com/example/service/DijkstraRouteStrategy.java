@@ -5,25 +5,25 @@ import com.example.model.*;
 import java.util.List;
 
 public class DijkstraRouteStrategy implements RouteStrategy {
-    private Graph graph;
-    private DijkstraPathFinder pathFinder;
+    private volatile GraphBinding<DijkstraPathFinder> binding;
 
     public DijkstraRouteStrategy(Graph graph) {
         setGraph(graph);
     }
 
     @Override
-    public Route calculateRoute(Node start, Node end) {
-        List<Node> path = pathFinder.findShortestPath(start, end);
+    public Route calculateRoute(List<PathEndpoint> starts, List<PathEndpoint> ends) {
+        GraphBinding<DijkstraPathFinder> current = binding;
+        PathResult result = current.pathFinder().findPath(starts, ends);
+        List<Node> path = result.path();
         if (path == null || path.isEmpty()) {
             return null;
         }
-        return new Route(path, graph);
+        return new Route(path, current.graph(), result.settledNodes());
     }
 
     @Override
     public void setGraph(Graph graph) {
-        this.graph = graph;
-        this.pathFinder = new DijkstraPathFinder(graph);
+        this.binding = new GraphBinding<>(graph, new DijkstraPathFinder(graph));
     }
 }
\ No newline at end of file
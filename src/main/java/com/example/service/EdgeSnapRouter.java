@@ -0,0 +1,316 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.model.CsrGraph;
+import com.example.model.EdgeSnap;
+import com.example.model.Graph;
+import com.example.model.Node;
+import com.example.model.PathEndpoint;
+import com.example.model.Route;
+import com.example.model.RouteMetric;
+import com.example.model.Way;
+
+/**
+ * Calculates routes between points snapped onto road segments.
+ *
+ * A snapped point sits partway along a segment, so a route can leave it towards either end
+ * the segment's direction allows, paying the matching fraction of the segment's weight, and
+ * likewise arrive at the destination from either end. The strategy runs a single search
+ * that starts from both departure nodes at their partial costs and stops at whichever
+ * arrival node gives the cheapest total; when both points are on the same segment, the
+ * direct route along it is compared with that result.
+ *
+ * The node-to-node part of a route does not depend on where exactly the points lie on their
+ * segments, so what a search finds is kept as {@link SegmentRoutes} and reused for other
+ * points on the same two segments: the core route it found, and a lower bound on the cost
+ * between every other pair of departure and arrival nodes. A later route is assembled from
+ * a known core route and its own partial segments without a search whenever those bounds
+ * show that no other pair can beat it.
+ *
+ * The snapped points become virtual nodes at the ends of the returned route, with negative
+ * ids since they are not part of the graph.
+ */
+final class EdgeSnapRouter {
+    static final long VIRTUAL_START_ID = -1;
+    static final long VIRTUAL_END_ID = -2;
+    /** The relative rounding error allowed when comparing a route's cost with a lower bound. */
+    private static final double BOUND_TOLERANCE = 1e-9;
+
+    private final Graph graph;
+
+    EdgeSnapRouter(Graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * A route between two snapped points, and what is known about routes between their
+     * segments once it has been found.
+     *
+     * @param route The route, or null if the end cannot be reached from the start
+     * @param segmentRoutes The core routes and bounds to reuse for the same two segments
+     * @param searched Whether a search ran, rather than the route being assembled from what
+     *                 was already known
+     */
+    record SnappedRoute(Route route, SegmentRoutes segmentRoutes, boolean searched) {}
+
+    /**
+     * What the searches between one pair of segments have found, indexed by departure and
+     * arrival node in the order {@link #departures} and {@link #arrivals} list them.
+     * Instances are immutable, so they can be shared between request threads; a search
+     * produces a new instance.
+     */
+    static final class SegmentRoutes {
+        /** Lower bounds on the core cost between each departure and arrival node. */
+        private final double[][] lowerBounds;
+        /** The core routes found so far, null where none is known. */
+        private final List<Node>[][] paths;
+        private final List<Way>[][] ways;
+        private final double[][] costs;
+        private final int settledNodeCount;
+
+        @SuppressWarnings("unchecked")
+        private SegmentRoutes(int departures, int arrivals, int settledNodeCount) {
+            this.lowerBounds = new double[departures][arrivals];
+            this.paths = new List[departures][arrivals];
+            this.ways = new List[departures][arrivals];
+            this.costs = new double[departures][arrivals];
+            this.settledNodeCount = settledNodeCount;
+        }
+
+        private SegmentRoutes copy(int settledNodeCount) {
+            SegmentRoutes copy = new SegmentRoutes(lowerBounds.length, lowerBounds[0].length, settledNodeCount);
+            for (int d = 0; d < lowerBounds.length; d++) {
+                copy.lowerBounds[d] = lowerBounds[d].clone();
+                copy.paths[d] = paths[d].clone();
+                copy.ways[d] = ways[d].clone();
+                copy.costs[d] = costs[d].clone();
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Finds the cheapest route between two snapped points, reusing what earlier searches
+     * between the same two segments found when it is enough to settle the route.
+     *
+     * @param strategy The strategy used to route between graph nodes
+     * @param metric The metric the strategy minimizes
+     * @param start The snapped start point
+     * @param end The snapped end point
+     * @param known What earlier searches between the two segments found, or null
+     * @return The route, with what is now known about the two segments
+     */
+    SnappedRoute route(RouteStrategy strategy, RouteMetric metric, EdgeSnap start, EdgeSnap end,
+                       SegmentRoutes known) {
+        CsrGraph csr = graph.compact();
+        List<Leg> departures = departures(csr, metric, start);
+        List<Leg> arrivals = arrivals(csr, metric, end);
+        if (known == null || known.lowerBounds.length != departures.size()
+                || known.lowerBounds[0].length != arrivals.size()) {
+            known = new SegmentRoutes(departures.size(), arrivals.size(), 0);
+        }
+
+        Choice choice = cheapestKnown(csr, metric, start, end, departures, arrivals, known);
+        if (isSettled(departures, arrivals, known, choice.cost())) {
+            return new SnappedRoute(assemble(csr, metric, start, end, departures, arrivals, known, choice), known, false);
+        }
+
+        Route inner = strategy.calculateRoute(endpoints(csr, departures), endpoints(csr, arrivals));
+        SegmentRoutes found = known.copy(inner != null ? Math.max(0, inner.getSettledNodeCount()) : 0);
+        double best = Double.POSITIVE_INFINITY;
+        if (inner != null) {
+            List<Node> innerNodes = inner.getNodes();
+            int[] path = new int[innerNodes.size()];
+            for (int i = 0; i < path.length; i++) {
+                path[i] = csr.indexOf(innerNodes.get(i).id());
+            }
+            int d = legAt(departures, path[0]);
+            int a = legAt(arrivals, path[path.length - 1]);
+            double cost = 0;
+            List<Way> innerWays = new ArrayList<>(path.length);
+            for (int i = 1; i < path.length; i++) {
+                int edge = csr.findEdge(path[i - 1], path[i]);
+                cost += metric.weight(csr, edge);
+                innerWays.add(csr.getWay(edge));
+            }
+            found.paths[d][a] = innerNodes;
+            found.ways[d][a] = innerWays;
+            found.costs[d][a] = cost;
+            best = departures.get(d).cost() + cost + arrivals.get(a).cost();
+        }
+        // The search found the cheapest total over all pairs, which bounds every other pair
+        for (int d = 0; d < departures.size(); d++) {
+            for (int a = 0; a < arrivals.size(); a++) {
+                double bound = best - departures.get(d).cost() - arrivals.get(a).cost();
+                found.lowerBounds[d][a] = Math.max(found.lowerBounds[d][a], bound);
+            }
+        }
+        Choice cheapest = cheapestKnown(csr, metric, start, end, departures, arrivals, found);
+        return new SnappedRoute(assemble(csr, metric, start, end, departures, arrivals, found, cheapest), found, true);
+    }
+
+    /**
+     * Picks the cheaper of the direct route along a shared segment and the known core routes.
+     */
+    private static Choice cheapestKnown(CsrGraph csr, RouteMetric metric, EdgeSnap start, EdgeSnap end,
+                                        List<Leg> departures, List<Leg> arrivals, SegmentRoutes routes) {
+        double bestCost = directCost(csr, metric, start, end);
+        int bestDeparture = -1;
+        int bestArrival = -1;
+        for (int d = 0; d < departures.size(); d++) {
+            for (int a = 0; a < arrivals.size(); a++) {
+                if (routes.paths[d][a] != null) {
+                    double cost = departures.get(d).cost() + routes.costs[d][a] + arrivals.get(a).cost();
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestDeparture = d;
+                        bestArrival = a;
+                    }
+                }
+            }
+        }
+        return new Choice(bestCost, bestDeparture, bestArrival);
+    }
+
+    /**
+     * Builds the chosen route, with the partial segments from and to the snapped points.
+     *
+     * @return The route, or null if the choice is that there is none
+     */
+    private Route assemble(CsrGraph csr, RouteMetric metric, EdgeSnap start, EdgeSnap end,
+                           List<Leg> departures, List<Leg> arrivals, SegmentRoutes routes, Choice choice) {
+        if (choice.cost() == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        int bestDeparture = choice.departure();
+        int bestArrival = choice.arrival();
+        Node virtualStart = new Node(VIRTUAL_START_ID, start.latitude(), start.longitude());
+        Node virtualEnd = new Node(VIRTUAL_END_ID, end.latitude(), end.longitude());
+        if (bestDeparture < 0) {
+            return new Route(List.of(virtualStart, virtualEnd), List.of(csr.getWay(directEdge(csr, metric, start, end))),
+                             graph, routes.settledNodeCount);
+        }
+        List<Node> innerNodes = routes.paths[bestDeparture][bestArrival];
+        List<Node> nodes = new ArrayList<>(innerNodes.size() + 2);
+        List<Way> ways = new ArrayList<>(innerNodes.size() + 1);
+        if (!samePosition(csr, virtualStart, innerNodes.get(0))) {
+            nodes.add(virtualStart);
+            ways.add(departures.get(bestDeparture).way());
+        }
+        nodes.addAll(innerNodes);
+        ways.addAll(routes.ways[bestDeparture][bestArrival]);
+        if (!samePosition(csr, virtualEnd, innerNodes.get(innerNodes.size() - 1))) {
+            nodes.add(virtualEnd);
+            ways.add(arrivals.get(bestArrival).way());
+        }
+        return new Route(nodes, ways, graph, routes.settledNodeCount);
+    }
+
+    /**
+     * Checks that no departure and arrival pair without a known core route can beat the given
+     * cost. Bounds are differences of sums of costs, so rounding can put a bound that equals
+     * the cost just below it; such ties do not count.
+     */
+    private static boolean isSettled(List<Leg> departures, List<Leg> arrivals, SegmentRoutes routes, double cost) {
+        double limit = cost == Double.POSITIVE_INFINITY ? cost : cost - cost * BOUND_TOLERANCE;
+        for (int d = 0; d < departures.size(); d++) {
+            for (int a = 0; a < arrivals.size(); a++) {
+                if (routes.paths[d][a] == null
+                        && departures.get(d).cost() + routes.lowerBounds[d][a] + arrivals.get(a).cost() < limit) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the cost of driving straight along the segment both points are on, or infinity
+     * if they are on different segments or the segment's direction does not allow it.
+     */
+    private static double directCost(CsrGraph csr, RouteMetric metric, EdgeSnap start, EdgeSnap end) {
+        if (start.edge() != end.edge()) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double forwardCost = end.fraction() >= start.fraction()
+                ? (end.fraction() - start.fraction()) * metric.weight(csr, start.edge()) : Double.POSITIVE_INFINITY;
+        int reverse = csr.findEdge(start.target(), start.source());
+        double reverseCost = reverse >= 0 && end.fraction() <= start.fraction()
+                ? (start.fraction() - end.fraction()) * metric.weight(csr, reverse) : Double.POSITIVE_INFINITY;
+        return Math.min(forwardCost, reverseCost);
+    }
+
+    /** Returns the edge the direct route along a shared segment drives. */
+    private static int directEdge(CsrGraph csr, RouteMetric metric, EdgeSnap start, EdgeSnap end) {
+        return end.fraction() >= start.fraction() ? start.edge() : csr.findEdge(start.target(), start.source());
+    }
+
+    /**
+     * Returns the nodes a route can leave the start segment towards, with the cost of
+     * getting there from the snapped point.
+     */
+    private static List<Leg> departures(CsrGraph csr, RouteMetric metric, EdgeSnap snap) {
+        List<Leg> legs = new ArrayList<>(2);
+        legs.add(new Leg(snap.target(), (1 - snap.fraction()) * metric.weight(csr, snap.edge()), csr.getWay(snap.edge())));
+        int reverse = csr.findEdge(snap.target(), snap.source());
+        if (reverse >= 0) {
+            legs.add(new Leg(snap.source(), snap.fraction() * metric.weight(csr, reverse), csr.getWay(reverse)));
+        }
+        return legs;
+    }
+
+    /**
+     * Returns the nodes a route can enter the end segment from, with the cost of getting
+     * from there to the snapped point.
+     */
+    private static List<Leg> arrivals(CsrGraph csr, RouteMetric metric, EdgeSnap snap) {
+        List<Leg> legs = new ArrayList<>(2);
+        legs.add(new Leg(snap.source(), snap.fraction() * metric.weight(csr, snap.edge()), csr.getWay(snap.edge())));
+        int reverse = csr.findEdge(snap.target(), snap.source());
+        if (reverse >= 0) {
+            legs.add(new Leg(snap.target(), (1 - snap.fraction()) * metric.weight(csr, reverse), csr.getWay(reverse)));
+        }
+        return legs;
+    }
+
+    private static List<PathEndpoint> endpoints(CsrGraph csr, List<Leg> legs) {
+        List<PathEndpoint> endpoints = new ArrayList<>(legs.size());
+        for (Leg leg : legs) {
+            endpoints.add(new PathEndpoint(csr.getNode(leg.node()), leg.cost()));
+        }
+        return endpoints;
+    }
+
+    /** Returns the position of the cheapest of the legs at a node; the search only ends routes at such nodes. */
+    private static int legAt(List<Leg> legs, int node) {
+        int cheapest = -1;
+        for (int i = 0; i < legs.size(); i++) {
+            if (legs.get(i).node() == node && (cheapest < 0 || legs.get(i).cost() < legs.get(cheapest).cost())) {
+                cheapest = i;
+            }
+        }
+        if (cheapest < 0) {
+            throw new IllegalStateException("Route does not start or end on the snapped segment");
+        }
+        return cheapest;
+    }
+
+    /** Checks whether a snapped point lies on a graph node, at the node's rounded coordinates. */
+    private static boolean samePosition(CsrGraph csr, Node point, Node node) {
+        int index = csr.indexOf(node.id());
+        return point.lat() == csr.getLatitude(index) && point.lon() == csr.getLongitude(index);
+    }
+
+    /**
+     * A way of joining or leaving the graph at a node, and what it costs under the metric.
+     */
+    private record Leg(int node, double cost, Way way) {}
+
+    /**
+     * The cheapest known route: the core route between a departure and an arrival, or the
+     * direct route along a shared segment when both are -1.
+     */
+    private record Choice(double cost, int departure, int arrival) {}
+}
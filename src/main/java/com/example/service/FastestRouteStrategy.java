@@ -3,27 +3,29 @@ package com.example.service;
 import com.example.model.FastestPathFinder;
 import com.example.model.Graph;
 import com.example.model.Node;
+import com.example.model.PathEndpoint;
+import com.example.model.PathResult;
 import com.example.model.Route;
 
 import java.util.List;
 
 public class FastestRouteStrategy implements RouteStrategy {
-    private Graph graph;
-    private FastestPathFinder pathFinder;
+    private volatile GraphBinding<FastestPathFinder> binding;
 
     public FastestRouteStrategy(Graph graph) {
         setGraph(graph);
     }
 
     @Override
-    public Route calculateRoute(Node start, Node end) {
-        List<Node> path = pathFinder.findFastestPath(start, end);
-        return path != null ? new Route(path, graph) : null;
+    public Route calculateRoute(List<PathEndpoint> starts, List<PathEndpoint> ends) {
+        GraphBinding<FastestPathFinder> current = binding;
+        PathResult result = current.pathFinder().findPath(starts, ends);
+        List<Node> path = result.path();
+        return path != null ? new Route(path, current.graph(), result.settledNodes()) : null;
     }
 
     @Override
     public void setGraph(Graph graph) {
-        this.graph = graph;
-        this.pathFinder = new FastestPathFinder(graph);
+        this.binding = new GraphBinding<>(graph, new FastestPathFinder(graph));
     }
 }
@@ -0,0 +1,15 @@
+package com.example.service;
+
+import com.example.model.Graph;
+
+/**
+ * A graph together with the path finder built for it.
+ *
+ * Route strategies keep both in one volatile field, so {@link RouteStrategy#setGraph(Graph)}
+ * replaces them in a single write, and a route calculation that reads the field once sees a
+ * path finder and graph that belong together, even while another thread switches graphs.
+ *
+ * @param <F> The path finder type
+ */
+record GraphBinding<F>(Graph graph, F pathFinder) {
+}
@@ -1,22 +1,28 @@
 package com.example.service;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 import java.util.function.Predicate;
 
 import com.example.model.Coordinates;
 import com.example.model.Graph;
 import com.example.model.Location;
+import com.example.model.LocalDistance;
+import com.example.model.MapData;
 import com.example.model.Restaurant;
 import com.example.model.Store;
 import com.example.util.TestDataGenerator;
 import com.example.model.Node;
 import java.util.logging.Logger;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import com.example.util.MemoryUtil;
 
 public class InMemoryLocationService implements LocationService {
@@ -24,31 +30,71 @@ public class InMemoryLocationService implements LocationService {
     private static final double MEMORY_USAGE_THRESHOLD = 0.75;
     private static final boolean USE_CHUNKING = Boolean.getBoolean("app.use.chunking");
     private static final long MEMORY_THRESHOLD = Runtime.getRuntime().maxMemory() / 4; // 25% of max heap
+    private static final Set<LocationTextIndex.Field> KEYWORD_FIELDS = EnumSet.allOf(LocationTextIndex.Field.class);
+    /** Candidate sets smaller than this share of all locations are checked against the circle one by one. */
+    private static final int SELECTIVE_FRACTION = 8;
 
     private final Map<Long, Location> locations;
+    private final LocationSpatialIndex spatialIndex = new LocationSpatialIndex();
+    // The ordinal-based indexes share one ordinal space and are guarded by indexLock
+    private final LocationOrdinals ordinals = new LocationOrdinals();
+    private final LocationTextIndex textIndex = new LocationTextIndex(ordinals);
+    private final LocationTagIndex tagIndex = new LocationTagIndex();
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
     private final Graph graph;
+    private final LocationNodeIndex nodeIndex;
 
     public InMemoryLocationService(int nodeCount) {
         this(TestDataGenerator.generateTestGraph(nodeCount));
     }
 
+    /**
+     * Creates a service whose locations are the graph's points of interest: only nodes tagged
+     * "amenity" or "shop" (see {@link MapData#isPointOfInterest(Node)}) become locations, and
+     * every other node, tagged or not, is left out.
+     *
+     * This suits graphs built with their tags, such as generated test graphs. A graph built by
+     * {@link MapData.Builder} or loaded from a snapshot has untagged road nodes, so this would
+     * find no locations in it; use {@link #InMemoryLocationService(MapData)} instead.
+     *
+     * @param graph The road network, whose amenity and shop nodes become the locations
+     */
     public InMemoryLocationService(Graph graph) {
+        this(graph, graph.getNodes().stream().filter(MapData::isPointOfInterest).toList());
+    }
+
+    /**
+     * Creates a service for map data split by {@link MapData.Builder}.
+     *
+     * @param data The road network and its points of interest
+     */
+    public InMemoryLocationService(MapData data) {
+        this(data.graph(), data.pointsOfInterest());
+    }
+
+    /**
+     * Creates a service with one location per point of interest.
+     *
+     * @param graph The road network locations are attached to
+     * @param pointsOfInterest The shop and amenity nodes
+     */
+    public InMemoryLocationService(Graph graph, List<Node> pointsOfInterest) {
         this.locations = new ConcurrentHashMap<>();
         this.graph = graph;
-        initializeLocationsFromGraph();
+        this.nodeIndex = new LocationNodeIndex(graph);
+        initializeLocations(pointsOfInterest);
     }
 
-    private void initializeLocationsFromGraph() {
-        List<Node> allNodes = graph.getNodes();
-        int totalNodes = allNodes.size();
-        
+    private void initializeLocations(List<Node> pointsOfInterest) {
+        int totalNodes = pointsOfInterest.size();
+
         if (USE_CHUNKING) {
-            new ChunkProcessor().processInChunks(allNodes, totalNodes);
+            new ChunkProcessor().processInChunks(pointsOfInterest, totalNodes);
         } else {
-            processNodeChunk(allNodes);
+            processNodeChunk(pointsOfInterest);
         }
 
-        logger.info("Initialized locations from graph with " + locations.size() + " nodes");
+        logger.info("Initialized " + locations.size() + " locations from points of interest");
         logger.info("Memory usage after initializing locations: " + MemoryUtil.getMemoryUsage());
     }
 
@@ -57,7 +103,7 @@ public class InMemoryLocationService implements LocationService {
         for (Node node : nodes) {
             try {
                 Location location = createLocation(node);
-                locations.put(node.id(), location);
+                putLocation(location);
             } catch (Exception e) {
                 logger.warning("Error processing node " + node.id() + ": " + e.getMessage());
                 e.printStackTrace();
@@ -81,42 +127,95 @@ public class InMemoryLocationService implements LocationService {
 
     @Override
     public List<Location> searchLocations(String query) {
-        var lowercaseQuery = query.toLowerCase();
-        return locations.values().stream()
-                .filter(location -> location.getName().toLowerCase().contains(lowercaseQuery))
-                .toList();
+        indexLock.readLock().lock();
+        try {
+            return ordinals.resolve(textIndex.search(query, EnumSet.of(LocationTextIndex.Field.NAME)));
+        } finally {
+            indexLock.readLock().unlock();
+        }
     }
 
     @Override
     public List<Location> searchLocationsByOsmTag(String key, String value) {
-        return locations.values().stream()
-                .filter(location -> location.getOsmTag(key)
-                        .map(tag -> tag.equals(value))
-                        .orElse(false))
-                .toList();
+        if (!LocationTagIndex.isIndexed(key)) {
+            return locations.values().stream()
+                    .filter(location -> location.getOsmTag(key)
+                            .map(tag -> tag.equals(value))
+                            .orElse(false))
+                    .toList();
+        }
+        indexLock.readLock().lock();
+        try {
+            return ordinals.resolve(tagIndex.withTag(key, value));
+        } finally {
+            indexLock.readLock().unlock();
+        }
     }
 
     @Override
     public Optional<Location> findNearestLocation(Coordinates coordinates, Predicate<Location> filter) {
-        return locations.values().stream()
-            .filter(filter)
-            .min((loc1, loc2) -> Double.compare(
-                coordinates.distanceTo(loc1.getCoordinates()),
-                coordinates.distanceTo(loc2.getCoordinates())
-            ));
+        return spatialIndex.nearest(coordinates, 1, filter).stream().findFirst();
     }
 
     @Override
     public List<Location> findLocationsWithinRadius(Coordinates coordinates, double radiusKm, Predicate<Location> filter) {
-        return locations.values().stream()
-                .filter(location -> coordinates.distanceTo(location.getCoordinates()) <= radiusKm)
-                .filter(filter)
-                .collect(Collectors.toList());
+        return spatialIndex.withinRadius(coordinates, radiusKm, filter);
+    }
+
+    @Override
+    public List<Location> searchLocationsWithinRadius(String query, String category, String type,
+                                                      Coordinates coordinates, double radiusKm) {
+        indexLock.readLock().lock();
+        try {
+            // Intersect whatever the tag and text indexes can narrow down; null means no restriction.
+            BitSet candidates = null;
+            LocationTagIndex.Category searchCategory = LocationTagIndex.Category.fromName(category);
+            if (searchCategory != null) {
+                candidates = tagIndex.ofCategoryAndType(searchCategory, type);
+            }
+            boolean keywordIndexed = LocationTextIndex.isSelective(query);
+            if (keywordIndexed) {
+                BitSet matches = textIndex.search(query, KEYWORD_FIELDS);
+                if (candidates == null) {
+                    candidates = matches;
+                } else {
+                    candidates.and(matches);
+                }
+            }
+
+            if (candidates != null && (long) candidates.cardinality() * SELECTIVE_FRACTION <= ordinals.size()) {
+                LocalDistance from = new LocalDistance(coordinates.getLatitude(), coordinates.getLongitude());
+                return ordinals.resolve(candidates).stream()
+                        .filter(location -> from.isWithin(location.getLatitude(), location.getLongitude(), radiusKm))
+                        .toList();
+            }
+
+            // Too many candidates to check one by one, so start from the circle and test membership instead.
+            BitSet selected = candidates;
+            Predicate<Location> filter = location -> true;
+            if (selected != null) {
+                filter = location -> {
+                    int ordinal = ordinals.ordinalOf(location.getId());
+                    return ordinal >= 0 && selected.get(ordinal);
+                };
+            }
+            if (!keywordIndexed && !query.isEmpty()) {
+                filter = filter.and(location -> LocationTextIndex.matches(location, query, KEYWORD_FIELDS));
+            }
+            return spatialIndex.withinRadius(coordinates, radiusKm, filter);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Location> findLocationsAtRoadNode(long nodeId) {
+        return nodeIndex.at(nodeId);
     }
 
     @Override
     public void addLocation(Location location) {
-        locations.put(location.getId(), location);
+        putLocation(location);
     }
 
     @Override
@@ -126,13 +225,52 @@ public class InMemoryLocationService implements LocationService {
 
     @Override
     public void updateLocation(Location location) {
-        locations.put(location.getId(), location);
+        putLocation(location);
     }
 
     @Override
     public void deleteLocation(long id) {
-        locations.remove(id);
+        indexLock.writeLock().lock();
+        try {
+            Location removed = locations.remove(id);
+            if (removed != null) {
+                spatialIndex.remove(removed);
+                nodeIndex.remove(removed);
+                unindex(removed);
+            }
+        } finally {
+            indexLock.writeLock().unlock();
+        }
     }
+
+    /**
+     * Adds or replaces a location, keeping the indexes in sync with the map.
+     */
+    private void putLocation(Location location) {
+        indexLock.writeLock().lock();
+        try {
+            Location previous = locations.put(location.getId(), location);
+            if (previous != null) {
+                spatialIndex.remove(previous);
+                nodeIndex.remove(previous);
+                unindex(previous);
+            }
+            spatialIndex.add(location);
+            nodeIndex.add(location);
+            int ordinal = ordinals.assign(location);
+            textIndex.add(ordinal, location);
+            tagIndex.add(ordinal, location);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    private void unindex(Location location) {
+        int ordinal = ordinals.release(location.getId());
+        textIndex.remove(ordinal, location);
+        tagIndex.remove(ordinal, location);
+    }
+
     @Override
     public Graph getGraph() {
         return this.graph;
@@ -185,9 +323,14 @@ public class InMemoryLocationService implements LocationService {
     }
 
     private void compactLocationMap() {
-        Map<Long, Location> compactMap = new HashMap<>(locations);
-        locations.clear();
-        locations.putAll(compactMap);
+        indexLock.writeLock().lock();
+        try {
+            Map<Long, Location> compactMap = new HashMap<>(locations);
+            locations.clear();
+            locations.putAll(compactMap);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
     }
 
     private void logMemoryUsage() {
@@ -0,0 +1,52 @@
+package com.example.service;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import com.example.model.CsrGraph;
+import com.example.model.Graph;
+import com.example.model.LandmarkPathFinder;
+import com.example.model.LandmarkTable;
+import com.example.model.PathEndpoint;
+import com.example.model.PathResult;
+import com.example.model.Route;
+import com.example.model.RouteMetric;
+
+/**
+ * Calculates routes with landmark-guided A* search, for either the shortest or the fastest
+ * metric.
+ *
+ * The landmark table is loaded from the cache directory when an up-to-date copy exists
+ * there, and is otherwise built and saved next to it.
+ */
+public class LandmarkRouteStrategy implements RouteStrategy {
+    private final RouteMetric metric;
+    private final int landmarkCount;
+    private final Path cacheDirectory;
+    private volatile GraphBinding<LandmarkPathFinder> binding;
+
+    public LandmarkRouteStrategy(Graph graph, RouteMetric metric, int landmarkCount, Path cacheDirectory) {
+        this.metric = metric;
+        this.landmarkCount = landmarkCount;
+        this.cacheDirectory = cacheDirectory;
+        setGraph(graph);
+    }
+
+    @Override
+    public Route calculateRoute(List<PathEndpoint> starts, List<PathEndpoint> ends) {
+        GraphBinding<LandmarkPathFinder> current = binding;
+        PathResult result = current.pathFinder().findPath(starts, ends);
+        if (!result.isFound() || result.path().isEmpty()) {
+            return null;
+        }
+        return new Route(result.path(), current.graph(), result.settledNodes());
+    }
+
+    @Override
+    public void setGraph(Graph graph) {
+        CsrGraph csr = graph.compact();
+        // The table is built before the new graph is published, so routes never wait for it
+        this.binding = new GraphBinding<>(graph, new LandmarkPathFinder(csr,
+                LandmarkTable.loadOrBuild(csr, metric, landmarkCount, cacheDirectory)));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.example.model.Coordinates;
+import com.example.model.CsrGraph;
+import com.example.model.Graph;
+import com.example.model.Location;
+import com.example.model.Node;
+
+/**
+ * Attaches every location to its nearest road node, so a search over the road network can
+ * tell which locations it reaches as it settles nodes.
+ *
+ * Locations are keyed by the OSM id of their road node, so the index still answers for a
+ * replacement graph with the same node ids. Updates must be serialized by the owning service;
+ * lookups need no lock, since each node's list is replaced rather than changed.
+ */
+final class LocationNodeIndex {
+    /** Locations farther than this from any road are not attached to one. */
+    private static final double MAX_ATTACH_DISTANCE_KM = 5.0;
+
+    private final Graph graph;
+    private final Map<Long, List<Location>> byNode = new ConcurrentHashMap<>();
+    private final Map<Long, Long> nodeByLocation = new HashMap<>();
+
+    LocationNodeIndex(Graph graph) {
+        this.graph = graph;
+    }
+
+    void add(Location location) {
+        Long nodeId = roadNodeOf(location);
+        if (nodeId == null) {
+            return;
+        }
+        nodeByLocation.put(location.getId(), nodeId);
+        byNode.compute(nodeId, (id, current) -> {
+            List<Location> updated = current == null ? new ArrayList<>(1) : new ArrayList<>(current);
+            updated.add(location);
+            return List.copyOf(updated);
+        });
+    }
+
+    void remove(Location location) {
+        Long nodeId = nodeByLocation.remove(location.getId());
+        if (nodeId == null) {
+            return;
+        }
+        byNode.computeIfPresent(nodeId, (id, current) -> {
+            List<Location> updated = new ArrayList<>(current);
+            updated.removeIf(other -> other.getId() == location.getId());
+            return updated.isEmpty() ? null : List.copyOf(updated);
+        });
+    }
+
+    /**
+     * Returns the locations attached to a road node.
+     *
+     * @param nodeId The OSM id of the road node
+     * @return The locations whose nearest road node it is, possibly none
+     */
+    List<Location> at(long nodeId) {
+        return byNode.getOrDefault(nodeId, List.of());
+    }
+
+    /**
+     * Finds the road node a location is attached to: its own node if that is on a road,
+     * otherwise the nearest road node.
+     */
+    private Long roadNodeOf(Location location) {
+        CsrGraph csr = graph.compact();
+        if (location.getOsmNode().isPresent()) {
+            int index = csr.indexOf(location.getOsmNode().get().id());
+            if (index >= 0 && csr.getOutDegree(index) > 0) {
+                return csr.getNode(index).id();
+            }
+        }
+        Coordinates coordinates = location.getCoordinates();
+        Node nearest = graph.findNearestRelevantNode(coordinates, MAX_ATTACH_DISTANCE_KM);
+        return nearest != null ? nearest.id() : null;
+    }
+}
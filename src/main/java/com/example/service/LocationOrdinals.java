@@ -0,0 +1,93 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.model.Location;
+
+/**
+ * Assigns every indexed location a small dense ordinal, so secondary indexes can describe sets
+ * of locations as bitsets or sorted int arrays and combine them with cheap set operations.
+ *
+ * Ordinals freed by removed locations are reused by the next location added, which keeps the
+ * ordinal range, and so the size of every bitset, close to the number of live locations.
+ *
+ * This class is not thread-safe; the indexes sharing it are updated and queried under the
+ * owning service's lock.
+ */
+final class LocationOrdinals {
+    private final Map<Long, Integer> byId = new HashMap<>();
+    private final List<Location> locations = new ArrayList<>();
+    private final BitSet live = new BitSet();
+
+    /**
+     * Assigns an ordinal to a location whose id has no ordinal yet.
+     *
+     * @throws IllegalStateException If the location's id already has an ordinal
+     */
+    int assign(Location location) {
+        if (byId.containsKey(location.getId())) {
+            throw new IllegalStateException("Location " + location.getId() + " already has an ordinal");
+        }
+        int ordinal = live.nextClearBit(0);
+        if (ordinal == locations.size()) {
+            locations.add(location);
+        } else {
+            locations.set(ordinal, location);
+        }
+        live.set(ordinal);
+        byId.put(location.getId(), ordinal);
+        return ordinal;
+    }
+
+    /**
+     * Frees the ordinal of the location with the given id.
+     *
+     * @return The freed ordinal, or -1 if the id had none
+     */
+    int release(long id) {
+        Integer ordinal = byId.remove(id);
+        if (ordinal == null) {
+            return -1;
+        }
+        live.clear(ordinal);
+        locations.set(ordinal, null);
+        return ordinal;
+    }
+
+    /** Returns the ordinal of the location with the given id, or -1 if it has none. */
+    int ordinalOf(long id) {
+        Integer ordinal = byId.get(id);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    Location get(int ordinal) {
+        return locations.get(ordinal);
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    /** Returns one more than the highest ordinal in use, the length bitsets need. */
+    int capacity() {
+        return live.length();
+    }
+
+    /** Returns a new bitset holding the ordinals of all live locations. */
+    BitSet all() {
+        return (BitSet) live.clone();
+    }
+
+    /** Returns the locations with the given ordinals, in ordinal order. */
+    List<Location> resolve(BitSet ordinals) {
+        List<Location> result = new ArrayList<>(ordinals.cardinality());
+        for (int ordinal = ordinals.nextSetBit(0); ordinal >= 0; ordinal = ordinals.nextSetBit(ordinal + 1)) {
+            result.add(locations.get(ordinal));
+        }
+        return result;
+    }
+}
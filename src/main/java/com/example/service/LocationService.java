@@ -53,6 +53,28 @@ public interface LocationService {
      */
     List<Location> findLocationsWithinRadius(Coordinates coordinates, double radiusKm, Predicate<Location> filter);
 
+    /**
+     * Searches for locations within a specified radius whose name, amenity, brand or address
+     * contains a keyword, ignoring case.
+     *
+     * @param query The search keyword; an empty keyword matches every location.
+     * @param category "restaurant" or "store" to search only that category; any other value, such as the empty string, searches all.
+     * @param type Within a category, a cuisine or shop type the location's cuisine or shop tag must contain (empty string for all types).
+     * @param coordinates The center coordinates.
+     * @param radiusKm The radius in kilometers.
+     * @return A list of matching locations within the specified radius.
+     */
+    List<Location> searchLocationsWithinRadius(String query, String category, String type, Coordinates coordinates, double radiusKm);
+
+    /**
+     * Finds the locations attached to a road node, that is, the locations whose nearest road
+     * node it is. Searches over the road network use this to see which locations they reach.
+     *
+     * @param nodeId The OSM id of the road node.
+     * @return The locations attached to the node, possibly none.
+     */
+    List<Location> findLocationsAtRoadNode(long nodeId);
+
     /**
      * Adds a new location.
      *
@@ -0,0 +1,265 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+import com.example.model.Coordinates;
+import com.example.model.LocalDistance;
+import com.example.model.Location;
+
+/**
+ * A spatial index over locations that can be updated in place.
+ *
+ * Locations are bucketed into fixed-size latitude/longitude cells, keyed by the cell's row
+ * and column packed into a long, so only occupied cells take memory. A radius query visits
+ * the cells overlapping the circle's bounding box, rejects locations outside the box with
+ * two comparisons, and only then measures the distance with a {@link LocalDistance}, which
+ * falls back to the haversine formula only near the circle's edge. A nearest-location
+ * query scans rings of cells outward from the query, best first, until no unscanned cell
+ * can hold anything closer.
+ *
+ * The index is safe for concurrent use: queries share a read lock and updates take the
+ * write lock.
+ */
+final class LocationSpatialIndex {
+    private static final double KM_PER_DEGREE = Coordinates.KM_PER_DEGREE;
+    /** About 1.1 km north-south; a typical search radius covers a few dozen cells. */
+    static final double DEFAULT_CELL_DEGREES = 0.01;
+
+    private final double cellDegrees;
+    private final Map<Long, List<Location>> cells = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int size;
+
+    LocationSpatialIndex() {
+        this(DEFAULT_CELL_DEGREES);
+    }
+
+    LocationSpatialIndex(double cellDegrees) {
+        if (cellDegrees <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellDegrees = cellDegrees;
+    }
+
+    void add(Location location) {
+        long key = cellKey(row(location.getLatitude()), col(location.getLongitude()));
+        lock.writeLock().lock();
+        try {
+            cells.computeIfAbsent(key, k -> new ArrayList<>()).add(location);
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a location from the index. The location must have the coordinates it was
+     * added with.
+     *
+     * @return true if the location was in the index
+     */
+    boolean remove(Location location) {
+        long key = cellKey(row(location.getLatitude()), col(location.getLongitude()));
+        lock.writeLock().lock();
+        try {
+            List<Location> cell = cells.get(key);
+            if (cell == null || !cell.remove(location)) {
+                return false;
+            }
+            if (cell.isEmpty()) {
+                cells.remove(key);
+            }
+            size--;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the locations within a radius of a point that match a filter.
+     *
+     * @param center The center of the circle
+     * @param radiusKm The radius in kilometers; locations exactly on the circle are included
+     * @param filter The filter locations must pass
+     * @return The matching locations, in no particular order
+     */
+    List<Location> withinRadius(Coordinates center, double radiusKm, Predicate<Location> filter) {
+        double lat = center.getLatitude();
+        double lon = center.getLongitude();
+        // Bounding box of the circle, widened slightly so rounding never drops a point on the circle.
+        double latDelta = radiusKm / KM_PER_DEGREE * 1.000001 + 1e-9;
+        double cosLat = Math.cos(Math.toRadians(Math.min(90, Math.abs(lat) + latDelta)));
+        double lonDelta = cosLat > 1e-9 ? Math.min(360, latDelta / cosLat) : 360;
+        double south = lat - latDelta;
+        double north = lat + latDelta;
+        double west = lon - lonDelta;
+        double east = lon + lonDelta;
+        // Near the poles or the antimeridian the box is not a simple longitude range.
+        boolean wrapsAround = lonDelta >= 180 || west < -180 || east > 180;
+
+        LocalDistance from = new LocalDistance(lat, lon);
+        List<Location> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            long boxCells = (long) (row(north) - row(south) + 1) * (col(east) - col(west) + 1);
+            if (wrapsAround || boxCells > cells.size()) {
+                // The box covers more cells than are occupied, so visit the occupied ones instead.
+                for (List<Location> cell : cells.values()) {
+                    collect(cell, from, radiusKm, south, north, west, east, wrapsAround, filter, result);
+                }
+            } else {
+                for (int row = row(south); row <= row(north); row++) {
+                    for (int col = col(west); col <= col(east); col++) {
+                        List<Location> cell = cells.get(cellKey(row, col));
+                        if (cell != null) {
+                            collect(cell, from, radiusKm, south, north, west, east, false, filter, result);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    private static void collect(List<Location> cell, LocalDistance from, double radiusKm,
+                                double south, double north, double west, double east, boolean wrapsAround,
+                                Predicate<Location> filter, List<Location> result) {
+        for (Location location : cell) {
+            double lat = location.getLatitude();
+            double lon = location.getLongitude();
+            if (lat < south || lat > north || (!wrapsAround && (lon < west || lon > east))) {
+                continue; // outside the bounding box, no need for the exact distance
+            }
+            if (from.isWithin(lat, lon, radiusKm) && filter.test(location)) {
+                result.add(location);
+            }
+        }
+    }
+
+    /**
+     * Finds the k locations nearest to a point that match a filter, closest first.
+     *
+     * @param point The query point
+     * @param k The maximum number of locations to return
+     * @param filter The filter locations must pass
+     * @return Up to k locations, closest first
+     */
+    List<Location> nearest(Coordinates point, int k, Predicate<Location> filter) {
+        if (k <= 0) {
+            return List.of();
+        }
+        double lat = point.getLatitude();
+        double lon = point.getLongitude();
+        int centerRow = row(lat);
+        int centerCol = col(lon);
+        LocalDistance from = new LocalDistance(lat, lon);
+        Location[] best = new Location[k];
+        double[] bestDistances = new double[k];
+        int found = 0;
+
+        lock.readLock().lock();
+        try {
+            int ring = 0;
+            // Scan rings while that is cheaper than visiting every occupied cell.
+            for (; (long) (2 * ring + 1) * (2 * ring + 1) <= cells.size(); ring++) {
+                // Every location in this ring is at least (ring - 1) whole cells away.
+                double cosLat = Math.cos(Math.toRadians(Math.min(90, Math.abs(lat) + (ring + 1) * cellDegrees)));
+                double ringDistance = Math.max(0, ring - 1) * cellDegrees * KM_PER_DEGREE * cosLat;
+                if (found == k && ringDistance > bestDistances[k - 1]) {
+                    return toList(best, found);
+                }
+                for (int row = centerRow - ring; row <= centerRow + ring; row++) {
+                    boolean edgeRow = row == centerRow - ring || row == centerRow + ring;
+                    int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                    for (int col = centerCol - ring; col <= centerCol + ring; col += step) {
+                        List<Location> cell = cells.get(cellKey(row, col));
+                        if (cell != null) {
+                            found = insertAll(cell, from, filter, best, bestDistances, found);
+                        }
+                    }
+                }
+            }
+
+            // Sparse data or a far-away match: finish with the occupied cells outside the scanned rings.
+            int scannedRings = ring;
+            for (Map.Entry<Long, List<Location>> entry : cells.entrySet()) {
+                int row = (int) (entry.getKey() >> 32);
+                int col = (int) (long) entry.getKey();
+                if (Math.max(Math.abs(row - centerRow), Math.abs(col - centerCol)) < scannedRings) {
+                    continue;
+                }
+                // A cell can't hold anything closer than its latitude gap to the query.
+                double latGap = Math.max(0, Math.max(row * cellDegrees - lat, lat - (row + 1) * cellDegrees));
+                if (found == k && latGap * KM_PER_DEGREE > bestDistances[k - 1]) {
+                    continue;
+                }
+                found = insertAll(entry.getValue(), from, filter, best, bestDistances, found);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return toList(best, found);
+    }
+
+    private static int insertAll(List<Location> cell, LocalDistance from, Predicate<Location> filter,
+                                 Location[] best, double[] bestDistances, int found) {
+        int k = best.length;
+        for (Location location : cell) {
+            double distance = from.km(location.getLatitude(), location.getLongitude());
+            if (found == k && distance >= bestDistances[k - 1]) {
+                continue;
+            }
+            if (!filter.test(location)) {
+                continue;
+            }
+            int position = Math.min(found, k - 1);
+            while (position > 0 && distance < bestDistances[position - 1]) {
+                best[position] = best[position - 1];
+                bestDistances[position] = bestDistances[position - 1];
+                position--;
+            }
+            best[position] = location;
+            bestDistances[position] = distance;
+            found = Math.min(found + 1, k);
+        }
+        return found;
+    }
+
+    private static List<Location> toList(Location[] best, int found) {
+        List<Location> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            result.add(best[i]);
+        }
+        return result;
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor(latitude / cellDegrees);
+    }
+
+    private int col(double longitude) {
+        return (int) Math.floor(longitude / cellDegrees);
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.service;
+
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import com.example.model.Location;
+import com.example.model.LocationType;
+
+/**
+ * Bitset indexes over location tags, for filters that would otherwise re-read the OSM tags of
+ * every location.
+ *
+ * For each indexed tag key and each value it takes, a bitset holds the
+ * {@link LocationOrdinals ordinals} of the locations with that tag; there are also bitsets per
+ * {@link LocationType} and per search {@link Category}. Filters are answered with bitset unions
+ * and intersections. Only keys with a small set of values are indexed: a key like
+ * {@code name}, with a different value on almost every location, would cost a bitset per
+ * location and gain nothing over a scan.
+ *
+ * Like the ordinals, the index is not thread-safe; the owning service serializes updates with
+ * queries. All returned bitsets are fresh copies the caller may modify.
+ */
+final class LocationTagIndex {
+    /** The tag keys that get an index; their values come from small, fixed vocabularies. */
+    static final Set<String> INDEXED_KEYS = Set.of(
+            "amenity", "shop", "cuisine", "craft", "healthcare", "leisure", "office", "tourism");
+
+    /**
+     * The categories the location search filters on.
+     */
+    enum Category {
+        RESTAURANT("cuisine"),
+        STORE("shop");
+
+        private final String typeKey;
+
+        Category(String typeKey) {
+            this.typeKey = typeKey;
+        }
+
+        /** Returns the tag key whose values are the category's types, such as the cuisine of a restaurant. */
+        String getTypeKey() {
+            return typeKey;
+        }
+
+        boolean includes(Location location) {
+            return this == RESTAURANT ? location.isRestaurant() : location.isStore();
+        }
+
+        /**
+         * Returns the category with the given name, ignoring case, or null if there is none.
+         */
+        static Category fromName(String name) {
+            for (Category category : values()) {
+                if (category.name().equalsIgnoreCase(name)) {
+                    return category;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Map<String, Map<String, BitSet>> byTag = new HashMap<>();
+    private final Map<LocationType, BitSet> byType = new EnumMap<>(LocationType.class);
+    private final Map<Category, BitSet> byCategory = new EnumMap<>(Category.class);
+
+    LocationTagIndex() {
+        for (LocationType type : LocationType.values()) {
+            byType.put(type, new BitSet());
+        }
+        for (Category category : Category.values()) {
+            byCategory.put(category, new BitSet());
+        }
+    }
+
+    static boolean isIndexed(String key) {
+        return INDEXED_KEYS.contains(key);
+    }
+
+    void add(int ordinal, Location location) {
+        for (Map.Entry<String, String> tag : location.getOsmTags().entrySet()) {
+            if (isIndexed(tag.getKey()) && tag.getValue() != null) {
+                byTag.computeIfAbsent(tag.getKey(), k -> new HashMap<>())
+                     .computeIfAbsent(tag.getValue(), v -> new BitSet())
+                     .set(ordinal);
+            }
+        }
+        byType.get(location.getType()).set(ordinal);
+        for (Category category : Category.values()) {
+            if (category.includes(location)) {
+                byCategory.get(category).set(ordinal);
+            }
+        }
+    }
+
+    void remove(int ordinal, Location location) {
+        for (Map.Entry<String, String> tag : location.getOsmTags().entrySet()) {
+            Map<String, BitSet> values = byTag.get(tag.getKey());
+            BitSet bits = values != null ? values.get(tag.getValue()) : null;
+            if (bits != null) {
+                bits.clear(ordinal);
+                if (bits.isEmpty()) {
+                    values.remove(tag.getValue());
+                }
+            }
+        }
+        byType.get(location.getType()).clear(ordinal);
+        for (BitSet bits : byCategory.values()) {
+            bits.clear(ordinal);
+        }
+    }
+
+    /**
+     * Returns the locations with exactly the given tag.
+     *
+     * @throws IllegalArgumentException If the key is not indexed
+     */
+    BitSet withTag(String key, String value) {
+        BitSet bits = valuesOf(key).get(value);
+        return bits != null ? (BitSet) bits.clone() : new BitSet();
+    }
+
+    /**
+     * Returns the locations whose value for the given key contains a substring, ignoring case,
+     * as the union of the bitsets of all matching values.
+     *
+     * @throws IllegalArgumentException If the key is not indexed
+     */
+    BitSet withTagContaining(String key, String substring) {
+        String needle = substring.toLowerCase(Locale.ROOT);
+        BitSet result = new BitSet();
+        for (Map.Entry<String, BitSet> value : valuesOf(key).entrySet()) {
+            if (value.getKey().toLowerCase(Locale.ROOT).contains(needle)) {
+                result.or(value.getValue());
+            }
+        }
+        return result;
+    }
+
+    BitSet ofType(LocationType type) {
+        return (BitSet) byType.get(type).clone();
+    }
+
+    BitSet ofCategory(Category category) {
+        return (BitSet) byCategory.get(category).clone();
+    }
+
+    /**
+     * Returns the locations in a search category whose type tag contains the given type,
+     * such as restaurants whose cuisine contains "pizza".
+     *
+     * @param category The category
+     * @param type The type to look for; an empty type matches the whole category
+     */
+    BitSet ofCategoryAndType(Category category, String type) {
+        BitSet result = ofCategory(category);
+        if (!type.isEmpty()) {
+            result.and(withTagContaining(category.getTypeKey(), type));
+        }
+        return result;
+    }
+
+    private Map<String, BitSet> valuesOf(String key) {
+        if (!isIndexed(key)) {
+            throw new IllegalArgumentException("Tag key is not indexed: " + key);
+        }
+        return byTag.getOrDefault(key, Map.of());
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.example.model.Location;
+
+/**
+ * An inverted index for case-insensitive substring search over location text fields.
+ *
+ * Every substring of one to three characters of a field's lowercased text (its n-grams) has
+ * a posting list of the locations containing it, sorted by a dense per-location ordinal. A
+ * query of up to three characters is answered by its own posting list. A longer query is
+ * answered by intersecting the posting lists of its trigrams, rarest first, and checking the
+ * few remaining candidates with {@link String#contains}. Prefix queries are just substring
+ * queries, so they need no separate structure.
+ *
+ * Locations are immutable, so removing one recomputes its n-grams and takes its ordinal out
+ * of those lists. Results are sets of {@link LocationOrdinals ordinals}, so they can be
+ * intersected with the other location indexes. Like the ordinals, the index is not
+ * thread-safe; the owning service serializes updates with queries.
+ */
+final class LocationTextIndex {
+    /** The longest n-gram that is indexed; longer queries are answered from their trigrams. */
+    static final int MAX_GRAM = 3;
+
+    /**
+     * The text fields that can be searched.
+     */
+    enum Field {
+        NAME(Location::getName),
+        AMENITY(Location::getAmenity),
+        BRAND(Location::getBrand),
+        ADDRESS(Location::getAddress);
+
+        private final Function<Location, String> extractor;
+
+        Field(Function<Location, String> extractor) {
+            this.extractor = extractor;
+        }
+
+        String textOf(Location location) {
+            return normalize(extractor.apply(location));
+        }
+    }
+
+    private final Map<Field, Map<String, PostingList>> postings = new EnumMap<>(Field.class);
+    private final LocationOrdinals ordinals;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param ordinals The ordinals the indexed locations are known by
+     */
+    LocationTextIndex(LocationOrdinals ordinals) {
+        this.ordinals = ordinals;
+        for (Field field : Field.values()) {
+            postings.put(field, new HashMap<>());
+        }
+    }
+
+    void add(int ordinal, Location location) {
+        for (Field field : Field.values()) {
+            Map<String, PostingList> fieldPostings = postings.get(field);
+            for (String gram : grams(field.textOf(location))) {
+                fieldPostings.computeIfAbsent(gram, g -> new PostingList()).add(ordinal);
+            }
+        }
+    }
+
+    void remove(int ordinal, Location location) {
+        for (Field field : Field.values()) {
+            Map<String, PostingList> fieldPostings = postings.get(field);
+            for (String gram : grams(field.textOf(location))) {
+                PostingList list = fieldPostings.get(gram);
+                if (list != null && list.remove(ordinal) && list.size == 0) {
+                    fieldPostings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the locations where any of the given fields contains the query, ignoring case.
+     *
+     * @param query The text to look for; an empty query matches every location
+     * @param fields The fields to search
+     * @return The ordinals of the matching locations
+     */
+    BitSet search(String query, Set<Field> fields) {
+        String needle = normalize(query);
+        if (needle.isEmpty()) {
+            return ordinals.all();
+        }
+        BitSet matches = new BitSet(ordinals.capacity());
+        for (Field field : fields) {
+            collectMatches(field, needle, matches);
+        }
+        return matches;
+    }
+
+    /**
+     * Checks a single location against a query without using the index, for when the
+     * candidates have already been narrowed down some other way.
+     *
+     * @return true if any of the given fields of the location contains the query, ignoring case
+     */
+    static boolean matches(Location location, String query, Set<Field> fields) {
+        String needle = normalize(query);
+        for (Field field : fields) {
+            if (field.textOf(location).contains(needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if a query is long enough for its posting lists to be selective; shorter
+     * queries tend to match a large share of all locations.
+     */
+    static boolean isSelective(String query) {
+        return normalize(query).length() >= MAX_GRAM;
+    }
+
+    private void collectMatches(Field field, String needle, BitSet matches) {
+        Map<String, PostingList> fieldPostings = postings.get(field);
+        if (needle.length() <= MAX_GRAM) {
+            // Every short substring is indexed, so its posting list is the exact answer.
+            PostingList list = fieldPostings.get(needle);
+            if (list != null) {
+                for (int i = 0; i < list.size; i++) {
+                    matches.set(list.ordinals[i]);
+                }
+            }
+            return;
+        }
+
+        List<PostingList> lists = new ArrayList<>();
+        for (String gram : grams(needle, MAX_GRAM)) {
+            PostingList list = fieldPostings.get(gram);
+            if (list == null) {
+                return; // a trigram of the query occurs nowhere in this field
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+        int[] candidates = Arrays.copyOf(lists.get(0).ordinals, lists.get(0).size);
+        int count = candidates.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            count = lists.get(i).retainAll(candidates, count);
+        }
+        // Sharing all trigrams does not guarantee they appear in the right order.
+        for (int i = 0; i < count; i++) {
+            int ordinal = candidates[i];
+            if (!matches.get(ordinal) && field.textOf(ordinals.get(ordinal)).contains(needle)) {
+                matches.set(ordinal);
+            }
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    /** Returns the distinct substrings of the text of length one to {@link #MAX_GRAM}. */
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int length = 1; length <= MAX_GRAM; length++) {
+            grams.addAll(grams(text, length));
+        }
+        return grams;
+    }
+
+    private static Set<String> grams(String text, int length) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + length <= text.length(); i++) {
+            grams.add(text.substring(i, i + length));
+        }
+        return grams;
+    }
+
+    /**
+     * A sorted, growable list of location ordinals.
+     */
+    private static final class PostingList {
+        int[] ordinals = new int[2];
+        int size;
+
+        void add(int ordinal) {
+            int position = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            System.arraycopy(ordinals, position, ordinals, position + 1, size - position);
+            ordinals[position] = ordinal;
+            size++;
+        }
+
+        boolean remove(int ordinal) {
+            int position = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ordinals, position + 1, ordinals, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        /**
+         * Keeps only the first {@code count} candidates (sorted) that are also in this list.
+         *
+         * @return The number of candidates kept, moved to the front of the array
+         */
+        int retainAll(int[] candidates, int count) {
+            int kept = 0;
+            int j = 0;
+            for (int i = 0; i < count; i++) {
+                int candidate = candidates[i];
+                while (j < size && ordinals[j] < candidate) {
+                    j++;
+                }
+                if (j < size && ordinals[j] == candidate) {
+                    candidates[kept++] = candidate;
+                }
+            }
+            return kept;
+        }
+    }
+}
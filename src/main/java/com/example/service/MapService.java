@@ -3,40 +3,180 @@ package com.example.service;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
 import com.example.model.Bounds;
+import com.example.model.ContractionHierarchy;
 import com.example.model.Coordinates;
+import com.example.model.CsrGraph;
+import com.example.model.EdgeSnap;
+import com.example.model.Isochrone;
 import com.example.model.Location;
+import com.example.model.ReachableLocation;
 import com.example.model.Route;
+import com.example.model.RouteMetric;
+import com.example.model.TravelTimeMatrix;
+import com.example.model.TravelTimeMatrixCalculator;
+import com.example.model.TravelTimeSearch;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.example.model.Node;
 import com.example.model.Graph;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.logging.Logger;
-import com.example.util.MemoryUtil;
+import com.example.util.SegmentedLruCache;
 
 /**
  * Service class for map-related operations.
  * This class provides methods for finding locations, calculating routes,
  * and performing spatial queries on the set of locations.
+ *
+ * A MapService is shared by all request threads. The road network and the route strategies
+ * built for it are published together as one immutable record, which every call reads once, so {@link #replaceGraph(Graph)} can switch to a new network while routes are being
+ * calculated: a call that is already running finishes on the network it started with.
+ *
+ * Routes are cached per metric in a bounded cache with segmented LRU eviction and a time to
+ * live, whose size and time to live are given to the constructor. Routes between nodes are
+ * cached by their end nodes. Routes between points snapped onto segments are cached by the
+ * pair of segments, as the node-to-node core routes the router found between them; each
+ * request adds its own partial segments at either end, so nearby points on the same
+ * segments share one entry. Each network gets its own cache, so replacing the graph also
+ * drops every cached route.
  */
 public final class MapService {
     private static final Logger logger = Logger.getLogger(MapService.class.getName());
     private static final boolean IS_TEST_ENVIRONMENT = System.getProperty("maven.test") != null;
     private static final boolean BOUNDS_CHECKING_ENABLED = !IS_TEST_ENVIRONMENT;
     private static final Bounds WEST_LA_BOUNDS = loadBounds();
+    /** The number of routes cached unless the constructor is given another size. */
+    public static final int DEFAULT_ROUTE_CACHE_SIZE = 10_000;
+    /** How long a cached route stays valid unless the constructor is given another time, in seconds. */
+    public static final long DEFAULT_ROUTE_CACHE_TTL_SECONDS = 600;
 
     private final LocationService locationService;
-    private final Graph graph;
-    private final RouteStrategy shortestRouteStrategy;
-    private final RouteStrategy fastestRouteStrategy;
+    private final SnapMode snapMode;
+    /** Creates the route strategies for a replacement graph; null if the caller supplied them. */
+    private final RoutingAlgorithm algorithm;
+    private final int routeCacheSize;
+    private final long routeCacheTtlSeconds;
+    private final AtomicReference<Routing> routing;
 
-    private static final double MAX_DISTANCE_KM = 5.0; // Maximum distance to consider a point reachable
+    /**
+     * A road network with the route strategies, snapped-point router, matrix calculator and
+     * route cache built for it.
+     */
+    private record Routing(Graph graph, RouteStrategy shortest, RouteStrategy fastest,
+                           EdgeSnapRouter edgeSnapRouter, TravelTimeMatrixCalculator matrixCalculator,
+                           SegmentedLruCache<RouteKey, CachedRoute> routeCache) {
+        Routing(Graph graph, RouteStrategy shortest, RouteStrategy fastest, SegmentedLruCache<RouteKey, CachedRoute> routeCache) {
+            this(graph, shortest, fastest, new EdgeSnapRouter(graph), matrixCalculatorFor(graph, fastest), routeCache);
+        }
+
+        /**
+         * Uses the fastest-route strategy's contraction hierarchy for many-to-many matrices
+         * when it has one for this graph. No hierarchy is built for matrices alone, so with
+         * any routing algorithm but {@link RoutingAlgorithm#CH} matrices run one search per
+         * origin.
+         */
+        private static TravelTimeMatrixCalculator matrixCalculatorFor(Graph graph, RouteStrategy fastest) {
+            CsrGraph csr = graph.compact();
+            if (fastest instanceof ContractionHierarchyRouteStrategy ch) {
+                ContractionHierarchy hierarchy = ch.getHierarchy();
+                if (hierarchy.matches(csr, RouteMetric.TIME)) {
+                    return new TravelTimeMatrixCalculator(csr, hierarchy);
+                }
+            }
+            logger.info("Travel time matrices run one search per origin; set " + RoutingAlgorithm.SYSTEM_PROPERTY
+                    + "=ch for bucket-based many-to-many searches");
+            return new TravelTimeMatrixCalculator(csr);
+        }
+    }
+
+    /**
+     * Identifies a cached route by its metric and either its end nodes' ids or, for points
+     * snapped onto segments, the segments' edge indices. A service snaps all routes the same
+     * way, so the two kinds never share a cache.
+     */
+    private record RouteKey(RouteMetric metric, long start, long end) {
+        static RouteKey of(RouteMetric metric, Node start, Node end) {
+            return new RouteKey(metric, start.id(), end.id());
+        }
+
+        static RouteKey of(RouteMetric metric, EdgeSnap start, EdgeSnap end) {
+            return new RouteKey(metric, start.edge(), end.edge());
+        }
+    }
+
+    /**
+     * A cached route between nodes, null if there is none, with its rendering once a caller
+     * has asked for one, or what the router found between two snapped segments.
+     */
+    private record CachedRoute(Route route, EdgeSnapRouter.SegmentRoutes segmentRoutes,
+                               AtomicReference<String> rendering) {
+        CachedRoute(Route route) {
+            this(route, null, new AtomicReference<>());
+        }
+
+        CachedRoute(EdgeSnapRouter.SegmentRoutes segmentRoutes) {
+            this(null, segmentRoutes, null);
+        }
+    }
+
+    /**
+     * A route, and whether it was served from the route cache rather than searched for.
+     */
+    public static final class RouteLookup {
+        private final Route route;
+        private final boolean cached;
+        /** Where the route's cache entry keeps its rendering; null if the route is not cached whole. */
+        private final AtomicReference<String> rendering;
+
+        RouteLookup(Route route, boolean cached, AtomicReference<String> rendering) {
+            this.route = route;
+            this.cached = cached;
+            this.rendering = rendering;
+        }
+
+        /** @return The route */
+        public Route route() {
+            return route;
+        }
+
+        /** @return Whether the route was taken or assembled from cached routes, without a search */
+        public boolean cached() {
+            return cached;
+        }
+
+        /**
+         * Renders the route, e.g. as the JSON a response sends, once per cache entry: later
+         * lookups of the same cached route get the stored rendering back without calling the
+         * renderer. Routes between snapped points are assembled per request and rendered each
+         * time. The renderer must depend on nothing but the route.
+         *
+         * @param renderer Renders the route
+         * @return The rendering
+         */
+        public String render(Function<? super Route, String> renderer) {
+            if (rendering == null) {
+                return renderer.apply(route);
+            }
+            String rendered = rendering.get();
+            if (rendered == null) {
+                // Concurrent first lookups may both render; they produce the same string
+                rendered = renderer.apply(route);
+                rendering.compareAndSet(null, rendered);
+            }
+            return rendered;
+        }
+    }
+
+    private static final double MAX_SNAP_DISTANCE_KM = 5.0; // Points farther than this from any road are unreachable
 
     private static Bounds loadBounds() {
         if (IS_TEST_ENVIRONMENT) {
@@ -73,24 +213,160 @@ public final class MapService {
                       final Graph graph, 
                       final RouteStrategy shortestRouteStrategy,
                       final RouteStrategy fastestRouteStrategy) {
+        this(locationService, graph, shortestRouteStrategy, fastestRouteStrategy, SnapMode.NODE);
+    }
+
+    /**
+     * Constructs a new MapService with specified RouteStrategies and snap mode.
+     *
+     * @param locationService The location service to use for retrieving location data.
+     * @param graph The graph representing the road network.
+     * @param shortestRouteStrategy The route strategy to use for calculating shortest routes.
+     * @param fastestRouteStrategy The route strategy to use for calculating fastest routes.
+     * @param snapMode How route endpoints are attached to the road network.
+     */
+    public MapService(final LocationService locationService,
+                      final Graph graph,
+                      final RouteStrategy shortestRouteStrategy,
+                      final RouteStrategy fastestRouteStrategy,
+                      final SnapMode snapMode) {
+        this(locationService, graph, shortestRouteStrategy, fastestRouteStrategy, snapMode, null,
+             DEFAULT_ROUTE_CACHE_SIZE, DEFAULT_ROUTE_CACHE_TTL_SECONDS);
+    }
+
+    private MapService(final LocationService locationService,
+                       final Graph graph,
+                       final RouteStrategy shortestRouteStrategy,
+                       final RouteStrategy fastestRouteStrategy,
+                       final SnapMode snapMode,
+                       final RoutingAlgorithm algorithm,
+                       final int routeCacheSize,
+                       final long routeCacheTtlSeconds) {
         this.locationService = Objects.requireNonNull(locationService, "LocationService must not be null");
-        this.graph = Objects.requireNonNull(graph, "Graph must not be null");
-        this.shortestRouteStrategy = Objects.requireNonNull(shortestRouteStrategy, "ShortestRouteStrategy must not be null");
-        this.fastestRouteStrategy = Objects.requireNonNull(fastestRouteStrategy, "FastestRouteStrategy must not be null");
+        this.snapMode = Objects.requireNonNull(snapMode, "SnapMode must not be null");
+        this.algorithm = algorithm;
+        if (routeCacheSize < 0) {
+            throw new IllegalArgumentException("Route cache size must be non-negative");
+        }
+        if (routeCacheTtlSeconds <= 0) {
+            throw new IllegalArgumentException("Route cache time to live must be positive");
+        }
+        this.routeCacheSize = routeCacheSize;
+        this.routeCacheTtlSeconds = routeCacheTtlSeconds;
+        this.routing = new AtomicReference<>(new Routing(
+                Objects.requireNonNull(graph, "Graph must not be null"),
+                Objects.requireNonNull(shortestRouteStrategy, "ShortestRouteStrategy must not be null"),
+                Objects.requireNonNull(fastestRouteStrategy, "FastestRouteStrategy must not be null"),
+                newRouteCache()));
+    }
+
+    /**
+     * Constructs a new MapService whose route strategies use the given search algorithm
+     * for both shortest and fastest routes.
+     *
+     * @param locationService The location service to use for retrieving location data.
+     * @param graph The graph representing the road network.
+     * @param algorithm The search algorithm to route with.
+     */
+    public MapService(final LocationService locationService, final Graph graph, final RoutingAlgorithm algorithm) {
+        this(locationService, graph, algorithm, SnapMode.NODE);
+    }
+
+    /**
+     * Constructs a new MapService whose route strategies use the given search algorithm,
+     * attaching route endpoints to the road network as the snap mode says.
+     *
+     * @param locationService The location service to use for retrieving location data.
+     * @param graph The graph representing the road network.
+     * @param algorithm The search algorithm to route with.
+     * @param snapMode How route endpoints are attached to the road network.
+     */
+    public MapService(final LocationService locationService, final Graph graph,
+                      final RoutingAlgorithm algorithm, final SnapMode snapMode) {
+        this(locationService, graph, algorithm, snapMode, DEFAULT_ROUTE_CACHE_SIZE, DEFAULT_ROUTE_CACHE_TTL_SECONDS);
+    }
+
+    /**
+     * Constructs a new MapService whose route strategies use the given search algorithm,
+     * with a route cache of the given size and time to live.
+     *
+     * @param locationService The location service to use for retrieving location data.
+     * @param graph The graph representing the road network.
+     * @param algorithm The search algorithm to route with.
+     * @param snapMode How route endpoints are attached to the road network.
+     * @param routeCacheSize The maximum number of cached routes; 0 turns the route cache off.
+     * @param routeCacheTtlSeconds How long a cached route stays valid, in seconds.
+     * @throws IllegalArgumentException if the size is negative or the time to live is not positive.
+     */
+    public MapService(final LocationService locationService, final Graph graph,
+                      final RoutingAlgorithm algorithm, final SnapMode snapMode,
+                      final int routeCacheSize, final long routeCacheTtlSeconds) {
+        this(locationService,
+             graph,
+             algorithm.createStrategy(graph, RouteMetric.DISTANCE),
+             algorithm.createStrategy(graph, RouteMetric.TIME),
+             snapMode,
+             algorithm,
+             routeCacheSize,
+             routeCacheTtlSeconds);
     }
 
     /**
-     * Constructs a new MapService with default DijkstraRouteStrategy for shortest paths
-     * and FastestRouteStrategy for fastest paths.
+     * Constructs a new MapService using the algorithm selected by the
+     * {@code app.routing.algorithm} system property. By default this is Dijkstra,
+     * i.e. DijkstraRouteStrategy for shortest paths and FastestRouteStrategy for fastest paths.
      *
      * @param locationService The location service to use for retrieving location data.
      * @param graph The graph representing the road network.
      */
     public MapService(final LocationService locationService, final Graph graph) {
-        this(locationService, 
-             graph, 
-             new DijkstraRouteStrategy(graph),
-             new FastestRouteStrategy(graph));
+        this(locationService, graph, RoutingAlgorithm.fromSystemProperty());
+    }
+
+    /**
+     * Switches route calculations to a new road network. Strategies for the new network are
+     * created with this service's routing algorithm, including any preprocessing it needs,
+     * before the network is published in a single step; routes already being calculated
+     * finish on the old network, and later ones use the new one, starting with an empty route
+     * cache. The new graph must not be mutated once it has been handed over.
+     *
+     * @param graph The new road network
+     * @throws IllegalStateException If this service was given its route strategies rather than
+     *                               a routing algorithm, so it cannot create strategies itself
+     */
+    public void replaceGraph(final Graph graph) {
+        Objects.requireNonNull(graph, "Graph must not be null");
+        if (algorithm == null) {
+            throw new IllegalStateException("The graph can only be replaced when MapService creates its own route strategies");
+        }
+        Routing next = new Routing(graph,
+                                   algorithm.createStrategy(graph, RouteMetric.DISTANCE),
+                                   algorithm.createStrategy(graph, RouteMetric.TIME),
+                                   newRouteCache());
+        routing.set(next);
+        logger.info("Switched routing to a graph with " + graph.getNodeCount() + " nodes");
+    }
+
+    private SegmentedLruCache<RouteKey, CachedRoute> newRouteCache() {
+        return new SegmentedLruCache<>(routeCacheSize, routeCacheTtlSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the hit, miss and eviction counts of the route cache for the current graph.
+     *
+     * @return The route cache counters
+     */
+    public SegmentedLruCache.Stats getRouteCacheStats() {
+        return routing.get().routeCache().stats();
+    }
+
+    /**
+     * Returns the road network routes are currently calculated on.
+     *
+     * @return The current graph
+     */
+    public Graph getGraph() {
+        return routing.get().graph();
     }
 
     /**
@@ -111,19 +387,98 @@ public final class MapService {
      * @return An Optional containing the nearest location that satisfies the filter, or empty if none found.
      */
     public Optional<Location> findNearestLocation(Coordinates point, Predicate<Location> filter) {
-        List<Location> locations = locationService.getAllLocations();
-        if (locations == null) {
-            return Optional.empty();
+        return locationService.findNearestLocation(point, filter != null ? filter : location -> true);
+    }
+
+    /**
+     * Finds the locations that can be driven to soonest from a given point, rather than the
+     * ones closest in a straight line, which can be far away by road across a freeway or
+     * against one-way streets.
+     *
+     * The point is attached to its nearest road node once, and a single search over travel
+     * times then settles road nodes soonest first, checking the locations attached to each,
+     * until k matching locations are found. Travel times are to each location's nearest
+     * road node.
+     *
+     * @param point The coordinates to search from.
+     * @param filter A predicate to filter locations, or null for all locations.
+     * @param k The maximum number of locations to return.
+     * @return Up to k matching locations with their travel times, soonest first; empty if the
+     *         point is not near a road.
+     * @throws IllegalArgumentException if k is not positive.
+     */
+    public List<ReachableLocation> findNearestByTravelTime(final Coordinates point, final Predicate<Location> filter, final int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        Predicate<Location> accepted = filter != null ? filter : location -> true;
+        Graph graph = routing.get().graph();
+        Node origin = graph.findNearestRelevantNode(point, MAX_SNAP_DISTANCE_KM);
+        List<ReachableLocation> found = new ArrayList<>(k);
+        if (origin == null) {
+            logger.warning("No drive-time search possible: " + point + " is not near a road");
+            return found;
+        }
+
+        CsrGraph csr = graph.compact();
+        int settled = new TravelTimeSearch(csr).explore(origin, (node, seconds, meters) -> {
+            for (Location location : locationService.findLocationsAtRoadNode(csr.getNode(node).id())) {
+                if (accepted.test(location)) {
+                    found.add(new ReachableLocation(location, seconds, meters));
+                    if (found.size() == k) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        });
+        logger.info("Found " + found.size() + " locations by travel time after settling " + settled + " nodes");
+        return found;
+    }
+
+    /**
+     * Finds the part of the road network that can be driven to within a travel time limit,
+     * with a single search over travel times from the road node nearest to the point.
+     *
+     * @param point The coordinates to start from.
+     * @param limitSeconds The travel time limit in seconds.
+     * @return The reachable nodes, or null if the point is not near a road.
+     * @throws IllegalArgumentException if limitSeconds is negative.
+     */
+    public Isochrone calculateIsochrone(final Coordinates point, final double limitSeconds) {
+        if (limitSeconds < 0) {
+            throw new IllegalArgumentException("Travel time limit must be non-negative");
         }
-        return locations.stream()
-                .filter(Objects::nonNull)
-                .filter(filter != null ? filter : location -> true)
-                .min((loc1, loc2) -> Double.compare(
-                    loc1.getCoordinates().distanceTo(point),
-                    loc2.getCoordinates().distanceTo(point)
-                ));
+        Graph graph = routing.get().graph();
+        Node origin = graph.findNearestRelevantNode(point, MAX_SNAP_DISTANCE_KM);
+        if (origin == null) {
+            logger.warning("No isochrone possible: " + point + " is not near a road");
+            return null;
+        }
+        Isochrone isochrone = new TravelTimeSearch(graph.compact()).isochrone(origin, limitSeconds);
+        logger.info(isochrone.getNodeCount() + " nodes reachable within " + limitSeconds + " s of " + point);
+        return isochrone;
     }
 
+    /**
+     * Finds the locations attached to the nodes of an isochrone.
+     *
+     * @param isochrone The reachable part of the road network.
+     * @param filter A predicate to filter locations, or null for all locations.
+     * @return The matching locations with their travel times, soonest first.
+     */
+    public List<ReachableLocation> findLocationsWithin(final Isochrone isochrone, final Predicate<Location> filter) {
+        Predicate<Location> accepted = filter != null ? filter : location -> true;
+        List<ReachableLocation> found = new ArrayList<>();
+        for (int i = 0; i < isochrone.getNodeCount(); i++) {
+            for (Location location : locationService.findLocationsAtRoadNode(isochrone.getNode(i).id())) {
+                if (accepted.test(location)) {
+                    found.add(new ReachableLocation(location, isochrone.getTravelTimeSeconds(i), isochrone.getDistanceMeters(i)));
+                }
+            }
+        }
+        return found;
+    }
 
     /**
      * Finds locations with a specific OSM tag key-value pair.
@@ -133,11 +488,7 @@ public final class MapService {
      * @return A list of locations that have the specified OSM tag.
      */
     public List<Location> findLocationsByOsmTag(String key, String value) {
-        return locationService.getAllLocations().stream()
-                .filter(location -> location.getOsmTag(key)
-                        .map(tag -> tag.equals(value))
-                        .orElse(false))
-                        .toList();
+        return locationService.searchLocationsByOsmTag(key, value);
     }
 
     /**
@@ -152,9 +503,7 @@ public final class MapService {
         if (radiusKm < 0) {
             throw new IllegalArgumentException("Radius must be non-negative");
         }
-        return locationService.getAllLocations().stream()
-                .filter(location -> location.getCoordinates().distanceTo(point) <= radiusKm)
-                .toList();
+        return locationService.findLocationsWithinRadius(point, radiusKm, location -> true);
     }
 
     public Route calculateRoute(final Location start, final Location end) {
@@ -162,77 +511,124 @@ public final class MapService {
     }
 
     public Route calculateShortestRoute(final Coordinates start, final Coordinates end) {
-        Node startNode = graph.findNearestRelevantNode(start);
-        Node endNode = graph.findNearestRelevantNode(end);
-
-        System.out.println("Nearest relevant node to " + start + " is " + startNode);
-        System.out.println("Nearest relevant node to " + end + " is " + endNode);
-
-        if (startNode == null || endNode == null) {
-            System.out.println("No route possible: start or end nodes not found");
-            return null;
-        }
-
-
-        if (startNode.equals(endNode)) {
-            System.out.println("Start and end nodes are the same");
-            return null;
-        }
-
-        // Check if end point is too far from the nearest node
-        if (end.distanceTo(new Coordinates(endNode.lat(), endNode.lon())) > MAX_DISTANCE_KM) {
-            System.out.println("End point is too far from the nearest node");
-            return null;
-        }
-
-        Route route = shortestRouteStrategy.calculateRoute(startNode, endNode);
-        if (route == null) {
-            System.out.println("No route found between " + start + " and " + end);
-            return null;
-        }
-
-        System.out.println("Route found: " + route.getNodes().size() + " nodes, start: " + route.getNodes().get(0) + ", end: " + route.getNodes().get(route.getNodes().size() - 1));
-        return route;
-
+        RouteLookup lookup = lookupRoute(start, end, RouteMetric.DISTANCE);
+        return lookup != null ? lookup.route() : null;
     }
 
     public Route calculateFastestRoute(final Coordinates start, final Coordinates end) {
-        Node startNode = graph.findNearestRelevantNode(start);
-        Node endNode = graph.findNearestRelevantNode(end);
+        RouteLookup lookup = lookupRoute(start, end, RouteMetric.TIME);
+        return lookup != null ? lookup.route() : null;
+    }
+
+    /**
+     * Snaps the endpoints as the snap mode says and finds the route between them, from the
+     * route cache where possible, telling the caller whether a search ran.
+     *
+     * @param start The coordinates to start from.
+     * @param end The coordinates to go to.
+     * @param metric Whether to find the shortest or the fastest route.
+     * @return The route, or null if the endpoints cannot be snapped, snap to the same point
+     *         or are not connected.
+     */
+    public RouteLookup lookupRoute(final Coordinates start, final Coordinates end, final RouteMetric metric) {
+        Routing current = routing.get();
+        RouteStrategy strategy = metric == RouteMetric.DISTANCE ? current.shortest() : current.fastest();
+        if (snapMode == SnapMode.EDGE) {
+            EdgeSnap startSnap = current.graph().snapToEdge(start, MAX_SNAP_DISTANCE_KM);
+            EdgeSnap endSnap = current.graph().snapToEdge(end, MAX_SNAP_DISTANCE_KM);
+            if (startSnap == null || endSnap == null) {
+                logger.warning("No route possible: start or end is not near a road");
+                return null;
+            }
+            if (startSnap.edge() == endSnap.edge() && startSnap.fraction() == endSnap.fraction()) {
+                logger.info("Start and end snap to the same point");
+                return null;
+            }
+            RouteKey key = RouteKey.of(metric, startSnap, endSnap);
+            CachedRoute cached = current.routeCache().get(key);
+            EdgeSnapRouter.SnappedRoute snapped = current.edgeSnapRouter().route(strategy, metric, startSnap, endSnap,
+                    cached != null ? cached.segmentRoutes() : null);
+            if (snapped.searched()) {
+                current.routeCache().put(key, new CachedRoute(snapped.segmentRoutes()));
+            }
+            return found(snapped.route(), !snapped.searched(), null, start, end);
+        }
 
+        Graph graph = current.graph();
+        Node startNode = graph.findNearestRelevantNode(start, MAX_SNAP_DISTANCE_KM);
+        Node endNode = graph.findNearestRelevantNode(end, MAX_SNAP_DISTANCE_KM);
         if (startNode == null || endNode == null) {
             logger.warning("No route possible: start or end nodes not found");
             return null;
         }
-
         if (startNode.equals(endNode)) {
             logger.info("Start and end nodes are the same");
             return null;
         }
-
-        // Check if end point is too far from the nearest node
-        double endNodeDistance = end.distanceTo(new Coordinates(endNode.lat(), endNode.lon()));
-        if (endNodeDistance > MAX_DISTANCE_KM) {
-            logger.warning("End point is too far from the nearest node: " + endNodeDistance + " km");
-            return null;
+        RouteKey key = RouteKey.of(metric, startNode, endNode);
+        CachedRoute cached = current.routeCache().get(key);
+        if (cached != null) {
+            return found(cached.route(), true, cached.rendering(), start, end);
+        }
+        Route route = strategy.calculateRoute(startNode, endNode);
+        if (route != null && route.getNodes().isEmpty()) {
+            route = null;
         }
+        CachedRoute entry = new CachedRoute(route);
+        current.routeCache().put(key, entry);
+        return found(route, false, entry.rendering(), start, end);
+    }
 
-        Route route = fastestRouteStrategy.calculateRoute(startNode, endNode);
-        if (route == null || route.getNodes().isEmpty()) {
+    private static RouteLookup found(Route route, boolean cached, AtomicReference<String> rendering,
+                                     Coordinates start, Coordinates end) {
+        if (route == null) {
             logger.warning("No route found between " + start + " and " + end);
             return null;
         }
+        if (!cached) {
+            logger.info("Route found: " + route.getNodes().size() + " nodes, settled " + route.getSettledNodeCount() + " nodes");
+        }
+        return new RouteLookup(route, cached, rendering);
+    }
+
+    /**
+     * Calculates the drive time and distance of the fastest route from every origin to every
+     * destination, running one search per origin instead of a route per pair. Only when the
+     * service routes with {@link RoutingAlgorithm#CH}, e.g. with
+     * {@code -Dapp.routing.algorithm=ch}, does it use the hierarchy for one bucket-based
+     * search per origin and destination; the default algorithm gets the per-origin searches.
+     *
+     * Points are attached to their nearest road node whatever the snap mode, so cells can
+     * differ slightly from {@link #calculateFastestRoute} with {@link SnapMode#EDGE}.
+     *
+     * @param origins The points to start from.
+     * @param destinations The points to drive to.
+     * @return The matrix, with a row per origin and a column per destination; points farther
+     *         than the snap distance from any road reach, and are reached from, nothing.
+     * @throws IllegalArgumentException if either list is empty.
+     */
+    public TravelTimeMatrix calculateTravelTimeMatrix(final List<Coordinates> origins, final List<Coordinates> destinations) {
+        if (origins.isEmpty() || destinations.isEmpty()) {
+            throw new IllegalArgumentException("Origins and destinations must not be empty");
+        }
+        Routing current = routing.get();
+        TravelTimeMatrix matrix = current.matrixCalculator().calculate(
+                snapToNodes(current.graph(), origins), snapToNodes(current.graph(), destinations));
+        logger.info("Calculated a " + origins.size() + " x " + destinations.size() + " travel time matrix");
+        return matrix;
+    }
 
-        logger.info("Fastest route found: " + route.getNodes().size() + " nodes, start: " + route.getNodes().get(0) + ", end: " + route.getNodes().get(route.getNodes().size() - 1));
-        logger.info("Memory usage after calculating fastest route: " + MemoryUtil.getMemoryUsage());
-        return route;
+    private static List<Node> snapToNodes(Graph graph, List<Coordinates> points) {
+        return points.stream()
+                     .map(point -> graph.findNearestRelevantNode(point, MAX_SNAP_DISTANCE_KM))
+                     .toList();
     }
 
     private Node findNearestGraphNode(Coordinates coordinates) {
-        Node nearest = graph.getNodes().stream()
-                .min(Comparator.comparingDouble(node -> 
-                    coordinates.distanceTo(new Coordinates(node.lat(), node.lon()))))
-                .orElseThrow(() -> new IllegalStateException("No nodes in graph"));
+        Node nearest = routing.get().graph().findNearestRelevantNode(coordinates);
+        if (nearest == null) {
+            throw new IllegalStateException("No nodes in graph");
+        }
         System.out.println("Nearest node to " + coordinates + " is " + nearest);
         return nearest;
     }
@@ -252,7 +648,7 @@ public final class MapService {
 
 
     public int getNodeCount() {
-        return graph.getNodeCount();
+        return routing.get().graph().getNodeCount();
     }
 
     /**
@@ -260,7 +656,7 @@ public final class MapService {
      * This count includes only original ways, not reverse ways created for bidirectional streets
      */
     public int getWayCount() {
-        return graph.getWayCount();
+        return routing.get().graph().getWayCount();
     }
 
     /**
@@ -284,48 +680,8 @@ public final class MapService {
             center = adjustToBounds(center);
         }
 
-        List<Location> locationsWithinRadius = this.findLocationsWithinRadius(center, radiusKm);
-        logger.info("Found " + locationsWithinRadius.size() + " locations within radius");
-        
-        String lowercaseQuery = query.toLowerCase();
-        String lowercaseType = type.toLowerCase();
-        
-        List<Location> matchingLocations = locationsWithinRadius.stream()
-                .filter(location -> {
-                    // Category filter
-                    if (!category.isEmpty()) {
-                        if ("restaurant".equals(category) && !location.isRestaurant()) {
-                            return false;
-                        }
-                        if ("store".equals(category) && !location.isStore()) {
-                            return false;
-                        }
-                    }
-                    
-                    // Type filter
-                    if (!type.isEmpty()) {
-                        if ("restaurant".equals(category) && !location.getCuisine().toLowerCase().contains(lowercaseType)) {
-                            return false;
-                        }
-                        if ("store".equals(category) && !location.getShop().toLowerCase().contains(lowercaseType)) {
-                            return false;
-                        }
-                    }
-                    
-                    // Keyword filter (only if query is not empty)
-                    if (!query.isEmpty()) {
-                        boolean nameMatches = location.getName().toLowerCase().contains(lowercaseQuery);
-                        boolean amenityMatches = location.getAmenity().toLowerCase().contains(lowercaseQuery);
-                        boolean brandMatches = location.getBrand().toLowerCase().contains(lowercaseQuery);
-                        boolean addressMatches = location.getAddress().toLowerCase().contains(lowercaseQuery);
-                        
-                        return nameMatches || amenityMatches || brandMatches || addressMatches;
-                    }
-                    
-                    // If we've made it this far and the query is empty, include this location
-                    return true;
-                })
-                .toList();
+        // Category, type and keyword filters are answered by the location service's tag and text indexes
+        List<Location> matchingLocations = locationService.searchLocationsWithinRadius(query, category, type, center, radiusKm);
 
         logger.info("Found " + matchingLocations.size() + " locations matching criteria");
         return matchingLocations;
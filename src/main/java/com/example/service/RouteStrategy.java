@@ -1,8 +1,11 @@
 package com.example.service;
 
+import java.util.List;
+
 import com.example.model.Graph;
 import com.example.model.Route;
 import com.example.model.Node;
+import com.example.model.PathEndpoint;
 
 /**
  * Defines a strategy for calculating routes between two points.
@@ -16,11 +19,26 @@ public interface RouteStrategy {
      * @param end The ending node of the route.
      * @return A Route object representing the calculated route.
      */
-    Route calculateRoute(Node start, Node end);
+    default Route calculateRoute(Node start, Node end) {
+        return calculateRoute(List.of(new PathEndpoint(start, 0)), List.of(new PathEndpoint(end, 0)));
+    }
+
+    /**
+     * Calculates the cheapest route from any of the start nodes to any of the end nodes in a
+     * single search, counting each endpoint's cost under the strategy's metric. The route
+     * runs from the start node it was found from to the end node it reached.
+     *
+     * @param starts The nodes the route may start at, with the cost of starting there.
+     * @param ends The nodes the route may end at, with the cost of ending there.
+     * @return A Route object representing the calculated route, or null if no end can be reached.
+     */
+    Route calculateRoute(List<PathEndpoint> starts, List<PathEndpoint> ends);
 
     /**
      * Sets the graph to be used for route calculations.
-     * This method allows for updating the graph if needed.
+     * This method allows for updating the graph if needed. Implementations switch graphs
+     * atomically: a route being calculated concurrently uses either the old graph or the new
+     * one throughout, never a mix.
      *
      * @param graph The graph representing the road network.
      */
@@ -0,0 +1,94 @@
+package com.example.service;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.logging.Logger;
+
+import com.example.model.Graph;
+import com.example.model.RouteMetric;
+import com.example.util.DataFileManager;
+
+/**
+ * The search algorithms MapService can route with.
+ *
+ * The algorithm used by default can be chosen with the {@code app.routing.algorithm}
+ * system property, e.g. {@code -Dapp.routing.algorithm=astar}. {@link #CH} preprocesses the
+ * graph into a contraction hierarchy, which is saved under {@code app.routing.ch.dir} and
+ * reused on later starts. {@link #ALT} guides A* with distances to a few landmark nodes
+ * ({@code app.routing.alt.landmarks}, 8 by default), which are saved in the same directory;
+ * the tables are much quicker to rebuild than a hierarchy when weights change.
+ */
+public enum RoutingAlgorithm {
+    DIJKSTRA {
+        @Override
+        public RouteStrategy createStrategy(Graph graph, RouteMetric metric) {
+            return metric == RouteMetric.DISTANCE ? new DijkstraRouteStrategy(graph) : new FastestRouteStrategy(graph);
+        }
+    },
+    ASTAR {
+        @Override
+        public RouteStrategy createStrategy(Graph graph, RouteMetric metric) {
+            return new AStarRouteStrategy(graph, metric);
+        }
+    },
+    ALT {
+        @Override
+        public RouteStrategy createStrategy(Graph graph, RouteMetric metric) {
+            int landmarks = Integer.getInteger(ALT_LANDMARKS_PROPERTY, DEFAULT_ALT_LANDMARKS);
+            return new LandmarkRouteStrategy(graph, metric, landmarks, cacheDirectory());
+        }
+    },
+    BIDIRECTIONAL {
+        @Override
+        public RouteStrategy createStrategy(Graph graph, RouteMetric metric) {
+            return new BidirectionalRouteStrategy(graph, metric);
+        }
+    },
+    CH {
+        @Override
+        public RouteStrategy createStrategy(Graph graph, RouteMetric metric) {
+            return new ContractionHierarchyRouteStrategy(graph, metric, cacheDirectory());
+        }
+    };
+
+    private static final Logger logger = Logger.getLogger(RoutingAlgorithm.class.getName());
+    public static final String SYSTEM_PROPERTY = "app.routing.algorithm";
+    /** The directory contraction hierarchies and landmark tables are saved in; defaults to the data directory. */
+    public static final String CH_DIRECTORY_PROPERTY = "app.routing.ch.dir";
+    /** The number of landmarks {@link #ALT} selects. */
+    public static final String ALT_LANDMARKS_PROPERTY = "app.routing.alt.landmarks";
+    private static final int DEFAULT_ALT_LANDMARKS = 8;
+
+    /**
+     * Creates a route strategy that uses this algorithm.
+     *
+     * @param graph The graph representing the road network.
+     * @param metric The metric routes should minimize.
+     * @return A new RouteStrategy.
+     */
+    public abstract RouteStrategy createStrategy(Graph graph, RouteMetric metric);
+
+    private static Path cacheDirectory() {
+        return Paths.get(System.getProperty(CH_DIRECTORY_PROPERTY, DataFileManager.DATA_DIR));
+    }
+
+    /**
+     * Returns the algorithm selected by the {@code app.routing.algorithm} system property,
+     * or {@link #DIJKSTRA} if it is unset or unrecognized.
+     *
+     * @return The configured algorithm
+     */
+    public static RoutingAlgorithm fromSystemProperty() {
+        String value = System.getProperty(SYSTEM_PROPERTY);
+        if (value == null || value.isBlank()) {
+            return DIJKSTRA;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warning("Unknown routing algorithm '" + value + "', falling back to " + DIJKSTRA);
+            return DIJKSTRA;
+        }
+    }
+}
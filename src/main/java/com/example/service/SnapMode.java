@@ -0,0 +1,14 @@
+package com.example.service;
+
+/**
+ * How MapService attaches the start and end points of a route to the road network.
+ */
+public enum SnapMode {
+    /** Routes start and end at the nearest routable node. */
+    NODE,
+    /**
+     * Routes start and end at the nearest point on a road segment, joining the network
+     * partway along that segment instead of detouring through its nearest node.
+     */
+    EDGE
+}
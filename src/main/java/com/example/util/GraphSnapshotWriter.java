@@ -0,0 +1,64 @@
+package com.example.util;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.example.model.GraphSnapshot;
+import com.example.model.MapData;
+
+/**
+ * GraphSnapshotWriter converts the OSM nodes and ways JSON extracts into a binary graph
+ * snapshot (see {@link GraphSnapshot}) of the road network and its points of interest, which
+ * the server loads at startup instead of parsing the JSON.
+ *
+ * Usage:
+ * java GraphSnapshotWriter <nodes.json> <ways.json> <output file>
+ *
+ * The snapshot records the size and modification time of the extracts; a server whose
+ * JSON files differ from them ignores the snapshot and rebuilds it from the JSON.
+ */
+public class GraphSnapshotWriter {
+
+    /**
+     * Builds the road network from the JSON extracts and writes it as a snapshot.
+     *
+     * @param nodesFile The nodes JSON file
+     * @param waysFile The ways JSON file
+     * @param outputFile The snapshot file to write
+     * @throws IOException If an input cannot be read or the output cannot be written
+     */
+    public static void writeSnapshot(Path nodesFile, Path waysFile, Path outputFile) throws IOException {
+        OSMDataLoader loader = new OSMDataLoader();
+        MapData.Builder builder = new MapData.Builder();
+        // Ways first, so nodes no road references are dropped as they are read
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(waysFile))) {
+            loader.streamWays(in, builder::addWay);
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(nodesFile))) {
+            loader.streamNodes(in, builder::addNode);
+        }
+        Path parent = outputFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        long sourceStamp = GraphSnapshot.sourceStamp(List.of(nodesFile.toUri().toURL(), waysFile.toUri().toURL()));
+        GraphSnapshot.write(builder.build(), sourceStamp, outputFile);
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.out.println("Usage: java GraphSnapshotWriter <nodes.json> <ways.json> <output file>");
+            return;
+        }
+        try {
+            writeSnapshot(Path.of(args[0]), Path.of(args[1]), Path.of(args[2]));
+            System.out.println("Snapshot written to " + args[2]);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.util;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from primitive {@code long} keys to primitive {@code int} values.
+ *
+ * This is used to map OSM ids (which are 64-bit) to dense array indices without boxing
+ * every key into a {@code Long}. Linear probing is used, and the table is kept at most
+ * half full so that probe sequences stay short.
+ *
+ * Values must be non-negative; {@link #get(long)} returns -1 for missing keys.
+ */
+public final class LongIntHashMap {
+    private static final int MISSING = -1;
+
+    private long[] keys;
+    /** Stored values are offset by one so that 0 marks an empty slot. */
+    private int[] values;
+    private int size;
+    private int mask;
+
+    /**
+     * Constructs an empty map sized for the given number of entries.
+     *
+     * @param expectedSize The number of entries the map should hold without resizing
+     */
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Constructs an empty map with a small default capacity.
+     */
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    private LongIntHashMap(LongIntHashMap other) {
+        this.keys = Arrays.copyOf(other.keys, other.keys.length);
+        this.values = Arrays.copyOf(other.values, other.values.length);
+        this.size = other.size;
+        this.mask = other.mask;
+    }
+
+    /**
+     * Returns the value mapped to the given key.
+     *
+     * @param key The key to look up
+     * @return The mapped value, or -1 if the key is not present
+     */
+    public int get(long key) {
+        int slot = slot(key);
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /**
+     * Checks whether the given key is present.
+     *
+     * @param key The key to look up
+     * @return true if the key is mapped to a value
+     */
+    public boolean containsKey(long key) {
+        return get(key) != MISSING;
+    }
+
+    /**
+     * Maps the given key to the given value, replacing any previous mapping.
+     *
+     * @param key The key
+     * @param value The value, which must be non-negative
+     * @return The previous value, or -1 if the key was not present
+     */
+    public int put(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must be non-negative: " + value);
+        }
+        int slot = slot(key);
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                int previous = values[slot] - 1;
+                values[slot] = value + 1;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value + 1;
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        return MISSING;
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     *
+     * @return The number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns an independent copy of this map.
+     *
+     * @return A copy that does not share storage with this map
+     */
+    public LongIntHashMap copy() {
+        return new LongIntHashMap(this);
+    }
+
+    private int slot(long key) {
+        // Murmur3 finalizer: OSM ids are clustered, so spread the bits before masking.
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private void resize(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[newCapacity];
+        values = new int[newCapacity];
+        mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                int slot = slot(oldKeys[i]);
+                while (values[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -4,9 +4,16 @@ import java.io.*;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import com.example.model.Node;
+import com.example.model.Way;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.util.function.Consumer;
 import java.util.function.Function;
 import com.fasterxml.jackson.core.JsonParseException;
 
@@ -51,31 +58,223 @@ public class OSMDataLoader {
     // }
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final JsonFactory jsonFactory = objectMapper.getFactory();
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
 
     public <T> List<T> loadData(String filename, Function<Map<String, Object>, T> mapper) throws IOException {
         File dataFile = DataFileManager.getDataFile(filename);
-        try {
-            List<Map<String, Object>> dataList = objectMapper.readValue(dataFile, 
-                                                 new TypeReference<List<Map<String, Object>>>() {});
-            return dataList.stream()
-                           .map(mapper)
-                           .toList();
+        List<T> items = new ArrayList<>();
+        try (JsonParser parser = jsonFactory.createParser(dataFile)) {
+            readMaps(parser, map -> items.add(mapper.apply(map)));
         } catch (JsonParseException e) {
-            System.err.println("Error parsing JSON file: " + filename);
-            System.err.println("First 100 characters of file:");
-            try (BufferedReader reader = new BufferedReader(new FileReader(dataFile))) {
-                char[] buffer = new char[100];
-                reader.read(buffer);
-                System.err.println(new String(buffer));
-            }
+            reportParseError(filename, dataFile);
             throw e;
         }
+        return Collections.unmodifiableList(items);
     }
 
     public <T> List<T> loadData(InputStream inputStream, Function<Map<String, Object>, T> mapper) throws IOException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        List<Map<String, Object>> dataList = objectMapper.readValue(inputStream, new TypeReference<List<Map<String, Object>>>() {});
-        return dataList.stream().map(mapper).collect(Collectors.toList());
+        List<T> items = new ArrayList<>();
+        try (JsonParser parser = jsonFactory.createParser(inputStream)) {
+            readMaps(parser, map -> items.add(mapper.apply(map)));
+        }
+        return items;
+    }
+
+    /**
+     * Reads the array elements one at a time, so only the current element is held as a map.
+     */
+    private static void readMaps(JsonParser parser, Consumer<Map<String, Object>> consumer) throws IOException {
+        expectArray(parser);
+        while (nextElement(parser)) {
+            consumer.accept(objectMapper.readValue(parser, MAP_TYPE));
+        }
+    }
+
+    /**
+     * Streams the nodes of a JSON nodes file to a consumer, such as {@code graph::addNode}.
+     *
+     * Unlike {@link #loadData(String, Function)}, each node is built straight from the parser's
+     * tokens, without an intermediate map, and is handed over as soon as it is read, so the
+     * file is never held in memory as a whole. Fields other than "id", "lat", "lon" and "tags"
+     * are skipped.
+     *
+     * @param filename The nodes file, resolved like in {@link #loadData(String, Function)}
+     * @param consumer Receives each node in file order
+     * @throws IOException If the file cannot be read or is not a JSON array of objects
+     * @throws IllegalArgumentException If a node lacks its id or coordinates
+     */
+    public void streamNodes(String filename, Consumer<Node> consumer) throws IOException {
+        File dataFile = DataFileManager.getDataFile(filename);
+        try (InputStream in = new BufferedInputStream(new FileInputStream(dataFile))) {
+            streamNodes(in, consumer);
+        } catch (JsonParseException e) {
+            reportParseError(filename, dataFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Streams the nodes of a JSON array read from a stream. See {@link #streamNodes(String, Consumer)}.
+     */
+    public void streamNodes(InputStream inputStream, Consumer<Node> consumer) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(inputStream)) {
+            expectArray(parser);
+            while (nextElement(parser)) {
+                consumer.accept(readNode(parser));
+            }
+        }
+    }
+
+    /**
+     * Streams the ways of a JSON ways file to a consumer, such as {@code graph::addWay}.
+     *
+     * Each way is built straight from the parser's tokens, like in
+     * {@link #streamNodes(String, Consumer)}. As with {@link Way#fromMap(Map)}, its start and
+     * end nodes are placeholders holding only the node ids.
+     *
+     * @param filename The ways file, resolved like in {@link #loadData(String, Function)}
+     * @param consumer Receives each way in file order
+     * @throws IOException If the file cannot be read or is not a JSON array of objects
+     * @throws IllegalArgumentException If a way lacks its id or nodes
+     */
+    public void streamWays(String filename, Consumer<Way> consumer) throws IOException {
+        File dataFile = DataFileManager.getDataFile(filename);
+        try (InputStream in = new BufferedInputStream(new FileInputStream(dataFile))) {
+            streamWays(in, consumer);
+        } catch (JsonParseException e) {
+            reportParseError(filename, dataFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Streams the ways of a JSON array read from a stream. See {@link #streamWays(String, Consumer)}.
+     */
+    public void streamWays(InputStream inputStream, Consumer<Way> consumer) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(inputStream)) {
+            expectArray(parser);
+            while (nextElement(parser)) {
+                consumer.accept(readWay(parser));
+            }
+        }
+    }
+
+    private static Node readNode(JsonParser parser) throws IOException {
+        JsonLocation location = parser.currentLocation();
+        Long id = null;
+        Double lat = null;
+        Double lon = null;
+        Map<String, String> tags = Map.of();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id" -> id = value.isNumeric() ? parser.getLongValue() : null;
+                case "lat" -> lat = value.isNumeric() ? parser.getDoubleValue() : null;
+                case "lon" -> lon = value.isNumeric() ? parser.getDoubleValue() : null;
+                case "tags" -> tags = readTags(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        if (id == null || lat == null || lon == null) {
+            throw new IllegalArgumentException("Invalid data for Node at " + describe(location));
+        }
+        return new Node(id, lat, lon, tags);
+    }
+
+    private static Way readWay(JsonParser parser) throws IOException {
+        JsonLocation location = parser.currentLocation();
+        Long id = null;
+        List<Long> nodeIds = List.of();
+        Map<String, String> tags = Map.of();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id" -> id = value.isNumeric() ? parser.getLongValue() : null;
+                case "nodes" -> nodeIds = readLongs(parser);
+                case "tags" -> tags = readTags(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        if (id == null || nodeIds.isEmpty()) {
+            throw new IllegalArgumentException("Invalid data for Way at " + describe(location));
+        }
+        Map<String, Object> data = new HashMap<>(4);
+        data.put("id", id);
+        data.put("nodes", nodeIds);
+        data.put("tags", tags);
+        return new Way(id, new Node(nodeIds.get(0), 0, 0), new Node(nodeIds.get(nodeIds.size() - 1), 0, 0), data);
+    }
+
+    /** Reads an object of tags; values that are not scalars are skipped. */
+    private static Map<String, String> readTags(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return Map.of();
+        }
+        Map<String, String> tags = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value.isScalarValue() && value != JsonToken.VALUE_NULL) {
+                tags.put(key, parser.getValueAsString());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return tags;
+    }
+
+    private static List<Long> readLongs(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return List.of();
+        }
+        List<Long> values = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (!token.isNumeric()) {
+                throw new JsonParseException(parser, "Expected a node id but found " + token);
+            }
+            values.add(parser.getLongValue());
+        }
+        return values;
+    }
+
+    private static void expectArray(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Expected a JSON array of OSM elements");
+        }
+    }
+
+    /**
+     * Advances to the next array element and returns whether there is one.
+     */
+    private static boolean nextElement(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.END_ARRAY) {
+            return false;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object but found " + token);
+        }
+        return true;
+    }
+
+    private static String describe(JsonLocation location) {
+        return "line " + location.getLineNr() + ", column " + location.getColumnNr();
+    }
+
+    private static void reportParseError(String filename, File dataFile) throws IOException {
+        System.err.println("Error parsing JSON file: " + filename);
+        System.err.println("First 100 characters of file:");
+        try (BufferedReader reader = new BufferedReader(new FileReader(dataFile))) {
+            char[] buffer = new char[100];
+            reader.read(buffer);
+            System.err.println(new String(buffer));
+        }
     }
 
     public <T> void saveData(List<T> items, String filename) throws IOException {
@@ -0,0 +1,160 @@
+package com.example.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded cache with segmented LRU eviction and a time to live.
+ *
+ * New entries go into a probationary segment; an entry read again while it is there moves
+ * to a protected segment that holds most of the capacity. When the cache is full the least
+ * recently used probationary entry is evicted, so a burst of one-off keys cannot push out
+ * the entries that are read repeatedly, and when the protected segment overflows its least
+ * recently used entry drops back to probation rather than out of the cache. Entries older
+ * than the time to live are treated as absent and removed when they are next looked up.
+ *
+ * Values are computed outside the cache, so a slow computation never blocks other callers;
+ * two threads missing the same key at once may both compute it. All methods are thread-safe.
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+public final class SegmentedLruCache<K, V> {
+    /** The share of the capacity held by the protected segment, in percent. */
+    private static final int PROTECTED_PERCENT = 80;
+
+    private final int capacity;
+    private final int protectedCapacity;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    // Both segments are kept in access order, least recently used first
+    private final LinkedHashMap<K, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Entry<V>> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private record Entry<V>(V value, long createdNanos) {}
+
+    /**
+     * The cache's counters at one point in time.
+     *
+     * @param hits The number of lookups that found a live entry
+     * @param misses The number of lookups that found none, expired entries included
+     * @param evictions The number of entries evicted to make room
+     * @param size The number of entries currently held
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param capacity The maximum number of entries; 0 disables caching
+     * @param ttl How long an entry stays valid after it is put
+     * @param unit The unit of the time to live
+     */
+    public SegmentedLruCache(int capacity, long ttl, TimeUnit unit) {
+        this(capacity, ttl, unit, System::nanoTime);
+    }
+
+    /**
+     * Creates a cache that reads the time from the given clock, in nanoseconds.
+     */
+    public SegmentedLruCache(int capacity, long ttl, TimeUnit unit, LongSupplier clock) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must be non-negative");
+        }
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("Time to live must be positive");
+        }
+        this.capacity = capacity;
+        this.protectedCapacity = capacity * PROTECTED_PERCENT / 100;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the value cached for a key.
+     *
+     * @param key The key
+     * @return The value, or null if there is no live entry for the key
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = protectedSegment.get(key);
+        boolean inProbation = false;
+        if (entry == null) {
+            entry = probation.get(key);
+            inProbation = entry != null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (clock.getAsLong() - entry.createdNanos() > ttlNanos) {
+            (inProbation ? probation : protectedSegment).remove(key);
+            misses++;
+            return null;
+        }
+        if (inProbation) {
+            probation.remove(key);
+            protectedSegment.put(key, entry);
+            if (protectedSegment.size() > protectedCapacity) {
+                Iterator<Map.Entry<K, Entry<V>>> eldest = protectedSegment.entrySet().iterator();
+                Map.Entry<K, Entry<V>> demoted = eldest.next();
+                eldest.remove();
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+        }
+        hits++;
+        return entry.value();
+    }
+
+    /**
+     * Caches a value for a key, replacing any previous value and restarting its time to live.
+     *
+     * @param key The key
+     * @param value The value
+     */
+    public synchronized void put(K key, V value) {
+        if (capacity == 0) {
+            return;
+        }
+        Entry<V> entry = new Entry<>(value, clock.getAsLong());
+        if (protectedSegment.containsKey(key)) {
+            protectedSegment.put(key, entry);
+            return;
+        }
+        probation.put(key, entry);
+        while (probation.size() + protectedSegment.size() > capacity) {
+            LinkedHashMap<K, Entry<V>> segment = probation.isEmpty() ? protectedSegment : probation;
+            Iterator<K> eldest = segment.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void invalidateAll() {
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    public synchronized int size() {
+        return probation.size() + protectedSegment.size();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, size());
+    }
+}
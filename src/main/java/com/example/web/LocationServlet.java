@@ -1,11 +1,18 @@
 package com.example.web;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
 import java.util.logging.Logger;
 
 import org.apache.commons.text.StringEscapeUtils;
@@ -22,22 +29,49 @@ import com.example.service.LocationService;
 import com.example.service.InMemoryLocationService;
 import com.example.model.Coordinates;
 import com.example.model.Graph;
+import com.example.model.Isochrone;
+import com.example.model.GraphSnapshot;
 import com.example.model.Location;
-import com.example.model.Route;
-import com.example.model.Way;
+import com.example.model.MapData;
 import com.example.model.Node;
+import com.example.model.ReachableLocation;
+import com.example.model.Route;
+import com.example.model.RouteMetric;
+import com.example.model.TravelTimeMatrix;
 import com.example.service.MapService;
+import com.example.service.RoutingAlgorithm;
+import com.example.service.SnapMode;
+import com.example.util.DataFileManager;
 import com.example.util.OSMDataLoader;
 import com.example.util.TypeLoader;
 import com.example.util.DistanceUtil;
 import com.example.util.MemoryUtil;
 import com.example.util.GeoJsonLoader;
 
-@WebServlet(name = "LocationServlet", urlPatterns = {"/", "/locations", "/route", "/nearest", "/within-radius", "/search"})
+@WebServlet(name = "LocationServlet", urlPatterns = {"/", "/locations", "/route", "/nearest", "/within-radius", "/search", "/matrix", "/isochrone"})
 public class LocationServlet extends HttpServlet {
     private static final boolean IS_TEST_ENVIRONMENT = System.getProperty("maven.test") != null;
     private static final boolean BOUNDS_CHECKING_ENABLED = !IS_TEST_ENVIRONMENT;
     private static final Logger logger = Logger.getLogger(LocationServlet.class.getName());
+    /**
+     * Where the binary graph snapshot is loaded from, and saved to after a JSON load. A snapshot
+     * built from other versions of the JSON files is ignored and replaced.
+     */
+    public static final String SNAPSHOT_PROPERTY = "app.graph.snapshot";
+    private static final String DEFAULT_SNAPSHOT_FILE = "west_los_angeles.graph.bin";
+    private static final String NODES_RESOURCE = "/prod_data/west_los_angeles.nodes.json";
+    private static final String WAYS_RESOURCE = "/prod_data/west_los_angeles.ways.json";
+    /** The maximum number of cached routes; 0 turns the route cache off. */
+    public static final String ROUTE_CACHE_SIZE_PROPERTY = "app.route.cache.size";
+    /** How long a cached route stays valid, in seconds. */
+    public static final String ROUTE_CACHE_TTL_PROPERTY = "app.route.cache.ttl.seconds";
+    /** The most origins, and the most destinations, a single matrix request may ask for. */
+    private static final int MAX_MATRIX_POINTS = 100;
+    /** The most locations a single drive-time nearest request may ask for. */
+    private static final int MAX_NEAREST_BY_DRIVE_TIME = 100;
+    private static final double MAX_ISOCHRONE_MINUTES = 60;
+    /** The grid resolution of isochrone polygons. */
+    private static final double ISOCHRONE_CELL_METERS = 100;
     
     // Load cuisine and shop types from JSON files
     private static final List<String> cuisineTypes = TypeLoader.loadTypes("unique_cuisine_types.json");
@@ -59,35 +93,24 @@ public class LocationServlet extends HttpServlet {
                     "Bounds checking " + (BOUNDS_CHECKING_ENABLED ? "enabled" : "disabled"));
         // locationService = new InMemoryLocationService(40);
         try {
-            String nodesFile = "/prod_data/west_los_angeles.nodes.json";
-            String waysFile = "/prod_data/west_los_angeles.ways.json";
-            
-            // Debug: List all resources in the prod_data directory
-            try (InputStream is = getClass().getResourceAsStream("/prod_data")) {
-                if (is == null) {
-                    logger.warning("prod_data directory not found");
-                } else {
-                    logger.info("prod_data directory found");
-                }
-            } catch (IOException e) {
-                logger.warning("Error checking prod_data directory: " + e.getMessage());
+            Path snapshotFile = Paths.get(System.getProperty(SNAPSHOT_PROPERTY,
+                    Paths.get(DataFileManager.DATA_DIR, DEFAULT_SNAPSHOT_FILE).toString()));
+            long sourceStamp = jsonSourceStamp();
+            MapData data = loadGraphSnapshot(snapshotFile, sourceStamp);
+            if (data == null) {
+                data = loadGraphFromJson();
+                saveGraphSnapshot(data, sourceStamp, snapshotFile);
             }
-
-            logger.info("Loading nodes from: " + nodesFile);
-            List<Node> nodes = loadNodesFromResource(nodesFile);
-            logger.info("Loaded " + nodes.size() + " nodes");
-            
-            logger.info("Loading ways from: " + waysFile);
-            List<Way> ways = loadWaysFromResource(waysFile);
-            logger.info("Loaded " + ways.size() + " ways");
-            
-            Graph graph = new Graph(nodes, ways);
+            Graph graph = data.graph();
             logger.info("Graph created with " + graph.getNodeCount() + " nodes and " + graph.getWayCount() + " ways");
-            
-            locationService = new InMemoryLocationService(graph);
+
+            locationService = new InMemoryLocationService(data);
             logger.info("LocationService created");
 
-            mapService = new MapService(locationService, graph);
+            // Routes start and end on the nearest road segment rather than its nearest node
+            mapService = new MapService(locationService, graph, RoutingAlgorithm.fromSystemProperty(), SnapMode.EDGE,
+                    Integer.getInteger(ROUTE_CACHE_SIZE_PROPERTY, MapService.DEFAULT_ROUTE_CACHE_SIZE),
+                    Long.getLong(ROUTE_CACHE_TTL_PROPERTY, MapService.DEFAULT_ROUTE_CACHE_TTL_SECONDS));
             logger.info("MapService created");  
             logger.info("Memory usage after servlet initialization: " + MemoryUtil.getMemoryUsage());
         } catch (Exception e) {
@@ -101,21 +124,106 @@ public class LocationServlet extends HttpServlet {
 
 
 
-    private List<Node> loadNodesFromResource(String resourcePath) throws IOException {
-        try (InputStream is = getClass().getResourceAsStream(resourcePath)) {
+    /**
+     * Stamps the JSON files the map data is built from, so that a snapshot of older files is
+     * noticed.
+     *
+     * @return The stamp, or {@link GraphSnapshot#UNKNOWN_SOURCES} if the files are not available
+     */
+    private long jsonSourceStamp() {
+        List<URL> sources = new ArrayList<>();
+        for (String resource : List.of(NODES_RESOURCE, WAYS_RESOURCE)) {
+            URL source = getClass().getResource(resource);
+            if (source == null) {
+                logger.warning("JSON data " + resource + " not found, a graph snapshot is used without checking it");
+                return GraphSnapshot.UNKNOWN_SOURCES;
+            }
+            sources.add(source);
+        }
+        try {
+            return GraphSnapshot.sourceStamp(sources);
+        } catch (IOException e) {
+            logger.warning("Could not stamp the JSON data, a graph snapshot is used without checking it: " + e.getMessage());
+            return GraphSnapshot.UNKNOWN_SOURCES;
+        }
+    }
+
+    /**
+     * Loads the road network and points of interest from a binary snapshot, which is much
+     * faster than parsing the JSON.
+     *
+     * @param sourceStamp The stamp of the JSON files the snapshot must have been built from,
+     *                    or {@link GraphSnapshot#UNKNOWN_SOURCES} to accept any snapshot
+     * @return The map data, or null if there is no usable, up-to-date snapshot
+     */
+    private MapData loadGraphSnapshot(Path snapshotFile, long sourceStamp) {
+        if (!Files.isRegularFile(snapshotFile)) {
+            logger.info("No graph snapshot at " + snapshotFile + ", loading the JSON data");
+            return null;
+        }
+        try {
+            if (sourceStamp != GraphSnapshot.UNKNOWN_SOURCES
+                    && GraphSnapshot.readSourceStamp(snapshotFile) != sourceStamp) {
+                logger.info("Graph snapshot at " + snapshotFile + " was not built from the current JSON data, reloading it");
+                return null;
+            }
+            return GraphSnapshot.loadMapData(snapshotFile);
+        } catch (IOException e) {
+            logger.warning("Could not load graph snapshot from " + snapshotFile + ", loading the JSON data: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void saveGraphSnapshot(MapData data, long sourceStamp, Path snapshotFile) {
+        try {
+            Path parent = snapshotFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            GraphSnapshot.write(data, sourceStamp, snapshotFile);
+        } catch (IOException e) {
+            logger.warning("Could not save graph snapshot to " + snapshotFile + ": " + e.getMessage());
+        }
+    }
+
+    private MapData loadGraphFromJson() throws IOException {
+        String nodesFile = NODES_RESOURCE;
+        String waysFile = WAYS_RESOURCE;
+        
+        // Debug: List all resources in the prod_data directory
+        try (InputStream is = getClass().getResourceAsStream("/prod_data")) {
             if (is == null) {
-                throw new IOException("Resource not found: " + resourcePath);
+                logger.warning("prod_data directory not found");
+            } else {
+                logger.info("prod_data directory found");
             }
-            return osmDataLoader.loadData(is, Node::fromMap);
+        } catch (IOException e) {
+            logger.warning("Error checking prod_data directory: " + e.getMessage());
         }
+
+        // Nodes and ways go straight from the parser into the split, so the JSON is never held in
+        // memory; with the ways read first, nodes no road references are dropped as they arrive
+        MapData.Builder builder = new MapData.Builder();
+        logger.info("Loading ways from: " + waysFile);
+        streamFromResource(waysFile, is -> osmDataLoader.streamWays(is, builder::addWay));
+        logger.info("Loading nodes from: " + nodesFile);
+        streamFromResource(nodesFile, is -> osmDataLoader.streamNodes(is, builder::addNode));
+        MapData data = builder.build();
+        logger.info("Loaded " + data.graph().getNodeCount() + " road nodes, " + data.graph().getWayCount()
+                + " ways and " + data.pointsOfInterest().size() + " points of interest");
+        return data;
     }
-    
-    private List<Way> loadWaysFromResource(String resourcePath) throws IOException {
+
+    private interface ResourceReader {
+        void read(InputStream is) throws IOException;
+    }
+
+    private void streamFromResource(String resourcePath, ResourceReader reader) throws IOException {
         try (InputStream is = getClass().getResourceAsStream(resourcePath)) {
             if (is == null) {
                 throw new IOException("Resource not found: " + resourcePath);
             }
-            return osmDataLoader.loadData(is, Way::fromMap);
+            reader.read(new BufferedInputStream(is));
         }
     }
 
@@ -133,6 +241,8 @@ public class LocationServlet extends HttpServlet {
                 case "/nearest" -> handleNearestLocationRequest(request, response);
                 case "/within-radius" -> handleLocationsWithinRadiusRequest(request, response);
                 case "/search" -> handleSearchRequest(request, response);
+                case "/matrix" -> handleMatrixRequest(request, response);
+                case "/isochrone" -> handleIsochroneRequest(request, response);
                 default -> {
 
                     request.setAttribute("cuisineTypesJson", gson.toJson(cuisineTypes));
@@ -199,37 +309,23 @@ public class LocationServlet extends HttpServlet {
             Coordinates start = new Coordinates(startLat, startLon);
             Coordinates end = new Coordinates(endLat, endLon);
 
-            Route route;
-            if ("fastest".equals(routeType)) {
-                route = mapService.calculateFastestRoute(start, end);
-            } else {
-                route = mapService.calculateShortestRoute(start, end);
-            }
+            long searchStart = System.nanoTime();
+            RouteMetric metric = "fastest".equals(routeType) ? RouteMetric.TIME : RouteMetric.DISTANCE;
+            MapService.RouteLookup lookup = mapService.lookupRoute(start, end, metric);
+            double searchTimeMs = (System.nanoTime() - searchStart) / 1_000_000.0;
 
-            if (route == null) {
+            if (lookup == null) {
                 sendErrorResponse(response, HttpServletResponse.SC_NOT_FOUND, "No route found");
                 return;
             }
-
-            double distanceKm = route.getTotalDistance();
-            double estimatedTimeMinutes = route.getEstimatedTime(routeType.equals(routeType));
-
-            Map<String, Object> routeData = new HashMap<>();
-            routeData.put("coordinates", route.getNodes().stream()
-                                            .map(node -> Map.of("latitude", node.lat(), "longitude", node.lon()))
-                                            .toList());
-            // Add the new segments data with speed limits
-            routeData.put("segments", route.getRouteSegments());
-            // logger.info("Route segments: " + routeData.get("segments"));
-            
-            double distanceMiles = DistanceUtil.kmToMiles(distanceKm);
-            routeData.put("distance", String.format("%.2f", distanceMiles)); // Convert to km and format
-            logger.info("Distance: " + distanceMiles + " miles");
-            
-            routeData.put("estimatedTime", String.format("%.2f", estimatedTimeMinutes));
-            logger.info("Estimated time: " + estimatedTimeMinutes + " minutes");
-
-            sendJsonResponse(response, routeData);
+            response.setHeader("X-Route-Cache", lookup.cached() ? "HIT" : "MISS");
+            logger.info("Route cache: " + (lookup.cached() ? "hit" : "miss") + ", " + mapService.getRouteCacheStats());
+            response.setContentType("application/json; charset=UTF-8");
+            // A route from the cache settled no nodes for this request
+            int settledNodes = lookup.cached() ? 0 : lookup.route().getSettledNodeCount();
+            logger.info("Route search settled " + settledNodes + " nodes in " + searchTimeMs + " ms");
+            response.getWriter().write(withSearchStatistics(lookup.render(LocationServlet::renderRoute),
+                                                            settledNodes, searchTimeMs));
         } catch (NumberFormatException e) {
             sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, "Invalid coordinate format");
         } catch (Exception e) {
@@ -238,11 +334,188 @@ public class LocationServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Renders a route as the JSON object the route endpoint sends, without the search
+     * statistics, which differ per request. The route cache keeps this rendering, so repeated
+     * routes are serialized once.
+     */
+    private static String renderRoute(Route route) {
+        double distanceKm = route.getTotalDistance();
+        double estimatedTimeMinutes = route.getEstimatedTime(true);
+
+        Map<String, Object> routeData = new HashMap<>();
+        routeData.put("coordinates", route.getNodes().stream()
+                                        .map(node -> Map.of("latitude", node.lat(), "longitude", node.lon()))
+                                        .toList());
+        // Add the new segments data with speed limits
+        routeData.put("segments", route.getRouteSegments());
+
+        double distanceMiles = DistanceUtil.kmToMiles(distanceKm);
+        routeData.put("distance", String.format("%.2f", distanceMiles)); // Convert to km and format
+        logger.info("Distance: " + distanceMiles + " miles");
+
+        routeData.put("estimatedTime", String.format("%.2f", estimatedTimeMinutes));
+        logger.info("Estimated time: " + estimatedTimeMinutes + " minutes");
+
+        return gson.toJson(routeData);
+    }
+
+    /**
+     * Adds how much work this request's search did and how long it took to a rendered route,
+     * so the effect of the routing algorithm is visible per request.
+     */
+    private static String withSearchStatistics(String renderedRoute, int settledNodes, double searchTimeMs) {
+        // renderRoute always writes a non-empty object, so the fields follow a comma
+        return renderedRoute.substring(0, renderedRoute.lastIndexOf('}'))
+                + ",\"settledNodes\":" + settledNodes
+                + ",\"searchTimeMs\":" + gson.toJson(String.format("%.2f", searchTimeMs)) + "}";
+    }
+
+    /**
+     * Returns drive times in seconds and distances in meters from every origin to every
+     * destination. Both are given as {@code lat,lon} pairs separated by semicolons; cells that
+     * cannot be reached are null.
+     *
+     * The bucket-based many-to-many search needs a contraction hierarchy, which the service
+     * only has when it runs with {@code -Dapp.routing.algorithm=ch}; with any other algorithm,
+     * including the default, the matrix takes one search per origin.
+     */
+    private void handleMatrixRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String originsParam = request.getParameter("origins");
+        String destinationsParam = request.getParameter("destinations");
+        if (originsParam == null || destinationsParam == null) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, "Missing required parameters");
+            return;
+        }
+
+        List<Coordinates> origins;
+        List<Coordinates> destinations;
+        try {
+            origins = parseCoordinateList(originsParam);
+            destinations = parseCoordinateList(destinationsParam);
+        } catch (IllegalArgumentException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, "Invalid coordinate format");
+            return;
+        }
+        if (origins.isEmpty() || destinations.isEmpty()
+                || origins.size() > MAX_MATRIX_POINTS || destinations.size() > MAX_MATRIX_POINTS) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST,
+                    "Between 1 and " + MAX_MATRIX_POINTS + " origins and destinations are required");
+            return;
+        }
+
+        long searchStart = System.nanoTime();
+        TravelTimeMatrix matrix = mapService.calculateTravelTimeMatrix(origins, destinations);
+        double searchTimeMs = (System.nanoTime() - searchStart) / 1_000_000.0;
+        logger.info("Matrix of " + origins.size() + " x " + destinations.size() + " calculated in " + searchTimeMs + " ms");
+
+        Map<String, Object> matrixData = new HashMap<>();
+        matrixData.put("durations", withNullsForUnreachable(matrix.getTravelTimesSeconds()));
+        matrixData.put("distances", withNullsForUnreachable(matrix.getDistancesMeters()));
+        matrixData.put("searchTimeMs", String.format("%.2f", searchTimeMs));
+        sendJsonResponse(response, matrixData);
+    }
+
+    /**
+     * Returns the area reachable by car within a number of minutes as a GeoJSON polygon,
+     * with the locations in it (only restaurants or stores if a category is given) and, if
+     * includeNodes is true, the reachable road nodes as {@code [longitude, latitude, seconds]}.
+     */
+    private void handleIsochroneRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String latParam = request.getParameter("lat");
+        String lonParam = request.getParameter("lon");
+        String minutesParam = request.getParameter("minutes");
+        if (latParam == null || lonParam == null || minutesParam == null) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, "Missing required parameters");
+            return;
+        }
+
+        Coordinates origin;
+        double minutes;
+        try {
+            origin = new Coordinates(Double.parseDouble(latParam), Double.parseDouble(lonParam));
+            minutes = Double.parseDouble(minutesParam);
+        } catch (IllegalArgumentException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, "Invalid coordinate or time format");
+            return;
+        }
+        if (!(minutes > 0 && minutes <= MAX_ISOCHRONE_MINUTES)) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST,
+                    "minutes must be greater than 0 and at most " + MAX_ISOCHRONE_MINUTES);
+            return;
+        }
+
+        long searchStart = System.nanoTime();
+        Isochrone isochrone = mapService.calculateIsochrone(origin, minutes * 60);
+        if (isochrone == null) {
+            sendErrorResponse(response, HttpServletResponse.SC_NOT_FOUND, "Origin is not near a road");
+            return;
+        }
+        String category = request.getParameter("category");
+        Predicate<Location> filter = "restaurant".equals(category) ? Location::isRestaurant
+                                   : "store".equals(category) ? Location::isStore
+                                   : location -> true;
+        List<ReachableLocation> locations = mapService.findLocationsWithin(isochrone, filter);
+        double searchTimeMs = (System.nanoTime() - searchStart) / 1_000_000.0;
+
+        Map<String, Object> isochroneData = new HashMap<>();
+        isochroneData.put("polygon", isochrone.toGeoJson(ISOCHRONE_CELL_METERS));
+        isochroneData.put("nodeCount", isochrone.getNodeCount());
+        if (Boolean.parseBoolean(request.getParameter("includeNodes"))) {
+            List<double[]> nodes = new ArrayList<>(isochrone.getNodeCount());
+            for (int i = 0; i < isochrone.getNodeCount(); i++) {
+                Node node = isochrone.getNode(i);
+                nodes.add(new double[] {node.lon(), node.lat(), isochrone.getTravelTimeSeconds(i)});
+            }
+            isochroneData.put("nodes", nodes);
+        }
+        isochroneData.put("locations", locations.stream()
+                .map(reachable -> Map.of("location", reachable.location(),
+                                         "travelTimeSeconds", reachable.travelTimeSeconds(),
+                                         "distanceMeters", reachable.distanceMeters()))
+                .toList());
+        isochroneData.put("searchTimeMs", String.format("%.2f", searchTimeMs));
+        sendJsonResponse(response, isochroneData);
+    }
+
+    private static List<Coordinates> parseCoordinateList(String value) {
+        List<Coordinates> points = new ArrayList<>();
+        for (String pair : value.split(";")) {
+            if (pair.isBlank()) {
+                continue;
+            }
+            String[] parts = pair.split(",");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected lat,lon but got " + pair);
+            }
+            points.add(new Coordinates(Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim())));
+        }
+        return points;
+    }
+
+    /** JSON has no infinity, so unreachable cells are sent as null. */
+    private static Double[][] withNullsForUnreachable(double[][] cells) {
+        Double[][] values = new Double[cells.length][];
+        for (int row = 0; row < cells.length; row++) {
+            values[row] = new Double[cells[row].length];
+            for (int column = 0; column < cells[row].length; column++) {
+                double cell = cells[row][column];
+                values[row][column] = Double.isInfinite(cell) ? null : cell;
+            }
+        }
+        return values;
+    }
+
     private void handleNearestLocationRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
         double lat = Double.parseDouble(request.getParameter("lat"));
         double lon = Double.parseDouble(request.getParameter("lon"));
         Coordinates point = new Coordinates(lat, lon);
 
+        if ("drive".equals(request.getParameter("mode"))) {
+            handleNearestByDriveTime(request, response, point);
+            return;
+        }
+
         Optional<Location> nearestLocation = mapService.findNearestLocation(point);
         if (nearestLocation.isPresent()) {
             sendJsonResponse(response, nearestLocation.get());
@@ -251,6 +524,38 @@ public class LocationServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Returns the k locations soonest reached by car (1 unless a k parameter is given), each
+     * with its travel time in seconds and route length in meters.
+     */
+    private void handleNearestByDriveTime(HttpServletRequest request, HttpServletResponse response,
+                                          Coordinates point) throws IOException {
+        String kParam = request.getParameter("k");
+        int k;
+        try {
+            k = kParam == null ? 1 : Integer.parseInt(kParam);
+        } catch (NumberFormatException e) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST, "Invalid k");
+            return;
+        }
+        if (k < 1 || k > MAX_NEAREST_BY_DRIVE_TIME) {
+            sendErrorResponse(response, HttpServletResponse.SC_BAD_REQUEST,
+                    "k must be between 1 and " + MAX_NEAREST_BY_DRIVE_TIME);
+            return;
+        }
+
+        List<ReachableLocation> nearest = mapService.findNearestByTravelTime(point, location -> true, k);
+        if (nearest.isEmpty()) {
+            sendErrorResponse(response, HttpServletResponse.SC_NOT_FOUND, "No locations found");
+            return;
+        }
+        sendJsonResponse(response, nearest.stream()
+                .map(reachable -> Map.of("location", reachable.location(),
+                                         "travelTimeSeconds", reachable.travelTimeSeconds(),
+                                         "distanceMeters", reachable.distanceMeters()))
+                .toList());
+    }
+
     private void handleLocationsWithinRadiusRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
         double lat = Double.parseDouble(request.getParameter("lat"));
         double lon = Double.parseDouble(request.getParameter("lon"));
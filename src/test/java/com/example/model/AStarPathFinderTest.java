@@ -0,0 +1,73 @@
+package com.example.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AStarPathFinderTest {
+
+    private Graph graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = TestGraphs.grid(20, 20, 42);
+    }
+
+    @Test
+    void testMatchesDijkstraForDistance() {
+        DijkstraPathFinder dijkstra = new DijkstraPathFinder(graph);
+        AStarPathFinder aStar = new AStarPathFinder(graph, RouteMetric.DISTANCE);
+        Random random = new Random(7);
+        List<Node> nodes = graph.getNodes();
+
+        for (int i = 0; i < 50; i++) {
+            Node start = nodes.get(random.nextInt(nodes.size()));
+            Node end = nodes.get(random.nextInt(nodes.size()));
+            PathResult expected = dijkstra.findPath(start, end);
+            PathResult actual = aStar.findPath(start, end);
+
+            assertEquals(expected.isFound(), actual.isFound());
+            if (expected.isFound()) {
+                assertEquals(TestGraphs.pathCost(graph, expected.path(), RouteMetric.DISTANCE),
+                             TestGraphs.pathCost(graph, actual.path(), RouteMetric.DISTANCE), 1e-6);
+                assertTrue(actual.settledNodes() <= expected.settledNodes(),
+                           "A* should not settle more nodes than Dijkstra");
+            }
+        }
+    }
+
+    @Test
+    void testMatchesFastestPathFinderForTime() {
+        FastestPathFinder fastest = new FastestPathFinder(graph);
+        AStarPathFinder aStar = new AStarPathFinder(graph, RouteMetric.TIME);
+        Random random = new Random(11);
+        List<Node> nodes = graph.getNodes();
+
+        for (int i = 0; i < 50; i++) {
+            Node start = nodes.get(random.nextInt(nodes.size()));
+            Node end = nodes.get(random.nextInt(nodes.size()));
+            PathResult expected = fastest.findPath(start, end);
+            PathResult actual = aStar.findPath(start, end);
+
+            assertEquals(expected.isFound(), actual.isFound());
+            if (expected.isFound()) {
+                assertEquals(TestGraphs.pathCost(graph, expected.path(), RouteMetric.TIME),
+                             TestGraphs.pathCost(graph, actual.path(), RouteMetric.TIME), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void testNoPath() {
+        Graph disconnected = new Graph(List.of(new Node(1, 34.0, -118.4), new Node(2, 34.1, -118.4)), List.of());
+        PathResult result = new AStarPathFinder(disconnected, RouteMetric.DISTANCE)
+            .findPath(disconnected.getNode(1), disconnected.getNode(2));
+
+        assertFalse(result.isFound());
+        assertNull(result.path());
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BidirectionalDijkstraPathFinderTest {
+
+    private Graph graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = TestGraphs.grid(25, 25, 3);
+    }
+
+    @ParameterizedTest
+    @EnumSource(RouteMetric.class)
+    void testMatchesUnidirectionalSearch(RouteMetric metric) {
+        AStarPathFinder reference = new AStarPathFinder(graph, metric);
+        BidirectionalDijkstraPathFinder bidirectional = new BidirectionalDijkstraPathFinder(graph, metric);
+        Random random = new Random(5);
+        List<Node> nodes = graph.getNodes();
+
+        for (int i = 0; i < 60; i++) {
+            Node start = nodes.get(random.nextInt(nodes.size()));
+            Node end = nodes.get(random.nextInt(nodes.size()));
+            PathResult expected = reference.findPath(start, end);
+            PathResult actual = bidirectional.findPath(start, end);
+
+            assertEquals(expected.isFound(), actual.isFound(), "Reachability differs for " + start.id() + " -> " + end.id());
+            if (expected.isFound()) {
+                assertEquals(start, actual.path().get(0));
+                assertEquals(end, actual.path().get(actual.path().size() - 1));
+                assertEquals(TestGraphs.pathCost(graph, expected.path(), metric),
+                             TestGraphs.pathCost(graph, actual.path(), metric), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void testRespectsOneWayStreets() {
+        Node a = new Node(1, 34.0, -118.4);
+        Node b = new Node(2, 34.001, -118.4);
+        Way oneWay = new Way(1L, a, b, Map.of("tags", Map.of("highway", "residential", "oneway", "yes"),
+                                              "nodes", List.of(1L, 2L)));
+        Graph oneWayGraph = new Graph(List.of(a, b), List.of(oneWay));
+        BidirectionalDijkstraPathFinder finder = new BidirectionalDijkstraPathFinder(oneWayGraph, RouteMetric.DISTANCE);
+
+        assertEquals(List.of(a, b), finder.findPath(a, b).path());
+        assertFalse(finder.findPath(b, a).isFound());
+    }
+}
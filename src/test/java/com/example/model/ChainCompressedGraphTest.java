@@ -0,0 +1,162 @@
+package com.example.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChainCompressedGraphTest {
+
+    @Test
+    void testShapePointsAreFoldedIntoChains() {
+        Graph plain = TestGraphs.grid(15, 15, 42);
+        Graph shaped = TestGraphs.grid(15, 15, 4, 42);
+        CsrGraph csr = shaped.compact();
+        ChainCompressedGraph chains = csr.getChainGraph();
+
+        assertTrue(csr.getNodeCount() > 4 * plain.compact().getNodeCount());
+        assertTrue(chains.getJunctionCount() <= plain.compact().getNodeCount());
+        for (int c = 0; c < chains.getEdgeCount(); c++) {
+            int reverse = chains.getReverse(c);
+            if (reverse >= 0) {
+                assertEquals(c, chains.getReverse(reverse));
+                assertEquals(chains.getSource(c), chains.getTarget(reverse));
+            }
+        }
+    }
+
+    @Test
+    void testMatchesUncompressedSearch() {
+        Graph graph = TestGraphs.grid(12, 12, 3, 5);
+        List<Node> nodes = graph.getNodes();
+        Random random = new Random(3);
+        for (RouteMetric metric : RouteMetric.values()) {
+            DijkstraPathFinder dijkstra = new DijkstraPathFinder(graph, metric);
+            BidirectionalDijkstraPathFinder reference = new BidirectionalDijkstraPathFinder(graph, metric);
+            for (int i = 0; i < 200; i++) {
+                Node start = nodes.get(random.nextInt(nodes.size()));
+                Node end = nodes.get(random.nextInt(nodes.size()));
+                PathResult expected = reference.findPath(start, end);
+                PathResult actual = dijkstra.findPath(start, end);
+
+                assertEquals(expected.isFound(), actual.isFound(), "Path from " + start.id() + " to " + end.id());
+                if (expected.isFound()) {
+                    assertEquals(start.id(), actual.path().get(0).id());
+                    assertEquals(end.id(), actual.path().get(actual.path().size() - 1).id());
+                    assertEquals(TestGraphs.pathCost(graph, expected.path(), metric),
+                                 TestGraphs.pathCost(graph, actual.path(), metric), 1e-6);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testShapePointsDoNotAddSearchWork() {
+        Graph plain = TestGraphs.grid(20, 20, 42);
+        Graph shaped = TestGraphs.grid(20, 20, 4, 42);
+        DijkstraPathFinder plainSearch = new DijkstraPathFinder(plain);
+        DijkstraPathFinder shapedSearch = new DijkstraPathFinder(shaped);
+        Random random = new Random(9);
+        long plainSettled = 0;
+        long shapedSettled = 0;
+        for (int i = 0; i < 50; i++) {
+            Node start = plain.getNodes().get(random.nextInt(plain.getNodes().size()));
+            Node end = plain.getNodes().get(random.nextInt(plain.getNodes().size()));
+            plainSettled += plainSearch.findPath(start, end).settledNodes();
+            shapedSettled += shapedSearch.findPath(start, end).settledNodes();
+        }
+
+        assertTrue(shapedSettled <= plainSettled * 1.1,
+                   "Settled " + shapedSettled + " nodes with shape points, " + plainSettled + " without");
+    }
+
+    @Test
+    void testChainsBreakAtSpeedAndDirectionChanges() {
+        // 1 - 2 - 3 residential two-way, 3 -> 4 -> 5 one-way, 5 - 6 - 7 primary two-way
+        Graph graph = line(List.of(
+                way(1, "residential", false, 1, 2, 3),
+                way(2, "residential", true, 3, 4, 5),
+                way(3, "primary", false, 5, 6, 7)));
+        CsrGraph csr = graph.compact();
+        ChainCompressedGraph chains = csr.getChainGraph();
+
+        assertFalse(chains.isJunction(csr.indexOf(2)));
+        assertTrue(chains.isJunction(csr.indexOf(3)), "The road turns one-way here");
+        assertFalse(chains.isJunction(csr.indexOf(4)));
+        assertTrue(chains.isJunction(csr.indexOf(5)), "The speed limit changes here");
+        assertFalse(chains.isJunction(csr.indexOf(6)));
+        assertEquals(-1, chains.getReverse(chains.getChain(csr.indexOf(4))));
+    }
+
+    @Test
+    void testStartAndEndInsideChains() {
+        Graph graph = line(List.of(
+                way(1, "residential", false, 1, 2, 3, 4, 5),
+                way(2, "residential", true, 5, 6, 7, 8, 1)));
+        DijkstraPathFinder finder = new DijkstraPathFinder(graph);
+
+        assertEquals(List.of(2L, 3L, 4L), ids(finder.findShortestPath(node(graph, 2), node(graph, 4))));
+        assertEquals(List.of(4L, 3L, 2L), ids(finder.findShortestPath(node(graph, 4), node(graph, 2))));
+        assertEquals(List.of(6L, 7L, 8L, 1L, 2L), ids(finder.findShortestPath(node(graph, 6), node(graph, 2))));
+        // Against the one-way the only way is around the loop
+        assertEquals(List.of(7L, 8L, 1L, 2L, 3L, 4L, 5L, 6L), ids(finder.findShortestPath(node(graph, 7), node(graph, 6))));
+    }
+
+    @Test
+    void testLoopWithoutJunctions() {
+        Graph graph = line(List.of(way(1, "residential", false, 1, 2, 3, 4, 1)));
+        CsrGraph csr = graph.compact();
+        ChainCompressedGraph chains = csr.getChainGraph();
+        DijkstraPathFinder finder = new DijkstraPathFinder(graph);
+
+        long junctions = List.of(1L, 2L, 3L, 4L).stream().filter(id -> chains.isJunction(csr.indexOf(id))).count();
+        assertEquals(1, junctions, "One node of the loop becomes a junction");
+        for (long from = 1; from <= 4; from++) {
+            for (long to = 1; to <= 4; to++) {
+                List<Node> path = finder.findShortestPath(node(graph, from), node(graph, to));
+                assertNotNull(path);
+                assertEquals(from == to ? 1 : (Math.abs(from - to) == 2 ? 3 : 2), path.size(),
+                             "Path from " + from + " to " + to);
+            }
+        }
+    }
+
+    private static Graph line(List<Way> ways) {
+        List<Node> nodes = new ArrayList<>();
+        for (long id = 1; id <= 8; id++) {
+            nodes.add(new Node(id, 34.0 + id * 0.001, -118.4 + (id % 2) * 0.0001));
+        }
+        return new Graph(nodes, ways);
+    }
+
+    private static Way way(long id, String highway, boolean oneWay, long... nodeIds) {
+        Map<String, String> tags = new HashMap<>();
+        tags.put("highway", highway);
+        if (oneWay) {
+            tags.put("oneway", "yes");
+        }
+        List<Long> ids = new ArrayList<>();
+        for (long nodeId : nodeIds) {
+            ids.add(nodeId);
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("nodes", ids);
+        data.put("tags", tags);
+        Node start = new Node(nodeIds[0], 0, 0);
+        Node end = new Node(nodeIds[nodeIds.length - 1], 0, 0);
+        return new Way(id, start, end, data);
+    }
+
+    private static Node node(Graph graph, long id) {
+        return graph.getNode(id);
+    }
+
+    private static List<Long> ids(List<Node> path) {
+        return path.stream().map(Node::id).toList();
+    }
+}
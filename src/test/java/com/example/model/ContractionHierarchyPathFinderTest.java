@@ -0,0 +1,110 @@
+package com.example.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContractionHierarchyPathFinderTest {
+
+    private Graph graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = TestGraphs.grid(25, 25, 3);
+    }
+
+    @ParameterizedTest
+    @EnumSource(RouteMetric.class)
+    void testMatchesDijkstra(RouteMetric metric) {
+        BidirectionalDijkstraPathFinder reference = new BidirectionalDijkstraPathFinder(graph, metric);
+        CsrGraph csr = graph.compact();
+        ContractionHierarchyPathFinder finder =
+                new ContractionHierarchyPathFinder(csr, ContractionHierarchyBuilder.build(csr, metric));
+        Random random = new Random(11);
+        List<Node> nodes = graph.getNodes();
+
+        for (int i = 0; i < 80; i++) {
+            Node start = nodes.get(random.nextInt(nodes.size()));
+            Node end = nodes.get(random.nextInt(nodes.size()));
+            PathResult expected = reference.findPath(start, end);
+            PathResult actual = finder.findPath(start, end);
+
+            assertEquals(expected.isFound(), actual.isFound(), "Reachability differs for " + start.id() + " -> " + end.id());
+            if (expected.isFound()) {
+                assertEquals(start, actual.path().get(0));
+                assertEquals(end, actual.path().get(actual.path().size() - 1));
+                // pathCost also checks that every unpacked step is a real edge
+                assertEquals(TestGraphs.pathCost(graph, expected.path(), metric),
+                             TestGraphs.pathCost(graph, actual.path(), metric), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void testRespectsOneWayStreets() {
+        Node a = new Node(1, 34.0, -118.4);
+        Node b = new Node(2, 34.001, -118.4);
+        Way oneWay = new Way(1L, a, b, Map.of("tags", Map.of("highway", "residential", "oneway", "yes"),
+                                              "nodes", List.of(1L, 2L)));
+        CsrGraph csr = new Graph(List.of(a, b), List.of(oneWay)).compact();
+        ContractionHierarchyPathFinder finder =
+                new ContractionHierarchyPathFinder(csr, ContractionHierarchyBuilder.build(csr, RouteMetric.DISTANCE));
+
+        assertEquals(List.of(a, b), finder.findPath(a, b).path());
+        assertFalse(finder.findPath(b, a).isFound());
+    }
+
+    @Test
+    void testSaveAndLoadRoundTrip(@TempDir Path directory) throws IOException {
+        CsrGraph csr = graph.compact();
+        ContractionHierarchy built = ContractionHierarchyBuilder.build(csr, RouteMetric.TIME);
+        Path file = directory.resolve("graph.ch");
+        built.writeTo(file);
+        ContractionHierarchy loaded = ContractionHierarchy.readFrom(file);
+
+        assertTrue(loaded.matches(csr, RouteMetric.TIME));
+        assertFalse(loaded.matches(csr, RouteMetric.DISTANCE));
+        assertEquals(built.getShortcutCount(), loaded.getShortcutCount());
+
+        ContractionHierarchyPathFinder original = new ContractionHierarchyPathFinder(csr, built);
+        ContractionHierarchyPathFinder restored = new ContractionHierarchyPathFinder(csr, loaded);
+        List<Node> nodes = graph.getNodes();
+        Node start = nodes.get(0);
+        Node end = nodes.get(nodes.size() - 1);
+        assertEquals(original.findPath(start, end).path(), restored.findPath(start, end).path());
+    }
+
+    @Test
+    void testLoadOrBuildReusesSavedHierarchy(@TempDir Path directory) throws IOException {
+        CsrGraph csr = graph.compact();
+        ContractionHierarchy.loadOrBuild(csr, RouteMetric.DISTANCE, directory);
+        List<Path> files;
+        try (var stream = Files.list(directory)) {
+            files = stream.toList();
+        }
+        assertEquals(1, files.size());
+
+        ContractionHierarchy reloaded = ContractionHierarchy.loadOrBuild(csr, RouteMetric.DISTANCE, directory);
+        assertTrue(reloaded.matches(csr, RouteMetric.DISTANCE));
+    }
+
+    @Test
+    void testRejectsHierarchyOfAnotherGraph() {
+        CsrGraph other = TestGraphs.grid(5, 5, 1).compact();
+        ContractionHierarchy hierarchy = ContractionHierarchyBuilder.build(other, RouteMetric.DISTANCE);
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> new ContractionHierarchyPathFinder(graph.compact(), hierarchy));
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    private CsrGraph original;
+
+    @BeforeEach
+    void setUp() {
+        Graph graph = TestGraphs.grid(25, 20, 21);
+        // Points of interest with tags, off the road network
+        graph.addNode(new Node(1, 34.005, -118.445, Map.of("name", "Café Über", "amenity", "cafe")));
+        graph.addNode(new Node(2, 34.006, -118.446, Map.of("name", "Corner Store", "shop", "convenience")));
+        original = graph.compact();
+    }
+
+    @Test
+    void testRoundTripPreservesGraph() throws IOException {
+        Path file = tempDir.resolve("graph.bin");
+        GraphSnapshot.write(original, file);
+        CsrGraph loaded = GraphSnapshot.load(file);
+
+        assertEquals(original.getFingerprint(), loaded.getFingerprint());
+        assertEquals(original.getNodeCount(), loaded.getNodeCount());
+        assertEquals(original.getEdgeCount(), loaded.getEdgeCount());
+        assertEquals(original.getConnectionCount(), loaded.getConnectionCount());
+        assertEquals(original.getMaxSpeedMph(), loaded.getMaxSpeedMph());
+        for (int i = 0; i < original.getNodeCount(); i++) {
+            // Snapshots keep the rounded coordinates the graph routes with
+            Node expected = new Node(original.getNode(i).id(), original.getLatitude(i), original.getLongitude(i),
+                                     original.getNode(i).tags());
+            assertEquals(expected, loaded.getNode(i));
+            assertEquals(original.getLatitude(i), loaded.getLatitude(i));
+            assertEquals(original.getLongitude(i), loaded.getLongitude(i));
+            assertEquals(i, loaded.indexOf(original.getNode(i).id()));
+            assertEquals(original.firstEdge(i), loaded.firstEdge(i));
+            assertEquals(original.firstInEdge(i), loaded.firstInEdge(i));
+        }
+        for (int e = 0; e < original.getEdgeCount(); e++) {
+            assertEquals(original.getTarget(e), loaded.getTarget(e));
+            assertEquals(original.getLengthMeters(e), loaded.getLengthMeters(e));
+            assertEquals(original.getSpeedMph(e), loaded.getSpeedMph(e));
+            assertEquals(original.getInEdge(e), loaded.getInEdge(e));
+            assertEquals(original.getInSource(e), loaded.getInSource(e));
+
+            Way expected = original.getWay(e);
+            Way actual = loaded.getWay(e);
+            assertEquals(expected.id(), actual.id());
+            assertEquals(expected.getTags(), actual.getTags());
+            assertEquals(expected.getNodeIds(), actual.getNodeIds());
+            assertEquals(expected.isOneWay(), actual.isOneWay());
+        }
+        assertEquals("Café Über", loaded.getNode(loaded.indexOf(1)).getTag("name"));
+    }
+
+    @Test
+    void testLoadedGraphRoutesLikeOriginal() throws IOException {
+        Path file = tempDir.resolve("graph.bin");
+        GraphSnapshot.write(original, file);
+        Graph loaded = new Graph(GraphSnapshot.load(file));
+        Graph reference = new Graph(original);
+
+        Random random = new Random(3);
+        List<Node> nodes = new ArrayList<>(reference.getNodes());
+        for (RouteMetric metric : RouteMetric.values()) {
+            BidirectionalDijkstraPathFinder expected = new BidirectionalDijkstraPathFinder(reference, metric);
+            BidirectionalDijkstraPathFinder actual = new BidirectionalDijkstraPathFinder(loaded, metric);
+            for (int i = 0; i < 20; i++) {
+                Node start = nodes.get(random.nextInt(nodes.size()));
+                Node end = nodes.get(random.nextInt(nodes.size()));
+                // Loaded nodes have rounded coordinates, so compare the paths by node id
+                assertEquals(ids(expected.findPath(start, end).path()), ids(actual.findPath(start, end).path()));
+            }
+        }
+    }
+
+    private static List<Long> ids(List<Node> path) {
+        return path == null ? null : path.stream().map(Node::id).toList();
+    }
+
+    @Test
+    void testRoundTripPreservesPointsOfInterest() throws IOException {
+        List<Node> pointsOfInterest = List.of(
+                new Node(1, 34.005, -118.445, Map.of("name", "Café Über", "amenity", "cafe")),
+                new Node(2, 34.006, -118.446, Map.of("name", "Corner Store", "shop", "convenience")));
+        Path file = tempDir.resolve("map.bin");
+        GraphSnapshot.write(new MapData(new Graph(original), pointsOfInterest), file);
+
+        MapData loaded = GraphSnapshot.loadMapData(file);
+
+        assertEquals(pointsOfInterest, loaded.pointsOfInterest());
+        assertEquals(original.getFingerprint(), loaded.graph().compact().getFingerprint());
+        assertEquals(original.getFingerprint(), GraphSnapshot.load(file).getFingerprint());
+
+        Path graphOnly = tempDir.resolve("graph.bin");
+        GraphSnapshot.write(original, graphOnly);
+        assertTrue(GraphSnapshot.loadMapData(graphOnly).pointsOfInterest().isEmpty());
+    }
+
+    @Test
+    void testRecordsSourceStamp() throws IOException {
+        Path nodes = Files.writeString(tempDir.resolve("nodes.json"), "[]");
+        Path ways = Files.writeString(tempDir.resolve("ways.json"), "[]");
+        List<URL> sources = List.of(nodes.toUri().toURL(), ways.toUri().toURL());
+        long stamp = GraphSnapshot.sourceStamp(sources);
+        Path file = tempDir.resolve("map.bin");
+        GraphSnapshot.write(new MapData(new Graph(original), List.of()), stamp, file);
+
+        assertEquals(stamp, GraphSnapshot.readSourceStamp(file));
+        assertEquals(original.getFingerprint(), GraphSnapshot.load(file).getFingerprint());
+
+        Files.writeString(ways, "[ ]");
+        assertNotEquals(stamp, GraphSnapshot.sourceStamp(sources), "A changed source changes the stamp");
+        GraphSnapshot.write(original, file);
+        assertEquals(GraphSnapshot.UNKNOWN_SOURCES, GraphSnapshot.readSourceStamp(file));
+        assertThrows(IOException.class, () -> GraphSnapshot.sourceStamp(List.of(tempDir.resolve("missing.json").toUri().toURL())));
+    }
+
+    @Test
+    void testRejectsInvalidFiles() throws IOException {
+        Path notSnapshot = tempDir.resolve("not-a-snapshot.bin");
+        Files.write(notSnapshot, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> GraphSnapshot.load(notSnapshot));
+        assertThrows(IOException.class, () -> GraphSnapshot.readSourceStamp(notSnapshot));
+
+        Path file = tempDir.resolve("graph.bin");
+        GraphSnapshot.write(original, file);
+        byte[] bytes = Files.readAllBytes(file);
+        Path truncated = tempDir.resolve("truncated.bin");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> GraphSnapshot.load(truncated));
+    }
+}
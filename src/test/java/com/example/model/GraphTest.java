@@ -92,6 +92,78 @@ class GraphTest {
         }
     }
 
+    @Nested
+    class CompactOperations {
+        @Test
+        void testParallelWaysKeepHighestSpeedLimit() {
+            Node start = new Node(1, 0.0, 0.0);
+            Node end = new Node(2, 0.001, 0.001);
+            Way slow = new Way(1L, start, end, Map.of("tags", Map.of("highway", "residential", "maxspeed_mph", "25"),
+                                                      "nodes", Arrays.asList(1L, 2L)));
+            Way fast = new Way(2L, start, end, Map.of("tags", Map.of("highway", "primary", "maxspeed_mph", "40"),
+                                                      "nodes", Arrays.asList(1L, 2L)));
+            Graph graph = new Graph(List.of(start, end), List.of(fast, slow));
+
+            assertEquals(fast, graph.getWay(start, end));
+            CsrGraph csr = graph.compact();
+            int edge = csr.findEdge(csr.indexOf(1), csr.indexOf(2));
+            assertEquals(40, csr.getSpeedMph(edge));
+            assertEquals(start.toCoordinates().distanceTo(end.toCoordinates()) * 1000, csr.getLengthMeters(edge), 1e-9);
+            assertEquals(csr.getLengthMeters(edge) / (40 * 0.44704), csr.getTravelTimeSeconds(edge), 1e-9);
+        }
+
+        @Test
+        void testRouteReadsEdgeAttributes() {
+            Node a = new Node(1, 0.0, 0.0);
+            Node b = new Node(2, 0.001, 0.0);
+            Node c = new Node(3, 0.001, 0.001);
+            Way first = new Way(1L, a, b, Map.of("tags", Map.of("highway", "residential", "maxspeed_mph", "25"),
+                                                 "nodes", Arrays.asList(1L, 2L)));
+            Way second = new Way(2L, b, c, Map.of("tags", Map.of("highway", "primary"),
+                                                  "nodes", Arrays.asList(2L, 3L)));
+            Graph graph = new Graph(List.of(a, b, c), List.of(first, second));
+            CsrGraph csr = graph.compact();
+
+            Route route = new Route(List.of(a, b, c), graph);
+            List<Map<String, Object>> segments = route.getRouteSegments();
+            assertEquals(25, segments.get(0).get("speedLimit"));
+            assertEquals(second.getSpeedLimitMph(), segments.get(1).get("speedLimit"));
+            double meters = csr.getLengthMeters(csr.findEdge(0, 1)) + csr.getLengthMeters(csr.findEdge(1, 2));
+            assertEquals(meters / 1000, route.getTotalDistance(), 1e-12);
+        }
+
+        @Test
+        void testOneWayStoredForwardOnly() {
+            Node start = new Node(1, 0.0, 0.0);
+            Node end = new Node(2, 0.001, 0.001);
+            Way way = new Way(1L, start, end, Map.of("tags", Map.of("highway", "residential", "oneway", "yes"),
+                                                     "nodes", Arrays.asList(1L, 2L)));
+            Graph graph = new Graph(List.of(start, end), List.of(way));
+
+            CsrGraph csr = graph.compact();
+            assertEquals(1, csr.getEdgeCount());
+            assertTrue(graph.getNeighbors(start).contains(end));
+            assertTrue(graph.getNeighbors(end).isEmpty());
+            assertNull(graph.getWay(end, start));
+        }
+
+        @Test
+        void testMutationAfterCompile() {
+            Node start = new Node(1, 0.0, 0.0);
+            Node end = new Node(2, 0.001, 0.001);
+            Graph graph = new Graph(List.of(start), List.of());
+            assertEquals(1, graph.compact().getNodeCount());
+
+            graph.addNode(end);
+            graph.addWay(new Way(1L, start, end, Map.of("tags", Map.of("highway", "residential"),
+                                                        "nodes", Arrays.asList(1L, 2L))));
+
+            assertEquals(2, graph.getNodeCount());
+            assertEquals(2, graph.compact().getEdgeCount());
+            assertTrue(graph.getNeighbors(end).contains(start));
+        }
+    }
+
     @Nested
     class NeighborOperations {
         @Test
@@ -0,0 +1,135 @@
+package com.example.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IsochroneTest {
+
+    @Test
+    void testContainsExactlyTheNodesWithinTheLimit() {
+        Graph graph = TestGraphs.grid(20, 20, 12);
+        Node origin = graph.getNodes().get(190);
+        double limit = 90;
+
+        Isochrone isochrone = new TravelTimeSearch(graph.compact()).isochrone(origin, limit);
+
+        FastestPathFinder reference = new FastestPathFinder(graph);
+        Set<Long> expected = new HashSet<>();
+        for (Node node : graph.getNodes()) {
+            List<Node> path = reference.findFastestPath(origin, node);
+            if (path != null && TestGraphs.pathCost(graph, path, RouteMetric.TIME) <= limit) {
+                expected.add(node.id());
+            }
+        }
+        Set<Long> actual = new HashSet<>();
+        for (int i = 0; i < isochrone.getNodeCount(); i++) {
+            actual.add(isochrone.getNode(i).id());
+            if (i > 0) {
+                assertTrue(isochrone.getTravelTimeSeconds(i) >= isochrone.getTravelTimeSeconds(i - 1));
+            }
+        }
+        assertEquals(expected, actual);
+        assertEquals(origin, isochrone.getNode(0));
+        assertEquals(0, isochrone.getTravelTimeSeconds(0));
+        assertTrue(expected.size() > 1 && expected.size() < graph.getNodeCount(), "The limit should cut the grid");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPolygonCoversEveryReachableNode() {
+        Graph graph = TestGraphs.grid(20, 20, 12);
+        Isochrone isochrone = new TravelTimeSearch(graph.compact()).isochrone(graph.getNodes().get(190), 90);
+
+        Map<String, Object> geoJson = isochrone.toGeoJson(50);
+
+        assertEquals("MultiPolygon", geoJson.get("type"));
+        List<List<List<double[]>>> polygons = (List<List<List<double[]>>>) geoJson.get("coordinates");
+        assertFalse(polygons.isEmpty());
+        for (List<List<double[]>> polygon : polygons) {
+            for (List<double[]> ring : polygon) {
+                assertArrayEquals(ring.get(0), ring.get(ring.size() - 1), "Rings must be closed");
+            }
+            assertTrue(signedArea(polygon.get(0)) > 0, "Outer rings run counterclockwise");
+        }
+        for (int i = 0; i < isochrone.getNodeCount(); i++) {
+            Node node = isochrone.getNode(i);
+            assertTrue(covers(polygons, node.lon(), node.lat()), "Node " + node.id() + " is outside the polygon");
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testLoopOfRoadsHasAHole() {
+        // A square of roads about 1.1 km across, with nothing inside
+        List<Node> nodes = new ArrayList<>();
+        double[][] corners = {{34.0, -118.4}, {34.0, -118.39}, {34.01, -118.39}, {34.01, -118.4}};
+        for (int i = 0; i < corners.length; i++) {
+            nodes.add(new Node(i + 1, corners[i][0], corners[i][1]));
+        }
+        List<Way> ways = new ArrayList<>();
+        for (int i = 0; i < corners.length; i++) {
+            long from = i + 1;
+            long to = (i + 1) % corners.length + 1;
+            ways.add(new Way(from, nodes.get(i), nodes.get((int) to - 1),
+                             Map.of("tags", Map.of("highway", "residential"), "nodes", List.of(from, to))));
+        }
+        Graph graph = new Graph(nodes, ways);
+
+        Isochrone isochrone = new TravelTimeSearch(graph.compact()).isochrone(nodes.get(0), 3600);
+        List<List<List<double[]>>> polygons = (List<List<List<double[]>>>) isochrone.toGeoJson(100).get("coordinates");
+
+        assertEquals(4, isochrone.getNodeCount());
+        assertEquals(1, polygons.size());
+        assertEquals(2, polygons.get(0).size(), "Expected an outer ring and a hole");
+        assertTrue(signedArea(polygons.get(0).get(1)) < 0, "Holes run clockwise");
+        assertFalse(covers(polygons, -118.395, 34.005), "The middle of the square is not reachable");
+        assertTrue(covers(polygons, -118.395, 34.0), "The roads are reachable");
+    }
+
+    @Test
+    void testRejectsNegativeLimit() {
+        Graph graph = TestGraphs.grid(3, 3, 1);
+        TravelTimeSearch search = new TravelTimeSearch(graph.compact());
+        assertThrows(IllegalArgumentException.class, () -> search.isochrone(graph.getNodes().get(0), -1));
+    }
+
+    private static double signedArea(List<double[]> ring) {
+        double sum = 0;
+        for (int i = 0; i < ring.size() - 1; i++) {
+            sum += ring.get(i)[0] * ring.get(i + 1)[1] - ring.get(i + 1)[0] * ring.get(i)[1];
+        }
+        return sum / 2;
+    }
+
+    private static boolean covers(List<List<List<double[]>>> polygons, double x, double y) {
+        for (List<List<double[]>> polygon : polygons) {
+            boolean inside = contains(polygon.get(0), x, y);
+            for (int hole = 1; hole < polygon.size(); hole++) {
+                inside &= !contains(polygon.get(hole), x, y);
+            }
+            if (inside) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(List<double[]> ring, double x, double y) {
+        boolean inside = false;
+        for (int i = 0, j = ring.size() - 1; i < ring.size(); j = i++) {
+            double[] a = ring.get(i);
+            double[] b = ring.get(j);
+            if ((a[1] > y) != (b[1] > y) && x < (b[0] - a[0]) * (y - a[1]) / (b[1] - a[1]) + a[0]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+}
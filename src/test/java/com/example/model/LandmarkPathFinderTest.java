@@ -0,0 +1,57 @@
+package com.example.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Landmark-specific checks; that routes match Dijkstra's is checked for every algorithm in
+ * RouteStrategyContractTest.
+ */
+class LandmarkPathFinderTest {
+
+    private Graph graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = TestGraphs.grid(25, 25, 5);
+    }
+
+    @ParameterizedTest
+    @EnumSource(RouteMetric.class)
+    void testSettlesFewerNodesThanDijkstra(RouteMetric metric) {
+        DijkstraPathFinder reference = new DijkstraPathFinder(graph, metric);
+        CsrGraph csr = graph.compact();
+        LandmarkPathFinder finder = new LandmarkPathFinder(csr, LandmarkTable.build(csr, metric, 8));
+        Random random = new Random(13);
+        List<Node> nodes = graph.getNodes();
+        long referenceSettled = 0;
+        long landmarkSettled = 0;
+
+        for (int i = 0; i < 80; i++) {
+            Node start = nodes.get(random.nextInt(nodes.size()));
+            Node end = nodes.get(random.nextInt(nodes.size()));
+            referenceSettled += reference.findPath(start, end).settledNodes();
+            landmarkSettled += finder.findPath(start, end).settledNodes();
+        }
+        assertTrue(landmarkSettled * 2 < referenceSettled,
+                   "Landmarks settled " + landmarkSettled + " nodes, Dijkstra " + referenceSettled);
+    }
+
+    @Test
+    void testRejectsTableOfAnotherGraph() {
+        CsrGraph other = TestGraphs.grid(5, 5, 1).compact();
+        LandmarkTable table = LandmarkTable.build(other, RouteMetric.DISTANCE, 2);
+
+        assertFalse(table.matches(graph.compact(), RouteMetric.DISTANCE));
+        assertFalse(table.matches(other, RouteMetric.TIME));
+        assertThrows(IllegalArgumentException.class, () -> new LandmarkPathFinder(graph.compact(), table));
+        assertThrows(IllegalArgumentException.class, () -> LandmarkTable.build(other, RouteMetric.DISTANCE, 0));
+    }
+}
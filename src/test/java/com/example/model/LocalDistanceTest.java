@@ -0,0 +1,72 @@
+package com.example.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalDistanceTest {
+
+    @Test
+    void testAgreesWithHaversine() {
+        Random random = new Random(17);
+        for (int i = 0; i < 100_000; i++) {
+            double lat = (random.nextDouble() * 2 - 1) * 75;
+            double lon = (random.nextDouble() * 2 - 1) * 179;
+            // Mostly short distances, as in spatial queries, with some beyond the local range
+            double spread = Math.pow(random.nextDouble(), 3) * 0.5;
+            double otherLat = lat + (random.nextDouble() * 2 - 1) * spread;
+            double otherLon = lon + (random.nextDouble() * 2 - 1) * spread / Math.cos(Math.toRadians(lat));
+
+            double expected = Coordinates.haversineKm(lat, lon, otherLat, otherLon);
+            double actual = new LocalDistance(lat, lon).km(otherLat, otherLon);
+            assertEquals(expected, actual, expected * LocalDistance.TOLERANCE + 1e-12,
+                         "From " + lat + "," + lon + " to " + otherLat + "," + otherLon);
+        }
+    }
+
+    @Test
+    void testRadiusChecksMatchHaversineExactly() {
+        Random random = new Random(23);
+        LocalDistance from = new LocalDistance(34.05, -118.25);
+        for (int i = 0; i < 10_000; i++) {
+            double lat = 34.05 + (random.nextDouble() * 2 - 1) * 0.05;
+            double lon = -118.25 + (random.nextDouble() * 2 - 1) * 0.05;
+            double haversine = Coordinates.haversineKm(34.05, -118.25, lat, lon);
+            // Radii right at the point's distance are the ones the approximation can't decide
+            double radius = haversine * (1 + (random.nextDouble() * 2 - 1) * 1e-6);
+            assertEquals(haversine <= radius, from.isWithin(lat, lon, radius));
+        }
+        assertTrue(from.isWithin(34.05, -118.25, 0));
+    }
+
+    @Test
+    void testEquirectangularBoundNeverExceedsGreatCircle() {
+        CsrGraph graph = TestGraphs.grid(20, 20, 8).compact();
+        Random random = new Random(5);
+        for (int i = 0; i < 10_000; i++) {
+            int a = random.nextInt(graph.getNodeCount());
+            int b = random.nextInt(graph.getNodeCount());
+            double bound = Coordinates.equirectangularKm(graph.getLatitude(a), graph.getLongitude(a),
+                    graph.getLatitude(b), graph.getLongitude(b), graph.getMinCosLatitude());
+            double exact = Coordinates.haversineKm(graph.getLatitude(a), graph.getLongitude(a),
+                    graph.getLatitude(b), graph.getLongitude(b));
+            assertTrue(bound <= exact * (1 + 1e-12), bound + " exceeds " + exact);
+        }
+    }
+
+    @Test
+    void testFixedPointCoordinates() {
+        assertEquals(34.0522342, Coordinates.fromFixedPoint(Coordinates.toFixedPoint(34.0522342)));
+        assertEquals(-118.2436849, Coordinates.fromFixedPoint(Coordinates.toFixedPoint(-118.2436849)));
+        assertEquals(-1_800_000_000, Coordinates.toFixedPoint(-180));
+
+        Node node = new Node(1, 34.012345678, -118.4, Map.of());
+        CsrGraph csr = new Graph(List.of(node), List.of()).compact();
+        assertEquals(34.0123457, csr.getLatitude(0));
+        assertSame(node, csr.getNode(0), "Nodes are kept as given, only the routing arrays are rounded");
+    }
+}
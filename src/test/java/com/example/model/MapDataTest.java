@@ -0,0 +1,70 @@
+package com.example.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapDataTest {
+
+    private static final Node ROAD_START = new Node(1, 34.0, -118.4, Map.of("highway", "traffic_signals"));
+    private static final Node ROAD_END = new Node(2, 34.001, -118.4);
+    /** A shop that is also a vertex of the road. */
+    private static final Node SHOP_ON_ROAD = new Node(3, 34.002, -118.4, Map.of("shop", "bakery", "name", "Crumbs"));
+    private static final Node CAFE = new Node(4, 34.0015, -118.401, Map.of("amenity", "cafe", "name", "Beans"));
+    private static final Node FOOTPATH_NODE = new Node(5, 34.003, -118.4);
+    private static final Node STRAY = new Node(6, 34.004, -118.4, Map.of("name", "Unnamed landmark"));
+
+    private static final Way ROAD = new Way(10L, ROAD_START, SHOP_ON_ROAD,
+            Map.of("tags", Map.of("highway", "residential"), "nodes", List.of(1L, 2L, 3L)));
+    private static final Way FOOTPATH = new Way(11L, SHOP_ON_ROAD, FOOTPATH_NODE,
+            Map.of("tags", Map.of("highway", "footway"), "nodes", List.of(3L, 5L)));
+
+    @Test
+    void testSplitsRoadsFromPointsOfInterest() {
+        MapData.Builder builder = new MapData.Builder();
+        List.of(ROAD_START, ROAD_END, SHOP_ON_ROAD, CAFE, FOOTPATH_NODE, STRAY).forEach(builder::addNode);
+        builder.addWay(ROAD);
+        builder.addWay(FOOTPATH);
+        MapData data = builder.build();
+
+        CsrGraph graph = data.graph().compact();
+        assertEquals(3, graph.getNodeCount(), "Only nodes of routable ways are kept");
+        for (long id : List.of(1L, 2L, 3L)) {
+            int index = graph.indexOf(id);
+            assertTrue(index >= 0);
+            assertTrue(graph.getNode(index).tags().isEmpty(), "Road nodes carry no tags");
+        }
+        assertEquals(1, graph.getWayTableSize());
+        assertEquals(List.of(SHOP_ON_ROAD, CAFE), data.pointsOfInterest());
+    }
+
+    @Test
+    void testWaysMayArriveBeforeNodes() {
+        MapData.Builder builder = new MapData.Builder();
+        builder.addWay(ROAD);
+        List.of(ROAD_START, ROAD_END, SHOP_ON_ROAD, CAFE).forEach(builder::addNode);
+        MapData data = builder.build();
+
+        CsrGraph graph = data.graph().compact();
+        assertEquals(3, graph.getNodeCount());
+        assertEquals(34.001, graph.getLatitude(graph.indexOf(2)));
+        assertEquals(2, data.pointsOfInterest().size());
+    }
+
+    @Test
+    void testNodesAfterWaysAreFilteredAsTheyArrive() {
+        MapData.Builder builder = new MapData.Builder();
+        builder.addWay(ROAD);
+        builder.addWay(FOOTPATH);
+        List.of(ROAD_START, ROAD_END, SHOP_ON_ROAD, CAFE, FOOTPATH_NODE, STRAY).forEach(builder::addNode);
+
+        assertThrows(IllegalStateException.class, () -> builder.addWay(ROAD),
+                     "Nodes already dropped could be referenced by a later way");
+        MapData data = builder.build();
+        assertEquals(3, data.graph().compact().getNodeCount());
+        assertEquals(List.of(SHOP_ON_ROAD, CAFE), data.pointsOfInterest());
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelGraphBuilderTest {
+    private static final String[] HIGHWAY_TYPES = {"residential", "tertiary", "primary", "motorway", "footway", "service"};
+
+    private List<Node> nodes;
+    private List<Way> ways;
+
+    /**
+     * Random ways over 3000 node ids, of which only some have nodes, with repeated node
+     * segments, duplicate node ids and a few single-node ways, so every special case of the
+     * sequential build is hit.
+     */
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(5);
+        nodes = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            long id = 1 + random.nextInt(3000);
+            nodes.add(new Node(id, 34.0 + random.nextDouble() * 0.1, -118.5 + random.nextDouble() * 0.1));
+        }
+        ways = new ArrayList<>();
+        for (long wayId = 1; wayId <= 6000; wayId++) {
+            int length = random.nextInt(20) == 0 ? 1 : 2 + random.nextInt(5);
+            List<Long> nodeIds = new ArrayList<>();
+            for (int i = 0; i < length; i++) {
+                nodeIds.add(1L + random.nextInt(3000));
+            }
+            Map<String, String> tags = new HashMap<>();
+            tags.put("highway", HIGHWAY_TYPES[random.nextInt(HIGHWAY_TYPES.length)]);
+            if (random.nextInt(4) == 0) {
+                tags.put("oneway", "yes");
+            }
+            if (random.nextInt(6) == 0) {
+                tags.put("maxspeed_mph", String.valueOf(15 + 5 * random.nextInt(8)));
+            }
+            Map<String, Object> data = new HashMap<>();
+            data.put("id", wayId);
+            data.put("nodes", nodeIds);
+            data.put("tags", tags);
+            ways.add(new Way(wayId, new Node(nodeIds.get(0), 0, 0), new Node(nodeIds.get(length - 1), 0, 0), data));
+        }
+    }
+
+    private CsrGraph buildSequentially() {
+        Graph graph = new Graph();
+        nodes.forEach(graph::addNode);
+        ways.forEach(graph::addWay);
+        return graph.compact();
+    }
+
+    @Test
+    void testMatchesSequentialBuild() {
+        CsrGraph expected = buildSequentially();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertSameGraph(expected, new ParallelGraphBuilder(pool).build(nodes, ways));
+        } finally {
+            pool.shutdown();
+        }
+        assertSameGraph(expected, new ParallelGraphBuilder().build(nodes, ways));
+        assertSameGraph(expected, new Graph(nodes, ways).compact());
+    }
+
+    @Test
+    void testEmptyInput() {
+        CsrGraph graph = new ParallelGraphBuilder().build(List.of(), List.of());
+        assertEquals(0, graph.getNodeCount());
+        assertEquals(0, graph.getEdgeCount());
+    }
+
+    private static void assertSameGraph(CsrGraph expected, CsrGraph actual) {
+        assertEquals(expected.getNodeCount(), actual.getNodeCount());
+        assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+        assertEquals(expected.getWayTableSize(), actual.getWayTableSize());
+        for (int u = 0; u < expected.getNodeCount(); u++) {
+            assertEquals(expected.getNode(u), actual.getNode(u));
+            assertEquals(expected.firstEdge(u), actual.firstEdge(u));
+        }
+        for (int e = 0; e < expected.getEdgeCount(); e++) {
+            assertEquals(expected.getTarget(e), actual.getTarget(e));
+            assertEquals(expected.getWayIndex(e), actual.getWayIndex(e));
+            assertEquals(expected.getSpeedMph(e), actual.getSpeedMph(e));
+        }
+        for (int w = 0; w < expected.getWayTableSize(); w++) {
+            assertSame(expected.getWayAt(w), actual.getWayAt(w));
+        }
+        assertEquals(expected.getFingerprint(), actual.getFingerprint());
+    }
+}
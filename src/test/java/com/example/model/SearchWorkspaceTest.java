@@ -0,0 +1,83 @@
+package com.example.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchWorkspaceTest {
+
+    @Test
+    void testPollsInKeyOrderWithDecreaseKey() {
+        SearchWorkspace workspace = new SearchWorkspace(500);
+        Random random = new Random(9);
+        Map<Integer, Double> best = new HashMap<>();
+        for (int i = 0; i < 3000; i++) {
+            int node = random.nextInt(500);
+            double distance = random.nextDouble() * 1000;
+            boolean improved = workspace.relax(node, distance, -1, distance);
+            Double previous = best.get(node);
+            assertEquals(previous == null || distance < previous, improved);
+            if (improved) {
+                best.put(node, distance);
+            }
+        }
+
+        double last = Double.NEGATIVE_INFINITY;
+        int polled = 0;
+        while (!workspace.isEmpty()) {
+            double key = workspace.peekKey();
+            int node = workspace.poll();
+            assertEquals(best.get(node), key);
+            assertEquals(best.get(node), workspace.distance(node));
+            assertTrue(key >= last);
+            assertTrue(workspace.isSettled(node));
+            last = key;
+            polled++;
+        }
+        assertEquals(best.size(), polled);
+        assertEquals(polled, workspace.settledCount());
+        // Settled nodes keep their distance
+        int settled = best.keySet().iterator().next();
+        assertFalse(workspace.relax(settled, -1, -1, -1));
+    }
+
+    @Test
+    void testResetForgetsPreviousSearch() {
+        SearchWorkspace workspace = new SearchWorkspace(10);
+        workspace.relax(3, 5.0, 2, 5.0);
+        workspace.relax(4, 7.0, 3, 7.0);
+        workspace.poll();
+
+        workspace.reset();
+        assertTrue(workspace.isEmpty());
+        assertEquals(0, workspace.settledCount());
+        assertEquals(Double.POSITIVE_INFINITY, workspace.distance(3));
+        assertEquals(-1, workspace.parent(4));
+        assertFalse(workspace.isSettled(3));
+        assertTrue(workspace.relax(3, 9.0, -1, 9.0));
+        assertEquals(3, workspace.poll());
+    }
+
+    @Test
+    void testPooledWorkspacesAreResetAndLargeEnough() {
+        SearchWorkspace first = SearchWorkspace.acquire(100);
+        SearchWorkspace second = SearchWorkspace.acquire(100);
+        assertNotSame(first, second);
+        first.relax(1, 1.0, -1, 1.0);
+        first.close();
+        second.close();
+
+        try (SearchWorkspace again = SearchWorkspace.acquire(50)) {
+            assertTrue(again.capacity() >= 50);
+            assertTrue(again.isEmpty());
+            assertEquals(Double.POSITIVE_INFINITY, again.distance(1));
+        }
+        try (SearchWorkspace larger = SearchWorkspace.acquire(200)) {
+            assertTrue(larger.capacity() >= 200);
+        }
+    }
+}
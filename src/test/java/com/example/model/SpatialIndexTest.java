@@ -0,0 +1,148 @@
+package com.example.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpatialIndexTest {
+
+    private Graph graph;
+    private CsrGraph csr;
+
+    @BeforeEach
+    void setUp() {
+        graph = TestGraphs.grid(40, 30, 9);
+        csr = graph.compact();
+    }
+
+    @Test
+    void testNearestNodesMatchBruteForce() {
+        SpatialIndex index = csr.getSpatialIndex();
+        Random random = new Random(2);
+
+        for (int i = 0; i < 200; i++) {
+            // Includes points outside the network's bounding box
+            double lat = 33.98 + random.nextDouble() * 0.07;
+            double lon = -118.47 + random.nextDouble() * 0.08;
+            int k = 1 + random.nextInt(6);
+
+            assertArrayEquals(bruteForce(lat, lon, k, Double.POSITIVE_INFINITY),
+                              index.nearestNodes(lat, lon, k, Double.POSITIVE_INFINITY),
+                              "k=" + k + " at " + lat + "," + lon);
+        }
+    }
+
+    @Test
+    void testRespectsMaxDistance() {
+        SpatialIndex index = csr.getSpatialIndex();
+        double lat = 34.012;
+        double lon = -118.43;
+
+        int[] nearby = index.nearestNodes(lat, lon, 50, 0.2);
+        assertArrayEquals(bruteForce(lat, lon, 50, 0.2), nearby);
+        for (int node : nearby) {
+            assertTrue(Coordinates.haversineKm(lat, lon, csr.getLatitude(node), csr.getLongitude(node)) <= 0.2);
+        }
+        assertEquals(-1, index.nearestNode(35.0, -118.43, 1.0));
+    }
+
+    @Test
+    void testNearestEdgeMatchesBruteForce() {
+        SpatialIndex index = csr.getSpatialIndex();
+        Random random = new Random(4);
+
+        for (int i = 0; i < 100; i++) {
+            double lat = 33.99 + random.nextDouble() * 0.05;
+            double lon = -118.46 + random.nextDouble() * 0.06;
+            EdgeSnap snap = index.nearestEdge(lat, lon, Double.POSITIVE_INFINITY);
+
+            assertNotNull(snap);
+            assertEquals(snap.source(), sourceOf(snap.edge()));
+            assertTrue(snap.fraction() >= 0 && snap.fraction() <= 1);
+            assertEquals(Coordinates.haversineKm(lat, lon, snap.latitude(), snap.longitude()), snap.distanceKm(), 1e-12);
+            assertEquals(bruteForceNearestEdgeDistance(lat, lon), snap.distanceKm(), 1e-6);
+        }
+    }
+
+    @Test
+    void testNearestEdgeRespectsMaxDistance() {
+        assertNull(csr.getSpatialIndex().nearestEdge(35.0, -118.43, 1.0));
+    }
+
+    @Test
+    void testSkipsNodesWithoutOutgoingEdges() {
+        Node a = new Node(1, 34.0, -118.4);
+        Node b = new Node(2, 34.001, -118.4);
+        Node isolated = new Node(3, 34.0005, -118.4);
+        Way oneWay = new Way(1L, a, b, Map.of("tags", Map.of("highway", "residential", "oneway", "yes"),
+                                              "nodes", List.of(1L, 2L)));
+        Graph small = new Graph(List.of(a, b, isolated), List.of(oneWay));
+
+        // b is a dead end of a one-way street and the isolated node has no edges at all
+        assertEquals(1, small.compact().getSpatialIndex().size());
+        assertEquals(a, small.findNearestRelevantNode(new Coordinates(34.001, -118.4)));
+        assertEquals(List.of(a), small.findNearestRelevantNodes(new Coordinates(34.001, -118.4), 3, 10));
+    }
+
+    @Test
+    void testEmptyGraph() {
+        Graph empty = new Graph();
+        assertNull(empty.findNearestRelevantNode(new Coordinates(34.0, -118.4)));
+        assertTrue(empty.findNearestRelevantNodes(new Coordinates(34.0, -118.4), 5, 10).isEmpty());
+    }
+
+    private int sourceOf(int edge) {
+        for (int node = 0; node < csr.getNodeCount(); node++) {
+            if (edge >= csr.firstEdge(node) && edge < csr.lastEdge(node)) {
+                return node;
+            }
+        }
+        throw new AssertionError("No source for edge " + edge);
+    }
+
+    /**
+     * Finds the distance to the closest point of any edge by projecting the query point onto
+     * each segment in an equirectangular projection centred on it, the clamped dot product
+     * giving the closest point of the segment.
+     */
+    private double bruteForceNearestEdgeDistance(double lat, double lon) {
+        double cosLat = Math.cos(Math.toRadians(lat));
+        double best = Double.POSITIVE_INFINITY;
+        for (int node = 0; node < csr.getNodeCount(); node++) {
+            for (int edge = csr.firstEdge(node); edge < csr.lastEdge(node); edge++) {
+                int target = csr.getTarget(edge);
+                double ax = (csr.getLongitude(node) - lon) * cosLat;
+                double ay = csr.getLatitude(node) - lat;
+                double dx = (csr.getLongitude(target) - csr.getLongitude(node)) * cosLat;
+                double dy = csr.getLatitude(target) - csr.getLatitude(node);
+                double lengthSquared = dx * dx + dy * dy;
+                double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, -(ax * dx + ay * dy) / lengthSquared));
+                double closestLat = csr.getLatitude(node) + t * dy;
+                double closestLon = csr.getLongitude(node) + t * (csr.getLongitude(target) - csr.getLongitude(node));
+                best = Math.min(best, Coordinates.haversineKm(lat, lon, closestLat, closestLon));
+            }
+        }
+        return best;
+    }
+
+    private int[] bruteForce(double lat, double lon, int k, double maxDistanceKm) {
+        Comparator<Integer> byDistance = Comparator.<Integer>comparingDouble(
+                node -> Coordinates.haversineKm(lat, lon, csr.getLatitude(node), csr.getLongitude(node)))
+                .thenComparingInt(node -> node);
+        return IntStream.range(0, csr.getNodeCount())
+                .filter(node -> csr.getOutDegree(node) > 0)
+                .filter(node -> Coordinates.haversineKm(lat, lon, csr.getLatitude(node), csr.getLongitude(node)) <= maxDistanceKm)
+                .boxed()
+                .sorted(byDistance)
+                .limit(k)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+}
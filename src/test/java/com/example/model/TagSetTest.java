@@ -0,0 +1,102 @@
+package com.example.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TagSetTest {
+
+    @Test
+    void testBehavesLikeTheMapItWasMadeFrom() {
+        Map<String, String> tags = new HashMap<>(Map.of("highway", "residential", "name", "Main Street", "oneway", "yes"));
+        TagSet tagSet = TagSet.of(tags);
+
+        assertEquals(tags, tagSet);
+        assertEquals(tagSet, tags);
+        assertEquals(tags.hashCode(), tagSet.hashCode());
+        assertEquals("residential", tagSet.get("highway"));
+        assertNull(tagSet.get("maxspeed"));
+        assertTrue(tagSet.containsKey("oneway"));
+        assertEquals(3, tagSet.size());
+        assertThrows(UnsupportedOperationException.class, () -> tagSet.put("maxspeed", "25 mph"));
+    }
+
+    @Test
+    void testIdenticalTagsShareOneInstance() {
+        Map<String, String> first = new LinkedHashMap<>();
+        first.put("highway", "primary");
+        first.put("oneway", "yes");
+        Map<String, String> second = new LinkedHashMap<>();
+        second.put("oneway", new String("yes"));
+        second.put("highway", new String("primary"));
+
+        TagSet.Interner interner = new TagSet.Interner();
+        TagSet tagSet = interner.intern(first);
+        assertSame(tagSet, interner.intern(second), "Insertion order must not matter");
+        assertSame(tagSet, interner.intern(tagSet));
+        assertSame(tagSet, interner.intern(TagSet.of(second)));
+        assertNotSame(tagSet, new TagSet.Interner().intern(second), "Each load has its own interner");
+        assertSame(tagSet, TagSet.of(tagSet));
+        assertEquals(tagSet, TagSet.of(second));
+        assertSame(TagSet.EMPTY, TagSet.of(Map.of()));
+        assertSame(TagSet.EMPTY, TagSet.of(null));
+        assertSame(TagSet.EMPTY, interner.intern(Map.of()));
+    }
+
+    @Test
+    void testFreeTextValuesAreNotInterned() {
+        TagSet.Interner interner = new TagSet.Interner();
+        TagSet a = interner.intern(Map.of("name", new String("Pico Boulevard"), "highway", new String("secondary")));
+        TagSet b = interner.intern(Map.of("name", new String("Pico Boulevard"), "highway", new String("secondary"),
+                                          "addr:street", new String("Pico Boulevard")));
+
+        assertSame(a.get("highway"), b.get("highway"));
+        assertNotSame(a.get("name"), b.get("name"));
+        assertNotSame(b.get("name"), b.get("addr:street"));
+        // highway, secondary and name, plus addr:street
+        assertEquals(4, interner.stringCount());
+        assertTrue(TagSet.Interner.isFreeText("name:es"));
+        assertTrue(TagSet.Interner.isFreeText("opening_hours"));
+        assertFalse(TagSet.Interner.isFreeText("amenity"));
+    }
+
+    @Test
+    void testStoresNonStringValuesAsStrings() {
+        Map<String, Object> tags = new HashMap<>();
+        tags.put("maxspeed_mph", 35);
+        tags.put("note", null);
+
+        TagSet tagSet = TagSet.of(tags);
+
+        assertEquals(Map.of("maxspeed_mph", "35"), tagSet);
+    }
+
+    @Test
+    void testNodesAndWaysShareTagSets() {
+        Node a = new Node(1, 34.0, -118.4, new HashMap<>(Map.of("amenity", "cafe")));
+        Node b = new Node(2, 34.1, -118.4, Map.of("amenity", "cafe"));
+        MapData.Builder builder = new MapData.Builder();
+        builder.addNode(a);
+        builder.addNode(b);
+        List<Node> pointsOfInterest = builder.build().pointsOfInterest();
+        assertSame(pointsOfInterest.get(0).tags(), pointsOfInterest.get(1).tags());
+        assertThrows(IllegalStateException.class, () -> builder.addNode(a), "The interner is gone after build");
+        assertSame(TagSet.EMPTY, new Node(3, 34.0, -118.4).tags());
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("nodes", List.of(1L, 2L));
+        data.put("tags", new HashMap<>(Map.of("highway", "residential", "name", "Main Street")));
+        Way way = new Way(10L, a, b, data);
+        Way segment = way.withNodes(b, a);
+
+        assertInstanceOf(TagSet.class, way.getTags());
+        assertSame(way.getTags(), segment.getTags());
+        assertEquals("residential", way.getHighwayType());
+        assertThrows(UnsupportedOperationException.class, () -> way.data().put("tags", Map.of()));
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Builds reproducible road graphs for routing tests.
+ *
+ * Unlike TestDataGenerator, these graphs mix highway types (and therefore speed limits)
+ * and contain one-way streets, so the shortest and fastest routes usually differ.
+ */
+public final class TestGraphs {
+    private static final String[] HIGHWAY_TYPES = {"residential", "residential", "tertiary", "secondary", "primary", "motorway"};
+
+    private TestGraphs() {}
+
+    /**
+     * Creates a jittered grid of roads around West LA.
+     *
+     * @param width Number of nodes per row
+     * @param height Number of rows
+     * @param seed Random seed, so that failures are reproducible
+     * @return The graph
+     */
+    public static Graph grid(int width, int height, long seed) {
+        return grid(width, height, 0, seed);
+    }
+
+    /**
+     * Creates a jittered grid of roads whose every block is drawn with intermediate shape
+     * points, the way OSM ways are.
+     *
+     * @param width Number of intersections per row
+     * @param height Number of rows
+     * @param shapePoints Number of shape points between neighboring intersections
+     * @param seed Random seed; with no shape points the graph equals {@link #grid(int, int, long)}
+     * @return The graph
+     */
+    public static Graph grid(int width, int height, int shapePoints, long seed) {
+        Random random = new Random(seed);
+        List<Node> nodes = new ArrayList<>();
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                double lat = 34.0 + row * 0.001 + random.nextDouble() * 0.0004;
+                double lon = -118.45 + col * 0.001 + random.nextDouble() * 0.0004;
+                nodes.add(new Node(id(row, col, width), lat, lon));
+            }
+        }
+
+        List<Way> ways = new ArrayList<>();
+        long wayId = 1;
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                if (col + 1 < width && random.nextDouble() < 0.9) {
+                    ways.add(way(wayId++, nodes, id(row, col, width), id(row, col + 1, width), random));
+                }
+                if (row + 1 < height && random.nextDouble() < 0.9) {
+                    ways.add(way(wayId++, nodes, id(row, col, width), id(row + 1, col, width), random));
+                }
+            }
+        }
+        return new Graph(nodes, shapePoints == 0 ? ways : withShapePoints(nodes, ways, shapePoints));
+    }
+
+    private static List<Way> withShapePoints(List<Node> nodes, List<Way> ways, int shapePoints) {
+        List<Way> shaped = new ArrayList<>();
+        long nextId = 1000L + nodes.size();
+        for (Way way : ways) {
+            Node start = way.startNode();
+            Node end = way.endNode();
+            List<Long> ids = new ArrayList<>();
+            ids.add(start.id());
+            for (int i = 1; i <= shapePoints; i++) {
+                double fraction = (double) i / (shapePoints + 1);
+                // Bend the road a little so that the shape points are not collinear
+                double offset = (i % 2 == 0 ? 1 : -1) * 0.00005;
+                Node point = new Node(nextId++, start.lat() + (end.lat() - start.lat()) * fraction + offset,
+                                      start.lon() + (end.lon() - start.lon()) * fraction + offset);
+                nodes.add(point);
+                ids.add(point.id());
+            }
+            ids.add(end.id());
+            Map<String, Object> data = new HashMap<>(way.data());
+            data.put("nodes", ids);
+            shaped.add(new Way(way.id(), start, end, data));
+        }
+        return shaped;
+    }
+
+    private static long id(int row, int col, int width) {
+        return 1000L + (long) row * width + col;
+    }
+
+    private static Way way(long wayId, List<Node> nodes, long from, long to, Random random) {
+        boolean forward = random.nextBoolean();
+        long first = forward ? from : to;
+        long second = forward ? to : from;
+        Map<String, String> tags = new HashMap<>();
+        tags.put("highway", HIGHWAY_TYPES[random.nextInt(HIGHWAY_TYPES.length)]);
+        if (random.nextDouble() < 0.2) {
+            tags.put("oneway", "yes");
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", wayId);
+        data.put("nodes", List.of(first, second));
+        data.put("tags", tags);
+        Node start = nodes.get((int) (first - 1000));
+        Node end = nodes.get((int) (second - 1000));
+        return new Way(wayId, start, end, data);
+    }
+
+    /**
+     * Sums the weight of a path's edges under a metric.
+     *
+     * @param graph The graph the path was found in
+     * @param path The path nodes
+     * @param metric The metric to measure the path with
+     * @return The path cost
+     */
+    public static double pathCost(Graph graph, List<Node> path, RouteMetric metric) {
+        CsrGraph csr = graph.compact();
+        double cost = 0;
+        for (int i = 0; i < path.size() - 1; i++) {
+            int edge = csr.findEdge(csr.indexOf(path.get(i).id()), csr.indexOf(path.get(i + 1).id()));
+            if (edge < 0) {
+                throw new IllegalArgumentException("Path uses a missing edge at position " + i);
+            }
+            cost += metric.weight(csr, edge);
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TravelTimeMatrixCalculatorTest {
+
+    private Graph graph;
+    private CsrGraph csr;
+    private List<Node> origins;
+    private List<Node> destinations;
+
+    @BeforeEach
+    void setUp() {
+        graph = TestGraphs.grid(25, 25, 4);
+        csr = graph.compact();
+        Random random = new Random(8);
+        List<Node> nodes = graph.getNodes();
+        origins = new ArrayList<>();
+        destinations = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            origins.add(nodes.get(random.nextInt(nodes.size())));
+        }
+        for (int i = 0; i < 15; i++) {
+            destinations.add(nodes.get(random.nextInt(nodes.size())));
+        }
+        // An origin that is also a destination
+        destinations.add(origins.get(0));
+    }
+
+    /**
+     * Checks every cell against a point-to-point fastest route.
+     */
+    private void assertMatchesRoutes(TravelTimeMatrix matrix) {
+        DijkstraPathFinder reference = new DijkstraPathFinder(graph, RouteMetric.TIME);
+        for (int row = 0; row < origins.size(); row++) {
+            for (int column = 0; column < destinations.size(); column++) {
+                List<Node> path = reference.findShortestPath(origins.get(row), destinations.get(column));
+                assertEquals(path != null, matrix.isReachable(row, column), "Reachability differs at " + row + ", " + column);
+                if (path != null) {
+                    assertEquals(TestGraphs.pathCost(graph, path, RouteMetric.TIME),
+                                 matrix.getTravelTimeSeconds(row, column), 1e-6);
+                    assertEquals(TestGraphs.pathCost(graph, path, RouteMetric.DISTANCE),
+                                 matrix.getDistanceMeters(row, column), 1e-6);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testOneToManyMatchesRoutes() {
+        TravelTimeMatrix matrix = new TravelTimeMatrixCalculator(csr).calculate(origins, destinations);
+        assertEquals(origins.size(), matrix.getOriginCount());
+        assertEquals(destinations.size(), matrix.getDestinationCount());
+        assertMatchesRoutes(matrix);
+        assertEquals(0, matrix.getTravelTimeSeconds(0, destinations.size() - 1));
+    }
+
+    @Test
+    void testManyToManyOnHierarchyMatchesRoutes() {
+        ContractionHierarchy hierarchy = ContractionHierarchyBuilder.build(csr, RouteMetric.TIME);
+        TravelTimeMatrix matrix = new TravelTimeMatrixCalculator(csr, hierarchy).calculate(origins, destinations);
+        assertMatchesRoutes(matrix);
+        assertEquals(0, matrix.getTravelTimeSeconds(0, destinations.size() - 1));
+    }
+
+    @Test
+    void testMissingPointsAreUnreachable() {
+        ContractionHierarchy hierarchy = ContractionHierarchyBuilder.build(csr, RouteMetric.TIME);
+        List<Node> from = Arrays.asList(origins.get(0), null, new Node(-5, 34.0, -118.4));
+        List<Node> to = Arrays.asList(destinations.get(0), null);
+        for (TravelTimeMatrixCalculator calculator : List.of(new TravelTimeMatrixCalculator(csr),
+                                                             new TravelTimeMatrixCalculator(csr, hierarchy))) {
+            TravelTimeMatrix matrix = calculator.calculate(from, to);
+            assertFalse(matrix.isReachable(0, 1));
+            assertFalse(matrix.isReachable(1, 0));
+            assertFalse(matrix.isReachable(2, 0));
+            assertEquals(Double.POSITIVE_INFINITY, matrix.getDistanceMeters(2, 0));
+            assertEquals(3, matrix.getTravelTimesSeconds().length);
+            assertEquals(2, matrix.getDistancesMeters()[0].length);
+        }
+    }
+
+    @Test
+    void testRejectsHierarchyForDistance() {
+        ContractionHierarchy hierarchy = ContractionHierarchyBuilder.build(csr, RouteMetric.DISTANCE);
+        assertThrows(IllegalArgumentException.class, () -> new TravelTimeMatrixCalculator(csr, hierarchy));
+    }
+}
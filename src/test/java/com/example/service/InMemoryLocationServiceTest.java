@@ -0,0 +1,159 @@
+package com.example.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.example.model.Coordinates;
+import com.example.model.Graph;
+import com.example.model.Location;
+import com.example.model.Node;
+import com.example.model.Store;
+import com.example.model.Way;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryLocationServiceTest {
+
+    private static final String[] WORDS = {"Golden", "Main", "Street", "Corner", "Sunset", "Pizza", "Market", "Cafe"};
+    private static final String[] AMENITIES = {"restaurant", "cafe", "fast_food", "pharmacy", "shop", ""};
+    private static final String[] CUISINES = {"pizza", "pizza;italian", "mexican", "american;burger", "thai", ""};
+    private static final String[] SHOPS = {"supermarket", "convenience", "books", "bakery", ""};
+
+    private InMemoryLocationService service;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(11);
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 1; i <= 400; i++) {
+            Map<String, String> tags = new HashMap<>();
+            tags.put("name", WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]);
+            tags.put("type", random.nextBoolean() ? "store" : "restaurant");
+            putIfNotEmpty(tags, "amenity", AMENITIES[random.nextInt(AMENITIES.length)]);
+            putIfNotEmpty(tags, "cuisine", CUISINES[random.nextInt(CUISINES.length)]);
+            putIfNotEmpty(tags, "shop", SHOPS[random.nextInt(SHOPS.length)]);
+            if (random.nextInt(4) == 0) {
+                tags.put("brand", "Acme");
+            }
+            nodes.add(new Node(i, 34.0 + random.nextDouble() * 0.1, -118.3 + random.nextDouble() * 0.1, tags));
+        }
+        service = new InMemoryLocationService(new Graph(nodes, List.of()));
+    }
+
+    private static void putIfNotEmpty(Map<String, String> tags, String key, String value) {
+        if (!value.isEmpty()) {
+            tags.put(key, value);
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "'', '', '', 3",
+            "pizza, '', '', 5",
+            "pi, restaurant, '', 5",
+            "'', restaurant, pizza, 4",
+            "'', restaurant, american, 10",
+            "cafe, store, '', 2",
+            "'', store, book, 6",
+            "acme, store, super, 8",
+            "golden market, '', '', 20",
+            "'', other, pizza, 2",
+            "xyz, '', '', 5"
+    })
+    void testSearchWithinRadiusMatchesScan(String query, String category, String type, double radiusKm) {
+        Coordinates center = new Coordinates(34.05, -118.25);
+        List<Long> expected = service.getAllLocations().stream()
+                .filter(location -> center.distanceTo(location.getCoordinates()) <= radiusKm)
+                .filter(location -> matchesByScan(location, query, category, type))
+                .map(Location::getId)
+                .sorted()
+                .toList();
+
+        List<Long> actual = service.searchLocationsWithinRadius(query, category, type, center, radiusKm).stream()
+                .map(Location::getId)
+                .sorted()
+                .toList();
+        assertEquals(expected, actual);
+    }
+
+    /** The per-location filter the search used before it had indexes. */
+    private static boolean matchesByScan(Location location, String query, String category, String type) {
+        if ("restaurant".equals(category) && !location.isRestaurant()) {
+            return false;
+        }
+        if ("store".equals(category) && !location.isStore()) {
+            return false;
+        }
+        if (!type.isEmpty()) {
+            if ("restaurant".equals(category) && !location.getCuisine().toLowerCase().contains(type)) {
+                return false;
+            }
+            if ("store".equals(category) && !location.getShop().toLowerCase().contains(type)) {
+                return false;
+            }
+        }
+        String keyword = query.toLowerCase();
+        return location.getName().toLowerCase().contains(keyword)
+                || location.getAmenity().toLowerCase().contains(keyword)
+                || location.getBrand().toLowerCase().contains(keyword)
+                || location.getAddress().toLowerCase().contains(keyword);
+    }
+
+    @Test
+    void testSearchByOsmTag() {
+        List<Long> expected = service.getAllLocations().stream()
+                .filter(location -> "pizza;italian".equals(location.getCuisine()))
+                .map(Location::getId)
+                .sorted()
+                .toList();
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, service.searchLocationsByOsmTag("cuisine", "pizza;italian").stream()
+                .map(Location::getId).sorted().toList());
+
+        // Keys without an index still work through a scan
+        assertEquals(service.getAllLocations().stream().filter(l -> "Acme".equals(l.getBrand())).count(),
+                     service.searchLocationsByOsmTag("brand", "Acme").size());
+    }
+
+    @Test
+    void testIndexesFollowUpdatesAndDeletes() {
+        Coordinates center = new Coordinates(34.05, -118.25);
+        Node node = new Node(1, 34.05, -118.25, Map.of("name", "Noodle Bar", "amenity", "restaurant", "cuisine", "ramen"));
+        service.updateLocation(new Store(1, 34.05, -118.25, node));
+
+        assertEquals(List.of(1L), service.searchLocationsByOsmTag("cuisine", "ramen").stream().map(Location::getId).toList());
+        assertEquals(List.of(1L), service.searchLocationsWithinRadius("noodle", "restaurant", "ramen", center, 1).stream()
+                .map(Location::getId).toList());
+        assertEquals(List.of(1L), service.searchLocations("noodle bar").stream().map(Location::getId).toList());
+
+        service.deleteLocation(1);
+        assertTrue(service.searchLocationsByOsmTag("cuisine", "ramen").isEmpty());
+        assertTrue(service.searchLocationsWithinRadius("noodle", "", "", center, 1).isEmpty());
+        assertNull(service.getLocationById(1));
+    }
+
+    @Test
+    void testLocationsAreAttachedToTheirNearestRoadNode() {
+        Node a = new Node(1, 34.0, -118.4);
+        Node b = new Node(2, 34.001, -118.4);
+        Way road = new Way(1L, a, b, Map.of("tags", Map.of("highway", "residential"), "nodes", List.of(1L, 2L)));
+        InMemoryLocationService roadService = new InMemoryLocationService(new Graph(List.of(a, b), List.of(road)));
+        assertTrue(roadService.getAllLocations().isEmpty(), "Road vertices are not locations");
+
+        Store offRoad = new Store(50, 34.0009, -118.4001, new Node(50, 34.0009, -118.4001, Map.of("name", "Corner Store")));
+        roadService.addLocation(offRoad);
+        assertTrue(roadService.findLocationsAtRoadNode(2).contains(offRoad));
+        assertTrue(roadService.findLocationsAtRoadNode(1).stream().noneMatch(location -> location.getId() == 50));
+
+        roadService.deleteLocation(50);
+        assertTrue(roadService.findLocationsAtRoadNode(2).stream().noneMatch(location -> location.getId() == 50));
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import com.example.model.Coordinates;
+import com.example.model.Location;
+import com.example.model.Node;
+import com.example.model.Store;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocationSpatialIndexTest {
+
+    private List<Location> locations;
+    private LocationSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(7);
+        locations = new ArrayList<>();
+        // A dense cluster around downtown Los Angeles...
+        for (int i = 0; i < 500; i++) {
+            locations.add(store(i, 34.0 + random.nextDouble() * 0.1, -118.3 + random.nextDouble() * 0.1));
+        }
+        // ...and a few far-away places, including both sides of the antimeridian
+        locations.add(store(1000, 40.7128, -74.0060));
+        locations.add(store(1001, -17.7, 179.99));
+        locations.add(store(1002, -17.7, -179.99));
+        locations.add(store(1003, 89.9, 10.0));
+
+        index = new LocationSpatialIndex();
+        locations.forEach(index::add);
+    }
+
+    private static Location store(long id, double lat, double lon) {
+        return new Store(id, lat, lon, new Node(id, lat, lon, Map.of("name", "Store " + id)));
+    }
+
+    @Test
+    void testWithinRadiusMatchesBruteForce() {
+        Random random = new Random(3);
+        Predicate<Location> even = location -> location.getId() % 2 == 0;
+
+        for (int i = 0; i < 200; i++) {
+            Coordinates center = new Coordinates(33.98 + random.nextDouble() * 0.14, -118.32 + random.nextDouble() * 0.14);
+            double radiusKm = random.nextDouble() * 5;
+            Predicate<Location> filter = i % 2 == 0 ? location -> true : even;
+
+            assertEquals(bruteForceWithinRadius(center, radiusKm, filter),
+                         ids(index.withinRadius(center, radiusKm, filter)),
+                         "radius " + radiusKm + " at " + center);
+        }
+    }
+
+    @Test
+    void testWithinRadiusAcrossAntimeridianAndPole() {
+        Coordinates dateLine = new Coordinates(-17.7, 180.0);
+        assertEquals(List.of(1001L, 1002L), ids(index.withinRadius(dateLine, 5, location -> true)));
+
+        Coordinates northPole = new Coordinates(90.0, 0.0);
+        assertEquals(List.of(1003L), ids(index.withinRadius(northPole, 20, location -> true)));
+
+        // Large enough to cover the whole planet
+        assertEquals(locations.size(), index.withinRadius(northPole, 25000, location -> true).size());
+    }
+
+    @Test
+    void testWithinRadiusIncludesBoundary() {
+        Coordinates center = new Coordinates(10.0, 10.0);
+        LocationSpatialIndex small = new LocationSpatialIndex();
+        Coordinates onCircle = Coordinates.getDestinationPoint(center, 3.0, 45);
+        Location location = store(1, onCircle.getLatitude(), onCircle.getLongitude());
+        small.add(location);
+
+        double distance = center.distanceTo(location.getCoordinates());
+        assertEquals(List.of(location), small.withinRadius(center, distance, l -> true));
+        assertEquals(List.of(), small.withinRadius(center, distance - 1e-6, l -> true));
+
+        small.add(store(2, 10.0, 10.0));
+        assertEquals(List.of(2L), ids(small.withinRadius(center, 0, l -> true)));
+    }
+
+    @Test
+    void testNearestMatchesBruteForce() {
+        Random random = new Random(5);
+
+        for (int i = 0; i < 200; i++) {
+            // Mostly near the cluster, sometimes far from everything
+            Coordinates point = i % 10 == 0
+                    ? new Coordinates(-60 + random.nextDouble() * 120, -180 + random.nextDouble() * 360)
+                    : new Coordinates(33.98 + random.nextDouble() * 0.14, -118.32 + random.nextDouble() * 0.14);
+            int k = 1 + random.nextInt(5);
+            Predicate<Location> filter = i % 3 == 0 ? location -> location.getId() % 7 == 0 : location -> true;
+
+            List<Double> expected = locations.stream()
+                    .filter(filter)
+                    .map(location -> point.distanceTo(location.getCoordinates()))
+                    .sorted()
+                    .limit(k)
+                    .toList();
+            List<Double> actual = index.nearest(point, k, filter).stream()
+                    .map(location -> point.distanceTo(location.getCoordinates()))
+                    .toList();
+            assertEquals(expected, actual, "k=" + k + " at " + point);
+        }
+    }
+
+    @Test
+    void testNearestWithNoMatches() {
+        assertTrue(index.nearest(new Coordinates(34.05, -118.25), 3, location -> false).isEmpty());
+        assertTrue(new LocationSpatialIndex().nearest(new Coordinates(0, 0), 1, location -> true).isEmpty());
+        assertTrue(index.nearest(new Coordinates(34.05, -118.25), 0, location -> true).isEmpty());
+    }
+
+    @Test
+    void testRemoveAndMove() {
+        Location moved = locations.get(0);
+        assertTrue(index.remove(moved));
+        assertFalse(index.remove(moved));
+        assertEquals(locations.size() - 1, index.size());
+
+        Location relocated = store(moved.getId(), 51.5074, -0.1278);
+        index.add(relocated);
+
+        Coordinates london = new Coordinates(51.5, -0.12);
+        assertEquals(List.of(relocated), index.nearest(london, 1, location -> true));
+        assertFalse(index.withinRadius(moved.getCoordinates(), 0, location -> true).contains(moved));
+        assertEquals(locations.size(), index.size());
+    }
+
+    private List<Long> bruteForceWithinRadius(Coordinates center, double radiusKm, Predicate<Location> filter) {
+        return locations.stream()
+                .filter(location -> Coordinates.haversineKm(center.getLatitude(), center.getLongitude(),
+                        location.getLatitude(), location.getLongitude()) <= radiusKm)
+                .filter(filter)
+                .map(Location::getId)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(List<Location> locations) {
+        return locations.stream().map(Location::getId).sorted(Comparator.naturalOrder()).toList();
+    }
+}
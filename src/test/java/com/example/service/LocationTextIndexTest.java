@@ -0,0 +1,135 @@
+package com.example.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import com.example.model.Location;
+import com.example.model.Node;
+import com.example.model.Restaurant;
+import com.example.model.Store;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocationTextIndexTest {
+
+    private static final Set<LocationTextIndex.Field> ALL_FIELDS = EnumSet.allOf(LocationTextIndex.Field.class);
+
+    private List<Location> locations;
+    private LocationOrdinals ordinals;
+    private LocationTextIndex index;
+
+    @BeforeEach
+    void setUp() {
+        locations = new ArrayList<>();
+        locations.add(store(1, Map.of("name", "Downtown Cafe", "amenity", "cafe", "brand", "Blue Bottle")));
+        locations.add(store(2, Map.of("name", "Central Library", "amenity", "library",
+                "addr:housenumber", "630", "addr:street", "West 5th Street")));
+        locations.add(store(3, Map.of("name", "City Supermarket", "shop", "supermarket", "brand", "Ralphs")));
+        locations.add(restaurant(4, Map.of("name", "Pizza Place", "amenity", "restaurant", "cuisine", "pizza",
+                "addr:full", "123 Main Street")));
+        locations.add(store(5, Map.of("name", "Main Street Pharmacy", "amenity", "pharmacy")));
+        locations.add(store(6, Map.of("name", "ÉCOLE Café")));
+        locations.add(store(7, Map.of()));
+
+        ordinals = new LocationOrdinals();
+        index = new LocationTextIndex(ordinals);
+        locations.forEach(this::add);
+    }
+
+    private void add(Location location) {
+        remove(location.getId());
+        index.add(ordinals.assign(location), location);
+    }
+
+    private boolean remove(long id) {
+        int ordinal = ordinals.ordinalOf(id);
+        if (ordinal < 0) {
+            return false;
+        }
+        index.remove(ordinal, ordinals.get(ordinal));
+        ordinals.release(id);
+        return true;
+    }
+
+    private List<Location> search(String query, Set<LocationTextIndex.Field> fields) {
+        return ordinals.resolve(index.search(query, fields));
+    }
+
+    private static Location store(long id, Map<String, String> tags) {
+        return new Store(id, 34.05, -118.25, new Node(id, 34.05, -118.25, new HashMap<>(tags)));
+    }
+
+    private static Location restaurant(long id, Map<String, String> tags) {
+        return new Restaurant(id, 34.05, -118.25, new Node(id, 34.05, -118.25, new HashMap<>(tags)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "c", "CA", "caf", "cafe", "café", "main", "street", "main street", "5th",
+            "ralphs", "e s", "tree", "lib", "pizza place", "zzz", "supermarkets", "123 main"})
+    void testSearchMatchesSubstringScan(String query) {
+        assertEquals(bruteForce(query, ALL_FIELDS), ids(search(query, ALL_FIELDS)), "query '" + query + "'");
+        Set<LocationTextIndex.Field> names = EnumSet.of(LocationTextIndex.Field.NAME);
+        assertEquals(bruteForce(query, names), ids(search(query, names)), "name query '" + query + "'");
+    }
+
+    @Test
+    void testSharedTrigramsInWrongOrderDoNotMatch() {
+        // Every trigram of "cafest" occurs in "Cafe Fest", but not as one run
+        add(store(10, Map.of("name", "Cafe Fest")));
+        assertTrue(search("cafest", ALL_FIELDS).isEmpty());
+        assertEquals(List.of(10L), ids(search("cafe fe", ALL_FIELDS)));
+    }
+
+    @Test
+    void testUpdatesAreIncremental() {
+        assertEquals(List.of(1L), ids(search("blue bottle", ALL_FIELDS)));
+
+        // Replacing a location drops its old text
+        add(store(1, Map.of("name", "Uptown Bakery")));
+        assertTrue(search("blue bottle", ALL_FIELDS).isEmpty());
+        assertEquals(List.of(1L), ids(search("bakery", ALL_FIELDS)));
+        assertEquals(locations.size(), ordinals.size());
+
+        assertTrue(remove(3));
+        assertFalse(remove(3));
+        assertTrue(search("supermarket", ALL_FIELDS).isEmpty());
+
+        // The freed ordinal is reused without leaking the removed location's postings
+        add(store(8, Map.of("name", "Corner Market")));
+        assertEquals(List.of(8L), ids(search("market", ALL_FIELDS)));
+        assertEquals(locations.size(), ordinals.size());
+    }
+
+    private List<Long> bruteForce(String query, Set<LocationTextIndex.Field> fields) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        List<Long> ids = new ArrayList<>();
+        for (Location location : locations) {
+            boolean matches = (fields.contains(LocationTextIndex.Field.NAME) && lower(location.getName()).contains(needle))
+                    || (fields.contains(LocationTextIndex.Field.AMENITY) && lower(location.getAmenity()).contains(needle))
+                    || (fields.contains(LocationTextIndex.Field.BRAND) && lower(location.getBrand()).contains(needle))
+                    || (fields.contains(LocationTextIndex.Field.ADDRESS) && lower(location.getAddress()).contains(needle));
+            if (matches) {
+                ids.add(location.getId());
+            }
+        }
+        return ids;
+    }
+
+    private static String lower(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private static List<Long> ids(List<Location> locations) {
+        return locations.stream().map(Location::getId).sorted().toList();
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.example.model.Coordinates;
+import com.example.model.Graph;
+import com.example.model.Node;
+import com.example.model.Route;
+import com.example.model.TestGraphs;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapServiceConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int QUERIES_PER_THREAD = 40;
+
+    private Graph graphA;
+    private Graph graphB;
+    private List<Coordinates[]> queries;
+
+    @BeforeEach
+    void setUp() {
+        // Same node ids, different coordinates and road types, so routes show which graph they came from
+        graphA = TestGraphs.grid(30, 30, 1);
+        graphB = TestGraphs.grid(30, 30, 2);
+        Random random = new Random(17);
+        queries = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            queries.add(new Coordinates[] {
+                    new Coordinates(34.0 + random.nextDouble() * 0.03, -118.45 + random.nextDouble() * 0.03),
+                    new Coordinates(34.0 + random.nextDouble() * 0.03, -118.45 + random.nextDouble() * 0.03)});
+        }
+    }
+
+    private MapService serviceFor(Graph graph) {
+        return new MapService(new InMemoryLocationService(graph), graph, RoutingAlgorithm.DIJKSTRA, SnapMode.NODE);
+    }
+
+    /**
+     * Creates a service without a route cache, so every call runs a search.
+     */
+    private MapService uncachedServiceFor(Graph graph) {
+        return new MapService(new InMemoryLocationService(graph), graph, RoutingAlgorithm.DIJKSTRA, SnapMode.NODE,
+                              0, MapService.DEFAULT_ROUTE_CACHE_TTL_SECONDS);
+    }
+
+    private List<List<Node>> expectedRoutes(Graph graph) {
+        MapService service = serviceFor(graph);
+        List<List<Node>> routes = new ArrayList<>();
+        for (Coordinates[] query : queries) {
+            routes.add(nodesOf(service.calculateFastestRoute(query[0], query[1])));
+        }
+        return routes;
+    }
+
+    private static List<Node> nodesOf(Route route) {
+        return route != null ? route.getNodes() : null;
+    }
+
+    @Test
+    void testConcurrentFastestRoutesMatchSequentialOnes() throws Exception {
+        List<List<Node>> expected = expectedRoutes(graphA);
+        MapService service = uncachedServiceFor(graphA);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < QUERIES_PER_THREAD; i++) {
+                        int q = random.nextInt(queries.size());
+                        Route route = service.calculateFastestRoute(queries.get(q)[0], queries.get(q)[1]);
+                        assertEquals(expected.get(q), nodesOf(route));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    @Test
+    void testRoutesStayConsistentWhileGraphIsReplaced() throws Exception {
+        List<List<Node>> expectedA = expectedRoutes(graphA);
+        List<List<Node>> expectedB = expectedRoutes(graphB);
+        MapService service = serviceFor(graphA);
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Integer> swapper = executor.submit(() -> {
+                int swaps = 0;
+                while (running.get()) {
+                    service.replaceGraph(swaps % 2 == 0 ? graphB : graphA);
+                    swaps++;
+                    Thread.sleep(1);
+                }
+                return swaps;
+            });
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < QUERIES_PER_THREAD; i++) {
+                        int q = random.nextInt(queries.size());
+                        List<Node> actual = nodesOf(service.calculateFastestRoute(queries.get(q)[0], queries.get(q)[1]));
+                        // Every route comes entirely from one graph or the other
+                        assertTrue(actual == null ? expectedA.get(q) == null || expectedB.get(q) == null
+                                                  : actual.equals(expectedA.get(q)) || actual.equals(expectedB.get(q)),
+                                   "Route mixes graphs for query " + q);
+                    }
+                    return null;
+                }));
+            }
+            try {
+                for (Future<?> future : futures) {
+                    future.get(60, TimeUnit.SECONDS);
+                }
+            } finally {
+                running.set(false);
+            }
+            assertTrue(swapper.get(60, TimeUnit.SECONDS) > 0);
+        }
+    }
+
+    @Test
+    void testReplaceGraphNeedsRoutingAlgorithm() {
+        MapService service = new MapService(new InMemoryLocationService(graphA), graphA,
+                new DijkstraRouteStrategy(graphA), new FastestRouteStrategy(graphA));
+        assertThrows(IllegalStateException.class, () -> service.replaceGraph(graphB));
+
+        MapService replaceable = serviceFor(graphA);
+        replaceable.replaceGraph(graphB);
+        assertSame(graphB, replaceable.getGraph());
+    }
+
+    @Test
+    void testUncachedServiceRunsEverySearch() {
+        MapService service = uncachedServiceFor(graphA);
+        Coordinates[] query = queries.get(0);
+        assertNotSame(service.calculateFastestRoute(query[0], query[1]), service.calculateFastestRoute(query[0], query[1]));
+        assertEquals(0, service.getRouteCacheStats().hits());
+    }
+}
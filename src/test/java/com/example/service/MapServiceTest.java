@@ -3,6 +3,7 @@ package com.example.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -10,11 +11,16 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
@@ -23,7 +29,13 @@ import com.example.model.Location;
 import com.example.model.Store;
 import com.example.model.Way;
 import com.example.model.Graph;
+import com.example.model.FastestPathFinder;
+import com.example.model.Isochrone;
+import com.example.model.ReachableLocation;
 import com.example.model.Route;
+import com.example.model.RouteMetric;
+import com.example.model.TestGraphs;
+import com.example.model.TravelTimeMatrix;
 import com.example.model.Node;
 
 
@@ -64,6 +76,18 @@ class MapServiceTest {
 
         // Set up the locationService mock to return our test locations
         when(locationService.getAllLocations()).thenReturn(locations);
+        // Answer spatial queries from an index over whatever getAllLocations() currently returns
+        when(locationService.findNearestLocation(any(), any())).thenAnswer(invocation ->
+                indexOf(locationService.getAllLocations())
+                        .nearest(invocation.getArgument(0), 1, invocation.getArgument(1)).stream().findFirst());
+        when(locationService.findLocationsWithinRadius(any(), anyDouble(), any())).thenAnswer(invocation ->
+                indexOf(locationService.getAllLocations())
+                        .withinRadius(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+        // Every test location is on its own road node
+        when(locationService.findLocationsAtRoadNode(anyLong())).thenAnswer(invocation ->
+                locationService.getAllLocations().stream()
+                        .filter(location -> location.getId() == (long) invocation.getArgument(0))
+                        .toList());
 
         // Initialize the MapService
         mapService = new MapService(locationService, graph);
@@ -71,6 +95,12 @@ class MapServiceTest {
         System.out.println("Graph initialized with " + graph.getNodeCount() + " nodes and " + graph.getWayCount() + " ways");
     }
 
+    private static LocationSpatialIndex indexOf(List<Location> locations) {
+        LocationSpatialIndex index = new LocationSpatialIndex();
+        locations.forEach(index::add);
+        return index;
+    }
+
     private Way createWay(long id, Node start, Node end) {
         Map<String, Object> data = new HashMap<>();
         data.put("id", id);
@@ -233,6 +263,49 @@ class MapServiceTest {
             assertTrue(route.getTotalDistance() > 0);
         }
 
+        @Test
+        void testRepeatedRoutesComeFromTheCache() {
+            Coordinates start = new Coordinates(34.0522, -118.2437);
+            Coordinates end = new Coordinates(34.0524, -118.2439);
+            // Nearby points snap to the same nodes, so they share the cached route
+            Coordinates nearStart = new Coordinates(34.05221, -118.24371);
+
+            Route first = mapService.calculateShortestRoute(start, end);
+            assertSame(first, mapService.calculateShortestRoute(nearStart, end));
+            assertNotSame(first, mapService.calculateFastestRoute(start, end), "Routes are cached per metric");
+            assertEquals(1, mapService.getRouteCacheStats().hits());
+            assertEquals(2, mapService.getRouteCacheStats().misses());
+
+            MapService.RouteLookup lookup = mapService.lookupRoute(start, end, RouteMetric.DISTANCE);
+            assertTrue(lookup.cached());
+            assertSame(first, lookup.route());
+        }
+
+        @Test
+        void testCachedRoutesAreRenderedOnce() {
+            Coordinates start = new Coordinates(34.0522, -118.2437);
+            Coordinates end = new Coordinates(34.0524, -118.2439);
+            AtomicInteger renders = new AtomicInteger();
+            Function<Route, String> renderer = route -> "route " + renders.incrementAndGet();
+
+            assertEquals("route 1", mapService.lookupRoute(start, end, RouteMetric.DISTANCE).render(renderer));
+            assertEquals("route 1", mapService.lookupRoute(start, end, RouteMetric.DISTANCE).render(renderer));
+            assertEquals("route 2", mapService.lookupRoute(start, end, RouteMetric.TIME).render(renderer));
+            assertEquals(2, renders.get());
+        }
+
+        @Test
+        void testReplacingTheGraphDropsCachedRoutes() {
+            Coordinates start = new Coordinates(34.0522, -118.2437);
+            Coordinates end = new Coordinates(34.0524, -118.2439);
+            Route first = mapService.calculateShortestRoute(start, end);
+
+            mapService.replaceGraph(graph);
+
+            assertNotSame(first, mapService.calculateShortestRoute(start, end));
+            assertEquals(0, mapService.getRouteCacheStats().hits());
+        }
+
         @Test
         void testRouteWithSameStartAndEnd() {
             Coordinates start = new Coordinates(34.0522, -118.2437);
@@ -254,6 +327,244 @@ class MapServiceTest {
         }
     }
 
+    @Nested
+    class EdgeSnappedRouteTests {
+        private MapService edgeMapService;
+
+        @BeforeEach
+        void setUp() {
+            edgeMapService = new MapService(locationService, graph, RoutingAlgorithm.DIJKSTRA, SnapMode.EDGE);
+        }
+
+        @Test
+        void testRouteStartsAndEndsOnSegments() {
+            // Just off the road, partway between nodes 1 and 2, and between nodes 3 and 4
+            Coordinates start = new Coordinates(34.05223, -118.24374);
+            Coordinates end = new Coordinates(34.05246, -118.24394);
+
+            Route route = edgeMapService.calculateShortestRoute(start, end);
+
+            assertNotNull(route);
+            List<Long> ids = route.getNodes().stream().map(Node::id).toList();
+            assertEquals(List.of(-1L, 2L, 3L, -2L), ids);
+            assertEquals(3, route.getRouteSegments().size());
+            assertTrue(route.getEstimatedTime(true) > 0);
+
+            Route nodeRoute = mapService.calculateShortestRoute(start, end);
+            assertTrue(route.getTotalDistance() < nodeRoute.getTotalDistance(),
+                       "Starting on the segment should avoid the detour through its end node");
+        }
+
+        @Test
+        void testRouteAlongOneSegment() {
+            Coordinates start = new Coordinates(34.05222, -118.24372);
+            Coordinates end = new Coordinates(34.05228, -118.24378);
+
+            Route route = edgeMapService.calculateFastestRoute(start, end);
+
+            assertNotNull(route);
+            assertEquals(2, route.getNodes().size());
+            assertEquals(1, route.getRouteSegments().size());
+        }
+
+        @Test
+        void testRouteWithUnreachableEnd() {
+            Coordinates start = new Coordinates(34.0522, -118.2437);
+            Coordinates end = new Coordinates(40.7128, -74.0060);
+
+            assertNull(edgeMapService.calculateShortestRoute(start, end));
+        }
+
+        @Test
+        void testPointsOnTheSameSegmentsShareTheCachedCoreRoute() {
+            Coordinates start = new Coordinates(34.05223, -118.24374);
+            Coordinates end = new Coordinates(34.05246, -118.24394);
+            Coordinates nearStart = new Coordinates(34.05225, -118.24375);
+
+            MapService.RouteLookup first = edgeMapService.lookupRoute(start, end, RouteMetric.DISTANCE);
+            MapService.RouteLookup second = edgeMapService.lookupRoute(nearStart, end, RouteMetric.DISTANCE);
+
+            assertFalse(first.cached());
+            assertTrue(second.cached(), "The core route between the segments is reused");
+            assertEquals(List.of(-1L, 2L, 3L, -2L), second.route().getNodes().stream().map(Node::id).toList());
+            assertNotEquals(first.route().getNodes().get(0).lat(), second.route().getNodes().get(0).lat(),
+                            "Each request gets its own partial segment");
+        }
+
+        @Test
+        void testCachedSnappedRoutesMatchUncachedOnes() {
+            Graph grid = TestGraphs.grid(8, 8, 3);
+            MapService cached = new MapService(locationService, grid, RoutingAlgorithm.DIJKSTRA, SnapMode.EDGE);
+            MapService uncached = new MapService(locationService, grid, RoutingAlgorithm.DIJKSTRA, SnapMode.EDGE,
+                                                 0, MapService.DEFAULT_ROUTE_CACHE_TTL_SECONDS);
+            Random random = new Random(5);
+            // Few distinct areas, so most requests land on segments routed before
+            Coordinates[] centers = new Coordinates[4];
+            for (int i = 0; i < centers.length; i++) {
+                centers[i] = new Coordinates(34.0 + random.nextDouble() * 0.007, -118.45 + random.nextDouble() * 0.007);
+            }
+            for (int i = 0; i < 200; i++) {
+                Coordinates start = jitter(centers[random.nextInt(centers.length)], random);
+                Coordinates end = jitter(centers[random.nextInt(centers.length)], random);
+                for (RouteMetric metric : RouteMetric.values()) {
+                    MapService.RouteLookup expected = uncached.lookupRoute(start, end, metric);
+                    MapService.RouteLookup actual = cached.lookupRoute(start, end, metric);
+                    assertEquals(expected == null, actual == null, "Route from " + start + " to " + end);
+                    if (expected != null) {
+                        assertEquals(expected.route().getTotalDistance(), actual.route().getTotalDistance(), 1e-9);
+                        assertEquals(expected.route().getEstimatedTime(true), actual.route().getEstimatedTime(true), 1e-9);
+                    }
+                }
+            }
+            assertTrue(cached.getRouteCacheStats().hits() > 0);
+        }
+
+        private static Coordinates jitter(Coordinates center, Random random) {
+            return new Coordinates(center.getLatitude() + (random.nextDouble() - 0.5) * 0.0006,
+                                   center.getLongitude() + (random.nextDouble() - 0.5) * 0.0006);
+        }
+
+        @Test
+        void testSnappedRoutesAgreeAcrossAlgorithms(@TempDir Path cacheDirectory) {
+            Graph grid = TestGraphs.grid(10, 10, 2, 7);
+            MapService reference = new MapService(locationService, grid, new DijkstraRouteStrategy(grid),
+                                                  new FastestRouteStrategy(grid), SnapMode.EDGE);
+            List<MapService> services = new ArrayList<>();
+            for (RouteStrategy strategy : List.of(
+                    new AStarRouteStrategy(grid, RouteMetric.DISTANCE),
+                    new BidirectionalRouteStrategy(grid, RouteMetric.DISTANCE),
+                    new LandmarkRouteStrategy(grid, RouteMetric.DISTANCE, 4, cacheDirectory),
+                    new ContractionHierarchyRouteStrategy(grid, RouteMetric.DISTANCE, cacheDirectory))) {
+                services.add(new MapService(locationService, grid, strategy, strategy, SnapMode.EDGE));
+            }
+
+            Random random = new Random(11);
+            for (int i = 0; i < 50; i++) {
+                Coordinates start = new Coordinates(34.0 + random.nextDouble() * 0.01, -118.45 + random.nextDouble() * 0.01);
+                Coordinates end = new Coordinates(34.0 + random.nextDouble() * 0.01, -118.45 + random.nextDouble() * 0.01);
+                Route expected = reference.calculateShortestRoute(start, end);
+                for (MapService service : services) {
+                    Route actual = service.calculateShortestRoute(start, end);
+                    assertEquals(expected == null, actual == null, "Route from " + start + " to " + end);
+                    if (expected != null) {
+                        assertEquals(expected.getTotalDistance(), actual.getTotalDistance(), 1e-6,
+                                     "Route from " + start + " to " + end);
+                    }
+                }
+            }
+        }
+    }
+
+    @Nested
+    class NearestByTravelTimeTests {
+        @Test
+        void testFindsLocationsSoonestReachedFirst() {
+            List<ReachableLocation> nearest = mapService.findNearestByTravelTime(new Coordinates(34.0526, -118.2441), null, 3);
+
+            assertEquals(List.of(5L, 4L, 3L), nearest.stream().map(reachable -> reachable.location().getId()).toList());
+            assertEquals(0, nearest.get(0).travelTimeSeconds());
+            assertTrue(nearest.get(1).travelTimeSeconds() < nearest.get(2).travelTimeSeconds());
+            assertTrue(nearest.get(2).distanceMeters() > nearest.get(1).distanceMeters());
+        }
+
+        @Test
+        void testAppliesFilter() {
+            List<ReachableLocation> nearest = mapService.findNearestByTravelTime(new Coordinates(34.0522, -118.2437),
+                    location -> "restaurant".equals(location.getAmenity()), 5);
+
+            assertEquals(1, nearest.size());
+            assertEquals(4L, nearest.get(0).location().getId());
+        }
+
+        @Test
+        void testRanksByDriveTimeNotStraightLine() {
+            Graph grid = TestGraphs.grid(20, 20, 6);
+            // A point of interest on every road node
+            List<Node> shops = grid.getNodes().stream()
+                    .map(node -> new Node(node.id(), node.lat(), node.lon(), Map.of("shop", "convenience")))
+                    .toList();
+            MapService gridService = new MapService(new InMemoryLocationService(grid, shops), grid, RoutingAlgorithm.DIJKSTRA);
+            Node origin = grid.getNodes().get(210);
+            Predicate<Location> everyThird = location -> location.getId() % 3 == 0;
+
+            List<ReachableLocation> nearest = gridService.findNearestByTravelTime(
+                    new Coordinates(origin.lat(), origin.lon()), everyThird, 10);
+
+            // Reference: a fastest route to every candidate
+            FastestPathFinder finder = new FastestPathFinder(grid);
+            List<Double> expected = grid.getNodes().stream()
+                    .filter(node -> node.id() % 3 == 0)
+                    .map(node -> finder.findFastestPath(origin, node))
+                    .filter(path -> path != null)
+                    .map(path -> TestGraphs.pathCost(grid, path, RouteMetric.TIME))
+                    .sorted()
+                    .limit(10)
+                    .toList();
+            assertEquals(10, nearest.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), nearest.get(i).travelTimeSeconds(), 1e-6);
+            }
+        }
+
+        @Test
+        void testRejectsNonPositiveK() {
+            assertThrows(IllegalArgumentException.class,
+                         () -> mapService.findNearestByTravelTime(new Coordinates(34.0522, -118.2437), null, 0));
+        }
+    }
+
+    @Nested
+    class IsochroneTests {
+        @Test
+        void testFindsLocationsWithinTheLimit() {
+            Coordinates origin = new Coordinates(34.0522, -118.2437);
+            Isochrone everything = mapService.calculateIsochrone(origin, 3600);
+            assertEquals(5, everything.getNodeCount());
+            assertEquals(5, mapService.findLocationsWithin(everything, null).size());
+
+            // Roughly one segment further than the nearest location
+            double secondSeconds = mapService.findNearestByTravelTime(origin, null, 2).get(1).travelTimeSeconds();
+            Isochrone near = mapService.calculateIsochrone(origin, secondSeconds);
+            List<ReachableLocation> locations = mapService.findLocationsWithin(near, null);
+            assertEquals(List.of(1L, 2L), locations.stream().map(reachable -> reachable.location().getId()).toList());
+            assertEquals(List.of(4L), mapService.findLocationsWithin(everything,
+                    location -> "restaurant".equals(location.getAmenity())).stream()
+                    .map(reachable -> reachable.location().getId()).toList());
+        }
+
+        @Test
+        void testOriginFarFromRoads() {
+            assertNull(mapService.calculateIsochrone(new Coordinates(40.7128, -74.0060), 600));
+        }
+    }
+
+    @Nested
+    class TravelTimeMatrixTests {
+        @Test
+        void testMatrixMatchesFastestRoutes() {
+            List<Coordinates> origins = List.of(new Coordinates(34.0522, -118.2437), new Coordinates(34.0526, -118.2441));
+            List<Coordinates> destinations = List.of(new Coordinates(34.0524, -118.2439),
+                                                     new Coordinates(34.0522, -118.2437),
+                                                     new Coordinates(40.7128, -74.0060));
+
+            TravelTimeMatrix matrix = mapService.calculateTravelTimeMatrix(origins, destinations);
+
+            Route route = mapService.calculateFastestRoute(origins.get(0), destinations.get(0));
+            assertEquals(route.getTotalDistance() * 1000, matrix.getDistanceMeters(0, 0), 1e-3);
+            assertTrue(matrix.getTravelTimeSeconds(0, 0) > 0);
+            assertEquals(0, matrix.getTravelTimeSeconds(0, 1));
+            // The second origin is at the far end of the road, so it passes the first destination
+            assertTrue(matrix.getTravelTimeSeconds(1, 1) > matrix.getTravelTimeSeconds(1, 0));
+            assertFalse(matrix.isReachable(0, 2), "Points far from any road cannot be reached");
+        }
+
+        @Test
+        void testEmptyPointListsAreRejected() {
+            assertThrows(IllegalArgumentException.class,
+                         () -> mapService.calculateTravelTimeMatrix(List.of(), List.of(new Coordinates(34.0522, -118.2437))));
+        }
+    }
+
     @Test
     void testGetNodeCount() {
         assertEquals(5, mapService.getNodeCount(), "Expected 5 nodes in the graph");
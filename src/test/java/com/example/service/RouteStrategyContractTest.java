@@ -0,0 +1,247 @@
+package com.example.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import com.example.model.Graph;
+import com.example.model.Node;
+import com.example.model.PathEndpoint;
+import com.example.model.Route;
+import com.example.model.RouteMetric;
+import com.example.model.TestGraphs;
+import com.example.model.Way;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The checks a routing algorithm has to pass against plain Dijkstra search, under both
+ * metrics, written once for any {@link RoutingAlgorithm}: equal route costs, multi-endpoint
+ * searches, one-way streets, unreachable targets, and reuse of saved preprocessing.
+ *
+ * It runs for {@link RoutingAlgorithm#ALT}. The algorithms that came before it are checked by
+ * their own path finder tests; checks particular to one algorithm, such as how much work it
+ * saves, stay there too.
+ */
+class RouteStrategyContractTest {
+    /** Plain grids, and grids whose blocks are drawn with shape points as OSM ways are. */
+    private static final Map<String, Graph> FIXTURES = Map.of(
+            "grid", TestGraphs.grid(25, 25, 3),
+            "shaped grid", TestGraphs.grid(12, 12, 3, 5));
+
+    /** The algorithms held to this contract. */
+    private static final List<RoutingAlgorithm> ALGORITHMS = List.of(RoutingAlgorithm.ALT);
+
+    @TempDir
+    Path cacheDirectory;
+    private String previousCacheDirectory;
+
+    @BeforeEach
+    void setUp() {
+        previousCacheDirectory = System.getProperty(RoutingAlgorithm.CH_DIRECTORY_PROPERTY);
+        System.setProperty(RoutingAlgorithm.CH_DIRECTORY_PROPERTY, cacheDirectory.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (previousCacheDirectory == null) {
+            System.clearProperty(RoutingAlgorithm.CH_DIRECTORY_PROPERTY);
+        } else {
+            System.setProperty(RoutingAlgorithm.CH_DIRECTORY_PROPERTY, previousCacheDirectory);
+        }
+    }
+
+    static List<RoutingAlgorithm> algorithms() {
+        return ALGORITHMS;
+    }
+
+    static Stream<Arguments> algorithmsAndFixtures() {
+        return ALGORITHMS.stream()
+                .flatMap(algorithm -> FIXTURES.keySet().stream().sorted().map(fixture -> Arguments.of(algorithm, fixture)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("algorithmsAndFixtures")
+    void testMatchesDijkstra(RoutingAlgorithm algorithm, String fixture) {
+        Graph graph = FIXTURES.get(fixture);
+        List<Node> nodes = graph.getNodes();
+        for (RouteMetric metric : RouteMetric.values()) {
+            RouteStrategy reference = RoutingAlgorithm.DIJKSTRA.createStrategy(graph, metric);
+            RouteStrategy strategy = algorithm.createStrategy(graph, metric);
+            Random random = new Random(11);
+
+            for (int i = 0; i < 60; i++) {
+                Node start = nodes.get(random.nextInt(nodes.size()));
+                Node end = nodes.get(random.nextInt(nodes.size()));
+                Route expected = reference.calculateRoute(start, end);
+                Route actual = strategy.calculateRoute(start, end);
+
+                String description = metric + " route from " + start.id() + " to " + end.id();
+                assertEquals(expected == null, actual == null, description);
+                if (expected != null) {
+                    assertEquals(start, actual.getNodes().get(0), description);
+                    assertEquals(end, actual.getNodes().get(actual.getNodes().size() - 1), description);
+                    // pathCost also checks that every step, e.g. of an unpacked shortcut, is a real edge
+                    assertEquals(TestGraphs.pathCost(graph, expected.getNodes(), metric),
+                                 TestGraphs.pathCost(graph, actual.getNodes(), metric), 1e-6, description);
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("algorithmsAndFixtures")
+    void testMultipleEndpointsMatchCheapestPair(RoutingAlgorithm algorithm, String fixture) {
+        Graph graph = FIXTURES.get(fixture);
+        List<Node> nodes = graph.getNodes();
+        for (RouteMetric metric : RouteMetric.values()) {
+            RouteStrategy reference = RoutingAlgorithm.DIJKSTRA.createStrategy(graph, metric);
+            RouteStrategy strategy = algorithm.createStrategy(graph, metric);
+            Random random = new Random(17);
+
+            for (int i = 0; i < 20; i++) {
+                List<PathEndpoint> starts = randomEndpoints(nodes, random);
+                List<PathEndpoint> ends = randomEndpoints(nodes, random);
+                double expected = Double.POSITIVE_INFINITY;
+                for (PathEndpoint start : starts) {
+                    for (PathEndpoint end : ends) {
+                        Route route = reference.calculateRoute(start.node(), end.node());
+                        if (route != null) {
+                            expected = Math.min(expected, start.cost()
+                                    + TestGraphs.pathCost(graph, route.getNodes(), metric) + end.cost());
+                        }
+                    }
+                }
+                Route actual = strategy.calculateRoute(starts, ends);
+
+                String description = metric + " route from " + starts + " to " + ends;
+                assertEquals(expected == Double.POSITIVE_INFINITY, actual == null, description);
+                if (actual != null) {
+                    List<Node> path = actual.getNodes();
+                    assertEquals(expected, costAt(starts, path.get(0))
+                            + TestGraphs.pathCost(graph, path, metric) + costAt(ends, path.get(path.size() - 1)),
+                            1e-6, description);
+                }
+            }
+
+            // A node both routes may use for free needs no search at all
+            Node shared = nodes.get(nodes.size() / 2);
+            Route meeting = strategy.calculateRoute(
+                    List.of(new PathEndpoint(nodes.get(0), 0), new PathEndpoint(shared, 0)),
+                    List.of(new PathEndpoint(shared, 0), new PathEndpoint(nodes.get(nodes.size() - 1), 0)));
+            assertEquals(List.of(shared), meeting.getNodes());
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("algorithms")
+    void testRespectsOneWayStreets(RoutingAlgorithm algorithm) {
+        Node a = new Node(1, 34.0, -118.4);
+        Node b = new Node(2, 34.001, -118.4);
+        Way oneWay = new Way(1L, a, b, Map.of("tags", Map.of("highway", "residential", "oneway", "yes"),
+                                              "nodes", List.of(1L, 2L)));
+        Graph graph = new Graph(List.of(a, b), List.of(oneWay));
+
+        for (RouteMetric metric : RouteMetric.values()) {
+            RouteStrategy strategy = algorithm.createStrategy(graph, metric);
+            assertEquals(List.of(a, b), strategy.calculateRoute(a, b).getNodes());
+            assertNull(strategy.calculateRoute(b, a));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("algorithms")
+    void testNoPath(RoutingAlgorithm algorithm) {
+        Graph disconnected = new Graph(List.of(new Node(1, 34.0, -118.4), new Node(2, 34.1, -118.4)), List.of());
+
+        for (RouteMetric metric : RouteMetric.values()) {
+            assertNull(algorithm.createStrategy(disconnected, metric)
+                    .calculateRoute(disconnected.getNode(1), disconnected.getNode(2)));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("algorithms")
+    void testReusesSavedPreprocessing(RoutingAlgorithm algorithm) throws IOException {
+        Graph graph = FIXTURES.get("grid");
+        RouteStrategy built = algorithm.createStrategy(graph, RouteMetric.TIME);
+        Path file = onlyFile(cacheDirectory);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+
+        RouteStrategy loaded = algorithm.createStrategy(graph, RouteMetric.TIME);
+        assertEquals(file, onlyFile(cacheDirectory));
+        assertEquals(modified, Files.getLastModifiedTime(file).toMillis(), "The saved file is reused, not rewritten");
+
+        List<Node> nodes = graph.getNodes();
+        Random random = new Random(3);
+        for (int i = 0; i < 20; i++) {
+            Node start = nodes.get(random.nextInt(nodes.size()));
+            Node end = nodes.get(random.nextInt(nodes.size()));
+            Route expected = built.calculateRoute(start, end);
+            Route actual = loaded.calculateRoute(start, end);
+            assertEquals(expected == null ? null : expected.getNodes(), actual == null ? null : actual.getNodes());
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("algorithms")
+    void testRebuildsPreprocessingOfAnotherGraph(RoutingAlgorithm algorithm) throws IOException {
+        Graph graph = FIXTURES.get("grid");
+        algorithm.createStrategy(graph, RouteMetric.DISTANCE);
+        Path file = onlyFile(cacheDirectory);
+        byte[] saved = Files.readAllBytes(file);
+
+        // Overwrite the saved file with one built for a different graph
+        Path otherDirectory = Files.createDirectory(cacheDirectory.resolve("other"));
+        System.setProperty(RoutingAlgorithm.CH_DIRECTORY_PROPERTY, otherDirectory.toString());
+        algorithm.createStrategy(TestGraphs.grid(5, 5, 1), RouteMetric.DISTANCE);
+        Files.copy(onlyFile(otherDirectory), file, StandardCopyOption.REPLACE_EXISTING);
+        System.setProperty(RoutingAlgorithm.CH_DIRECTORY_PROPERTY, cacheDirectory.toString());
+
+        RouteStrategy strategy = algorithm.createStrategy(graph, RouteMetric.DISTANCE);
+        assertArrayEquals(saved, Files.readAllBytes(file), "The mismatched file is rebuilt and saved again");
+        RouteStrategy reference = RoutingAlgorithm.DIJKSTRA.createStrategy(graph, RouteMetric.DISTANCE);
+        Node start = graph.getNodes().get(0);
+        Node end = graph.getNodes().get(graph.getNodes().size() - 1);
+        assertEquals(TestGraphs.pathCost(graph, reference.calculateRoute(start, end).getNodes(), RouteMetric.DISTANCE),
+                     TestGraphs.pathCost(graph, strategy.calculateRoute(start, end).getNodes(), RouteMetric.DISTANCE),
+                     1e-6);
+    }
+
+    private static List<PathEndpoint> randomEndpoints(List<Node> nodes, Random random) {
+        List<PathEndpoint> endpoints = new ArrayList<>();
+        int count = 1 + random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            double cost = random.nextBoolean() ? 0 : random.nextDouble() * 200;
+            endpoints.add(new PathEndpoint(nodes.get(random.nextInt(nodes.size())), cost));
+        }
+        return endpoints;
+    }
+
+    private static double costAt(List<PathEndpoint> endpoints, Node node) {
+        return endpoints.stream().filter(endpoint -> endpoint.node().equals(node))
+                .mapToDouble(PathEndpoint::cost).min().orElseThrow();
+    }
+
+    private static Path onlyFile(Path directory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(Files::isRegularFile).toList();
+        }
+        assertEquals(1, files.size(), "Files in " + directory + ": " + files);
+        return files.get(0);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.example.model.Graph;
+import com.example.model.Node;
+import com.example.model.Way;
+import com.fasterxml.jackson.core.JsonParseException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OSMDataLoaderTest {
+
+    private static final String NODES = """
+            [
+              {"type": "node", "id": 1, "lat": 34.0, "lon": -118.0, "tags": {"name": "Cafe", "amenity": "cafe"}},
+              {"type": "node", "id": 2, "lat": 34.001, "lon": -118.0},
+              {"type": "node", "id": 3, "lat": 34.002, "lon": -118.001, "extra": {"nested": [1, 2]}},
+              {"type": "node", "id": 4000000000, "lat": 34.003, "lon": -118.002, "tags": {}}
+            ]""";
+
+    private static final String WAYS = """
+            [
+              {"type": "way", "id": 10, "nodes": [1, 2, 3], "tags": {"highway": "residential", "name": "Main St"}},
+              {"type": "way", "id": 11, "nodes": [3, 4000000000], "tags": {"highway": "primary", "oneway": "yes"}},
+              {"type": "way", "id": 12, "nodes": [1, 3], "tags": {"building": "yes"}}
+            ]""";
+
+    private final OSMDataLoader loader = new OSMDataLoader();
+
+    private static InputStream json(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testStreamNodesMatchesLoadData() throws IOException {
+        List<Node> expected = loader.loadData(json(NODES), Node::fromMap);
+        List<Node> actual = new ArrayList<>();
+        loader.streamNodes(json(NODES), actual::add);
+
+        assertEquals(expected, actual);
+        assertEquals("Cafe", actual.get(0).getTag("name"));
+        assertEquals(4000000000L, actual.get(3).id());
+    }
+
+    @Test
+    void testStreamWaysMatchesLoadData() throws IOException {
+        List<Way> expected = loader.loadData(json(WAYS), Way::fromMap);
+        List<Way> actual = new ArrayList<>();
+        loader.streamWays(json(WAYS), actual::add);
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).id(), actual.get(i).id());
+            assertEquals(expected.get(i).startNode(), actual.get(i).startNode());
+            assertEquals(expected.get(i).endNode(), actual.get(i).endNode());
+            assertEquals(expected.get(i).getNodeIds(), actual.get(i).getNodeIds());
+            assertEquals(expected.get(i).getTags(), actual.get(i).getTags());
+            assertEquals(expected.get(i).isOneWay(), actual.get(i).isOneWay());
+        }
+    }
+
+    @Test
+    void testStreamingIntoGraphMatchesListConstructor() throws IOException {
+        Graph expected = new Graph(loader.loadData(json(NODES), Node::fromMap), loader.loadData(json(WAYS), Way::fromMap));
+        Graph actual = new Graph();
+        loader.streamNodes(json(NODES), actual::addNode);
+        loader.streamWays(json(WAYS), actual::addWay);
+
+        assertEquals(expected.compact().getFingerprint(), actual.compact().getFingerprint());
+        assertEquals(expected.getNodeCount(), actual.getNodeCount());
+        assertEquals(expected.getWayCount(), actual.getWayCount());
+    }
+
+    @Test
+    void testRejectsInvalidInput() {
+        assertThrows(JsonParseException.class, () -> loader.streamNodes(json("{\"id\": 1}"), node -> { }));
+        assertThrows(JsonParseException.class, () -> loader.streamNodes(json("[1, 2]"), node -> { }));
+        assertThrows(IllegalArgumentException.class,
+                () -> loader.streamNodes(json("[{\"id\": 1, \"lat\": 34.0}]"), node -> { }));
+        assertThrows(IllegalArgumentException.class,
+                () -> loader.streamWays(json("[{\"id\": 1, \"nodes\": [], \"tags\": {}}]"), way -> { }));
+        assertThrows(JsonParseException.class,
+                () -> loader.streamWays(json("[{\"id\": 1, \"nodes\": [\"a\"]}]"), way -> { }));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedLruCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private SegmentedLruCache<Integer, String> cache(int capacity) {
+        return new SegmentedLruCache<>(capacity, 10, TimeUnit.SECONDS, now::get);
+    }
+
+    @Test
+    void testCountsHitsAndMisses() {
+        SegmentedLruCache<Integer, String> cache = cache(10);
+        assertNull(cache.get(1));
+        cache.put(1, "one");
+        assertEquals("one", cache.get(1));
+        assertEquals("one", cache.get(1));
+
+        SegmentedLruCache.Stats stats = cache.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.size());
+        assertEquals(2.0 / 3, stats.hitRate(), 1e-9);
+    }
+
+    @Test
+    void testOneOffKeysDoNotEvictEntriesReadAgain() {
+        SegmentedLruCache<Integer, String> cache = cache(10);
+        for (int key = 0; key < 5; key++) {
+            cache.put(key, "hot " + key);
+            cache.get(key);
+        }
+        // A scan of one-off keys only cycles through the probationary segment
+        for (int key = 100; key < 200; key++) {
+            cache.put(key, "cold " + key);
+        }
+        for (int key = 0; key < 5; key++) {
+            assertEquals("hot " + key, cache.get(key));
+        }
+        assertEquals(10, cache.size());
+        assertEquals(95, cache.stats().evictions());
+    }
+
+    @Test
+    void testProtectedOverflowFallsBackToProbation() {
+        SegmentedLruCache<Integer, String> cache = cache(5);
+        // The protected segment holds 4 entries; promoting a fifth demotes key 0 instead of dropping it
+        for (int key = 0; key < 5; key++) {
+            cache.put(key, "value " + key);
+            cache.get(key);
+        }
+        assertEquals(5, cache.size());
+        assertEquals("value 0", cache.get(0));
+        cache.put(9, "new");
+        assertEquals(5, cache.size());
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void testEntriesExpire() {
+        SegmentedLruCache<Integer, String> cache = cache(10);
+        cache.put(1, "one");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(9));
+        assertEquals("one", cache.get(1));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertNull(cache.get(1));
+        assertEquals(0, cache.size());
+
+        cache.put(1, "again");
+        assertEquals("again", cache.get(1));
+    }
+
+    @Test
+    void testInvalidateAllAndDisabledCache() {
+        SegmentedLruCache<Integer, String> cache = cache(10);
+        cache.put(1, "one");
+        cache.invalidateAll();
+        assertNull(cache.get(1));
+
+        SegmentedLruCache<Integer, String> disabled = cache(0);
+        disabled.put(1, "one");
+        assertNull(disabled.get(1));
+        assertThrows(IllegalArgumentException.class, () -> cache(-1));
+    }
+}